@@ -0,0 +1,266 @@
+package com.travelhub.booking.api;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming decoder for booking responses, in JSON or in Smile (see {@link WireFormat}).
+ *
+ * Reads the records straight off Jackson's token stream, without building a tree or a
+ * {@code Map} first. Both formats produce the same tokens, so one decoder serves both.
+ * Unknown fields are skipped so booking-service can add fields without breaking older clients.
+ */
+public final class BookingJsonCodec {
+    
+    private BookingJsonCodec() {
+    }
+    
+    public static UserBookings readUserBookings(byte[] json) throws IOException {
+        return readUserBookings(json, WireFormat.JSON);
+    }
+    
+    public static UserBookings readUserBookings(byte[] body, WireFormat format) throws IOException {
+        try (JsonParser parser = format.factory().createParser(body)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            return readUserBookings(parser);
+        }
+    }
+    
+    public static UserBookingsBatch readUserBookingsBatch(byte[] json) throws IOException {
+        return readUserBookingsBatch(json, WireFormat.JSON);
+    }
+    
+    public static UserBookingsBatch readUserBookingsBatch(byte[] body, WireFormat format) throws IOException {
+        try (JsonParser parser = format.factory().createParser(body)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            return readUserBookingsBatch(parser);
+        }
+    }
+    
+    /**
+     * Read a {@link UserBookings} object. The parser must be positioned on its START_OBJECT.
+     */
+    public static UserBookings readUserBookings(JsonParser parser) throws IOException {
+        long userId = -1;
+        List<BookingSummary> bookings = null;
+        LocalDateTime timestamp = null;
+        
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "userId":
+                    expect(parser, value, JsonToken.VALUE_NUMBER_INT);
+                    userId = parser.getLongValue();
+                    break;
+                case "bookings":
+                    expect(parser, value, JsonToken.START_ARRAY);
+                    bookings = new ArrayList<>();
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        bookings.add(readBookingSummary(parser));
+                    }
+                    expect(parser, parser.currentToken(), JsonToken.END_ARRAY);
+                    break;
+                case "timestamp":
+                    timestamp = readTimestamp(parser, value);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        expect(parser, parser.currentToken(), JsonToken.END_OBJECT);
+        
+        if (userId < 0) {
+            throw new JsonParseException(parser, "Booking response has no userId");
+        }
+        if (bookings == null) {
+            throw new JsonParseException(parser, "Booking response for user " + userId + " has no bookings");
+        }
+        return new UserBookings(userId, bookings, timestamp);
+    }
+    
+    /**
+     * Read a {@link UserBookingsBatch} object. The parser must be positioned on its START_OBJECT.
+     */
+    public static UserBookingsBatch readUserBookingsBatch(JsonParser parser) throws IOException {
+        Map<Long, UserBookings> results = null;
+        LocalDateTime timestamp = null;
+        
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "results":
+                    expect(parser, value, JsonToken.START_OBJECT);
+                    results = new HashMap<>();
+                    while (parser.nextFieldName() != null) {
+                        expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+                        UserBookings entry = readUserBookings(parser);
+                        results.put(entry.userId(), entry);
+                    }
+                    break;
+                case "timestamp":
+                    timestamp = readTimestamp(parser, value);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        expect(parser, parser.currentToken(), JsonToken.END_OBJECT);
+        
+        if (results == null) {
+            throw new JsonParseException(parser, "Batch booking response has no results");
+        }
+        return new UserBookingsBatch(results, timestamp);
+    }
+    
+    private static BookingSummary readBookingSummary(JsonParser parser) throws IOException {
+        long id = -1;
+        String destination = null;
+        String status = null;
+        
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id":
+                    expect(parser, value, JsonToken.VALUE_NUMBER_INT);
+                    id = parser.getLongValue();
+                    break;
+                case "destination":
+                    destination = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                    break;
+                case "status":
+                    status = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        
+        if (id < 0) {
+            throw new JsonParseException(parser, "Booking has no id");
+        }
+        return new BookingSummary(id, destination, status);
+    }
+    
+    private static LocalDateTime readTimestamp(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value == JsonToken.START_ARRAY) {
+            return readTimestampArray(parser);
+        }
+        expect(parser, value, JsonToken.VALUE_STRING);
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        LocalDateTime timestamp = parseIsoLocalDateTime(text, offset, length);
+        if (timestamp != null) {
+            return timestamp;
+        }
+        try {
+            return LocalDateTime.parse(parser.getText());
+        } catch (DateTimeParseException ex) {
+            throw new JsonParseException(parser, "Invalid timestamp: " + ex.getParsedString());
+        }
+    }
+    
+    /**
+     * Read the {@code [year, month, day, hour, minute[, second[, nanos]]]} form Jackson writes
+     * with dates as timestamps, as booking-service does in Smile. The parser must be
+     * positioned on the START_ARRAY.
+     */
+    private static LocalDateTime readTimestampArray(JsonParser parser) throws IOException {
+        int[] parts = new int[7];
+        int count = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.VALUE_NUMBER_INT) {
+            if (count == parts.length) {
+                throw new JsonParseException(parser, "Timestamp array has more than " + parts.length + " fields");
+            }
+            parts[count++] = parser.getIntValue();
+        }
+        expect(parser, token, JsonToken.END_ARRAY);
+        if (count < 5) {
+            throw new JsonParseException(parser, "Timestamp array has " + count + " fields, expected at least 5");
+        }
+        try {
+            return LocalDateTime.of(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6]);
+        } catch (DateTimeException ex) {
+            throw new JsonParseException(parser, "Invalid timestamp: " + ex.getMessage());
+        }
+    }
+    
+    /**
+     * Fast path for the {@code yyyy-MM-ddTHH:mm:ss[.fraction]} form booking-service writes.
+     * DateTimeFormatter allocates several objects per parse, which costs more than the rest of
+     * the response together. Returns null for anything else so the caller can fall back to it.
+     */
+    static LocalDateTime parseIsoLocalDateTime(char[] text, int offset, int length) {
+        if (length < 19 || length > 29 || text[offset + 4] != '-' || text[offset + 7] != '-'
+                || text[offset + 10] != 'T' || text[offset + 13] != ':' || text[offset + 16] != ':') {
+            return null;
+        }
+        int year = digits(text, offset, 4);
+        int month = digits(text, offset + 5, 2);
+        int day = digits(text, offset + 8, 2);
+        int hour = digits(text, offset + 11, 2);
+        int minute = digits(text, offset + 14, 2);
+        int second = digits(text, offset + 17, 2);
+        if ((year | month | day | hour | minute | second) < 0) {
+            return null;
+        }
+        
+        int nanos = 0;
+        if (length > 19) {
+            int fractionDigits = length - 20;
+            if (text[offset + 19] != '.' || fractionDigits == 0) {
+                return null;
+            }
+            nanos = digits(text, offset + 20, fractionDigits);
+            if (nanos < 0) {
+                return null;
+            }
+            for (int i = fractionDigits; i < 9; i++) {
+                nanos *= 10;
+            }
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+        } catch (DateTimeException ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * Parse {@code count} decimal digits, or return -1 if any of them is not a digit
+     */
+    private static int digits(char[] text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+    
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+}
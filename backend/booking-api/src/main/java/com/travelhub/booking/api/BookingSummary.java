@@ -0,0 +1,7 @@
+package com.travelhub.booking.api;
+
+/**
+ * One booking as listed for a user
+ */
+public record BookingSummary(long id, String destination, String status) {
+}
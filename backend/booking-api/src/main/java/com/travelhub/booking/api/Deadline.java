@@ -0,0 +1,67 @@
+package com.travelhub.booking.api;
+
+import java.time.Duration;
+
+/**
+ * Point in time after which the caller no longer wants an answer.
+ *
+ * Travels between services as the remaining budget in milliseconds in the
+ * {@value #HEADER} header rather than as a wall-clock time, so the two hosts' clocks need
+ * not agree. The receiver turns it back into a deadline on its own monotonic clock as soon
+ * as the request arrives. Transit time is not subtracted, so the receiver's deadline is
+ * slightly later than the caller's.
+ */
+public final class Deadline {
+    
+    public static final String HEADER = "X-Deadline-Remaining-Ms";
+    
+    private static final Deadline NONE = new Deadline(0, false);
+    
+    private final long deadlineNanos;
+    private final boolean bounded;
+    
+    private Deadline(long deadlineNanos, boolean bounded) {
+        this.deadlineNanos = deadlineNanos;
+        this.bounded = bounded;
+    }
+    
+    /**
+     * No deadline: the caller waits as long as it takes
+     */
+    public static Deadline none() {
+        return NONE;
+    }
+    
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos(), true);
+    }
+    
+    /**
+     * Read a deadline from the {@value #HEADER} header value. A missing or malformed header
+     * means no deadline, so callers that do not send one are served as before.
+     */
+    public static Deadline fromHeader(String remainingMillis) {
+        if (remainingMillis == null || remainingMillis.isBlank()) {
+            return NONE;
+        }
+        try {
+            return after(Duration.ofMillis(Long.parseLong(remainingMillis.trim())));
+        } catch (NumberFormatException | ArithmeticException ex) {
+            return NONE;
+        }
+    }
+    
+    public boolean isExpired() {
+        return bounded && System.nanoTime() - deadlineNanos >= 0;
+    }
+    
+    /**
+     * Time left before the deadline, zero once it has passed. {@code Long.MAX_VALUE} without a deadline.
+     */
+    public long remainingNanos() {
+        if (!bounded) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+}
@@ -0,0 +1,11 @@
+package com.travelhub.booking.api;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A user's bookings, as returned by GET /api/v1/bookings/user/{userId}/bookings.
+ * The timestamp is null for entries inside a batch response.
+ */
+public record UserBookings(long userId, List<BookingSummary> bookings, LocalDateTime timestamp) {
+}
@@ -0,0 +1,10 @@
+package com.travelhub.booking.api;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Response of POST /api/v1/bookings/users:batchGet, keyed by user id
+ */
+public record UserBookingsBatch(Map<Long, UserBookings> results, LocalDateTime timestamp) {
+}
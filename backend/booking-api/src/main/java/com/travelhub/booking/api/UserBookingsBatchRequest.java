@@ -0,0 +1,14 @@
+package com.travelhub.booking.api;
+
+import java.util.List;
+
+/**
+ * Body of POST /api/v1/bookings/users:batchGet
+ */
+public record UserBookingsBatchRequest(List<Long> userIds) {
+    
+    /**
+     * Most user ids booking-service accepts in one request
+     */
+    public static final int MAX_USER_IDS = 100;
+}
@@ -0,0 +1,13 @@
+package com.travelhub.booking.api;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One page of a user's bookings, newest first, as returned by
+ * GET /api/v1/bookings/user/{userId}/bookings?cursor=...&amp;limit=...
+ * Pass nextCursor back as the cursor for the following page; it is null on the last page.
+ * Has every field of {@link UserBookings}, so readers of that still read this.
+ */
+public record UserBookingsPage(long userId, List<BookingSummary> bookings, Long nextCursor, LocalDateTime timestamp) {
+}
@@ -0,0 +1,59 @@
+package com.travelhub.booking.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.util.Locale;
+
+/**
+ * Encodings booking-service can answer in, chosen per request by content negotiation.
+ *
+ * JSON is the default, for browsers, curl and anything else that does not ask. Smile is
+ * Jackson's binary encoding of the same data model: field names and short repeated values
+ * such as a status are written once per response and back-referenced after that, numbers
+ * are binary, and timestamps go as an {@code [year, month, day, hour, minute, second, nanos]}
+ * array instead of a formatted string. Services ask for it with {@link #PREFER_BINARY}.
+ */
+public enum WireFormat {
+    
+    JSON("application/json", new JsonFactory()),
+    SMILE("application/x-jackson-smile", SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build());
+    
+    /**
+     * Accept header of a caller that reads both: Smile if the service speaks it, else JSON
+     */
+    public static final String PREFER_BINARY = SMILE.mediaType + ", " + JSON.mediaType + ";q=0.9";
+    
+    private final String mediaType;
+    // Thread-safe once configured; parsers and generators are cheap to create from it
+    private final JsonFactory factory;
+    
+    WireFormat(String mediaType, JsonFactory factory) {
+        this.mediaType = mediaType;
+        this.factory = factory;
+    }
+    
+    public String mediaType() {
+        return mediaType;
+    }
+    
+    public JsonFactory factory() {
+        return factory;
+    }
+    
+    /**
+     * Format of a body with the given Content-Type. Anything that is not Smile, including a
+     * missing header, is read as JSON.
+     */
+    public static WireFormat fromContentType(String contentType) {
+        if (contentType == null) {
+            return JSON;
+        }
+        int parameters = contentType.indexOf(';');
+        String mediaType = (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim();
+        return mediaType.toLowerCase(Locale.ROOT).equals(SMILE.mediaType) ? SMILE : JSON;
+    }
+}
@@ -0,0 +1,127 @@
+package com.travelhub.booking.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the streaming booking decoder
+ */
+class BookingJsonCodecTest {
+    
+    @Test
+    void readsUserBookings() throws Exception {
+        UserBookings bookings = BookingJsonCodec.readUserBookings(json("""
+                {"userId":42,"bookings":[
+                  {"id":1,"destination":"Paris","status":"CONFIRMED"},
+                  {"id":2,"destination":"Tokyo","status":"PENDING"}
+                ],"timestamp":"2024-05-01T10:15:30.123456"}"""));
+        
+        assertEquals(42, bookings.userId());
+        assertEquals(List.of(
+                new BookingSummary(1, "Paris", "CONFIRMED"),
+                new BookingSummary(2, "Tokyo", "PENDING")), bookings.bookings());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_456_000), bookings.timestamp());
+    }
+    
+    @Test
+    void skipsUnknownFields() throws Exception {
+        UserBookings bookings = BookingJsonCodec.readUserBookings(json("""
+                {"region":{"code":"eu","zones":[1,2]},"userId":7,
+                 "bookings":[{"id":3,"price":{"amount":10},"destination":"Rome","status":"CONFIRMED"}]}"""));
+        
+        assertEquals(7, bookings.userId());
+        assertEquals(new BookingSummary(3, "Rome", "CONFIRMED"), bookings.bookings().get(0));
+        assertNull(bookings.timestamp());
+    }
+    
+    @Test
+    void readsBatchKeyedByUser() throws Exception {
+        UserBookingsBatch batch = BookingJsonCodec.readUserBookingsBatch(json("""
+                {"results":{
+                  "1":{"userId":1,"bookings":[],"timestamp":null},
+                  "2":{"userId":2,"bookings":[{"id":9,"destination":"Oslo","status":"PENDING"}]}
+                },"timestamp":"2024-05-01T10:15:30"}"""));
+        
+        assertEquals(2, batch.results().size());
+        assertTrue(batch.results().get(1L).bookings().isEmpty());
+        assertEquals("Oslo", batch.results().get(2L).bookings().get(0).destination());
+    }
+    
+    @Test
+    void parsesTimestampsWithAndWithoutFastPath() throws Exception {
+        for (String timestamp : List.of("2024-02-29T23:59:59", "2024-05-01T10:15:30.1", "2024-05-01T10:15:30.123456789",
+                "2024-05-01T10:15")) {
+            UserBookings bookings = BookingJsonCodec.readUserBookings(json(
+                    "{\"userId\":1,\"bookings\":[],\"timestamp\":\"" + timestamp + "\"}"));
+            assertEquals(LocalDateTime.parse(timestamp), bookings.timestamp());
+        }
+        assertThrows(JsonParseException.class, () -> BookingJsonCodec.readUserBookings(json(
+                "{\"userId\":1,\"bookings\":[],\"timestamp\":\"2023-02-29T10:15:30\"}")));
+    }
+    
+    @Test
+    void readsSmileWithArrayTimestamps() throws Exception {
+        ByteArrayOutputStream smile = new ByteArrayOutputStream();
+        try (JsonGenerator generator = WireFormat.SMILE.factory().createGenerator(smile)) {
+            generator.writeStartObject();
+            generator.writeNumberField("userId", 42);
+            generator.writeArrayFieldStart("bookings");
+            writeBooking(generator, 1, "Paris", "CONFIRMED");
+            writeBooking(generator, 2, "Tokyo", "CONFIRMED");
+            generator.writeEndArray();
+            generator.writeFieldName("timestamp");
+            generator.writeArray(new int[] {2024, 5, 1, 10, 15, 30, 123_456_000}, 0, 7);
+            generator.writeEndObject();
+        }
+        
+        UserBookings bookings = BookingJsonCodec.readUserBookings(smile.toByteArray(), WireFormat.SMILE);
+        
+        assertEquals(42, bookings.userId());
+        assertEquals(new BookingSummary(2, "Tokyo", "CONFIRMED"), bookings.bookings().get(1));
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_456_000), bookings.timestamp());
+        
+        // Jackson leaves out a zero second and nanos
+        UserBookings onTheMinute = BookingJsonCodec.readUserBookings(json(
+                "{\"userId\":1,\"bookings\":[],\"timestamp\":[2024,5,1,10,15]}"));
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 15), onTheMinute.timestamp());
+        assertThrows(JsonParseException.class, () -> BookingJsonCodec.readUserBookings(json(
+                "{\"userId\":1,\"bookings\":[],\"timestamp\":[2024,5,1]}")));
+    }
+    
+    @Test
+    void contentTypeSelectsTheFormat() {
+        assertEquals(WireFormat.SMILE, WireFormat.fromContentType("application/x-jackson-smile"));
+        assertEquals(WireFormat.SMILE, WireFormat.fromContentType("Application/X-Jackson-Smile; charset=UTF-8"));
+        assertEquals(WireFormat.JSON, WireFormat.fromContentType("application/json"));
+        assertEquals(WireFormat.JSON, WireFormat.fromContentType(null));
+    }
+    
+    @Test
+    void rejectsResponseWithoutRequiredFields() {
+        assertThrows(JsonParseException.class, () -> BookingJsonCodec.readUserBookings(json("{\"bookings\":[]}")));
+        assertThrows(JsonParseException.class, () -> BookingJsonCodec.readUserBookings(json("{\"userId\":1}")));
+        assertThrows(JsonParseException.class, () -> BookingJsonCodec.readUserBookings(json("[1,2]")));
+    }
+    
+    private static void writeBooking(JsonGenerator generator, long id, String destination, String status)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", id);
+        generator.writeStringField("destination", destination);
+        generator.writeStringField("status", status);
+        generator.writeEndObject();
+    }
+    
+    private static byte[] json(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
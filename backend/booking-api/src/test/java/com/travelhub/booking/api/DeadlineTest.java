@@ -0,0 +1,45 @@
+package com.travelhub.booking.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for reading propagated deadlines
+ */
+class DeadlineTest {
+    
+    @Test
+    void headerBudgetStartsOnArrival() throws Exception {
+        Deadline deadline = Deadline.fromHeader("100");
+        
+        assertFalse(deadline.isExpired());
+        assertTrue(deadline.remainingNanos() <= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(deadline.remainingNanos() > TimeUnit.MILLISECONDS.toNanos(50));
+        
+        Thread.sleep(120);
+        assertTrue(deadline.isExpired());
+        assertEquals(0, deadline.remainingNanos());
+    }
+    
+    @Test
+    void spentBudgetIsExpiredOnArrival() {
+        assertTrue(Deadline.fromHeader("0").isExpired());
+        assertTrue(Deadline.fromHeader("-5").isExpired());
+        assertTrue(Deadline.after(Duration.ofMillis(-1)).isExpired());
+    }
+    
+    @Test
+    void missingOrMalformedHeaderMeansNoDeadline() {
+        for (String header : new String[] {null, "", " ", "soon", "1.5", "99999999999999999999"}) {
+            Deadline deadline = Deadline.fromHeader(header);
+            assertFalse(deadline.isExpired(), header);
+            assertEquals(Long.MAX_VALUE, deadline.remainingNanos(), header);
+        }
+        // Too large to count in nanoseconds
+        assertEquals(Long.MAX_VALUE, Deadline.fromHeader(Long.toString(Long.MAX_VALUE)).remainingNanos());
+    }
+}
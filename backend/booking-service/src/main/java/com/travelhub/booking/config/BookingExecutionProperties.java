@@ -0,0 +1,28 @@
+package com.travelhub.booking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Request execution configuration
+ * Binds the booking.execution block used by SimulatedWork
+ */
+@Configuration
+@ConfigurationProperties(prefix = "booking.execution")
+@Data
+public class BookingExecutionProperties {
+    
+    private Mode mode = Mode.ASYNC;
+    // Timer threads for ASYNC mode; they only fire completions, so a few serve any load
+    private int schedulerThreads = 2;
+    // Threads for ASYNC mode that complete the work and run what the handler chained onto it
+    private int workerThreads = Runtime.getRuntime().availableProcessors();
+    
+    public enum Mode {
+        /** The request thread sleeps through the simulated work */
+        BLOCKING,
+        /** The request thread is released; a worker completes the response when the work is done */
+        ASYNC
+    }
+}
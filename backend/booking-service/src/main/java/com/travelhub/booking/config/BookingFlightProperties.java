@@ -0,0 +1,22 @@
+package com.travelhub.booking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Flight search configuration
+ * Binds the booking.flights block used by FlightCatalogConfig
+ */
+@Configuration
+@ConfigurationProperties(prefix = "booking.flights")
+@Data
+public class BookingFlightProperties {
+    
+    // Synthetic catalog size; each flight takes about 20 bytes
+    private int generatedFlights = 2_000_000;
+    private int days = 180; // departure dates from today
+    private long seed = 42;
+    private int maxFlexDays = 3; // days either side of the requested date a search may cover
+    private int maxResults = 100;
+}
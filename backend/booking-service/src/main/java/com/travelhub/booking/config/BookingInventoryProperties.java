@@ -0,0 +1,26 @@
+package com.travelhub.booking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Inventory configuration
+ * Binds the booking.inventory block used by InventoryEngine
+ */
+@Configuration
+@ConfigurationProperties(prefix = "booking.inventory")
+@Data
+public class BookingInventoryProperties {
+    
+    // Counter stripes per SKU, rounded up to a power of two; 0 is twice the number of cores
+    private int stripes = 0;
+    private long holdDuration = 600000; // milliseconds a hold keeps its units
+    private long sweepInterval = 100; // milliseconds between expiry sweeps, the precision of expiry
+    private int maxQuantity = 10; // units per hold or booking, at most 255
+    // SKUs on sale at startup, with their capacity
+    private Map<String, Long> skus = new LinkedHashMap<>();
+}
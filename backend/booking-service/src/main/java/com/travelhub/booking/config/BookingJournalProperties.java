@@ -0,0 +1,30 @@
+package com.travelhub.booking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Booking journal configuration
+ * Binds the booking.journal block used by BookingJournal
+ */
+@Configuration
+@ConfigurationProperties(prefix = "booking.journal")
+@Data
+public class BookingJournalProperties {
+    
+    private boolean enabled = true;
+    private String directory = "data/journal";
+    private int segmentSizeMb = 64;
+    private FlushPolicy flushPolicy = FlushPolicy.ALWAYS;
+    private long flushInterval = 10; // milliseconds, for INTERVAL
+    
+    public enum FlushPolicy {
+        /** A create is answered once its booking is on disk; concurrent creates share one flush */
+        ALWAYS,
+        /** Flushed every flush-interval ms; a machine crash loses up to that much */
+        INTERVAL,
+        /** Never flushed by the service; the OS writes pages back, and a machine crash loses what it had not */
+        OS
+    }
+}
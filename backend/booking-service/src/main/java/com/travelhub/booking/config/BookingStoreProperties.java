@@ -0,0 +1,20 @@
+package com.travelhub.booking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Booking store configuration
+ * Binds the booking.store block used by BookingStore
+ */
+@Configuration
+@ConfigurationProperties(prefix = "booking.store")
+@Data
+public class BookingStoreProperties {
+    
+    // Hard cap; each booking takes 24 bytes, allocated 65536 bookings at a time
+    private int maxBookings = 50_000_000;
+    // Presizes the user index so it does not rehash while filling up
+    private int expectedUsers = 1_000_000;
+}
@@ -0,0 +1,28 @@
+package com.travelhub.booking.config;
+
+import com.travelhub.booking.flight.FlightCatalog;
+import com.travelhub.booking.flight.FlightCatalogGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.LocalDate;
+
+/**
+ * Builds the flight catalog searched by FlightSearchController
+ */
+@Configuration
+@Slf4j
+public class FlightCatalogConfig {
+    
+    @Bean
+    public FlightCatalog flightCatalog(BookingFlightProperties properties) {
+        long start = System.nanoTime();
+        FlightCatalog catalog = FlightCatalogGenerator.generate(properties.getGeneratedFlights(), properties.getDays(),
+                LocalDate.now(), properties.getSeed());
+        log.info("Flight catalog of {} flights between {} airports built in {} ms, {} MB",
+                catalog.size(), catalog.airportCount(), (System.nanoTime() - start) / 1_000_000,
+                catalog.sizeInBytes() >> 20);
+        return catalog;
+    }
+}
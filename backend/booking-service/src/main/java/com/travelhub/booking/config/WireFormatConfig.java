@@ -0,0 +1,39 @@
+package com.travelhub.booking.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.travelhub.booking.api.WireFormat;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Content negotiation between JSON and Smile for booking-service responses.
+ *
+ * The JSON converter stays ahead of the Smile one, so browsers, and any caller that accepts
+ * every media type, get JSON. Services that ask for {@code application/x-jackson-smile} get
+ * Smile, from a mapper that writes dates as timestamp arrays rather than ISO strings.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WireFormatConfig implements WebMvcConfigurer {
+    
+    // Prototype bean: a fresh builder with the spring.jackson settings applied
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+    
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        ObjectMapper smileMapper = objectMapperBuilder
+                .factory(WireFormat.SMILE.factory().copy())
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        // Replace Spring's default Smile converter, which writes dates as strings like the JSON one
+        converters.removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new MappingJackson2SmileHttpMessageConverter(smileMapper));
+    }
+}
@@ -1,93 +1,301 @@
 package com.travelhub.booking.controller;
 
+import com.travelhub.booking.api.BookingSummary;
+import com.travelhub.booking.api.Deadline;
+import com.travelhub.booking.api.UserBookings;
+import com.travelhub.booking.api.UserBookingsBatch;
+import com.travelhub.booking.api.UserBookingsBatchRequest;
+import com.travelhub.booking.api.UserBookingsPage;
+import com.travelhub.booking.inventory.Hold;
+import com.travelhub.booking.inventory.InventoryEngine;
+import com.travelhub.booking.store.Booking;
+import com.travelhub.booking.store.BookingPage;
+import com.travelhub.booking.store.BookingStore;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Simple Booking Controller to simulate a second microservice
+ * Simple Booking Controller to simulate a second microservice.
+ *
+ * Callers may send their remaining time budget in the {@value Deadline#HEADER} header.
+ * Work for a caller that has already given up is wasted capacity, so a request whose
+ * deadline has passed, on arrival or part-way through, is answered at once with 504.
+ * Responses are JSON unless the caller asks for Smile, see {@code WireFormatConfig}.
+ * Bookings are kept in {@link BookingStore} and listed a page at a time, newest first.
+ * Handlers return futures; whether a request thread waits through the processing time
+ * depends on the execution mode of {@link SimulatedWork}.
  */
 @RestController
 @RequestMapping("/api/v1/bookings")
+@RequiredArgsConstructor
 @Slf4j
 public class BookingController {
     
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    
+    private final BookingStore bookingStore;
+    private final SimulatedWork simulatedWork;
+    private final InventoryEngine inventory;
     private final Random random = new Random();
+    private final LongAdder deadlineExceeded = new LongAdder();
     
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
         return ResponseEntity.ok(Map.of(
             "status", "UP",
             "service", "booking-service",
+            "executionMode", simulatedWork.getMode(),
+            "deadlineExceeded", deadlineExceeded.sum(),
+            "bookings", bookingStore.size(),
+            "users", bookingStore.userCount(),
+            "heapBytes", bookingStore.heapBytes(),
+            "journalFlushPolicy", bookingStore.getJournalFlushPolicy(),
             "timestamp", LocalDateTime.now()
         ));
     }
     
+    /**
+     * A page of the user's bookings, newest first. Omit the cursor for the first page; each
+     * page's nextCursor fetches the one after it.
+     */
     @GetMapping("/user/{userId}/bookings")
-    public ResponseEntity<Map<String, Object>> getUserBookings(@PathVariable Long userId) {
+    public CompletableFuture<ResponseEntity<?>> getUserBookings(@PathVariable Long userId,
+                                                                @RequestParam(required = false) Long cursor,
+                                                                @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                                                @RequestHeader(value = Deadline.HEADER, required = false) String budget) {
+        Deadline deadline = Deadline.fromHeader(budget);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return CompletableFuture.completedFuture(badRequest("limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
         log.info("Getting bookings for user: {}", userId);
         
         // Simulate processing delay
-        try {
-            Thread.sleep(random.nextInt(100) + 50); // 50-150ms delay
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        return simulatedWork.run(deadline, random.nextInt(100) + 50).thenApply(done -> { // 50-150ms delay
+            if (!done) {
+                return deadlineExceeded("bookings for user " + userId);
+            }
+            
+            BookingPage page;
+            try {
+                page = bookingStore.page(userId, cursor, limit);
+            } catch (IllegalArgumentException e) {
+                return badRequest(e.getMessage());
+            }
+            return ResponseEntity.ok(new UserBookingsPage(userId, summaries(page), page.nextCursor(), LocalDateTime.now()));
+        });
+    }
+    
+    /**
+     * Get bookings for several users in one round trip.
+     * Body: {"userIds": [1, 2, 3]}. Results are keyed by user id; duplicate ids are answered once.
+     * Each user gets the first page of their bookings.
+     */
+    @PostMapping("/users:batchGet")
+    public CompletableFuture<ResponseEntity<?>> batchGetUserBookings(@RequestBody UserBookingsBatchRequest request,
+                                                                     @RequestHeader(value = Deadline.HEADER, required = false) String budget) {
+        Deadline deadline = Deadline.fromHeader(budget);
+        List<Long> userIds = request.userIds();
+        if (userIds == null || userIds.isEmpty() || userIds.size() > UserBookingsBatchRequest.MAX_USER_IDS) {
+            return CompletableFuture.completedFuture(badRequest("userIds must contain between 1 and " + UserBookingsBatchRequest.MAX_USER_IDS + " ids"));
         }
+        log.info("Getting bookings for {} users", userIds.size());
         
-        return ResponseEntity.ok(Map.of(
-            "userId", userId,
-            "bookings", java.util.List.of(
-                Map.of("id", 1, "destination", "Paris", "status", "CONFIRMED"),
-                Map.of("id", 2, "destination", "Tokyo", "status", "PENDING")
-            ),
-            "timestamp", LocalDateTime.now()
-        ));
+        // One processing delay for the whole batch, as for a single lookup
+        return simulatedWork.run(deadline, random.nextInt(100) + 50).thenApply(done -> { // 50-150ms delay
+            if (!done) {
+                return deadlineExceeded("bookings for " + userIds.size() + " users");
+            }
+            
+            Map<Long, UserBookings> results = new LinkedHashMap<>();
+            for (Long userId : userIds) {
+                results.computeIfAbsent(userId, id -> new UserBookings(id, summaries(bookingStore.page(id, null, DEFAULT_PAGE_SIZE)), null));
+            }
+            
+            return ResponseEntity.ok(new UserBookingsBatch(results, LocalDateTime.now()));
+        });
     }
     
+    /**
+     * Create a booking.
+     * Body: {"destination": "Paris"}, plus either {"holdId": 42} to book the units of a hold,
+     * or {"sku": "FL-LH123-2024-06-01", "quantity": 2} to take units at once. A booking whose
+     * units are gone is answered with 409 and not made.
+     */
     @PostMapping("/user/{userId}")
-    public ResponseEntity<Map<String, Object>> createBooking(@PathVariable Long userId, 
-                                                            @RequestBody Map<String, Object> booking) {
-        log.info("Creating booking for user {}: {}", userId, booking);
-        
-        // Simulate processing
-        try {
-            Thread.sleep(random.nextInt(200) + 100); // 100-300ms delay
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> createBooking(@PathVariable Long userId,
+                                                                               @RequestBody Map<String, Object> booking,
+                                                                               @RequestHeader(value = Deadline.HEADER, required = false) String budget) {
+        Deadline deadline = Deadline.fromHeader(budget);
+        if (!(booking.get("destination") instanceof String destination) || destination.isBlank()) {
+            return CompletableFuture.completedFuture(badRequest("destination is required"));
+        }
+        Object holdId = booking.get("holdId");
+        Object sku = booking.get("sku");
+        Object quantity = booking.getOrDefault("quantity", 1);
+        if ((holdId != null && !(holdId instanceof Number)) || (sku != null && !(sku instanceof String))
+                || !(quantity instanceof Number)) {
+            return CompletableFuture.completedFuture(badRequest("holdId and quantity must be numbers and sku a string"));
         }
+        if (holdId == null && sku != null && !inventory.contains((String) sku)) {
+            return CompletableFuture.completedFuture(badRequest("Unknown SKU: " + sku));
+        }
+        log.info("Creating booking for user {}: {}", userId, booking);
         
-        return ResponseEntity.ok(Map.of(
-            "id", random.nextLong(1000),
-            "userId", userId,
-            "destination", booking.get("destination"),
-            "status", "CREATED",
-            "timestamp", LocalDateTime.now()
-        ));
+        // Simulate processing; nothing is created if the caller gives up first
+        return simulatedWork.run(deadline, random.nextInt(200) + 100).thenCompose(done -> { // 100-300ms delay
+            if (!done) {
+                return CompletableFuture.completedFuture(deadlineExceeded("booking for user " + userId));
+            }
+            
+            Claim claim;
+            try {
+                claim = claim((Number) holdId, (String) sku, ((Number) quantity).intValue());
+            } catch (IllegalArgumentException e) {
+                return CompletableFuture.completedFuture(badRequest(e.getMessage()));
+            }
+            if (claim == null) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", holdId != null ? "Hold " + holdId + " has expired or does not exist" : "Sold out: " + sku,
+                    "timestamp", LocalDateTime.now()
+                )));
+            }
+            
+            // Answered once the booking is journaled as durably as the flush policy asks
+            CompletableFuture<Booking> created;
+            try {
+                created = bookingStore.create(userId, destination, "CREATED", claim.sku(), claim.quantity());
+            } catch (RuntimeException e) {
+                // A full store, or a journal that refused the write: nothing was stored
+                return CompletableFuture.completedFuture(notStored(userId, claim, e));
+            }
+            
+            return created.handle((stored, e) -> {
+                if (e != null) {
+                    // Stored and journaled, but the flush failed
+                    return outcomeUnknown(userId, e);
+                }
+                return ResponseEntity.ok(Map.of(
+                    "id", stored.id(),
+                    "userId", stored.userId(),
+                    "destination", stored.destination(),
+                    "status", stored.status(),
+                    "timestamp", stored.createdAt()
+                ));
+            });
+        });
     }
     
     @GetMapping("/simulate-failure")
-    public ResponseEntity<Map<String, Object>> simulateFailure(@RequestParam(defaultValue = "false") boolean timeout) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> simulateFailure(@RequestParam(defaultValue = "false") boolean timeout,
+                                                                                  @RequestHeader(value = Deadline.HEADER, required = false) String budget) {
+        Deadline deadline = Deadline.fromHeader(budget);
         log.warn("Simulating failure scenario");
         
-        if (timeout) {
-            try {
-                Thread.sleep(5000); // 5 second delay to simulate timeout
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+        CompletableFuture<Boolean> work = timeout
+                ? simulatedWork.run(deadline, 5000) // 5 second delay to simulate timeout
+                : CompletableFuture.completedFuture(true);
+        return work.thenApply(done -> {
+            if (!done) {
+                return deadlineExceeded("simulated timeout");
+            }
+            
+            if (random.nextBoolean()) {
+                throw new RuntimeException("Simulated internal server error");
             }
+            
+            return ResponseEntity.status(500).body(Map.of(
+                "error", "Simulated failure",
+                "timestamp", LocalDateTime.now()
+            ));
+        });
+    }
+    
+    private ResponseEntity<Map<String, Object>> deadlineExceeded(String what) {
+        deadlineExceeded.increment();
+        log.info("Gave up on {}: the caller's deadline has passed", what);
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(Map.of(
+            "error", "Deadline exceeded",
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+    
+    /**
+     * Units a booking took from inventory
+     */
+    private record Claim(String sku, int quantity) {
+        static final Claim NONE = new Claim(null, 0);
+    }
+    
+    /**
+     * Confirm the booking's hold, or take units of its SKU at once
+     *
+     * @return what was taken, {@link Claim#NONE} for a booking without inventory, or null if
+     *         the hold is no longer held or the SKU has too few units left
+     */
+    private Claim claim(Number holdId, String sku, int quantity) {
+        if (holdId != null) {
+            Hold hold = inventory.confirm(holdId.longValue());
+            return hold == null ? null : new Claim(hold.sku(), hold.quantity());
         }
-        
-        if (random.nextBoolean()) {
-            throw new RuntimeException("Simulated internal server error");
+        if (sku == null) {
+            return Claim.NONE;
         }
-        
-        return ResponseEntity.status(500).body(Map.of(
-            "error", "Simulated failure",
+        return inventory.take(sku, quantity) ? new Claim(sku, quantity) : null;
+    }
+    
+    /**
+     * Give back the units of a booking that could not be stored, and answer 503
+     */
+    private ResponseEntity<Map<String, Object>> notStored(Long userId, Claim claim, RuntimeException e) {
+        if (claim != Claim.NONE) {
+            inventory.giveBack(claim.sku(), claim.quantity());
+        }
+        log.error("Could not store booking for user {}: {}", userId, e.toString());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+            "error", String.valueOf(e.getMessage()),
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+    
+    /**
+     * Answer 503 for a booking whose flush failed. It is in the store and in the journal's
+     * mapped segment, so it may well survive a restart and be replayed with its units:
+     * they stay taken rather than go on sale twice.
+     */
+    private ResponseEntity<Map<String, Object>> outcomeUnknown(Long userId, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        log.error("Booking for user {} may not be durable: {}", userId, cause.toString());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+            "error", "Booking may not have been stored: " + cause.getMessage(),
+            "outcome", "UNKNOWN",
             "timestamp", LocalDateTime.now()
         ));
     }
+    
+    private ResponseEntity<Map<String, Object>> badRequest(String error) {
+        return ResponseEntity.badRequest().body(Map.of(
+            "error", error,
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+    
+    private static List<BookingSummary> summaries(BookingPage page) {
+        return page.bookings().stream()
+                .map(booking -> new BookingSummary(booking.id(), booking.destination(), booking.status()))
+                .collect(Collectors.toList());
+    }
 }
\ No newline at end of file
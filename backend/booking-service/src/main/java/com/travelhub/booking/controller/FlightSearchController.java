@@ -0,0 +1,97 @@
+package com.travelhub.booking.controller;
+
+import com.travelhub.booking.config.BookingFlightProperties;
+import com.travelhub.booking.flight.FlightCatalog;
+import com.travelhub.booking.flight.FlightQuery;
+import com.travelhub.booking.flight.FlightSearchResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Flight search over the in-memory {@link FlightCatalog}. Searches are CPU-bound and take
+ * well under a millisecond, so they run on the request thread.
+ */
+@RestController
+@RequestMapping("/api/v1/flights")
+@RequiredArgsConstructor
+public class FlightSearchController {
+    
+    private final FlightCatalog catalog;
+    private final BookingFlightProperties properties;
+    
+    /**
+     * Flights from one airport to another, by IATA code or city name, on {@code date} or up
+     * to {@code flexDays} either side of it.
+     * Example: /api/v1/flights/search?from=JFK&to=London&date=2024-06-01&flexDays=1&maxStops=0&sort=duration
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> search(@RequestParam String from,
+                                                      @RequestParam String to,
+                                                      @RequestParam String date,
+                                                      @RequestParam(defaultValue = "0") int flexDays,
+                                                      @RequestParam(defaultValue = "economy") String cabin,
+                                                      @RequestParam(required = false) BigDecimal maxPrice,
+                                                      @RequestParam(required = false) Integer maxStops,
+                                                      @RequestParam(required = false) String departAfter,
+                                                      @RequestParam(required = false) String departBefore,
+                                                      @RequestParam(defaultValue = "price") String sort,
+                                                      @RequestParam(defaultValue = "20") int limit) {
+        if (flexDays < 0 || flexDays > properties.getMaxFlexDays()) {
+            return error("flexDays must be between 0 and " + properties.getMaxFlexDays());
+        }
+        if (limit < 1 || limit > properties.getMaxResults()) {
+            return error("limit must be between 1 and " + properties.getMaxResults());
+        }
+        if ((maxPrice != null && maxPrice.signum() < 0) || (maxStops != null && maxStops < 0)) {
+            return error("maxPrice and maxStops cannot be negative");
+        }
+        
+        FlightQuery query;
+        try {
+            LocalDate day = LocalDate.parse(date);
+            query = new FlightQuery(from, to, day.minusDays(flexDays), day.plusDays(flexDays),
+                    FlightQuery.Cabin.valueOf(cabin.toUpperCase(Locale.ROOT)),
+                    maxPrice == null ? null : maxPrice.movePointRight(2).longValue(),
+                    maxStops,
+                    departAfter == null ? null : LocalTime.parse(departAfter),
+                    departBefore == null ? null : LocalTime.parse(departBefore),
+                    FlightQuery.SortBy.valueOf(sort.toUpperCase(Locale.ROOT)),
+                    limit);
+        } catch (DateTimeParseException e) {
+            return error("date must be YYYY-MM-DD and departure times HH:MM");
+        } catch (IllegalArgumentException e) {
+            return error("cabin must be economy, business or first, and sort price or duration");
+        }
+        
+        FlightSearchResult result;
+        try {
+            result = catalog.search(query);
+        } catch (IllegalArgumentException e) {
+            return error(e.getMessage());
+        }
+        return ResponseEntity.ok(Map.of(
+            "offers", result.offers(),
+            "matched", result.matched(),
+            "scanned", result.scanned(),
+            "tookMicros", result.tookMicros(),
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+    
+    private static ResponseEntity<Map<String, Object>> error(String error) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+            "error", error,
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+}
@@ -0,0 +1,111 @@
+package com.travelhub.booking.controller;
+
+import com.travelhub.booking.inventory.Hold;
+import com.travelhub.booking.inventory.InventoryEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Seat and room inventory. A SKU is one sellable unit type, such as a flight or one room
+ * type on one night. Callers hold units, then book them by passing the hold id to
+ * {@code POST /api/v1/bookings/user/{userId}}; holds that are not booked expire.
+ */
+@RestController
+@RequestMapping("/api/v1/inventory")
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryController {
+    
+    private final InventoryEngine inventory;
+    
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getInventory() {
+        return ResponseEntity.ok(Map.of(
+            "skus", inventory.getReport(),
+            "activeHolds", inventory.getActiveHolds(),
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+    
+    /**
+     * Put a SKU on sale.
+     * Body: {"sku": "FL-LH123-2024-06-01", "capacity": 180}
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> defineSku(@RequestBody Map<String, Object> request) {
+        if (!(request.get("sku") instanceof String sku) || !(request.get("capacity") instanceof Number capacity)
+                || sku.isBlank() || capacity.longValue() < 0) {
+            return error(HttpStatus.BAD_REQUEST, "sku and a capacity of at least 0 are required");
+        }
+        boolean defined;
+        try {
+            defined = inventory.define(sku, capacity.longValue());
+        } catch (RuntimeException e) {
+            // The journal could not write or flush it
+            log.error("Could not put SKU {} on sale: {}", sku, e.toString());
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "Could not put SKU " + sku + " on sale");
+        }
+        if (!defined) {
+            return error(HttpStatus.CONFLICT, "SKU " + sku + " already exists");
+        }
+        log.info("SKU {} on sale with {} units", sku, capacity);
+        return ResponseEntity.status(HttpStatus.CREATED).body(inventory.getReport(sku));
+    }
+    
+    @GetMapping("/{sku}")
+    public ResponseEntity<Map<String, Object>> getSku(@PathVariable String sku) {
+        Map<String, Object> report = inventory.getReport(sku);
+        return report == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(report);
+    }
+    
+    /**
+     * Hold units of a SKU until they are booked, released, or the hold expires
+     */
+    @PostMapping("/{sku}/holds")
+    public ResponseEntity<Map<String, Object>> hold(@PathVariable String sku,
+                                                    @RequestParam(defaultValue = "1") int quantity) {
+        if (!inventory.contains(sku)) {
+            return ResponseEntity.notFound().build();
+        }
+        Hold hold;
+        try {
+            hold = inventory.hold(sku, quantity);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (hold == null) {
+            return error(HttpStatus.CONFLICT, "Fewer than " + quantity + " units of " + sku + " are left");
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+            "holdId", hold.id(),
+            "sku", hold.sku(),
+            "quantity", hold.quantity(),
+            "expiresAt", hold.expiresAt()
+        ));
+    }
+    
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<Map<String, Object>> release(@PathVariable long holdId) {
+        if (!inventory.release(holdId)) {
+            return error(HttpStatus.NOT_FOUND, "Hold " + holdId + " does not exist or is no longer held");
+        }
+        return ResponseEntity.ok(Map.of(
+            "holdId", holdId,
+            "status", "RELEASED",
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+    
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String error) {
+        return ResponseEntity.status(status).body(Map.of(
+            "error", error,
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+}
@@ -0,0 +1,115 @@
+package com.travelhub.booking.controller;
+
+import com.travelhub.booking.api.Deadline;
+import com.travelhub.booking.config.BookingExecutionProperties;
+import com.travelhub.booking.config.BookingExecutionProperties.Mode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stands in for booking-service's processing time, in the configured execution mode.
+ *
+ * In BLOCKING mode the request thread sleeps, so throughput is bounded by Tomcat's request
+ * threads divided by latency. In ASYNC mode the handler returns a future and the request
+ * thread goes back to the pool at once; when the work would be done a timer hands the future
+ * to a worker pool, which completes it. Whatever the caller chained onto the future runs on
+ * the workers, so the timer threads only ever fire and never fall behind. Spring MVC
+ * dispatches the response from there. Either way the work stops at the caller's deadline.
+ */
+@Component
+@Slf4j
+public class SimulatedWork {
+    
+    private static final CompletableFuture<Boolean> EXPIRED = CompletableFuture.completedFuture(false);
+    
+    private final Mode mode;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ExecutorService workers;
+    
+    public SimulatedWork(BookingExecutionProperties properties) {
+        this.mode = properties.getMode();
+        if (mode == Mode.ASYNC) {
+            AtomicInteger threads = new AtomicInteger();
+            scheduler = new ScheduledThreadPoolExecutor(properties.getSchedulerThreads(), runnable -> {
+                Thread thread = new Thread(runnable, "booking-work-timer-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            // A cancelled request's timer leaves the queue at once instead of when it would have fired
+            scheduler.setRemoveOnCancelPolicy(true);
+            AtomicInteger workerThreads = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(properties.getWorkerThreads(), runnable -> {
+                Thread thread = new Thread(runnable, "booking-worker-" + workerThreads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            scheduler = null;
+            workers = null;
+        }
+        log.info("Booking requests are served in {} mode", mode);
+    }
+    
+    public Mode getMode() {
+        return mode;
+    }
+    
+    /**
+     * Do {@code millis} of processing, giving up as soon as the caller's deadline passes
+     * instead of finishing work nobody will read
+     *
+     * @return completes with false if the deadline passed before the work was done
+     */
+    public CompletableFuture<Boolean> run(Deadline deadline, long millis) {
+        if (deadline.isExpired()) {
+            return EXPIRED;
+        }
+        long workNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        long remainingNanos = deadline.remainingNanos();
+        boolean done = workNanos < remainingNanos;
+        long waitNanos = Math.min(workNanos, remainingNanos);
+        
+        if (mode == Mode.BLOCKING) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return CompletableFuture.completedFuture(done);
+        }
+        
+        CompletableFuture<Boolean> work = new CompletableFuture<>();
+        ScheduledFuture<?> timer = scheduler.schedule(() -> work.completeAsync(() -> done, workers),
+                waitNanos, TimeUnit.NANOSECONDS);
+        work.whenComplete((ignored, ex) -> {
+            if (work.isCancelled()) {
+                timer.cancel(false);
+            }
+        });
+        return work;
+    }
+    
+    /**
+     * Timers waiting to fire
+     */
+    int pendingTimers() {
+        return scheduler == null ? 0 : scheduler.getQueue().size();
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            workers.shutdownNow();
+        }
+    }
+}
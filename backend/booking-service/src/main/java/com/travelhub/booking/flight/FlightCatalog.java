@@ -0,0 +1,324 @@
+package com.travelhub.booking.flight;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Read-only flight catalog held column by column in primitive arrays, about 20 bytes per
+ * flight and no object per flight.
+ *
+ * Flights are sorted by (origin, destination, departure date) when the catalog is built,
+ * and a group index records where each such key starts. A search finds its first and last
+ * day by binary search over the group keys, so it only reads the flights it could return.
+ * It then runs one pass over that contiguous range of the price, stops and departure-time
+ * columns, evaluating every filter without branching on each, and offers the matches to a
+ * bounded heap that keeps the top K by price or duration.
+ */
+public final class FlightCatalog {
+    
+    // Group key: origin (12 bits), destination (12 bits), epoch day (16 bits)
+    private static final int MAX_AIRPORTS = 1 << 12;
+    private static final int MAX_EPOCH_DAY = (1 << 16) - 1;
+    private static final int ROW_BITS = 23;
+    private static final int MAX_FLIGHTS = 1 << ROW_BITS;
+    private static final int MAX_AIRLINES = 1 << 7;
+    
+    private final String[] airportCodes;
+    private final Map<String, Integer> airportLookup;
+    private final String[] airlineCodes;
+    private final String[] airlineNames;
+    
+    private final long[] groupKeys;
+    // Flights of group g are rows groupStarts[g] until groupStarts[g + 1]
+    private final int[] groupStarts;
+    
+    private final short[] departMinutes;
+    private final short[] durations;
+    private final byte[] stops;
+    private final byte[] airlines;
+    private final short[] numbers;
+    // Fares in cents per cabin; 0 where the cabin is not offered
+    private final int[][] fares;
+    
+    private FlightCatalog(Builder builder) {
+        int size = builder.size;
+        airportCodes = builder.airportCodes.toArray(new String[0]);
+        airportLookup = Map.copyOf(builder.airportLookup);
+        airlineCodes = builder.airlineCodes.toArray(new String[0]);
+        airlineNames = builder.airlineNames.toArray(new String[0]);
+        
+        // Sort group key and row together, so equal keys keep the order they were added in
+        long[] order = new long[size];
+        for (int row = 0; row < size; row++) {
+            order[row] = builder.keys[row] << ROW_BITS | row;
+        }
+        Arrays.sort(order);
+        
+        departMinutes = new short[size];
+        durations = new short[size];
+        stops = new byte[size];
+        airlines = new byte[size];
+        numbers = new short[size];
+        fares = new int[FlightQuery.Cabin.values().length][size];
+        long[] keys = new long[size];
+        int[] starts = new int[size + 1];
+        int groups = 0;
+        for (int row = 0; row < size; row++) {
+            int from = (int) (order[row] & (MAX_FLIGHTS - 1));
+            long key = order[row] >>> ROW_BITS;
+            if (groups == 0 || keys[groups - 1] != key) {
+                keys[groups] = key;
+                starts[groups++] = row;
+            }
+            departMinutes[row] = builder.departMinutes[from];
+            durations[row] = builder.durations[from];
+            stops[row] = builder.stops[from];
+            airlines[row] = builder.airlines[from];
+            numbers[row] = builder.numbers[from];
+            for (int cabin = 0; cabin < fares.length; cabin++) {
+                fares[cabin][row] = builder.fares[cabin][from];
+            }
+        }
+        starts[groups] = size;
+        groupKeys = Arrays.copyOf(keys, groups);
+        groupStarts = Arrays.copyOf(starts, groups + 1);
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    public int size() {
+        return departMinutes.length;
+    }
+    
+    public int airportCount() {
+        return airportCodes.length;
+    }
+    
+    /**
+     * Heap taken by the columns and the group index
+     */
+    public long sizeInBytes() {
+        long perFlight = 2 * Short.BYTES + 2 * Byte.BYTES + Short.BYTES + (long) fares.length * Integer.BYTES;
+        return perFlight * size() + (long) groupKeys.length * (Long.BYTES + Integer.BYTES);
+    }
+    
+    /**
+     * @throws IllegalArgumentException if an airport is unknown
+     */
+    public FlightSearchResult search(FlightQuery query) {
+        long startNanos = System.nanoTime();
+        int origin = airport(query.origin());
+        int destination = airport(query.destination());
+        
+        int first = lowerBound(groupKeys, groupKey(origin, destination, query.from().toEpochDay()));
+        int last = lowerBound(groupKeys, groupKey(origin, destination, query.to().toEpochDay()) + 1);
+        int rowStart = groupStarts[first];
+        int rowEnd = groupStarts[Math.max(first, last)];
+        
+        int[] prices = fares[query.cabin().ordinal()];
+        int maxPrice = query.maxPriceCents() == null ? Integer.MAX_VALUE : (int) Math.min(Integer.MAX_VALUE, query.maxPriceCents());
+        int maxStops = query.maxStops() == null ? Byte.MAX_VALUE : query.maxStops();
+        int after = query.departAfter() == null ? 0 : minuteOfDay(query.departAfter());
+        int before = query.departBefore() == null ? 24 * 60 - 1 : minuteOfDay(query.departBefore());
+        boolean byPrice = query.sortBy() == FlightQuery.SortBy.PRICE;
+        
+        TopK top = new TopK(query.limit());
+        long bound = top.bound();
+        int matched = 0;
+        for (int row = rowStart; row < rowEnd; row++) {
+            int price = prices[row];
+            int minute = departMinutes[row];
+            // Non-short-circuit: all filters are evaluated and only their conjunction is tested
+            boolean match = (price > 0) & (price <= maxPrice) & (stops[row] <= maxStops)
+                    & (minute >= after) & (minute <= before);
+            matched += match ? 1 : 0;
+            long ranked = (long) (byPrice ? price : durations[row]) << 32 | row;
+            // Once the heap is full this is rarely taken, so it costs no mispredictions
+            if (match & ranked < bound) {
+                top.offer(ranked);
+                bound = top.bound();
+            }
+        }
+        
+        List<FlightOffer> offers = new ArrayList<>();
+        for (long ranked : top.sorted()) {
+            offers.add(offer((int) ranked, query.cabin()));
+        }
+        return new FlightSearchResult(offers, matched, rowEnd - rowStart, (System.nanoTime() - startNanos) / 1000);
+    }
+    
+    private FlightOffer offer(int row, FlightQuery.Cabin cabin) {
+        // The group holding the row gives its route and date
+        int group = upperBound(groupStarts, row) - 1;
+        long key = groupKeys[group];
+        int minute = departMinutes[row];
+        LocalDateTime departure = LocalDate.ofEpochDay(key & MAX_EPOCH_DAY).atTime(minute / 60, minute % 60);
+        return new FlightOffer(
+                airlineCodes[airlines[row]] + numbers[row],
+                airlineNames[airlines[row]],
+                airportCodes[(int) (key >>> 28)],
+                airportCodes[(int) (key >>> 16) & (MAX_AIRPORTS - 1)],
+                departure,
+                departure.plusMinutes(durations[row]),
+                durations[row],
+                stops[row],
+                cabin,
+                BigDecimal.valueOf(fares[cabin.ordinal()][row], 2));
+    }
+    
+    private int airport(String name) {
+        Integer airport = name == null ? null : airportLookup.get(name.trim().toLowerCase(Locale.ROOT));
+        if (airport == null) {
+            throw new IllegalArgumentException("Unknown airport: " + name);
+        }
+        return airport;
+    }
+    
+    private static long groupKey(int origin, int destination, long epochDay) {
+        return (long) origin << 28 | (long) destination << 16 | Math.max(0, Math.min(epochDay, MAX_EPOCH_DAY));
+    }
+    
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+    
+    /**
+     * @return the first index whose key is at least {@code key}
+     */
+    private static int lowerBound(long[] keys, long key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * @return the first index whose value is greater than {@code value}
+     */
+    private static int upperBound(int[] values, int value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Collects flights in any order; {@link #build()} sorts them
+     */
+    public static final class Builder {
+        
+        private final List<String> airportCodes = new ArrayList<>();
+        private final Map<String, Integer> airportLookup = new HashMap<>();
+        private final List<String> airlineCodes = new ArrayList<>();
+        private final List<String> airlineNames = new ArrayList<>();
+        
+        private int size;
+        private long[] keys = new long[1024];
+        private short[] departMinutes = new short[1024];
+        private short[] durations = new short[1024];
+        private byte[] stops = new byte[1024];
+        private byte[] airlines = new byte[1024];
+        private short[] numbers = new short[1024];
+        private int[][] fares = new int[FlightQuery.Cabin.values().length][1024];
+        
+        private Builder() {
+        }
+        
+        /**
+         * @return the airport's id, found by its code or its city in searches
+         */
+        public int airport(String code, String city) {
+            if (airportCodes.size() == MAX_AIRPORTS) {
+                throw new IllegalStateException("More than " + MAX_AIRPORTS + " airports");
+            }
+            int id = airportCodes.size();
+            airportCodes.add(code);
+            airportLookup.put(code.toLowerCase(Locale.ROOT), id);
+            airportLookup.putIfAbsent(city.toLowerCase(Locale.ROOT), id);
+            return id;
+        }
+        
+        /**
+         * @return the airline's id
+         */
+        public int airline(String code, String name) {
+            if (airlineCodes.size() == MAX_AIRLINES) {
+                throw new IllegalStateException("More than " + MAX_AIRLINES + " airlines");
+            }
+            airlineCodes.add(code);
+            airlineNames.add(name);
+            return airlineCodes.size() - 1;
+        }
+        
+        /**
+         * Add a flight. Fares are in cents, 0 where a cabin is not offered.
+         */
+        public Builder add(int origin, int destination, LocalDate date, LocalTime departure, int durationMinutes,
+                           int stopCount, int airline, int number, int economyCents, int businessCents, int firstCents) {
+            if (size == MAX_FLIGHTS) {
+                throw new IllegalStateException("More than " + MAX_FLIGHTS + " flights");
+            }
+            if (origin < 0 || origin >= airportCodes.size() || destination < 0 || destination >= airportCodes.size()
+                    || airline < 0 || airline >= airlineCodes.size() || date.toEpochDay() < 0 || date.toEpochDay() > MAX_EPOCH_DAY
+                    || durationMinutes < 0 || durationMinutes > Short.MAX_VALUE || stopCount < 0 || stopCount > Byte.MAX_VALUE
+                    || number < 0 || number > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Flight out of range: " + airline + "/" + number + " on " + date);
+            }
+            if (size == keys.length) {
+                grow();
+            }
+            keys[size] = groupKey(origin, destination, date.toEpochDay());
+            departMinutes[size] = (short) minuteOfDay(departure);
+            durations[size] = (short) durationMinutes;
+            stops[size] = (byte) stopCount;
+            airlines[size] = (byte) airline;
+            numbers[size] = (short) number;
+            fares[FlightQuery.Cabin.ECONOMY.ordinal()][size] = economyCents;
+            fares[FlightQuery.Cabin.BUSINESS.ordinal()][size] = businessCents;
+            fares[FlightQuery.Cabin.FIRST.ordinal()][size] = firstCents;
+            size++;
+            return this;
+        }
+        
+        public FlightCatalog build() {
+            return new FlightCatalog(this);
+        }
+        
+        private void grow() {
+            int capacity = (int) Math.min(MAX_FLIGHTS, 2L * keys.length);
+            keys = Arrays.copyOf(keys, capacity);
+            departMinutes = Arrays.copyOf(departMinutes, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            stops = Arrays.copyOf(stops, capacity);
+            airlines = Arrays.copyOf(airlines, capacity);
+            numbers = Arrays.copyOf(numbers, capacity);
+            for (int cabin = 0; cabin < fares.length; cabin++) {
+                fares[cabin] = Arrays.copyOf(fares[cabin], capacity);
+            }
+        }
+    }
+}
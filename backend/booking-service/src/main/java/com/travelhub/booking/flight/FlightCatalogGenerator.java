@@ -0,0 +1,107 @@
+package com.travelhub.booking.flight;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic flight catalog over real airports, until flights come from a schedule feed.
+ * The same seed, start date and size always give the same catalog.
+ *
+ * Durations follow the distance between airports, connections add a layover, and fares
+ * follow the duration with some spread. About a third of flights sell first class.
+ */
+public final class FlightCatalogGenerator {
+    
+    private static final String[][] AIRPORTS = {
+        {"JFK", "New York", "40.64", "-73.78"}, {"LAX", "Los Angeles", "33.94", "-118.41"},
+        {"ORD", "Chicago", "41.98", "-87.90"}, {"ATL", "Atlanta", "33.64", "-84.43"},
+        {"DFW", "Dallas", "32.90", "-97.04"}, {"DEN", "Denver", "39.86", "-104.67"},
+        {"SFO", "San Francisco", "37.62", "-122.38"}, {"SEA", "Seattle", "47.45", "-122.31"},
+        {"MIA", "Miami", "25.80", "-80.29"}, {"BOS", "Boston", "42.37", "-71.01"},
+        {"YYZ", "Toronto", "43.68", "-79.63"}, {"MEX", "Mexico City", "19.44", "-99.07"},
+        {"GRU", "Sao Paulo", "-23.44", "-46.47"}, {"EZE", "Buenos Aires", "-34.82", "-58.54"},
+        {"LHR", "London", "51.47", "-0.45"}, {"CDG", "Paris", "49.01", "2.55"},
+        {"FRA", "Frankfurt", "50.04", "8.56"}, {"AMS", "Amsterdam", "52.31", "4.76"},
+        {"MAD", "Madrid", "40.47", "-3.57"}, {"FCO", "Rome", "41.80", "12.25"},
+        {"ZRH", "Zurich", "47.46", "8.55"}, {"IST", "Istanbul", "41.26", "28.74"},
+        {"DXB", "Dubai", "25.25", "55.36"}, {"DOH", "Doha", "25.27", "51.61"},
+        {"DEL", "Delhi", "28.56", "77.10"}, {"BOM", "Mumbai", "19.09", "72.87"},
+        {"SIN", "Singapore", "1.36", "103.99"}, {"BKK", "Bangkok", "13.69", "100.75"},
+        {"HKG", "Hong Kong", "22.31", "113.91"}, {"PEK", "Beijing", "40.08", "116.58"},
+        {"PVG", "Shanghai", "31.14", "121.81"}, {"NRT", "Tokyo", "35.77", "140.39"},
+        {"ICN", "Seoul", "37.46", "126.44"}, {"SYD", "Sydney", "-33.94", "151.18"},
+        {"MEL", "Melbourne", "-37.67", "144.84"}, {"AKL", "Auckland", "-37.01", "174.79"},
+        {"JNB", "Johannesburg", "-26.14", "28.25"}, {"CAI", "Cairo", "30.12", "31.41"},
+        {"NBO", "Nairobi", "-1.32", "36.93"}, {"LIS", "Lisbon", "38.77", "-9.13"}
+    };
+    
+    private static final String[][] AIRLINES = {
+        {"TH", "TravelHub Air"}, {"SK", "Skyline Airways"}, {"NV", "Northvale Airlines"},
+        {"OC", "Oceanic Connect"}, {"AZ", "Azure Wings"}, {"MR", "Meridian Air"},
+        {"PL", "Polar Express Airlines"}, {"SN", "Sunward"}
+    };
+    
+    private static final double EARTH_RADIUS_KM = 6371;
+    private static final double CRUISE_KM_PER_MINUTE = 13.5;
+    
+    private FlightCatalogGenerator() {
+    }
+    
+    /**
+     * {@code flights} flights spread over {@code days} days from {@code start}
+     */
+    public static FlightCatalog generate(int flights, int days, LocalDate start, long seed) {
+        if (flights < 0 || days < 1) {
+            throw new IllegalArgumentException("A catalog needs at least 0 flights over at least 1 day");
+        }
+        FlightCatalog.Builder builder = FlightCatalog.builder();
+        int airports = AIRPORTS.length;
+        for (String[] airport : AIRPORTS) {
+            builder.airport(airport[0], airport[1]);
+        }
+        for (String[] airline : AIRLINES) {
+            builder.airline(airline[0], airline[1]);
+        }
+        
+        int[][] flightMinutes = new int[airports][airports];
+        for (int from = 0; from < airports; from++) {
+            for (int to = 0; to < airports; to++) {
+                flightMinutes[from][to] = 30 + (int) (distanceKm(AIRPORTS[from], AIRPORTS[to]) / CRUISE_KM_PER_MINUTE);
+            }
+        }
+        
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < flights; i++) {
+            int origin = random.nextInt(airports);
+            int destination = (origin + 1 + random.nextInt(airports - 1)) % airports;
+            int roll = random.nextInt(10);
+            int stops = roll < 6 ? 0 : roll < 9 ? 1 : 2;
+            int duration = flightMinutes[origin][destination] + random.nextInt(20);
+            for (int stop = 0; stop < stops; stop++) {
+                duration += 45 + random.nextInt(240);
+            }
+            
+            // Nonstops cost more per minute than connections
+            double perMinute = (stops == 0 ? 0.22 : 0.16) * (0.7 + 0.6 * random.nextDouble());
+            int economyCents = (int) ((49 + duration * perMinute) * 100);
+            int businessCents = economyCents * (3 + random.nextInt(2));
+            int firstCents = random.nextInt(3) == 0 ? businessCents * 2 : 0;
+            
+            builder.add(origin, destination, start.plusDays(random.nextInt(days)),
+                    LocalTime.of(5 + random.nextInt(19), 5 * random.nextInt(12)), duration, stops,
+                    random.nextInt(AIRLINES.length), 100 + random.nextInt(9900),
+                    economyCents, businessCents, firstCents);
+        }
+        return builder.build();
+    }
+    
+    private static double distanceKm(String[] from, String[] to) {
+        double lat1 = Math.toRadians(Double.parseDouble(from[2]));
+        double lat2 = Math.toRadians(Double.parseDouble(to[2]));
+        double dLat = lat2 - lat1;
+        double dLon = Math.toRadians(Double.parseDouble(to[3]) - Double.parseDouble(from[3]));
+        double a = Math.pow(Math.sin(dLat / 2), 2) + Math.cos(lat1) * Math.cos(lat2) * Math.pow(Math.sin(dLon / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+}
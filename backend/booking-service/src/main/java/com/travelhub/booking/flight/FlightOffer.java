@@ -0,0 +1,12 @@
+package com.travelhub.booking.flight;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One flight in a search result, priced in the searched cabin
+ */
+public record FlightOffer(String flightNumber, String airline, String origin, String destination,
+                          LocalDateTime departure, LocalDateTime arrival, int durationMinutes, int stops,
+                          FlightQuery.Cabin cabin, BigDecimal price) {
+}
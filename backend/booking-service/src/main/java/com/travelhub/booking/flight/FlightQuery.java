@@ -0,0 +1,22 @@
+package com.travelhub.booking.flight;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * A flight search: flights from {@code origin} to {@code destination} departing between
+ * {@code from} and {@code to}, both inclusive, that pass the filters, best {@code limit}
+ * first. Airports are codes or city names. Filters left null do not apply.
+ */
+public record FlightQuery(String origin, String destination, LocalDate from, LocalDate to, Cabin cabin,
+                          Long maxPriceCents, Integer maxStops, LocalTime departAfter, LocalTime departBefore,
+                          SortBy sortBy, int limit) {
+    
+    public enum Cabin {
+        ECONOMY, BUSINESS, FIRST
+    }
+    
+    public enum SortBy {
+        PRICE, DURATION
+    }
+}
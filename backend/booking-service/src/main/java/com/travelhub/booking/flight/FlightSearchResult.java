@@ -0,0 +1,9 @@
+package com.travelhub.booking.flight;
+
+import java.util.List;
+
+/**
+ * Search result: the best offers, how many flights matched, and how many were scanned
+ */
+public record FlightSearchResult(List<FlightOffer> offers, int matched, int scanned, long tookMicros) {
+}
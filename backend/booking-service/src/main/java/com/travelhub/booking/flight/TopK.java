@@ -0,0 +1,74 @@
+package com.travelhub.booking.flight;
+
+import java.util.Arrays;
+
+/**
+ * The {@code k} smallest of a stream of longs, in a bounded max-heap over a primitive array.
+ * Each offer is O(log k) at worst and a single comparison once the heap is full of better
+ * values, which is the usual case deep into a scan.
+ */
+final class TopK {
+    
+    private final long[] heap;
+    private int size;
+    
+    TopK(int k) {
+        heap = new long[k];
+    }
+    
+    void offer(long value) {
+        if (size < heap.length) {
+            heap[size] = value;
+            siftUp(size++);
+        } else if (size > 0 && value < heap[0]) {
+            heap[0] = value;
+            siftDown(0);
+        }
+    }
+    
+    /**
+     * @return the value an offer must be below to be kept
+     */
+    long bound() {
+        return size < heap.length ? Long.MAX_VALUE : heap[0];
+    }
+    
+    /**
+     * @return the values kept, smallest first
+     */
+    long[] sorted() {
+        long[] values = Arrays.copyOf(heap, size);
+        Arrays.sort(values);
+        return values;
+    }
+    
+    private void siftUp(int index) {
+        long value = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] >= value) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = value;
+    }
+    
+    private void siftDown(int index) {
+        long value = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (value >= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+}
@@ -0,0 +1,75 @@
+package com.travelhub.booking.inventory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDateTime;
+
+/**
+ * Units of one SKU set aside for a caller until they book them, release them, or the hold
+ * expires. A hold leaves the HELD state exactly once: whichever of confirm, release and
+ * expiry wins the CAS decides what happens to its units.
+ */
+public final class Hold {
+    
+    static final int HELD = 0;
+    static final int CONFIRMED = 1;
+    static final int RELEASED = 2;
+    static final int EXPIRED = 3;
+    
+    private static final VarHandle STATE;
+    
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(Hold.class, "state", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    private final long id;
+    private final InventoryEngine.Inventory inventory;
+    private final int quantity;
+    private final LocalDateTime expiresAt;
+    // System.nanoTime() at expiry, for the sweeper
+    final long expiresAtNanos;
+    private volatile int state = HELD;
+    
+    Hold(long id, InventoryEngine.Inventory inventory, int quantity, LocalDateTime expiresAt, long expiresAtNanos) {
+        this.id = id;
+        this.inventory = inventory;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+        this.expiresAtNanos = expiresAtNanos;
+    }
+    
+    public long id() {
+        return id;
+    }
+    
+    public String sku() {
+        return inventory.sku;
+    }
+    
+    public int quantity() {
+        return quantity;
+    }
+    
+    public LocalDateTime expiresAt() {
+        return expiresAt;
+    }
+    
+    InventoryEngine.Inventory inventory() {
+        return inventory;
+    }
+    
+    boolean isHeld() {
+        return state == HELD;
+    }
+    
+    /**
+     * @return true if the hold was still HELD and is now in {@code next}
+     */
+    boolean leave(int next) {
+        return STATE.compareAndSet(this, HELD, next);
+    }
+}
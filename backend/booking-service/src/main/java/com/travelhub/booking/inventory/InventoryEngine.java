@@ -0,0 +1,354 @@
+package com.travelhub.booking.inventory;
+
+import com.travelhub.booking.config.BookingInventoryProperties;
+import com.travelhub.booking.store.BookingJournal;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Seat and room inventory, so bookings cannot oversell a flight or a room-night.
+ *
+ * Each SKU, such as one flight or one room type on one night, has a fixed capacity and a
+ * {@link StripedCounter} of units left. Taking units is a CAS on the caller's stripe; there
+ * is no lock, per SKU or global, so a flash sale on one SKU scales with the cores taking
+ * part, and a sold-out SKU rejects callers after reading its stripes.
+ *
+ * Units can be taken at once, or held first: a {@link Hold} keeps them out of sale for the
+ * hold duration while the caller completes their booking. Holds sit in a timing wheel with
+ * one slot per sweep interval. The sweeper visits the slots that have come due, expires
+ * their holds, and gives the units back in one batch per SKU rather than one CAS per hold.
+ *
+ * SKUs put on sale through {@link #define} are written to the {@link BookingJournal} first,
+ * and units sold are journaled with the bookings that took them. The booking store replays
+ * both into the engine on startup, through {@link #restore} and {@link #restoreSale}, before
+ * any request is served. Holds are not journaled: after a restart their units are on sale
+ * again.
+ */
+@Component
+@Slf4j
+public class InventoryEngine {
+    
+    private static final int MAX_WHEEL_SLOTS = 1 << 16;
+    // Quantities are journaled in one byte
+    public static final int MAX_QUANTITY = 255;
+    
+    private final Map<String, Inventory> inventories = new ConcurrentHashMap<>();
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+    private final BookingJournal journal;
+    private final AtomicLong holdIds = new AtomicLong();
+    private final int stripes;
+    private final int maxQuantity;
+    private final long holdNanos;
+    
+    private final ConcurrentLinkedQueue<Hold>[] wheel;
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    // Last tick the sweeper has visited; only the sweeper touches it
+    private long sweptTick;
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-hold-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * One SKU's counts
+     */
+    static final class Inventory {
+        final String sku;
+        final long capacity;
+        final StripedCounter available;
+        final LongAdder held = new LongAdder();
+        final LongAdder confirmed = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder expired = new LongAdder();
+        
+        Inventory(String sku, long capacity, int stripes) {
+            this.sku = sku;
+            this.capacity = capacity;
+            this.available = new StripedCounter(capacity, stripes);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    public InventoryEngine(BookingInventoryProperties properties, BookingJournal journal) {
+        if (properties.getMaxQuantity() < 1 || properties.getMaxQuantity() > MAX_QUANTITY) {
+            throw new IllegalArgumentException("max-quantity must be between 1 and " + MAX_QUANTITY);
+        }
+        this.journal = journal;
+        int configured = properties.getStripes() > 0 ? properties.getStripes() : 2 * Runtime.getRuntime().availableProcessors();
+        this.stripes = Integer.highestOneBit(Math.max(1, configured - 1)) << 1;
+        this.maxQuantity = properties.getMaxQuantity();
+        this.holdNanos = TimeUnit.MILLISECONDS.toNanos(properties.getHoldDuration());
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, properties.getSweepInterval()));
+        
+        // Enough slots that a hold is visited once, when it is due
+        long slots = Math.min(MAX_WHEEL_SLOTS, holdNanos / tickNanos + 2);
+        wheel = new ConcurrentLinkedQueue[Integer.highestOneBit((int) slots - 1) << 1];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        
+        // Configured SKUs are defined on every start, so they are not journaled
+        properties.getSkus().forEach(this::restore);
+        sweeper.scheduleWithFixedDelay(this::sweep, properties.getSweepInterval(), properties.getSweepInterval(),
+                TimeUnit.MILLISECONDS);
+        log.info("Inventory engine started with {} stripes per SKU and {} ms holds", stripes, properties.getHoldDuration());
+    }
+    
+    /**
+     * Put a SKU on sale with {@code capacity} units, once the journal has made it durable
+     *
+     * @return false if the SKU already exists
+     */
+    public synchronized boolean define(String sku, long capacity) {
+        if (sku == null || sku.isBlank() || capacity < 0) {
+            throw new IllegalArgumentException("A SKU needs a name and a capacity of at least 0");
+        }
+        if (inventories.containsKey(sku)) {
+            return false;
+        }
+        // Write-ahead: a SKU that could not be journaled is not put on sale
+        journal.appendInventory(sku, capacity).join();
+        inventories.put(sku, new Inventory(sku, capacity, stripes));
+        return true;
+    }
+    
+    /**
+     * A SKU from the configuration or the journal. A configured SKU keeps its configured
+     * capacity.
+     */
+    public void restore(String sku, long capacity) {
+        if (sku == null || sku.isBlank() || capacity < 0) {
+            throw new IllegalArgumentException("A SKU needs a name and a capacity of at least 0");
+        }
+        inventories.putIfAbsent(sku, new Inventory(sku, capacity, stripes));
+    }
+    
+    /**
+     * Units a journaled booking took
+     */
+    public void restoreSale(String sku, int quantity) {
+        Inventory inventory = inventories.get(sku);
+        if (inventory == null) {
+            log.warn("A journaled booking took {} units of SKU {}, which is no longer defined", quantity, sku);
+            return;
+        }
+        if (!inventory.available.tryTake(quantity)) {
+            log.warn("Journaled bookings hold more units of SKU {} than its capacity of {}", sku, inventory.capacity);
+        }
+        inventory.confirmed.add(quantity);
+    }
+    
+    public boolean contains(String sku) {
+        return inventories.containsKey(sku);
+    }
+    
+    /**
+     * Take {@code quantity} units for good
+     *
+     * @return false if fewer are left
+     * @throws IllegalArgumentException if the SKU does not exist or the quantity is out of range
+     */
+    public boolean take(String sku, int quantity) {
+        Inventory inventory = inventory(sku, quantity);
+        if (!inventory.available.tryTake(quantity)) {
+            inventory.rejected.increment();
+            return false;
+        }
+        inventory.confirmed.add(quantity);
+        return true;
+    }
+    
+    /**
+     * Set {@code quantity} units aside until they are confirmed, released, or the hold expires
+     *
+     * @return the hold, or null if fewer units are left
+     * @throws IllegalArgumentException if the SKU does not exist or the quantity is out of range
+     */
+    public Hold hold(String sku, int quantity) {
+        Inventory inventory = inventory(sku, quantity);
+        if (!inventory.available.tryTake(quantity)) {
+            inventory.rejected.increment();
+            return null;
+        }
+        inventory.held.add(quantity);
+        
+        long now = System.nanoTime();
+        long expiresAtNanos = now + holdNanos;
+        Hold hold = new Hold(holdIds.incrementAndGet(), inventory, quantity,
+                LocalDateTime.now().plusNanos(holdNanos), expiresAtNanos);
+        holds.put(hold.id(), hold);
+        // Never a slot the sweeper may already have passed
+        long tick = Math.max(ceilTick(expiresAtNanos), tickAt(now) + 1);
+        wheel[(int) (tick & (wheel.length - 1))].add(hold);
+        return hold;
+    }
+    
+    /**
+     * Turn a hold's units into a sale
+     *
+     * @return the hold, or null if it does not exist, has expired, or was released
+     */
+    public Hold confirm(long holdId) {
+        Hold hold = holds.remove(holdId);
+        if (hold == null || expireIfDue(hold) || !hold.leave(Hold.CONFIRMED)) {
+            return null;
+        }
+        Inventory inventory = hold.inventory();
+        inventory.held.add(-hold.quantity());
+        inventory.confirmed.add(hold.quantity());
+        return hold;
+    }
+    
+    /**
+     * Put a hold's units back on sale now
+     *
+     * @return false if it does not exist, has expired, or was confirmed
+     */
+    public boolean release(long holdId) {
+        Hold hold = holds.remove(holdId);
+        if (hold == null || expireIfDue(hold) || !hold.leave(Hold.RELEASED)) {
+            return false;
+        }
+        Inventory inventory = hold.inventory();
+        inventory.held.add(-hold.quantity());
+        inventory.available.add(hold.quantity());
+        return true;
+    }
+    
+    /**
+     * Put back units of a sale that could not be completed, such as a booking that failed
+     * after its units were taken or its hold confirmed
+     */
+    public void giveBack(String sku, int quantity) {
+        Inventory inventory = inventory(sku, quantity);
+        inventory.confirmed.add(-quantity);
+        inventory.available.add(quantity);
+    }
+    
+    /**
+     * @return the SKU's counts, or null if it does not exist
+     */
+    public Map<String, Object> getReport(String sku) {
+        Inventory inventory = inventories.get(sku);
+        return inventory == null ? null : report(inventory);
+    }
+    
+    public List<Map<String, Object>> getReport() {
+        List<Map<String, Object>> reports = new ArrayList<>();
+        inventories.values().forEach(inventory -> reports.add(report(inventory)));
+        return reports;
+    }
+    
+    public int getActiveHolds() {
+        return holds.size();
+    }
+    
+    /**
+     * Expire the holds in every slot that has come due, then give their units back in one
+     * add per SKU
+     */
+    void sweep() {
+        try {
+            long now = System.nanoTime();
+            long tick = tickAt(now);
+            Map<Inventory, Long> expired = new IdentityHashMap<>();
+            // A sweep that fell more than a turn behind visits each slot once
+            for (long t = Math.max(sweptTick + 1, tick - wheel.length + 1); t <= tick; t++) {
+                wheel[(int) (t & (wheel.length - 1))].removeIf(hold -> {
+                    if (!hold.isHeld()) {
+                        return true;
+                    }
+                    if (hold.expiresAtNanos - now > 0) {
+                        return false;
+                    }
+                    if (hold.leave(Hold.EXPIRED)) {
+                        holds.remove(hold.id());
+                        expired.merge(hold.inventory(), (long) hold.quantity(), Long::sum);
+                    }
+                    return true;
+                });
+            }
+            sweptTick = tick;
+            
+            expired.forEach((inventory, units) -> {
+                inventory.held.add(-units);
+                inventory.expired.add(units);
+                inventory.available.add(units);
+            });
+        } catch (RuntimeException e) {
+            log.error("Inventory hold sweep failed", e);
+        }
+    }
+    
+    /**
+     * Expire a hold that is due but not swept yet, as the sweeper would, so it cannot be
+     * confirmed or released after its expiry
+     *
+     * @return true if the hold is past its expiry
+     */
+    private boolean expireIfDue(Hold hold) {
+        if (hold.expiresAtNanos - System.nanoTime() > 0) {
+            return false;
+        }
+        if (hold.leave(Hold.EXPIRED)) {
+            Inventory inventory = hold.inventory();
+            inventory.held.add(-hold.quantity());
+            inventory.expired.add(hold.quantity());
+            inventory.available.add(hold.quantity());
+        }
+        return true;
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        sweeper.shutdownNow();
+    }
+    
+    private Inventory inventory(String sku, int quantity) {
+        if (quantity < 1 || quantity > maxQuantity) {
+            throw new IllegalArgumentException("quantity must be between 1 and " + maxQuantity);
+        }
+        Inventory inventory = sku == null ? null : inventories.get(sku);
+        if (inventory == null) {
+            throw new IllegalArgumentException("Unknown SKU: " + sku);
+        }
+        return inventory;
+    }
+    
+    private long tickAt(long nanos) {
+        return (nanos - startNanos) / tickNanos;
+    }
+    
+    private long ceilTick(long nanos) {
+        return (nanos - startNanos + tickNanos - 1) / tickNanos;
+    }
+    
+    private static Map<String, Object> report(Inventory inventory) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("sku", inventory.sku);
+        report.put("capacity", inventory.capacity);
+        report.put("available", inventory.available.sum());
+        report.put("held", inventory.held.sum());
+        report.put("confirmed", inventory.confirmed.sum());
+        report.put("expired", inventory.expired.sum());
+        report.put("rejected", inventory.rejected.sum());
+        return report;
+    }
+}
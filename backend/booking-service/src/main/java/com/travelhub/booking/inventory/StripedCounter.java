@@ -0,0 +1,102 @@
+package com.travelhub.booking.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Non-negative count of units left, split over stripes so that concurrent takers CAS
+ * different cache lines. Each thread starts at its own stripe and moves on to the others
+ * only when that one runs dry, so the count never goes below zero and no lock is taken.
+ *
+ * A take of several units is all or nothing: units are collected stripe by stripe and
+ * handed back if there are not enough. While that happens other takers can briefly see
+ * fewer units than are really left, which only matters at the very end of a sale.
+ */
+final class StripedCounter {
+    
+    // 128 bytes per stripe, so stripes never share a cache line or its prefetched neighbour
+    private static final int PAD = 16;
+    
+    private final AtomicLongArray cells;
+    private final int mask;
+    
+    StripedCounter(long initial, int stripes) {
+        if (Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Stripes must be a power of two: " + stripes);
+        }
+        cells = new AtomicLongArray(stripes * PAD);
+        mask = stripes - 1;
+        add(initial);
+    }
+    
+    /**
+     * Take {@code amount} units if that many are left
+     *
+     * @return false, taking nothing, if fewer are left
+     */
+    boolean tryTake(long amount) {
+        int home = homeStripe();
+        long taken = 0;
+        for (int n = 0; n <= mask && taken < amount; n++) {
+            int index = ((home + n) & mask) * PAD;
+            long current;
+            while ((current = cells.get(index)) > 0) {
+                long take = Math.min(current, amount - taken);
+                if (cells.compareAndSet(index, current, current - take)) {
+                    taken += take;
+                    break;
+                }
+            }
+        }
+        if (taken < amount) {
+            if (taken > 0) {
+                cells.getAndAdd(home * PAD, taken);
+            }
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Put {@code amount} units back, spread over the stripes
+     */
+    void add(long amount) {
+        int stripes = mask + 1;
+        long each = amount / stripes;
+        long remainder = amount % stripes;
+        int home = homeStripe();
+        for (int n = 0; n < stripes; n++) {
+            long share = each + (n < remainder ? 1 : 0);
+            if (share == 0) {
+                break;
+            }
+            cells.getAndAdd(((home + n) & mask) * PAD, share);
+        }
+    }
+    
+    /**
+     * Units left; a moment's snapshot while takes are running
+     */
+    long sum() {
+        long sum = 0;
+        for (int stripe = 0; stripe <= mask; stripe++) {
+            sum += cells.get(stripe * PAD);
+        }
+        return sum;
+    }
+    
+    /**
+     * Units left in each stripe; a moment's snapshot while takes are running
+     */
+    long[] stripes() {
+        long[] stripes = new long[mask + 1];
+        for (int stripe = 0; stripe <= mask; stripe++) {
+            stripes[stripe] = cells.get(stripe * PAD);
+        }
+        return stripes;
+    }
+    
+    private int homeStripe() {
+        // Spread thread ids, which are usually consecutive, over the stripes
+        return Long.hashCode(Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) & mask;
+    }
+}
@@ -0,0 +1,11 @@
+package com.travelhub.booking.store;
+
+import java.time.LocalDateTime;
+
+/**
+ * A booking as read from the {@link BookingStore}. {@code sku} and {@code quantity} are the
+ * inventory units it took, null and 0 if it took none.
+ */
+public record Booking(long id, long userId, String destination, String status, String sku, int quantity,
+                      LocalDateTime createdAt) {
+}
@@ -0,0 +1,528 @@
+package com.travelhub.booking.store;
+
+import com.travelhub.booking.config.BookingJournalProperties;
+import com.travelhub.booking.config.BookingJournalProperties.FlushPolicy;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead journal of the booking store: an append-only log split into fixed-size,
+ * memory-mapped segment files. Appending a record copies it into the mapped segment, so
+ * it survives a crash of the process at once; surviving a crash of the machine takes a
+ * flush, which the {@link FlushPolicy} decides.
+ *
+ * A record is its payload length, a CRC32C of the payload, and the payload. Bookings are
+ * journaled with the dictionary codes the store gives their destination, status and, for a
+ * booking that took inventory, SKU, and each new code is journaled once, before the first
+ * booking that uses it, so replay copies longs and allocates nothing per booking. SKUs put
+ * on sale are journaled with their capacity, so replay can rebuild inventory before any
+ * request is served. A record never spans segments; the zeroed tail of a segment reads as
+ * its end.
+ *
+ * Group commit: under {@link FlushPolicy#ALWAYS} a single flusher thread forces everything
+ * appended so far and then completes every append it covered, so writers that arrive while
+ * a flush is running share the next one instead of paying a flush each.
+ *
+ * A failed flush stops the journal for good. Records it covered are already in the mapped
+ * segment and in the store, so they may or may not survive a crash, and a later flush
+ * could still make them durable. Their appends fail, and so does every append after them,
+ * so nothing more is accepted whose fate is unknown.
+ *
+ * Replay stops at the first record that is torn, fails its CRC, or does not follow on from
+ * the records before it. The rest of that segment is zeroed and later segments are deleted,
+ * so appends continue from the last good record.
+ */
+@Component
+@Slf4j
+public class BookingJournal {
+    
+    static final byte BOOKING = 1;
+    static final byte DESTINATION = 2;
+    static final byte STATUS = 3;
+    static final byte SKU = 4;
+    static final byte INVENTORY = 5;
+    
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int BOOKING_BYTES = 1 + Integer.BYTES + 2 * Long.BYTES + Integer.BYTES;
+    // A booking that took inventory also holds its claim
+    private static final int CLAIMED_BOOKING_BYTES = BOOKING_BYTES + Integer.BYTES;
+    private static final int MAX_NAME_BYTES = 1 << 16;
+    private static final String SUFFIX = ".journal";
+    private static final CompletableFuture<Void> DURABLE = CompletableFuture.completedFuture(null);
+    private static final byte[] ZEROS = new byte[1 << 16];
+    
+    /**
+     * Receives the journal's records in order during replay. Returning false marks the
+     * record as not following on from the ones before it, which ends the replay there.
+     */
+    interface Replay {
+        /**
+         * @param claim the booking's SKU code and quantity as packed by the store, or 0
+         */
+        boolean booking(int id, long userId, long createdAt, int codes, int claim);
+        
+        boolean name(byte column, int code, String value);
+        
+        boolean inventory(String sku, long capacity);
+    }
+    
+    private record Waiter(long sequence, CompletableFuture<Void> durable) {
+    }
+    
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final FlushPolicy flushPolicy;
+    private final long flushIntervalNanos;
+    
+    private final ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + 1 + Integer.BYTES + MAX_NAME_BYTES);
+    private final CRC32C crc = new CRC32C();
+    // Appends waiting for a flush, in sequence order
+    private final Queue<Waiter> waiters = new ArrayDeque<>();
+    // Full segments not forced yet
+    private final List<MappedByteBuffer> retired = new ArrayList<>();
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private Thread flusher;
+    private boolean closed;
+    // The flush that stopped the journal, null while it is running
+    private RuntimeException failure;
+    
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private int offset;
+    // Bytes appended since startup, which orders appends for group commit
+    private long appended;
+    // End of the forced part of the active segment
+    private int flushedOffset;
+    
+    public BookingJournal(BookingJournalProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.directory = Path.of(properties.getDirectory());
+        if (properties.getSegmentSizeMb() < 1 || properties.getSegmentSizeMb() > 1024) {
+            throw new IllegalArgumentException("segment-size-mb must be between 1 and 1024");
+        }
+        this.segmentSize = properties.getSegmentSizeMb() << 20;
+        this.flushPolicy = properties.getFlushPolicy();
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, properties.getFlushInterval()));
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public FlushPolicy getFlushPolicy() {
+        return flushPolicy;
+    }
+    
+    /**
+     * Feed every good record to {@code replay}, then open the journal for appends. Called once,
+     * before the first append.
+     */
+    synchronized void replay(Replay replay) {
+        if (!enabled) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        int records = 0;
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve("journal.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lock = lockChannel.tryLock();
+            if (lock == null) {
+                throw new IllegalStateException("Journal " + directory + " is in use by another process");
+            }
+            
+            List<Path> segments = segments();
+            for (int i = 0; i < segments.size(); i++) {
+                segmentIndex = indexOf(segments.get(i));
+                segment = map(segments.get(i), segmentSize);
+                offset = 0;
+                int read;
+                while ((read = replayRecord(replay)) > 0) {
+                    offset += read;
+                    records++;
+                }
+                if (read < 0) {
+                    truncate(segments.subList(i + 1, segments.size()));
+                    break;
+                }
+                if (i < segments.size() - 1) {
+                    segment = null;
+                }
+            }
+            if (segment == null) {
+                segmentIndex = 1;
+                segment = map(segmentPath(segmentIndex), segmentSize);
+                offset = 0;
+            }
+            flushedOffset = offset;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open booking journal in " + directory, e);
+        }
+        
+        if (flushPolicy != FlushPolicy.OS) {
+            flusher = new Thread(this::flushLoop, "booking-journal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+        log.info("Replayed {} journal records from {} in {} ms; flush policy {}", records, directory,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), flushPolicy);
+    }
+    
+    /**
+     * Journal a booking, with {@code claim} 0 if it took no inventory
+     *
+     * @return completes once the booking is as durable as the flush policy makes it
+     */
+    synchronized CompletableFuture<Void> appendBooking(int id, long userId, long createdAt, int codes, int claim) {
+        if (!enabled) {
+            return DURABLE;
+        }
+        record.clear().position(HEADER_BYTES);
+        record.put(BOOKING).putInt(id).putLong(userId).putLong(createdAt).putInt(codes);
+        if (claim != 0) {
+            record.putInt(claim);
+        }
+        write();
+        return durable();
+    }
+    
+    /**
+     * Journal a new dictionary code. It becomes durable with the first booking that uses it.
+     */
+    synchronized void appendName(byte column, int code, String value) {
+        if (!enabled) {
+            return;
+        }
+        record.clear().position(HEADER_BYTES);
+        record.put(column).putInt(code).put(nameBytes(value));
+        write();
+    }
+    
+    /**
+     * Journal a SKU put on sale
+     *
+     * @return completes once the SKU is as durable as the flush policy makes it
+     */
+    public synchronized CompletableFuture<Void> appendInventory(String sku, long capacity) {
+        if (!enabled) {
+            return DURABLE;
+        }
+        record.clear().position(HEADER_BYTES);
+        record.put(INVENTORY).putLong(capacity).put(nameBytes(sku));
+        write();
+        return durable();
+    }
+    
+    @PreDestroy
+    void close() throws InterruptedException {
+        Thread running;
+        synchronized (this) {
+            if (!enabled || closed) {
+                return;
+            }
+            closed = true;
+            running = flusher;
+            notifyAll();
+        }
+        if (running != null) {
+            running.join();
+        }
+        try {
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("Could not release booking journal lock: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Frame the payload in {@link #record} and copy it into the segment
+     */
+    private void write() {
+        if (closed) {
+            throw new IllegalStateException("Booking journal is closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Booking journal stopped after a failed flush", failure);
+        }
+        if (segment == null) {
+            throw new IllegalStateException("Booking journal has not been replayed yet");
+        }
+        int length = record.position() - HEADER_BYTES;
+        crc.reset();
+        crc.update(record.array(), HEADER_BYTES, length);
+        record.putInt(0, length).putInt(Integer.BYTES, (int) crc.getValue());
+        int size = HEADER_BYTES + length;
+        
+        if (offset + size > segment.capacity()) {
+            roll();
+        }
+        segment.put(offset, record.array(), 0, size);
+        offset += size;
+        appended += size;
+    }
+    
+    /**
+     * @return completes once everything appended so far is as durable as the flush policy makes it
+     */
+    private CompletableFuture<Void> durable() {
+        if (flushPolicy != FlushPolicy.ALWAYS) {
+            return DURABLE;
+        }
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        waiters.add(new Waiter(appended, durable));
+        notifyAll();
+        return durable;
+    }
+    
+    private static byte[] nameBytes(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Names are limited to " + MAX_NAME_BYTES + " bytes");
+        }
+        return bytes;
+    }
+    
+    private void roll() {
+        try {
+            MappedByteBuffer next = map(segmentPath(segmentIndex + 1), segmentSize);
+            if (flushPolicy != FlushPolicy.OS) {
+                retired.add(segment);
+            }
+            segment = next;
+            segmentIndex++;
+            offset = 0;
+            flushedOffset = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create journal segment " + (segmentIndex + 1), e);
+        }
+    }
+    
+    private void flushLoop() {
+        long nextFlush = System.nanoTime() + flushIntervalNanos;
+        while (true) {
+            MappedByteBuffer active;
+            List<MappedByteBuffer> full;
+            int from;
+            int to;
+            long target;
+            boolean last;
+            synchronized (this) {
+                try {
+                    if (flushPolicy == FlushPolicy.ALWAYS) {
+                        while (!closed && waiters.isEmpty()) {
+                            wait();
+                        }
+                    } else {
+                        long waitNanos;
+                        while (!closed && (waitNanos = nextFlush - System.nanoTime()) > 0) {
+                            TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+                        }
+                        nextFlush = System.nanoTime() + flushIntervalNanos;
+                    }
+                } catch (InterruptedException e) {
+                    closed = true;
+                }
+                last = closed;
+                active = segment;
+                full = new ArrayList<>(retired);
+                retired.clear();
+                from = flushedOffset;
+                to = offset;
+                target = appended;
+            }
+            
+            RuntimeException flushFailure = null;
+            try {
+                // One force covers every append up to target
+                for (MappedByteBuffer buffer : full) {
+                    force(buffer, 0, buffer.capacity());
+                }
+                if (to > from) {
+                    force(active, from, to - from);
+                }
+            } catch (RuntimeException e) {
+                log.error("Booking journal flush failed, refusing all further appends: {}", e.getMessage());
+                flushFailure = e;
+            }
+            
+            synchronized (this) {
+                if (flushFailure != null) {
+                    failure = flushFailure;
+                    // Appends after target were not flushed either, and no flush will come now
+                    for (Waiter waiter : waiters) {
+                        waiter.durable().completeExceptionally(flushFailure);
+                    }
+                    waiters.clear();
+                    return;
+                }
+                if (active == segment) {
+                    flushedOffset = to;
+                }
+                while (!waiters.isEmpty() && waiters.peek().sequence() <= target) {
+                    waiters.poll().durable().complete(null);
+                }
+                if (last) {
+                    waiters.forEach(waiter -> waiter.durable().completeExceptionally(
+                            new IllegalStateException("Booking journal is closed")));
+                    waiters.clear();
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Force {@code length} bytes of a segment from {@code from} to disk
+     */
+    void force(MappedByteBuffer buffer, int from, int length) {
+        buffer.force(from, length);
+    }
+    
+    /**
+     * Whether a failed flush has stopped the journal
+     */
+    public synchronized boolean isFailed() {
+        return failure != null;
+    }
+    
+    /**
+     * @return the size of the record at {@link #offset}, 0 at the end of the segment, or -1
+     *         if the record is torn, corrupt or rejected by {@code replay}
+     */
+    private int replayRecord(Replay replay) {
+        if (offset + HEADER_BYTES > segment.capacity()) {
+            return 0;
+        }
+        int length = segment.getInt(offset);
+        if (length == 0) {
+            return 0;
+        }
+        int payload = offset + HEADER_BYTES;
+        if (length < 0 || length > segment.capacity() - payload) {
+            return -1;
+        }
+        crc.reset();
+        crc.update(segment.slice(payload, length));
+        if ((int) crc.getValue() != segment.getInt(offset + Integer.BYTES)) {
+            return -1;
+        }
+        
+        byte type = segment.get(payload);
+        boolean accepted;
+        if (type == BOOKING && (length == BOOKING_BYTES || length == CLAIMED_BOOKING_BYTES)) {
+            accepted = replay.booking(segment.getInt(payload + 1), segment.getLong(payload + 5),
+                    segment.getLong(payload + 13), segment.getInt(payload + 21),
+                    length == CLAIMED_BOOKING_BYTES ? segment.getInt(payload + BOOKING_BYTES) : 0);
+        } else if ((type == DESTINATION || type == STATUS || type == SKU) && length >= 1 + Integer.BYTES) {
+            accepted = replay.name(type, segment.getInt(payload + 1), string(payload + 1 + Integer.BYTES, length - 1 - Integer.BYTES));
+        } else if (type == INVENTORY && length > 1 + Long.BYTES) {
+            accepted = replay.inventory(string(payload + 1 + Long.BYTES, length - 1 - Long.BYTES), segment.getLong(payload + 1));
+        } else {
+            accepted = false;
+        }
+        return accepted ? HEADER_BYTES + length : -1;
+    }
+    
+    private String string(int position, int length) {
+        byte[] bytes = new byte[length];
+        segment.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Drop everything from {@link #offset} on, in this segment and the later ones
+     */
+    private void truncate(List<Path> later) throws IOException {
+        long dropped = segment.capacity() - offset;
+        for (int i = offset; i < segment.capacity(); i += ZEROS.length) {
+            segment.put(i, ZEROS, 0, Math.min(ZEROS.length, segment.capacity() - i));
+        }
+        segment.force();
+        for (Path path : later) {
+            dropped += Files.size(path);
+            Files.delete(path);
+        }
+        log.warn("Booking journal ends in a torn or corrupt record in segment {} at offset {}; "
+                + "dropped up to {} bytes after it", segmentIndex, offset, dropped);
+    }
+    
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+    
+    private Path segmentPath(int index) {
+        return directory.resolve(String.format("%010d%s", index, SUFFIX));
+    }
+    
+    private static int indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(0, name.length() - SUFFIX.length()));
+    }
+    
+    /**
+     * Map a whole segment, creating it zero-filled if it does not exist. An existing segment
+     * keeps its size, so changing segment-size-mb applies to new segments only.
+     *
+     * A new segment's length and its directory entry are forced before it is returned, so
+     * records flushed into it cannot be lost with the file after a machine crash.
+     */
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        boolean created;
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            created = channel.size() == 0;
+            if (created) {
+                channel.write(ByteBuffer.allocate(1), size - 1);
+                channel.force(true);
+            }
+            // The mapping stays valid after the channel is closed
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        if (created) {
+            syncDirectory(path.getParent());
+        }
+        return mapped;
+    }
+    
+    /**
+     * Force a directory's entries to disk. Some platforms cannot open a directory as a file;
+     * their file systems do not need it.
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException | UnsupportedOperationException e) {
+            log.debug("Cannot sync journal directory {}: {}", directory, e.toString());
+        }
+    }
+}
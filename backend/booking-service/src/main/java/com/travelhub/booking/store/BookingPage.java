@@ -0,0 +1,10 @@
+package com.travelhub.booking.store;
+
+import java.util.List;
+
+/**
+ * One page of a user's bookings, newest first. {@code nextCursor} continues after the last
+ * booking on the page and is null on the last page.
+ */
+public record BookingPage(List<Booking> bookings, Long nextCursor) {
+}
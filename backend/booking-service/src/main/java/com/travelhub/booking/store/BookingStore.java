@@ -0,0 +1,382 @@
+package com.travelhub.booking.store;
+
+import com.travelhub.booking.config.BookingStoreProperties;
+import com.travelhub.booking.inventory.InventoryEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * In-memory booking store sized for tens of millions of bookings.
+ *
+ * Each booking takes three longs in a chunk of {@value #CHUNK_SIZE} bookings: the user id,
+ * the creation time, and the id of the user's previous booking packed with dictionary codes
+ * for the destination and status. That is {@value #BYTES_PER_BOOKING} bytes per booking and
+ * no object per booking, so the heap grows predictably and the GC has nothing to trace.
+ * Bookings are never moved; storage grows a chunk at a time.
+ *
+ * A {@link LongIntMap} from user id to the user's newest booking id is the head of a chain
+ * through the user's bookings, newest first, which is what pagination walks. A cursor is
+ * simply the id of the next booking in the chain.
+ *
+ * A booking that took inventory has a claim, its SKU's dictionary code and its quantity,
+ * kept in a second {@link LongIntMap} by booking id, since most bookings have none.
+ *
+ * Writers take the store's lock; readers never lock. A booking is written in full before
+ * its id is published, through the index or through {@link #size()}, so a reader that can
+ * see an id can read the whole booking.
+ *
+ * Every booking and dictionary code is written to the {@link BookingJournal} before it is
+ * applied here, and the journal is replayed into the store on startup. Replay also rebuilds
+ * the {@link InventoryEngine}: the SKUs put on sale, and the units each booking took. A
+ * booking can be read as soon as it is created; {@link #create} completes once the journal's
+ * flush policy has made it durable.
+ */
+@Component
+@Slf4j
+public class BookingStore {
+    
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int LONGS_PER_BOOKING = 3;
+    public static final int BYTES_PER_BOOKING = LONGS_PER_BOOKING * Long.BYTES;
+    
+    private static final int MAX_DESTINATIONS = (1 << 24) - 1;
+    private static final int MAX_STATUSES = (1 << 8) - 1;
+    // A claim packs the SKU code above the quantity, and stays positive
+    private static final int MAX_SKUS = (1 << 23) - 1;
+    private static final int QUANTITY_BITS = 8;
+    private static final int QUANTITY_MASK = (1 << QUANTITY_BITS) - 1;
+    
+    private final int maxBookings;
+    private final BookingJournal journal;
+    private final LongIntMap newestByUser;
+    private final LongIntMap claims = new LongIntMap(1024);
+    private final Dictionary destinations = new Dictionary("destinations", MAX_DESTINATIONS);
+    private final Dictionary statuses = new Dictionary("statuses", MAX_STATUSES);
+    private final Dictionary skus = new Dictionary("SKUs", MAX_SKUS);
+    private volatile long[][] chunks = new long[0][];
+    // Bookings stored; booking ids run from 1 to count
+    private volatile int count;
+    
+    public BookingStore(BookingStoreProperties properties, BookingJournal journal, InventoryEngine inventory) {
+        if (properties.getMaxBookings() <= 0 || properties.getMaxBookings() == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("max-bookings must be between 1 and " + (Integer.MAX_VALUE - 1));
+        }
+        this.maxBookings = properties.getMaxBookings();
+        this.journal = journal;
+        this.newestByUser = new LongIntMap(properties.getExpectedUsers());
+        journal.replay(new BookingJournal.Replay() {
+            @Override
+            public boolean booking(int id, long userId, long createdAt, int codes, int claim) {
+                if (!restore(id, userId, createdAt, codes, claim)) {
+                    return false;
+                }
+                if (claim != 0) {
+                    inventory.restoreSale(skus.value(claim >>> QUANTITY_BITS), claim & QUANTITY_MASK);
+                }
+                return true;
+            }
+            
+            @Override
+            public boolean name(byte column, int code, String value) {
+                Dictionary dictionary = column == BookingJournal.DESTINATION ? destinations
+                        : column == BookingJournal.STATUS ? statuses : skus;
+                return dictionary.restore(code, value);
+            }
+            
+            @Override
+            public boolean inventory(String sku, long capacity) {
+                if (capacity < 0) {
+                    return false;
+                }
+                inventory.restore(sku, capacity);
+                return true;
+            }
+        });
+        log.info("Booking store holds up to {} bookings in at most {} MB, plus {} MB of user index for {} users",
+                maxBookings, chunkedBytes(maxBookings) >> 20, newestByUser.sizeInBytes() >> 20,
+                properties.getExpectedUsers());
+    }
+    
+    /**
+     * Store a new booking for {@code userId} that took no inventory
+     *
+     * @return completes with the booking once the journal has made it durable
+     * @throws IllegalStateException if the store or its user index is full
+     */
+    public CompletableFuture<Booking> create(long userId, String destination, String status) {
+        return create(userId, destination, status, null, 0);
+    }
+    
+    /**
+     * Store a new booking for {@code userId} that took {@code quantity} units of {@code sku},
+     * or no inventory if {@code sku} is null
+     *
+     * @return completes with the booking once the journal has made it durable
+     * @throws IllegalStateException if the store or its user index is full
+     * @throws IllegalArgumentException if the quantity is out of range
+     */
+    public synchronized CompletableFuture<Booking> create(long userId, String destination, String status,
+                                                          String sku, int quantity) {
+        if (sku != null && (quantity < 1 || quantity > InventoryEngine.MAX_QUANTITY)) {
+            throw new IllegalArgumentException("quantity must be between 1 and " + InventoryEngine.MAX_QUANTITY);
+        }
+        if (count >= maxBookings) {
+            throw new IllegalStateException("Booking store is full at " + maxBookings + " bookings");
+        }
+        if (!newestByUser.hasRoomFor(userId)) {
+            throw new IllegalStateException("User index is full at " + newestByUser.size() + " users");
+        }
+        if (sku != null && !claims.hasRoomFor(count + 1)) {
+            throw new IllegalStateException("Claim index is full at " + claims.size() + " bookings");
+        }
+        int id = count + 1;
+        long createdAt = System.currentTimeMillis();
+        int codes = (code(destinations, BookingJournal.DESTINATION, destination) << 8)
+                | code(statuses, BookingJournal.STATUS, status);
+        int claim = sku == null ? 0 : code(skus, BookingJournal.SKU, sku) << QUANTITY_BITS | quantity;
+        
+        // Write-ahead: a booking that could not be journaled is not stored
+        CompletableFuture<Void> durable = journal.appendBooking(id, userId, createdAt, codes, claim);
+        append(id, userId, createdAt, codes, claim);
+        
+        Booking booking = new Booking(id, userId, destination, status, sku, sku == null ? 0 : quantity,
+                toLocalDateTime(createdAt));
+        return durable.thenApply(ignored -> booking);
+    }
+    
+    /**
+     * @return the booking, or null if there is none with this id
+     */
+    public Booking get(long bookingId) {
+        if (bookingId < 1 || bookingId > count) {
+            return null;
+        }
+        return read(chunks, (int) bookingId);
+    }
+    
+    /**
+     * Up to {@code limit} of a user's bookings, newest first, starting at {@code cursor}
+     * (null for the newest booking)
+     *
+     * @throws IllegalArgumentException if the cursor is not one of this user's bookings
+     */
+    public BookingPage page(long userId, Long cursor, int limit) {
+        int id;
+        if (cursor == null) {
+            id = newestByUser.get(userId);
+        } else {
+            if (cursor < 1 || cursor > count || userIdOf(chunks, cursor.intValue()) != userId) {
+                throw new IllegalArgumentException("Cursor " + cursor + " is not a booking of user " + userId);
+            }
+            id = cursor.intValue();
+        }
+        
+        // Read after the id was published, so the chunk holding it is visible
+        long[][] current = chunks;
+        List<Booking> bookings = new ArrayList<>(Math.min(limit, 16));
+        while (id != 0 && bookings.size() < limit) {
+            bookings.add(read(current, id));
+            id = previousOf(current, id);
+        }
+        return new BookingPage(bookings, id == 0 ? null : (long) id);
+    }
+    
+    public int size() {
+        return count;
+    }
+    
+    public int getMaxBookings() {
+        return maxBookings;
+    }
+    
+    public String getJournalFlushPolicy() {
+        return journal.isEnabled() ? journal.getFlushPolicy().name() : "DISABLED";
+    }
+    
+    public int userCount() {
+        return newestByUser.size();
+    }
+    
+    /**
+     * Heap taken by booking chunks, the user index and claims, leaving out the small dictionaries
+     */
+    public long heapBytes() {
+        return (long) chunks.length * CHUNK_SIZE * BYTES_PER_BOOKING + newestByUser.sizeInBytes() + claims.sizeInBytes();
+    }
+    
+    /**
+     * A booking from the journal, which must be the next one
+     */
+    private boolean restore(int id, long userId, long createdAt, int codes, int claim) {
+        if (id != count + 1 || !destinations.contains(codes >>> 8) || !statuses.contains(codes & MAX_STATUSES)
+                || (claim != 0 && !isClaim(claim))) {
+            return false;
+        }
+        if (count >= maxBookings) {
+            throw new IllegalStateException("The booking journal holds more than max-bookings " + maxBookings);
+        }
+        append(id, userId, createdAt, codes, claim);
+        return true;
+    }
+    
+    private void append(int id, long userId, long createdAt, int codes, int claim) {
+        int index = id - 1;
+        long[] chunk = chunkFor(index);
+        int offset = (index & CHUNK_MASK) * LONGS_PER_BOOKING;
+        int previous = newestByUser.get(userId);
+        
+        chunk[offset] = userId;
+        chunk[offset + 1] = createdAt;
+        chunk[offset + 2] = ((long) previous << 32) | (codes & 0xFFFFFFFFL);
+        if (claim != 0) {
+            claims.put(id, claim);
+        }
+        // Release store, then volatile write: the booking is complete before either makes it
+        // visible, and a booking the index could not take is never counted
+        newestByUser.put(userId, id);
+        count = id;
+    }
+    
+    /**
+     * Whether a journaled claim names a known SKU and at least one unit
+     */
+    private boolean isClaim(int claim) {
+        int sku = claim >>> QUANTITY_BITS;
+        return claim > 0 && sku > 0 && skus.contains(sku) && (claim & QUANTITY_MASK) > 0;
+    }
+    
+    /**
+     * Code of {@code value}, journaling it first if it is new
+     */
+    private int code(Dictionary dictionary, byte column, String value) {
+        int code = dictionary.find(value);
+        if (code < 0) {
+            code = dictionary.nextCode();
+            journal.appendName(column, code, value);
+            dictionary.add(value);
+        }
+        return code;
+    }
+    
+    private long[] chunkFor(int index) {
+        int chunkIndex = index >>> CHUNK_SHIFT;
+        long[][] current = chunks;
+        if (chunkIndex < current.length) {
+            return current[chunkIndex];
+        }
+        long[][] grown = Arrays.copyOf(current, chunkIndex + 1);
+        grown[chunkIndex] = new long[CHUNK_SIZE * LONGS_PER_BOOKING];
+        chunks = grown;
+        return grown[chunkIndex];
+    }
+    
+    private Booking read(long[][] chunks, int id) {
+        long[] chunk = chunks[(id - 1) >>> CHUNK_SHIFT];
+        int offset = ((id - 1) & CHUNK_MASK) * LONGS_PER_BOOKING;
+        long packed = chunk[offset + 2];
+        int claim = claims.get(id);
+        return new Booking(id, chunk[offset], destinations.value((int) (packed >>> 8) & MAX_DESTINATIONS),
+                statuses.value((int) packed & MAX_STATUSES), claim == 0 ? null : skus.value(claim >>> QUANTITY_BITS),
+                claim & QUANTITY_MASK, toLocalDateTime(chunk[offset + 1]));
+    }
+    
+    private static long userIdOf(long[][] chunks, int id) {
+        return chunks[(id - 1) >>> CHUNK_SHIFT][((id - 1) & CHUNK_MASK) * LONGS_PER_BOOKING];
+    }
+    
+    private static int previousOf(long[][] chunks, int id) {
+        return (int) (chunks[(id - 1) >>> CHUNK_SHIFT][((id - 1) & CHUNK_MASK) * LONGS_PER_BOOKING + 2] >>> 32);
+    }
+    
+    private static long chunkedBytes(int bookings) {
+        long chunkCount = (bookings + (long) CHUNK_MASK) >>> CHUNK_SHIFT;
+        return chunkCount * CHUNK_SIZE * BYTES_PER_BOOKING;
+    }
+    
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+    
+    /**
+     * Small codes for the few distinct strings a column holds. Code 0 is null. Writers hold
+     * the store's lock; readers get each code's string without locking.
+     */
+    private static final class Dictionary {
+        
+        private final String name;
+        private final int maxCode;
+        private final Map<String, Integer> codes = new HashMap<>();
+        private volatile String[] values = new String[16];
+        private int size = 1;
+        
+        Dictionary(String name, int maxCode) {
+            this.name = name;
+            this.maxCode = maxCode;
+        }
+        
+        /**
+         * @return the code of {@code value}, or -1 if it has none yet
+         */
+        int find(String value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+        
+        /**
+         * @return the code the next new value will get
+         * @throws IllegalStateException if there are no codes left
+         */
+        int nextCode() {
+            if (size > maxCode) {
+                throw new IllegalStateException("More than " + maxCode + " distinct " + name);
+            }
+            return size;
+        }
+        
+        boolean contains(int code) {
+            return code < size;
+        }
+        
+        /**
+         * A value from the journal, which must have the next code
+         */
+        boolean restore(int code, String value) {
+            if (code != size || code > maxCode || codes.containsKey(value)) {
+                return false;
+            }
+            add(value);
+            return true;
+        }
+        
+        void add(String value) {
+            String[] current = values;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[size] = value;
+            // Publishes the new string before any booking that uses its code
+            values = current;
+            codes.put(value, size);
+            size++;
+        }
+        
+        String value(int code) {
+            return values[code];
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.travelhub.booking.store;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Open-addressing hash map from a primitive {@code long} key to a positive {@code int}, so
+ * neither keys nor values are boxed. Linear probing over parallel arrays, 12 bytes per slot.
+ *
+ * Writes must be serialized by the caller; reads never lock. A slot's key is written first
+ * and its value is stored with release semantics, and readers load the value with acquire
+ * semantics before looking at the key, so they see an empty slot or a whole entry. Entries
+ * are never removed. Growing builds a new table and publishes it with one volatile write;
+ * readers already on the old table finish on it.
+ */
+final class LongIntMap {
+    
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int MAX_CAPACITY = 1 << 30;
+    // Low load keeps probe chains short; the slots cost 12 bytes each
+    private static final double MAX_LOAD = 0.5;
+    
+    private static final class Table {
+        private final long[] keys;
+        private final int[] values; // 0 marks an empty slot
+        private final int mask;
+        
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+        }
+    }
+    
+    private final int maxCapacity;
+    private volatile Table table;
+    // Written only by the writer
+    private volatile int size;
+    
+    LongIntMap(int expectedSize) {
+        this(expectedSize, MAX_CAPACITY);
+    }
+    
+    /**
+     * A map that holds at most {@code maxCapacity * MAX_LOAD} keys, {@code maxCapacity} being
+     * a power of two
+     */
+    LongIntMap(int expectedSize, int maxCapacity) {
+        if (maxCapacity < 2 || maxCapacity > MAX_CAPACITY || Integer.bitCount(maxCapacity) != 1) {
+            throw new IllegalArgumentException("maxCapacity must be a power of two up to " + MAX_CAPACITY);
+        }
+        this.maxCapacity = maxCapacity;
+        table = new Table(Math.min(maxCapacity, capacityFor(expectedSize)));
+    }
+    
+    /**
+     * @return the value mapped to {@code key}, or 0 if there is none
+     */
+    int get(long key) {
+        Table current = table;
+        for (int i = slot(key, current.mask); ; i = (i + 1) & current.mask) {
+            int value = (int) VALUES.getAcquire(current.values, i);
+            if (value == 0) {
+                return 0;
+            }
+            if (current.keys[i] == key) {
+                return value;
+            }
+        }
+    }
+    
+    /**
+     * Map {@code key} to {@code value}, which must be positive. Callers serialize writes.
+     *
+     * @return the previous value, or 0 if there was none
+     */
+    int put(long key, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("Values must be positive: " + value);
+        }
+        Table current = table;
+        int i = slot(key, current.mask);
+        while (current.values[i] != 0) {
+            if (current.keys[i] == key) {
+                int previous = current.values[i];
+                VALUES.setRelease(current.values, i, value);
+                return previous;
+            }
+            i = (i + 1) & current.mask;
+        }
+        
+        if (size + 1 > current.keys.length * MAX_LOAD) {
+            current = grow(current);
+            i = freeSlot(current, key);
+        }
+        current.keys[i] = key;
+        VALUES.setRelease(current.values, i, value);
+        size++;
+        return 0;
+    }
+    
+    /**
+     * @return whether {@link #put} can map {@code key} without running out of room
+     */
+    boolean hasRoomFor(long key) {
+        return size + 1 <= maxCapacity * MAX_LOAD || get(key) != 0;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Heap taken by the slot arrays
+     */
+    long sizeInBytes() {
+        return (long) table.keys.length * (Long.BYTES + Integer.BYTES);
+    }
+    
+    private Table grow(Table current) {
+        if (current.keys.length >= maxCapacity) {
+            throw new IllegalStateException("User index is full at " + size + " users");
+        }
+        Table grown = new Table(current.keys.length * 2);
+        for (int i = 0; i < current.keys.length; i++) {
+            if (current.values[i] != 0) {
+                int slot = freeSlot(grown, current.keys[i]);
+                grown.keys[slot] = current.keys[i];
+                grown.values[slot] = current.values[i];
+            }
+        }
+        // Publishes every entry copied above
+        table = grown;
+        return grown;
+    }
+    
+    private static int freeSlot(Table table, long key) {
+        int i = slot(key, table.mask);
+        while (table.values[i] != 0) {
+            i = (i + 1) & table.mask;
+        }
+        return i;
+    }
+    
+    static int slot(long key, int mask) {
+        // Fibonacci hashing spreads sequential ids over the whole table
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+    
+    private static int capacityFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / MAX_LOAD);
+        return (int) Math.min(MAX_CAPACITY, Long.highestOneBit(needed - 1) << 1);
+    }
+}
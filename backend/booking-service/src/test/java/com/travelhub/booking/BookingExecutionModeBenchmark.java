@@ -0,0 +1,142 @@
+package com.travelhub.booking;
+
+import com.travelhub.booking.config.BookingExecutionProperties.Mode;
+import com.travelhub.booking.store.BookingStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Highest request rate booking-service sustains in each execution mode. The service is
+ * started once per mode and driven open-loop at rising rates with
+ * GET /user/{userId}/bookings, which takes 50-150ms. A rate is sustained if fewer than 1%
+ * of calls fail and p99 latency, measured from when each call was due, stays under
+ * {@value #MAX_P99_MILLIS}ms; a service that falls behind shows up as queueing delay.
+ *
+ * Tomcat gets {@value #REQUEST_THREADS} request threads so the thread bound of BLOCKING
+ * mode, about threads / mean latency, is reached at rates one machine can offer.
+ *
+ * Run with: ./gradlew :booking-service:benchmark
+ */
+@Tag("benchmark")
+class BookingExecutionModeBenchmark {
+
+    private static final int REQUEST_THREADS = 50;
+    private static final int[] RATES = {100, 200, 400, 800, 1600, 3200, 6400};
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration STEP = Duration.ofSeconds(10);
+    private static final long MAX_P99_MILLIS = 300;
+    private static final double MAX_ERROR_RATE = 0.01;
+    private static final int USERS = 1000;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void compareMaxSustainableRps() throws Exception {
+        Map<Mode, Integer> sustained = new EnumMap<>(Mode.class);
+        for (Mode mode : Mode.values()) {
+            sustained.put(mode, maxSustainableRps(mode));
+        }
+
+        sustained.forEach((mode, rps) -> System.out.printf("%-8s sustains %5d rps%n", mode, rps));
+        assertTrue(sustained.get(Mode.ASYNC) > sustained.get(Mode.BLOCKING),
+                "ASYNC mode should sustain more than BLOCKING mode's thread-bound rate");
+    }
+
+    private int maxSustainableRps(Mode mode) throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BookingServiceApplication.class).run(
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + REQUEST_THREADS,
+                "--booking.execution.mode=" + mode,
+                "--booking.store.max-bookings=100000",
+                "--booking.store.expected-users=" + USERS,
+                "--booking.journal.enabled=false",
+                "--booking.flights.generated-flights=1000",
+                "--logging.level.com.travelhub=WARN")) {
+            BookingStore store = context.getBean(BookingStore.class);
+            for (long userId = 1; userId <= USERS; userId++) {
+                store.create(userId, "Paris", "CONFIRMED");
+                store.create(userId, "Tokyo", "PENDING");
+            }
+            URI users = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + "/api/v1/bookings/user/");
+
+            // JIT and connection warmup, not reported
+            run(users, RATES[0], WARMUP);
+            int sustained = 0;
+            for (int rate : RATES) {
+                Step step = run(users, rate, STEP);
+                System.out.printf("%-8s %5d rps offered: %s%n", mode, rate, step);
+                if (step.errorRate() > MAX_ERROR_RATE || step.p99Millis() > MAX_P99_MILLIS) {
+                    break;
+                }
+                sustained = rate;
+            }
+            return sustained;
+        }
+    }
+
+    /**
+     * Issue calls on a fixed schedule, whether or not earlier calls have finished
+     */
+    private Step run(URI users, int rate, Duration duration) throws InterruptedException {
+        int calls = (int) (rate * duration.toSeconds());
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        // Latency of each call in nanos, or -1 if it failed or never finished
+        long[] latencies = new long[calls];
+        Arrays.fill(latencies, -1);
+        CountDownLatch finished = new CountDownLatch(calls);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            long due = start + i * intervalNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int call = i;
+            HttpRequest request = HttpRequest.newBuilder(users.resolve((1 + call % USERS) + "/bookings"))
+                    .timeout(Duration.ofSeconds(10))
+                    .GET()
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, ex) -> {
+                if (ex == null && response.statusCode() == 200) {
+                    latencies[call] = System.nanoTime() - due;
+                }
+                finished.countDown();
+            });
+        }
+        finished.await(30, TimeUnit.SECONDS);
+
+        long[] succeeded = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+        double errorRate = 1 - (double) succeeded.length / calls;
+        long p50 = succeeded.length == 0 ? Long.MAX_VALUE : succeeded[succeeded.length / 2];
+        long p99 = succeeded.length == 0 ? Long.MAX_VALUE : succeeded[(int) (succeeded.length * 0.99)];
+        return new Step(TimeUnit.NANOSECONDS.toMillis(p50), TimeUnit.NANOSECONDS.toMillis(p99), errorRate);
+    }
+
+    private record Step(long p50Millis, long p99Millis, double errorRate) {
+        @Override
+        public String toString() {
+            return String.format("p50 %5d ms, p99 %5d ms, errors %.2f%%", p50Millis, p99Millis, 100 * errorRate);
+        }
+    }
+}
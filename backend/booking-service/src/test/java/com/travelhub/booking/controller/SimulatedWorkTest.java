@@ -0,0 +1,84 @@
+package com.travelhub.booking.controller;
+
+import com.travelhub.booking.api.Deadline;
+import com.travelhub.booking.config.BookingExecutionProperties;
+import com.travelhub.booking.config.BookingExecutionProperties.Mode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link SimulatedWork} in both execution modes
+ */
+class SimulatedWorkTest {
+
+    private final List<SimulatedWork> started = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(SimulatedWork::shutdown);
+    }
+
+    @Test
+    void workWithinTheDeadlineIsDone() {
+        for (Mode mode : Mode.values()) {
+            SimulatedWork work = work(mode);
+
+            assertTrue(work.run(Deadline.none(), 20).join(), mode.name());
+            assertTrue(work.run(Deadline.after(Duration.ofSeconds(5)), 20).join(), mode.name());
+        }
+    }
+
+    @Test
+    void deadlineStopsTheWork() {
+        for (Mode mode : Mode.values()) {
+            SimulatedWork work = work(mode);
+
+            long start = System.nanoTime();
+            assertFalse(work.run(Deadline.after(Duration.ofMillis(100)), 5_000).join(), mode.name());
+            long tookMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertTrue(tookMillis >= 90 && tookMillis < 2_000, mode + " took " + tookMillis + "ms");
+            assertFalse(work.run(Deadline.after(Duration.ZERO), 5_000).join(), "an expired deadline does no work");
+        }
+    }
+
+    @Test
+    void cancellingTheWorkCancelsItsTimer() {
+        SimulatedWork work = work(Mode.ASYNC);
+        CompletableFuture<Boolean> running = work.run(Deadline.none(), 60_000);
+        assertEquals(1, work.pendingTimers());
+
+        assertTrue(running.cancel(true));
+
+        assertEquals(0, work.pendingTimers());
+    }
+
+    @Test
+    void asyncWorkCompletesOnTheWorkers() {
+        SimulatedWork work = work(Mode.ASYNC);
+        List<CompletableFuture<String>> threads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            threads.add(work.run(Deadline.none(), 200).thenApply(done -> Thread.currentThread().getName()));
+        }
+
+        for (CompletableFuture<String> thread : threads) {
+            assertTrue(thread.join().startsWith("booking-worker-"), "continued on " + thread.join());
+        }
+        assertEquals(0, work.pendingTimers());
+    }
+
+    private SimulatedWork work(Mode mode) {
+        BookingExecutionProperties properties = new BookingExecutionProperties();
+        properties.setMode(mode);
+        SimulatedWork work = new SimulatedWork(properties);
+        started.add(work);
+        return work;
+    }
+}
@@ -0,0 +1,210 @@
+package com.travelhub.booking.flight;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link FlightCatalog} search: random queries on a small random catalog are
+ * checked against filtering and sorting every flight. Fares and durations come from a few
+ * values each, so most rankings have ties.
+ */
+class FlightCatalogTest {
+
+    private static final String[][] AIRPORTS = {
+        {"JFK", "New York"}, {"LHR", "London"}, {"CDG", "Paris"}, {"NRT", "Tokyo"}, {"SYD", "Sydney"}
+    };
+    // On sale, but no flight serves it
+    private static final String EMPTY_AIRPORT = "ZRH";
+    private static final int FLIGHTS = 3_000;
+    private static final int DAYS = 10;
+    private static final int[] ECONOMY_CENTS = {9_900, 12_900, 12_900, 19_900};
+    private static final int[] DURATIONS = {75, 90, 90, 120, 480};
+
+    private final LocalDate start = LocalDate.of(2024, 6, 1);
+    private final List<Flight> flights = new ArrayList<>();
+    private FlightCatalog catalog;
+
+    /**
+     * A flight as added to the catalog; {@code index} is the order it was added in
+     */
+    private record Flight(int index, String origin, String destination, LocalDate date, LocalTime departure,
+                          int duration, int stops, String number, int[] fares) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        FlightCatalog.Builder builder = FlightCatalog.builder();
+        for (String[] airport : AIRPORTS) {
+            builder.airport(airport[0], airport[1]);
+        }
+        builder.airport(EMPTY_AIRPORT, "Zurich");
+        builder.airline("TH", "TravelHub Air");
+        builder.airline("SK", "Skyline Airways");
+
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < FLIGHTS; i++) {
+            int origin = random.nextInt(AIRPORTS.length);
+            int destination = (origin + 1 + random.nextInt(AIRPORTS.length - 1)) % AIRPORTS.length;
+            LocalDate date = start.plusDays(random.nextInt(DAYS));
+            LocalTime departure = LocalTime.of(random.nextInt(24), 15 * random.nextInt(4));
+            int duration = DURATIONS[random.nextInt(DURATIONS.length)];
+            int stops = random.nextInt(3);
+            int airline = random.nextInt(2);
+            int economy = ECONOMY_CENTS[random.nextInt(ECONOMY_CENTS.length)];
+            // Some flights do not sell business, most do not sell first
+            int business = random.nextInt(4) == 0 ? 0 : economy * 3;
+            int first = random.nextInt(3) == 0 ? economy * 8 : 0;
+
+            builder.add(origin, destination, date, departure, duration, stops, airline, 100 + i, economy, business, first);
+            flights.add(new Flight(i, AIRPORTS[origin][0], AIRPORTS[destination][0], date, departure, duration, stops,
+                    (airline == 0 ? "TH" : "SK") + (100 + i), new int[] {economy, business, first}));
+        }
+        catalog = builder.build();
+    }
+
+    @Test
+    void randomQueriesMatchFilterAndSort() {
+        SplittableRandom random = new SplittableRandom(5);
+        int[] limits = {1, 3, 20, 1_000};
+        for (int q = 0; q < 2_000; q++) {
+            String origin = AIRPORTS[random.nextInt(AIRPORTS.length)][0];
+            String destination = AIRPORTS[random.nextInt(AIRPORTS.length)][0];
+            LocalDate from = start.plusDays(random.nextInt(-2, DAYS));
+            LocalDate to = from.plusDays(random.nextInt(0, 5));
+            LocalTime after = random.nextBoolean() ? null : LocalTime.of(random.nextInt(24), 0);
+            LocalTime before = random.nextBoolean() ? null : LocalTime.of(random.nextInt(24), 59);
+            FlightQuery query = new FlightQuery(origin, destination, from, to,
+                    FlightQuery.Cabin.values()[random.nextInt(3)],
+                    random.nextBoolean() ? null : (long) ECONOMY_CENTS[random.nextInt(ECONOMY_CENTS.length)] * (1 + random.nextInt(3)),
+                    random.nextBoolean() ? null : random.nextInt(3),
+                    after, before,
+                    FlightQuery.SortBy.values()[random.nextInt(2)],
+                    limits[random.nextInt(limits.length)]);
+
+            assertMatchesReference(query);
+        }
+    }
+
+    @Test
+    void limitLargerThanTheMatchesReturnsEveryMatch() {
+        FlightQuery query = query("JFK", "LHR", FlightQuery.SortBy.PRICE, 10_000);
+
+        FlightSearchResult result = assertMatchesReference(query);
+
+        assertEquals(result.matched(), result.offers().size());
+        assertTrue(result.matched() > 0);
+    }
+
+    @Test
+    void tiesKeepDateThenCatalogOrder() {
+        for (FlightQuery.SortBy sortBy : FlightQuery.SortBy.values()) {
+            FlightSearchResult result = assertMatchesReference(query("LHR", "CDG", sortBy, 10_000));
+
+            // The fixture's few fares and durations make most neighbours tie
+            long ties = 0;
+            for (int i = 1; i < result.offers().size(); i++) {
+                FlightOffer previous = result.offers().get(i - 1);
+                FlightOffer offer = result.offers().get(i);
+                boolean tie = sortBy == FlightQuery.SortBy.PRICE ? previous.price().equals(offer.price())
+                        : previous.durationMinutes() == offer.durationMinutes();
+                ties += tie ? 1 : 0;
+            }
+            assertTrue(ties > 10, sortBy + " should have ties to break");
+        }
+    }
+
+    @Test
+    void routeWithoutFlightsIsEmpty() {
+        FlightSearchResult result = catalog.search(query("JFK", EMPTY_AIRPORT, FlightQuery.SortBy.PRICE, 20));
+        assertTrue(result.offers().isEmpty());
+        assertEquals(0, result.matched());
+        assertEquals(0, result.scanned());
+
+        result = catalog.search(query(EMPTY_AIRPORT, "JFK", FlightQuery.SortBy.DURATION, 20));
+        assertTrue(result.offers().isEmpty());
+
+        // Same airport at both ends
+        assertMatchesReference(query("SYD", "SYD", FlightQuery.SortBy.PRICE, 20));
+    }
+
+    @Test
+    void datesOutsideTheCatalogAreEmpty() {
+        FlightQuery before = new FlightQuery("JFK", "LHR", start.minusDays(30), start.minusDays(1), FlightQuery.Cabin.ECONOMY,
+                null, null, null, null, FlightQuery.SortBy.PRICE, 20);
+        FlightQuery after = new FlightQuery("JFK", "LHR", start.plusDays(DAYS), start.plusDays(DAYS + 30),
+                FlightQuery.Cabin.ECONOMY, null, null, null, null, FlightQuery.SortBy.PRICE, 20);
+
+        assertTrue(assertMatchesReference(before).offers().isEmpty());
+        assertTrue(assertMatchesReference(after).offers().isEmpty());
+    }
+
+    @Test
+    void airportsAreFoundByCodeOrCity() {
+        FlightSearchResult byCode = catalog.search(query("JFK", "LHR", FlightQuery.SortBy.PRICE, 20));
+        FlightSearchResult byCity = catalog.search(query(" new york ", "London", FlightQuery.SortBy.PRICE, 20));
+
+        assertEquals(keys(byCode.offers()), keys(byCity.offers()));
+        assertThrows(IllegalArgumentException.class, () -> catalog.search(query("JFK", "Atlantis", FlightQuery.SortBy.PRICE, 20)));
+    }
+
+    private FlightQuery query(String origin, String destination, FlightQuery.SortBy sortBy, int limit) {
+        return new FlightQuery(origin, destination, start, start.plusDays(DAYS - 1), FlightQuery.Cabin.ECONOMY,
+                null, null, null, null, sortBy, limit);
+    }
+
+    /**
+     * Check a search against every flight filtered and sorted, ties broken by date and then
+     * by the order flights were added in
+     */
+    private FlightSearchResult assertMatchesReference(FlightQuery query) {
+        int cabin = query.cabin().ordinal();
+        List<Flight> onRoute = flights.stream()
+                .filter(flight -> flight.origin().equals(query.origin()) && flight.destination().equals(query.destination()))
+                .filter(flight -> !flight.date().isBefore(query.from()) && !flight.date().isAfter(query.to()))
+                .collect(Collectors.toList());
+        List<Flight> matches = onRoute.stream()
+                .filter(flight -> flight.fares()[cabin] > 0)
+                .filter(flight -> query.maxPriceCents() == null || flight.fares()[cabin] <= query.maxPriceCents())
+                .filter(flight -> query.maxStops() == null || flight.stops() <= query.maxStops())
+                .filter(flight -> query.departAfter() == null || !flight.departure().isBefore(query.departAfter()))
+                .filter(flight -> query.departBefore() == null || !flight.departure().isAfter(query.departBefore()))
+                .collect(Collectors.toList());
+        Comparator<Flight> byKey = query.sortBy() == FlightQuery.SortBy.PRICE
+                ? Comparator.comparingInt(flight -> flight.fares()[cabin])
+                : Comparator.comparingInt(Flight::duration);
+        List<String> expected = matches.stream()
+                .sorted(byKey.thenComparing(Flight::date).thenComparingInt(Flight::index))
+                .limit(query.limit())
+                .map(flight -> flight.number() + " " + flight.date().atTime(flight.departure()) + " "
+                        + BigDecimal.valueOf(flight.fares()[cabin], 2) + " " + flight.duration())
+                .collect(Collectors.toList());
+
+        FlightSearchResult result = catalog.search(query);
+
+        assertEquals(expected, keys(result.offers()), query.toString());
+        assertEquals(matches.size(), result.matched(), "matched for " + query);
+        assertEquals(onRoute.size(), result.scanned(), "scanned for " + query);
+        for (FlightOffer offer : result.offers()) {
+            assertEquals(query.cabin(), offer.cabin());
+            assertEquals(offer.departure().plusMinutes(offer.durationMinutes()), offer.arrival());
+        }
+        return result;
+    }
+
+    private static List<String> keys(List<FlightOffer> offers) {
+        return offers.stream()
+                .map(offer -> offer.flightNumber() + " " + offer.departure() + " " + offer.price() + " " + offer.durationMinutes())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,126 @@
+package com.travelhub.booking.flight;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Search latency over a catalog of a few million flights, with random routes, dates,
+ * cabins and filters. Every result is checked against its query's filters and order.
+ *
+ * Run with: ./gradlew :booking-service:benchmark
+ */
+@Tag("benchmark")
+class FlightSearchBenchmark {
+
+    private static final int FLIGHTS = 3_000_000;
+    private static final int BUSY_ROUTE_FLIGHTS = 300_000;
+    private static final int DAYS = 180;
+    private static final int WARMUP_QUERIES = 50_000;
+    private static final int QUERIES = 200_000;
+    private static final String[] AIRPORTS = {"JFK", "LAX", "LHR", "CDG", "FRA", "DXB", "SIN", "NRT", "SYD", "GRU"};
+
+    private final LocalDate start = LocalDate.of(2024, 6, 1);
+
+    @Test
+    void searchGeneratedCatalog() {
+        FlightCatalog catalog = FlightCatalogGenerator.generate(FLIGHTS, DAYS, start, 42);
+        System.out.printf("Catalog: %d flights, %d MB%n", catalog.size(), catalog.sizeInBytes() >> 20);
+
+        long p99 = run("generated catalog", catalog, random -> AIRPORTS[random.nextInt(AIRPORTS.length)],
+                random -> AIRPORTS[random.nextInt(AIRPORTS.length)]);
+        assertTrue(p99 < 1000, "p99 " + p99 + " us is over a millisecond");
+    }
+
+    @Test
+    void searchBusiestRoute() {
+        // About 1,700 flights a day on one route, ten times the busiest real ones, so each
+        // search scans thousands of flights
+        FlightCatalog.Builder builder = FlightCatalog.builder();
+        int jfk = builder.airport("JFK", "New York");
+        int lhr = builder.airport("LHR", "London");
+        int airline = builder.airline("TH", "TravelHub Air");
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < BUSY_ROUTE_FLIGHTS; i++) {
+            int economyCents = 20_000 + random.nextInt(80_000);
+            builder.add(jfk, lhr, start.plusDays(random.nextInt(DAYS)), LocalTime.of(random.nextInt(24), random.nextInt(60)),
+                    400 + random.nextInt(400), random.nextInt(3), airline, 100 + random.nextInt(9900),
+                    economyCents, economyCents * 4, random.nextBoolean() ? economyCents * 8 : 0);
+        }
+        FlightCatalog catalog = builder.build();
+
+        long p99 = run("busiest route", catalog, ignored -> "JFK", ignored -> "London");
+        assertTrue(p99 < 1000, "p99 " + p99 + " us is over a millisecond");
+    }
+
+    private long run(String name, FlightCatalog catalog, Function<SplittableRandom, String> origins,
+                     Function<SplittableRandom, String> destinations) {
+        SplittableRandom random = new SplittableRandom(1);
+        long[] latencies = new long[QUERIES];
+        long scanned = 0;
+        long checksum = 0;
+        for (int i = -WARMUP_QUERIES; i < QUERIES; i++) {
+            FlightQuery query = query(random, origins.apply(random), destinations.apply(random));
+            long begin = System.nanoTime();
+            FlightSearchResult result = catalog.search(query);
+            long took = System.nanoTime() - begin;
+            checksum += result.matched();
+            if (i >= 0) {
+                latencies[i] = took;
+                scanned += result.scanned();
+                check(query, result);
+            }
+        }
+
+        Arrays.sort(latencies);
+        long p50 = latencies[QUERIES / 2] / 1000;
+        long p99 = latencies[(int) (QUERIES * 0.99)] / 1000;
+        long max = latencies[QUERIES - 1] / 1000;
+        System.out.printf("%s: %d queries, %d flights scanned on average, p50 %d us, p99 %d us, max %d us (%d)%n",
+                name, QUERIES, scanned / QUERIES, p50, p99, max, checksum);
+        return p99;
+    }
+
+    private FlightQuery query(SplittableRandom random, String origin, String destination) {
+        LocalDate day = start.plusDays(random.nextInt(DAYS));
+        int flex = random.nextInt(4);
+        FlightQuery.Cabin cabin = FlightQuery.Cabin.values()[random.nextInt(3)];
+        Long maxPrice = random.nextBoolean() ? 30_000L + random.nextInt(200_000) : null;
+        Integer maxStops = random.nextBoolean() ? random.nextInt(2) : null;
+        LocalTime after = random.nextBoolean() ? LocalTime.of(random.nextInt(12), 0) : null;
+        LocalTime before = random.nextBoolean() ? LocalTime.of(12 + random.nextInt(12), 0) : null;
+        FlightQuery.SortBy sortBy = random.nextBoolean() ? FlightQuery.SortBy.PRICE : FlightQuery.SortBy.DURATION;
+        return new FlightQuery(origin, destination, day.minusDays(flex), day.plusDays(flex), cabin,
+                maxPrice, maxStops, after, before, sortBy, 20);
+    }
+
+    private static void check(FlightQuery query, FlightSearchResult result) {
+        List<FlightOffer> offers = result.offers();
+        assertEquals(Math.min(query.limit(), result.matched()), offers.size());
+        for (int i = 0; i < offers.size(); i++) {
+            FlightOffer offer = offers.get(i);
+            LocalDate date = offer.departure().toLocalDate();
+            LocalTime time = offer.departure().toLocalTime();
+            assertFalse(date.isBefore(query.from()) || date.isAfter(query.to()), "date");
+            assertTrue(query.maxPriceCents() == null || offer.price().movePointRight(2).longValue() <= query.maxPriceCents(), "price");
+            assertTrue(query.maxStops() == null || offer.stops() <= query.maxStops(), "stops");
+            assertTrue(query.departAfter() == null || !time.isBefore(query.departAfter()), "departAfter");
+            assertTrue(query.departBefore() == null || !time.isAfter(query.departBefore()), "departBefore");
+            if (i > 0) {
+                FlightOffer previous = offers.get(i - 1);
+                int order = query.sortBy() == FlightQuery.SortBy.PRICE
+                        ? previous.price().compareTo(offer.price())
+                        : Integer.compare(previous.durationMinutes(), offer.durationMinutes());
+                assertTrue(order <= 0, "order");
+            }
+        }
+    }
+}
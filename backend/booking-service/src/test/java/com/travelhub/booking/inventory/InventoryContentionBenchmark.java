@@ -0,0 +1,126 @@
+package com.travelhub.booking.inventory;
+
+import com.travelhub.booking.config.BookingInventoryProperties;
+import com.travelhub.booking.config.BookingJournalProperties;
+import com.travelhub.booking.store.BookingJournal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reservation attempts per second on one hot SKU, a flash sale: many threads keep taking
+ * units until it sells out and keep trying after that, which is when most attempts happen.
+ * Every run checks that exactly the capacity was sold.
+ *
+ * Run with: ./gradlew :booking-service:benchmark
+ */
+@Tag("benchmark")
+class InventoryContentionBenchmark {
+
+    private static final int THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+    private static final long CAPACITY = 200_000;
+    private static final long ATTEMPTS_PER_THREAD = 2_000_000;
+
+    private InventoryEngine engine;
+    private ExecutorService threads;
+
+    @AfterEach
+    void tearDown() {
+        if (threads != null) {
+            threads.shutdownNow();
+        }
+        if (engine != null) {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void takeOnHotSku() throws Exception {
+        engine = engine(600_000);
+        engine.define("FL-HOT", CAPACITY);
+
+        long sold = run("take", () -> engine.take("FL-HOT", 1) ? 1 : 0);
+
+        Map<String, Object> report = engine.getReport("FL-HOT");
+        assertEquals(CAPACITY, sold, "units sold");
+        assertEquals(CAPACITY, report.get("confirmed"));
+        assertEquals(0L, report.get("available"));
+    }
+
+    @Test
+    void holdOnHotSkuWithExpiry() throws Exception {
+        // Holds expire almost at once, so units keep coming back in sweeper batches during the run
+        engine = engine(20);
+        engine.define("FL-HOT", CAPACITY);
+
+        long held = run("hold", () -> engine.hold("FL-HOT", 1) != null ? 1 : 0);
+        assertTrue(held >= CAPACITY, "expired holds should have been sold again");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (engine.getActiveHolds() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        Map<String, Object> report = engine.getReport("FL-HOT");
+        System.out.printf("  %d holds, %s%n", held, report);
+        assertEquals(CAPACITY, report.get("available"), "every expired unit is back on sale");
+        assertEquals(0L, report.get("held"));
+        assertEquals(held, report.get("expired"));
+    }
+
+    /**
+     * @return the sum of what the attempts returned
+     */
+    private long run(String name, Attempt attempt) throws Exception {
+        threads = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(threads.submit(() -> {
+                start.await();
+                long total = 0;
+                for (long i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    total += attempt.run();
+                }
+                return total;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        long total = 0;
+        for (Future<Long> result : results) {
+            total += result.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        long attempts = THREADS * ATTEMPTS_PER_THREAD;
+        System.out.printf("%s: %d threads, %d attempts in %d ms, %.0f attempts/s%n", name, THREADS, attempts,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), attempts * 1e9 / elapsed);
+        return total;
+    }
+
+    private static InventoryEngine engine(long holdMillis) {
+        BookingInventoryProperties properties = new BookingInventoryProperties();
+        properties.setHoldDuration(holdMillis);
+        properties.setSweepInterval(10);
+        BookingJournalProperties journal = new BookingJournalProperties();
+        journal.setEnabled(false);
+        return new InventoryEngine(properties, new BookingJournal(journal));
+    }
+
+    @FunctionalInterface
+    private interface Attempt {
+        long run();
+    }
+}
@@ -0,0 +1,144 @@
+package com.travelhub.booking.inventory;
+
+import com.travelhub.booking.config.BookingInventoryProperties;
+import com.travelhub.booking.config.BookingJournalProperties;
+import com.travelhub.booking.store.BookingJournal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link InventoryEngine} holds and sales. The sweeper runs once an hour here, so expiry
+ * is only ever seen by confirm and release.
+ */
+class InventoryEngineTest {
+
+    private InventoryEngine engine;
+
+    @AfterEach
+    void tearDown() {
+        if (engine != null) {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void confirmTurnsAHoldIntoASale() {
+        engine = engine(600_000);
+        engine.define("FL-1", 10);
+        Hold hold = engine.hold("FL-1", 3);
+
+        assertSame(hold, engine.confirm(hold.id()));
+        assertNull(engine.confirm(hold.id()), "a hold is confirmed once");
+
+        Map<String, Object> report = engine.getReport("FL-1");
+        assertEquals(7L, report.get("available"));
+        assertEquals(0L, report.get("held"));
+        assertEquals(3L, report.get("confirmed"));
+    }
+
+    @Test
+    void expiredHoldCannotBeConfirmedBeforeItIsSwept() throws InterruptedException {
+        engine = engine(1);
+        engine.define("FL-1", 10);
+        Hold hold = engine.hold("FL-1", 3);
+        Thread.sleep(20);
+
+        assertNull(engine.confirm(hold.id()));
+
+        Map<String, Object> report = engine.getReport("FL-1");
+        assertEquals(10L, report.get("available"), "the units are back on sale");
+        assertEquals(0L, report.get("held"));
+        assertEquals(0L, report.get("confirmed"));
+        assertEquals(3L, report.get("expired"));
+        assertEquals(0, engine.getActiveHolds());
+    }
+
+    @Test
+    void expiredHoldCannotBeReleased() throws InterruptedException {
+        engine = engine(1);
+        engine.define("FL-1", 10);
+        Hold hold = engine.hold("FL-1", 2);
+        Thread.sleep(20);
+
+        assertFalse(engine.release(hold.id()));
+
+        Map<String, Object> report = engine.getReport("FL-1");
+        assertEquals(10L, report.get("available"));
+        assertEquals(2L, report.get("expired"));
+    }
+
+    @Test
+    void releasePutsUnitsBackOnSale() {
+        engine = engine(600_000);
+        engine.define("FL-1", 10);
+        Hold hold = engine.hold("FL-1", 4);
+
+        assertTrue(engine.release(hold.id()));
+        assertNull(engine.confirm(hold.id()), "a released hold cannot be confirmed");
+
+        Map<String, Object> report = engine.getReport("FL-1");
+        assertEquals(10L, report.get("available"));
+        assertEquals(0L, report.get("held"));
+        assertEquals(0L, report.get("confirmed"));
+    }
+
+    @Test
+    void concurrentTakesAndHoldsNeverOversell() throws Exception {
+        engine = engine(600_000);
+        engine.define("FL-1", 20_000);
+        LongAdder taken = new LongAdder();
+        LongAdder held = new LongAdder();
+        ExecutorService buyers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                SplittableRandom random = new SplittableRandom(t);
+                running.add(buyers.submit(() -> {
+                    while ((Long) engine.getReport("FL-1").get("available") > 0) {
+                        int quantity = random.nextInt(1, 4);
+                        if (random.nextBoolean()) {
+                            if (engine.take("FL-1", quantity)) {
+                                taken.add(quantity);
+                            }
+                        } else if (engine.hold("FL-1", quantity) != null) {
+                            held.add(quantity);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> buyer : running) {
+                buyer.get();
+            }
+        } finally {
+            buyers.shutdownNow();
+        }
+
+        Map<String, Object> report = engine.getReport("FL-1");
+        assertEquals(20_000, taken.sum() + held.sum(), "exactly the capacity is sold");
+        assertEquals(0L, report.get("available"));
+        assertEquals(taken.sum(), report.get("confirmed"));
+        assertEquals(held.sum(), report.get("held"));
+        assertFalse(engine.take("FL-1", 1));
+        assertNull(engine.hold("FL-1", 1));
+    }
+
+    private static InventoryEngine engine(long holdMillis) {
+        BookingInventoryProperties properties = new BookingInventoryProperties();
+        properties.setHoldDuration(holdMillis);
+        properties.setSweepInterval(3_600_000);
+        BookingJournalProperties journal = new BookingJournalProperties();
+        journal.setEnabled(false);
+        return new InventoryEngine(properties, new BookingJournal(journal));
+    }
+}
@@ -0,0 +1,111 @@
+package com.travelhub.booking.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link StripedCounter}: takers race to sell out a counter while a watcher checks
+ * that no stripe goes below zero
+ */
+class StripedCounterTest {
+
+    private static final int TAKERS = 8;
+    private static final int STRIPES = 8;
+
+    @Test
+    void concurrentTakesSellExactlyTheCapacity() throws Exception {
+        StripedCounter counter = new StripedCounter(100_000, STRIPES);
+
+        assertEquals(100_000, sellOut(counter, 1, 4));
+        assertEquals(0, counter.sum());
+    }
+
+    @Test
+    void takesOfSeveralUnitsAreAllOrNothing() throws Exception {
+        // The last 3 units can never be sold 4 at a time, so the final takes all collect
+        // some units and have to hand them back
+        StripedCounter counter = new StripedCounter(100_003, STRIPES);
+
+        assertEquals(100_000, sellOut(counter, 4, 4));
+        assertEquals(3, counter.sum());
+    }
+
+    @Test
+    void shortTakeHandsBackWhatItCollected() {
+        // One unit in each of five stripes
+        StripedCounter counter = new StripedCounter(5, STRIPES);
+
+        assertFalse(counter.tryTake(6));
+
+        assertEquals(5, counter.sum());
+        for (long stripe : counter.stripes()) {
+            assertTrue(stripe >= 0);
+        }
+        assertTrue(counter.tryTake(5));
+        assertEquals(0, counter.sum());
+        assertFalse(counter.tryTake(1));
+    }
+
+    /**
+     * Take between {@code smallest} and {@code largest} units at a time from several threads
+     * until fewer than {@code smallest} are left
+     *
+     * @return the units sold
+     */
+    private static long sellOut(StripedCounter counter, int smallest, int largest) throws Exception {
+        LongAdder sold = new LongAdder();
+        AtomicLong lowest = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService takers = Executors.newFixedThreadPool(TAKERS);
+        Thread watcher = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                for (long stripe : counter.stripes()) {
+                    lowest.accumulateAndGet(stripe, Math::min);
+                }
+            }
+        });
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int t = 0; t < TAKERS; t++) {
+                SplittableRandom random = new SplittableRandom(t);
+                running.add(takers.submit(() -> {
+                    start.await();
+                    // A take that fails while another is handing units back is tried again
+                    while (counter.sum() >= smallest) {
+                        int amount = random.nextInt(smallest, largest + 1);
+                        if (counter.tryTake(amount)) {
+                            sold.add(amount);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            watcher.start();
+            start.countDown();
+            for (Future<?> taker : running) {
+                taker.get();
+            }
+        } finally {
+            takers.shutdownNow();
+            watcher.interrupt();
+            watcher.join();
+        }
+
+        assertEquals(0, lowest.get(), "a stripe went below zero");
+        for (long stripe : counter.stripes()) {
+            assertTrue(stripe >= 0);
+        }
+        return sold.sum();
+    }
+}
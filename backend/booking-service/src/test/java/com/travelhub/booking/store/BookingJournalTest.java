@@ -0,0 +1,379 @@
+package com.travelhub.booking.store;
+
+import com.travelhub.booking.config.BookingInventoryProperties;
+import com.travelhub.booking.config.BookingJournalProperties;
+import com.travelhub.booking.config.BookingJournalProperties.FlushPolicy;
+import com.travelhub.booking.config.BookingStoreProperties;
+import com.travelhub.booking.inventory.InventoryEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link BookingJournal}: replay into a {@link BookingStore} and its
+ * {@link InventoryEngine}, recovery from a torn or corrupt tail, and segment rolls
+ */
+class BookingJournalTest {
+
+    // Length and CRC, then the payload: type, id, user id, creation time and codes
+    private static final int HEADER_BYTES = 8;
+    private static final int BOOKING_RECORD_BYTES = HEADER_BYTES + 25;
+
+    private Path directory;
+    private final List<BookingJournal> opened = new ArrayList<>();
+    // The engine of the last store opened
+    private InventoryEngine inventory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("booking-journal-test");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (BookingJournal journal : opened) {
+            journal.close();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void replayRebuildsTheStore() throws Exception {
+        BookingStore store = store(FlushPolicy.OS);
+        store.create(1L, "Paris", "CONFIRMED").join();
+        store.create(2L, "Tokyo", "PENDING").join();
+        store.create(1L, "Rome", null).join();
+        store.create(1L, "Paris", "CONFIRMED").join();
+        closeAll();
+
+        BookingStore replayed = store(FlushPolicy.OS);
+
+        assertEquals(4, replayed.size());
+        assertEquals(2, replayed.userCount());
+        for (long id = 1; id <= 4; id++) {
+            assertEquals(store.get(id), replayed.get(id), "booking " + id);
+        }
+        assertEquals(List.of(4L, 3L, 1L), ids(replayed.page(1L, null, 10)));
+        assertEquals(List.of(2L), ids(replayed.page(2L, null, 10)));
+
+        // Appends continue after the replayed bookings, reusing the replayed dictionary codes
+        assertEquals(5L, replayed.create(2L, "Rome", "CONFIRMED").join().id());
+        closeAll();
+        assertEquals("Rome", store(FlushPolicy.OS).get(5L).destination());
+    }
+
+    @Test
+    void replayRebuildsInventory() throws Exception {
+        BookingStore store = store(FlushPolicy.OS);
+        assertTrue(inventory.define("FL-1", 10));
+        store.create(1L, "Paris", "CREATED", "FL-1", 3).join();
+        store.create(2L, "Rome", "CREATED", "FL-1", 2).join();
+        store.create(2L, "Rome", "CREATED").join();
+        store.create(3L, "Oslo", "CREATED", "FL-CONFIGURED", 1).join();
+        closeAll();
+
+        BookingStore replayed = store(FlushPolicy.OS);
+
+        Map<String, Object> defined = inventory.getReport("FL-1");
+        assertEquals(10L, defined.get("capacity"));
+        assertEquals(5L, defined.get("available"), "units taken by journaled bookings are not on sale again");
+        assertEquals(5L, defined.get("confirmed"));
+        assertFalse(inventory.define("FL-1", 10), "the SKU was restored");
+        assertEquals(3L, inventory.getReport("FL-CONFIGURED").get("available"));
+        assertEquals("FL-1", replayed.get(2L).sku());
+        assertEquals(2, replayed.get(2L).quantity());
+        assertNull(replayed.get(3L).sku());
+    }
+
+    @Test
+    void createsCompleteOnceFlushedUnderAlways() throws Exception {
+        BookingStore store = store(FlushPolicy.ALWAYS);
+        List<CompletableFuture<Booking>> created = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            created.add(store.create(i % 7, "Paris", "CONFIRMED"));
+        }
+
+        CompletableFuture.allOf(created.toArray(new CompletableFuture[0])).join();
+        closeAll();
+        assertEquals(100, store(FlushPolicy.ALWAYS).size());
+    }
+
+    @Test
+    void failedFlushStopsTheJournal() throws Exception {
+        FailingJournal journal = new FailingJournal(properties(FlushPolicy.ALWAYS, directory));
+        opened.add(journal);
+        BookingStore store = store(journal);
+        assertTrue(inventory.define("FL-1", 10));
+        store.create(1L, "Paris", "CREATED", "FL-1", 2).join();
+
+        journal.failing = true;
+        CompletableFuture<Booking> unflushed = store.create(2L, "Paris", "CREATED", "FL-1", 3);
+
+        CompletionException failed = assertThrows(CompletionException.class, unflushed::join);
+        assertTrue(failed.getCause() instanceof UncheckedIOException);
+        assertTrue(journal.isFailed());
+        // Refused before anything is stored, even once flushes would work again
+        journal.failing = false;
+        assertThrows(IllegalStateException.class, () -> store.create(3L, "Paris", "CREATED"));
+        assertThrows(IllegalStateException.class, () -> store.create(3L, "Rome", "CREATED"));
+        assertEquals(2, store.size());
+        closeAll();
+
+        // The unflushed booking reached the segment, so it can come back with its units taken
+        BookingStore replayed = store(FlushPolicy.OS);
+        assertEquals(2, replayed.size());
+        assertEquals(3, replayed.get(2L).quantity());
+        assertEquals(5L, inventory.getReport("FL-1").get("available"));
+    }
+
+    @Test
+    void corruptLastRecordIsDropped() throws Exception {
+        writeBookings(3);
+        Path segment = onlySegment();
+        // Flip a byte in the last booking's payload so its CRC no longer matches
+        long last = bookingOffset(3);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(last + HEADER_BYTES + 10);
+            int value = file.read();
+            file.seek(last + HEADER_BYTES + 10);
+            file.write(value ^ 0xFF);
+        }
+
+        Recorder replayed = replay();
+
+        assertEquals(List.of(1, 2), replayed.ids);
+        assertZeroFrom(segment, last);
+    }
+
+    @Test
+    void tornLastRecordIsDropped() throws Exception {
+        writeBookings(3);
+        Path segment = onlySegment();
+        // A crash mid-append leaves the record's header but only part of its payload
+        long last = bookingOffset(3);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(last + BOOKING_RECORD_BYTES - 6);
+            file.write(new byte[6]);
+        }
+
+        Recorder replayed = replay();
+
+        assertEquals(List.of(1, 2), replayed.ids);
+        assertZeroFrom(segment, last);
+    }
+
+    @Test
+    void appendsContinueAfterTheDroppedRecord() throws Exception {
+        writeBookings(3);
+        long last = bookingOffset(3);
+        try (RandomAccessFile file = new RandomAccessFile(onlySegment().toFile(), "rw")) {
+            // A length running past the end of the segment
+            file.seek(last);
+            file.writeInt(Integer.MAX_VALUE);
+        }
+
+        BookingJournal journal = journal(FlushPolicy.OS, directory);
+        Recorder first = new Recorder();
+        journal.replay(first);
+        assertEquals(List.of(1, 2), first.ids);
+        journal.appendBooking(3, 30L, 300L, 1 << 8, 0);
+        closeAll();
+
+        Recorder second = replay();
+        assertEquals(List.of(1, 2, 3), second.ids);
+        assertEquals(Long.valueOf(30), second.userIds.get(2));
+    }
+
+    @Test
+    void bookingsCrossSegmentBoundaries() throws Exception {
+        // About 31,800 booking records fit in a 1 MB segment
+        int bookings = 80_000;
+        writeBookings(bookings);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(3, files.filter(path -> path.toString().endsWith(".journal")).count());
+        }
+
+        Recorder replayed = replay();
+
+        assertEquals(bookings, replayed.ids.size());
+        for (int i = 0; i < bookings; i++) {
+            assertEquals(Integer.valueOf(i + 1), replayed.ids.get(i));
+            assertEquals(Long.valueOf(i * 10L), replayed.userIds.get(i));
+        }
+    }
+
+    @Test
+    void corruptionInAnEarlierSegmentDropsTheLaterOnes() throws Exception {
+        writeBookings(40_000);
+        Path first = segments().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(first.toFile(), "rw")) {
+            file.seek(bookingOffset(1_000) + HEADER_BYTES + 10);
+            file.write(0xFF);
+        }
+
+        Recorder replayed = replay();
+
+        assertEquals(999, replayed.ids.size());
+        assertEquals(List.of(first), segments());
+    }
+
+    /**
+     * Journal a destination name, then bookings 1 to {@code count} for user {@code 10 * (id - 1)}
+     */
+    private void writeBookings(int count) throws Exception {
+        BookingJournal journal = journal(FlushPolicy.OS, directory);
+        journal.replay(new Recorder());
+        journal.appendName(BookingJournal.DESTINATION, 1, "Paris");
+        for (int id = 1; id <= count; id++) {
+            journal.appendBooking(id, (id - 1) * 10L, 1_000L + id, 1 << 8, 0);
+        }
+        closeAll();
+    }
+
+    /**
+     * Offset of booking {@code id} in the first segment, after the 18-byte "Paris" record
+     */
+    private static long bookingOffset(int id) {
+        return HEADER_BYTES + 1 + 4 + "Paris".length() + (long) (id - 1) * BOOKING_RECORD_BYTES;
+    }
+
+    private Recorder replay() throws Exception {
+        Recorder recorder = new Recorder();
+        journal(FlushPolicy.OS, directory).replay(recorder);
+        closeAll();
+        return recorder;
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segments();
+        assertEquals(1, segments.size());
+        return segments.get(0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".journal")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static void assertZeroFrom(Path segment, long offset) throws IOException {
+        byte[] bytes = Files.readAllBytes(segment);
+        for (long i = offset; i < bytes.length; i++) {
+            assertEquals(0, bytes[(int) i], "byte " + i + " after the dropped record");
+        }
+    }
+
+    /**
+     * A store and its engine on the test directory; the engine also sells 4 units of
+     * FL-CONFIGURED from its configuration
+     */
+    private BookingStore store(FlushPolicy flushPolicy) {
+        return store(journal(flushPolicy, directory));
+    }
+
+    private BookingStore store(BookingJournal journal) {
+        BookingStoreProperties properties = new BookingStoreProperties();
+        properties.setMaxBookings(1_000);
+        properties.setExpectedUsers(16);
+        BookingInventoryProperties inventoryProperties = new BookingInventoryProperties();
+        inventoryProperties.setSweepInterval(3_600_000);
+        inventoryProperties.getSkus().put("FL-CONFIGURED", 4L);
+        inventory = new InventoryEngine(inventoryProperties, journal);
+        return new BookingStore(properties, journal, inventory);
+    }
+
+    private BookingJournal journal(FlushPolicy flushPolicy, Path directory) {
+        BookingJournal journal = new BookingJournal(properties(flushPolicy, directory));
+        opened.add(journal);
+        return journal;
+    }
+
+    private void closeAll() throws InterruptedException {
+        for (BookingJournal journal : opened) {
+            journal.close();
+        }
+        opened.clear();
+    }
+
+    private static BookingJournalProperties properties(FlushPolicy flushPolicy, Path directory) {
+        BookingJournalProperties properties = new BookingJournalProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSizeMb(1);
+        properties.setFlushPolicy(flushPolicy);
+        return properties;
+    }
+
+    private static List<Long> ids(BookingPage page) {
+        return page.bookings().stream().map(Booking::id).collect(Collectors.toList());
+    }
+
+    /**
+     * A journal whose flushes fail while {@code failing} is set
+     */
+    private static final class FailingJournal extends BookingJournal {
+
+        volatile boolean failing;
+
+        FailingJournal(BookingJournalProperties properties) {
+            super(properties);
+        }
+
+        @Override
+        void force(MappedByteBuffer buffer, int from, int length) {
+            if (failing) {
+                throw new UncheckedIOException(new IOException("Disk gone"));
+            }
+            super.force(buffer, from, length);
+        }
+    }
+
+    /**
+     * Accepts every record that follows on from the ones before it
+     */
+    private static final class Recorder implements BookingJournal.Replay {
+
+        final List<Integer> ids = new ArrayList<>();
+        final List<Long> userIds = new ArrayList<>();
+
+        @Override
+        public boolean booking(int id, long userId, long createdAt, int codes, int claim) {
+            if (id != ids.size() + 1) {
+                return false;
+            }
+            ids.add(id);
+            userIds.add(userId);
+            return true;
+        }
+
+        @Override
+        public boolean name(byte column, int code, String value) {
+            return true;
+        }
+
+        @Override
+        public boolean inventory(String sku, long capacity) {
+            return true;
+        }
+    }
+}
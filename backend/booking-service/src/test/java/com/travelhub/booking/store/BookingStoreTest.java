@@ -0,0 +1,157 @@
+package com.travelhub.booking.store;
+
+import com.travelhub.booking.config.BookingInventoryProperties;
+import com.travelhub.booking.config.BookingJournalProperties;
+import com.travelhub.booking.config.BookingStoreProperties;
+import com.travelhub.booking.inventory.InventoryEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link BookingStore}, without a journal
+ */
+class BookingStoreTest {
+
+    @Test
+    void createdBookingsCanBeReadBack() {
+        BookingStore store = store(10);
+
+        Booking created = store.create(42L, "Paris", "CONFIRMED").join();
+
+        assertEquals(1L, created.id());
+        assertEquals(created, store.get(1L));
+        assertEquals("Paris", store.get(1L).destination());
+        assertEquals("CONFIRMED", store.get(1L).status());
+        assertNull(store.get(0L));
+        assertNull(store.get(2L));
+        assertEquals(1, store.size());
+        assertEquals(1, store.userCount());
+    }
+
+    @Test
+    void claimsAreReadBackWithTheirBooking() {
+        BookingStore store = store(10);
+
+        Booking claimed = store.create(42L, "Paris", "CREATED", "FL-1", 3).join();
+        store.create(42L, "Rome", "CREATED").join();
+
+        assertEquals("FL-1", claimed.sku());
+        assertEquals(claimed, store.get(1L));
+        assertEquals(3, store.get(1L).quantity());
+        assertNull(store.get(2L).sku());
+        assertEquals(0, store.get(2L).quantity());
+        assertThrows(IllegalArgumentException.class, () -> store.create(42L, "Rome", "CREATED", "FL-1", 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.create(42L, "Rome", "CREATED", "FL-1", InventoryEngine.MAX_QUANTITY + 1));
+    }
+
+    @Test
+    void nullColumnsRoundTrip() {
+        BookingStore store = store(10);
+
+        store.create(42L, null, null).join();
+
+        assertNull(store.get(1L).destination());
+        assertNull(store.get(1L).status());
+    }
+
+    @Test
+    void pagesWalkOneUsersBookingsNewestFirst() {
+        BookingStore store = store(100);
+        // Interleave two users so each one's chain skips the other's bookings
+        for (int i = 0; i < 7; i++) {
+            store.create(1L, "City " + i, "CONFIRMED").join();
+            store.create(2L, "Town " + i, "PENDING").join();
+        }
+
+        BookingPage first = store.page(1L, null, 3);
+        assertEquals(List.of(13L, 11L, 9L), ids(first));
+        assertEquals(Long.valueOf(7), first.nextCursor());
+
+        BookingPage second = store.page(1L, first.nextCursor(), 3);
+        assertEquals(List.of(7L, 5L, 3L), ids(second));
+        assertEquals(Long.valueOf(1), second.nextCursor());
+
+        BookingPage last = store.page(1L, second.nextCursor(), 3);
+        assertEquals(List.of(1L), ids(last));
+        assertNull(last.nextCursor());
+
+        assertEquals(List.of(14L, 12L, 10L, 8L, 6L, 4L, 2L), ids(store.page(2L, null, 10)));
+        assertTrue(store.page(2L, null, 10).bookings().stream().allMatch(booking -> booking.userId() == 2L));
+    }
+
+    @Test
+    void pageEndsExactlyAtTheOldestBooking() {
+        BookingStore store = store(10);
+        store.create(1L, "Paris", "CONFIRMED").join();
+        store.create(1L, "Rome", "CONFIRMED").join();
+
+        BookingPage page = store.page(1L, null, 2);
+
+        assertEquals(List.of(2L, 1L), ids(page));
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void userWithoutBookingsGetsAnEmptyPage() {
+        BookingStore store = store(10);
+        store.create(1L, "Paris", "CONFIRMED").join();
+
+        BookingPage page = store.page(2L, null, 5);
+
+        assertTrue(page.bookings().isEmpty());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void cursorMustBeABookingOfTheUser() {
+        BookingStore store = store(10);
+        store.create(1L, "Paris", "CONFIRMED").join();
+        store.create(2L, "Rome", "CONFIRMED").join();
+
+        assertThrows(IllegalArgumentException.class, () -> store.page(1L, 2L, 5), "another user's booking");
+        assertThrows(IllegalArgumentException.class, () -> store.page(1L, 3L, 5), "past the newest booking");
+        assertThrows(IllegalArgumentException.class, () -> store.page(1L, 0L, 5));
+        assertThrows(IllegalArgumentException.class, () -> store.page(1L, -1L, 5));
+    }
+
+    @Test
+    void fullStoreRejectsNewBookings() {
+        BookingStore store = store(3);
+        for (int i = 0; i < 3; i++) {
+            store.create(1L, "Paris", "CONFIRMED").join();
+        }
+
+        assertThrows(IllegalStateException.class, () -> store.create(2L, "Rome", "CONFIRMED"));
+        assertEquals(3, store.size());
+        assertEquals(1, store.userCount());
+        assertTrue(store.page(2L, null, 5).bookings().isEmpty());
+        assertEquals(List.of(3L, 2L, 1L), ids(store.page(1L, null, 5)));
+    }
+
+    @Test
+    void maxBookingsMustLeaveRoomForIds() {
+        assertThrows(IllegalArgumentException.class, () -> store(0));
+        assertThrows(IllegalArgumentException.class, () -> store(Integer.MAX_VALUE));
+    }
+
+    private static BookingStore store(int maxBookings) {
+        BookingStoreProperties properties = new BookingStoreProperties();
+        properties.setMaxBookings(maxBookings);
+        properties.setExpectedUsers(16);
+        BookingJournalProperties journalProperties = new BookingJournalProperties();
+        journalProperties.setEnabled(false);
+        BookingJournal journal = new BookingJournal(journalProperties);
+        BookingInventoryProperties inventory = new BookingInventoryProperties();
+        inventory.setSweepInterval(3_600_000);
+        return new BookingStore(properties, journal, new InventoryEngine(inventory, journal));
+    }
+
+    private static List<Long> ids(BookingPage page) {
+        return page.bookings().stream().map(Booking::id).collect(Collectors.toList());
+    }
+}
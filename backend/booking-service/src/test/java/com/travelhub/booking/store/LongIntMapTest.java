@@ -0,0 +1,104 @@
+package com.travelhub.booking.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link LongIntMap}
+ */
+class LongIntMapTest {
+
+    @Test
+    void putAndGet() {
+        LongIntMap map = new LongIntMap(16);
+
+        assertEquals(0, map.get(42L), "missing keys read as 0");
+        assertEquals(0, map.put(42L, 7));
+        assertEquals(0, map.put(-1L, 8));
+        assertEquals(0, map.put(0L, 9));
+
+        assertEquals(7, map.get(42L));
+        assertEquals(8, map.get(-1L));
+        assertEquals(9, map.get(0L));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    void putReplacesAndReturnsThePreviousValue() {
+        LongIntMap map = new LongIntMap(16);
+        map.put(42L, 7);
+
+        assertEquals(7, map.put(42L, 11));
+        assertEquals(11, map.get(42L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void valuesMustBePositive() {
+        LongIntMap map = new LongIntMap(16);
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(1L, 0));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1L, -5));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void growsPastItsPresizeAndKeepsEveryEntry() {
+        LongIntMap map = new LongIntMap(4);
+        long initialBytes = map.sizeInBytes();
+
+        for (int i = 1; i <= 10_000; i++) {
+            map.put(i * 1_000_003L, i);
+        }
+
+        assertEquals(10_000, map.size());
+        assertTrue(map.sizeInBytes() > initialBytes, "the table should have grown");
+        for (int i = 1; i <= 10_000; i++) {
+            assertEquals(i, map.get(i * 1_000_003L), "key " + i);
+        }
+        assertEquals(0, map.get(10_001 * 1_000_003L));
+    }
+
+    @Test
+    void collidingKeysProbeToTheirOwnSlots() {
+        LongIntMap map = new LongIntMap(64);
+        // The map presizes to 128 slots for 64 keys
+        int mask = 127;
+        int slot = LongIntMap.slot(1L, mask);
+        List<Long> colliding = new ArrayList<>();
+        for (long key = 1; colliding.size() < 5; key++) {
+            if (LongIntMap.slot(key, mask) == slot) {
+                colliding.add(key);
+            }
+        }
+
+        for (int i = 0; i < colliding.size(); i++) {
+            map.put(colliding.get(i), i + 1);
+        }
+        for (int i = 0; i < colliding.size(); i++) {
+            assertEquals(i + 1, map.get(colliding.get(i)), "key " + colliding.get(i));
+        }
+        assertEquals(4, map.put(colliding.get(3), 7), "replacing in the middle of a chain");
+        assertEquals(7, map.get(colliding.get(3)));
+        assertEquals(5, map.size());
+    }
+
+    @Test
+    void fullMapRejectsNewKeys() {
+        // Two keys fit in a table capped at four slots
+        LongIntMap map = new LongIntMap(1, 4);
+        map.put(1L, 1);
+        map.put(2L, 2);
+
+        assertFalse(map.hasRoomFor(3L));
+        assertTrue(map.hasRoomFor(2L), "existing keys can always be replaced");
+        assertThrows(IllegalStateException.class, () -> map.put(3L, 3));
+        assertEquals(2, map.put(2L, 5));
+        assertEquals(0, map.get(3L));
+        assertEquals(2, map.size());
+    }
+}
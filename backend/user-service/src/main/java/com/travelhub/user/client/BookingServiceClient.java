@@ -1,14 +1,38 @@
 package com.travelhub.user.client;
 
+import com.travelhub.booking.api.BookingJsonCodec;
+import com.travelhub.booking.api.Deadline;
+import com.travelhub.booking.api.UserBookings;
+import com.travelhub.booking.api.UserBookingsBatchRequest;
+import com.travelhub.user.communication.AdaptiveConcurrencyLimiter;
+import com.travelhub.user.communication.Bulkhead;
+import com.travelhub.user.communication.CancellableFutures;
+import com.travelhub.user.communication.CircuitBreaker;
 import com.travelhub.user.communication.CommunicationResult;
 import com.travelhub.user.communication.ServiceCommunicationMonitor;
 import com.travelhub.user.communication.CommunicationFailureSimulator;
+import com.travelhub.user.communication.HealthProber;
+import com.travelhub.user.communication.HedgedRequestPolicy;
+import com.travelhub.user.communication.LoadBalancer;
+import com.travelhub.user.communication.MicroBatcher;
+import com.travelhub.user.communication.ResponseCache;
+import com.travelhub.user.communication.RetryPolicy;
+import com.travelhub.user.communication.SingleFlight;
+import com.travelhub.user.config.BookingServiceProperties;
+import com.travelhub.user.config.UserServiceDNA;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Client for communicating with the Booking Service
@@ -20,82 +44,370 @@ public class BookingServiceClient {
     
     private final ServiceCommunicationMonitor communicationMonitor;
     private final CommunicationFailureSimulator failureSimulator;
+    private final HealthProber healthProber;
+    private final BookingServiceProperties properties;
+    private final UserServiceDNA dna;
     
-    @Value("${services.booking-service.url:http://localhost:8082}")
     private String bookingServiceUrl;
-    
-    @Value("${services.booking-service.timeout:2000}")
     private int timeoutMs;
+    private LoadBalancer loadBalancer;
+    private Bulkhead bulkhead;
+    private CircuitBreaker circuitBreaker;
+    private RetryPolicy retryPolicy;
+    private HedgedRequestPolicy bookingsHedging;
+    private SingleFlight<Long, CommunicationResult<UserBookings>> bookingsSingleFlight;
+    private MicroBatcher<Long, CommunicationResult<UserBookings>> bookingsBatcher;
+    private ResponseCache<Long, UserBookings> bookingsCache;
+    
+    @PostConstruct
+    void init() {
+        List<String> instanceUrls = properties.getInstanceUrls();
+        bookingServiceUrl = instanceUrls.get(0);
+        timeoutMs = properties.getTimeout();
+        
+        BookingServiceProperties.LoadBalancerConfig balancing = properties.getLoadBalancer();
+        loadBalancer = new LoadBalancer("booking-service", instanceUrls, Duration.ofMillis(balancing.getEwmaDecay()),
+                Duration.ofMillis(balancing.getSlowStart()), balancing.getSlowStartMinWeight(),
+                balancing.getConsecutiveFailures(), Duration.ofMillis(balancing.getBaseEjectionTime()),
+                Duration.ofMillis(balancing.getMaxEjectionTime()), balancing.getMaxEjectionPercent(),
+                instanceId -> {
+                    ServiceCommunicationMonitor.ServiceHealth health = communicationMonitor.getServiceHealth(instanceId);
+                    return health == null || health.isProbeHealthy();
+                });
+        communicationMonitor.registerLoadBalancer(loadBalancer);
+        
+        BookingServiceProperties.PoolConfig pool = properties.getPool();
+        communicationMonitor.registerDownstream("booking-service", pool.getMaxConnections(),
+                Duration.ofMillis(pool.getConnectTimeout()));
+        communicationMonitor.setPreferBinaryResponses("booking-service", properties.isPreferSmile());
+        
+        BookingServiceProperties.ConcurrencyLimitConfig concurrencyLimit = properties.getConcurrencyLimit();
+        if (concurrencyLimit.isEnabled()) {
+            int maxLimit = Math.min(concurrencyLimit.getMaxLimit(), pool.getMaxConnections());
+            communicationMonitor.registerConcurrencyLimiter(new AdaptiveConcurrencyLimiter("booking-service",
+                    Math.min(concurrencyLimit.getInitialLimit(), maxLimit), Math.min(concurrencyLimit.getMinLimit(), maxLimit),
+                    maxLimit, concurrencyLimit.getRttTolerance(), concurrencyLimit.getSmoothing()));
+        }
+        
+        BookingServiceProperties.BulkheadConfig bulkheadConfig = properties.getBulkhead();
+        if (bulkheadConfig.isEnabled()) {
+            bulkhead = new Bulkhead("booking-service", bulkheadConfig.getMaxConcurrentCalls(),
+                    bulkheadConfig.getMaxQueue(), bulkheadConfig.getMaxWait());
+            communicationMonitor.registerBulkhead(bulkhead);
+        }
+        
+        BookingServiceProperties.CircuitBreakerConfig breaker = properties.getCircuitBreaker();
+        circuitBreaker = new CircuitBreaker("booking-service", breaker.getFailureRateThreshold(),
+                breaker.getMinimumCalls(), breaker.getWindowSeconds(), breaker.getOpenDuration(),
+                breaker.getHalfOpenMaxCalls(), communicationMonitor.getFailureTelemetry("booking-service"));
+        communicationMonitor.registerCircuitBreaker(circuitBreaker);
+        
+        BookingServiceProperties.RetryConfig retry = properties.getRetry();
+        retryPolicy = new RetryPolicy("booking-service", retry.getMaxAttempts(), retry.getBaseDelay(),
+                retry.getMaxDelay(), retry.getBudgetPercent());
+        communicationMonitor.registerRetryPolicy(retryPolicy);
+        
+        BookingServiceProperties.HedgingConfig hedging = properties.getHedging();
+        if (hedging.isEnabled()) {
+            bookingsHedging = new HedgedRequestPolicy("booking-service", "GET /api/v1/bookings/user/{userId}/bookings",
+                    hedging.getBudgetPercent(), hedging.getMinSamples(), hedging.getMinDelay());
+            communicationMonitor.registerHedgingPolicy(bookingsHedging);
+        }
+        
+        if (properties.isCoalescingEnabled()) {
+            bookingsSingleFlight = new SingleFlight<>("booking-service getUserBookings");
+            communicationMonitor.registerCoalescer(bookingsSingleFlight);
+        }
+        
+        BookingServiceProperties.BatchingConfig batching = properties.getBatching();
+        if (batching.isEnabled()) {
+            // booking-service rejects larger batches, which would fail every lookup
+            if (batching.getMaxBatchSize() < 1 || batching.getMaxBatchSize() > UserBookingsBatchRequest.MAX_USER_IDS) {
+                throw new IllegalArgumentException("services.booking-service.batching.max-batch-size must be between 1 and "
+                        + UserBookingsBatchRequest.MAX_USER_IDS + ": " + batching.getMaxBatchSize());
+            }
+            bookingsBatcher = new MicroBatcher<>("booking-service getUserBookings", batching.getMaxBatchSize(),
+                    batching.getMaxDelay(), this::fetchBookingsBatch);
+            communicationMonitor.registerBatcher(bookingsBatcher);
+        }
+        
+        BookingServiceProperties.CacheConfig cache = properties.getCache();
+        if (cache.isEnabled()) {
+            bookingsCache = new ResponseCache<>("booking-service getUserBookings", cache.getMaximumSize(),
+                    Duration.ofMillis(cache.getTtl()));
+            communicationMonitor.registerResponseCache(bookingsCache);
+        }
+        
+        BookingServiceProperties.HealthProbeConfig healthProbe = properties.getHealthProbe();
+        if (healthProbe.isEnabled()) {
+            // One probe per instance, so the balancer can skip the instances that are down
+            for (LoadBalancer.Instance instance : loadBalancer.getInstances()) {
+                healthProber.register(instance.getId(), instance.getUrl() + healthProbe.getPath(),
+                        Duration.ofMillis(healthProbe.getInterval()), healthProbe.getJitter(), healthProbe.getTimeout(),
+                        healthProbe.getFailureThreshold());
+            }
+        }
+    }
     
     /**
      * Get user bookings from booking service
      */
-    public CommunicationResult<Map> getUserBookings(Long userId) {
+    public CommunicationResult<UserBookings> getUserBookings(Long userId) {
+        return getUserBookingsAsync(userId).join();
+    }
+    
+    /**
+     * Get user bookings from booking service without holding the calling thread
+     */
+    public CompletableFuture<CommunicationResult<UserBookings>> getUserBookingsAsync(Long userId) {
+        ResponseCache<Long, UserBookings> cache = bookingsCache;
+        if (cache != null) {
+            return cache.get(userId, () -> coalescedUserBookings(userId));
+        }
+        return coalescedUserBookings(userId);
+    }
+    
+    private CompletableFuture<CommunicationResult<UserBookings>> coalescedUserBookings(Long userId) {
+        SingleFlight<Long, CommunicationResult<UserBookings>> singleFlight = bookingsSingleFlight;
+        if (singleFlight != null) {
+            return singleFlight.execute(userId, () -> lookUpUserBookings(userId));
+        }
+        return lookUpUserBookings(userId);
+    }
+    
+    /**
+     * One lookup, with its retries and hedges, shares a single deadline of {@code timeout} ms.
+     * Each attempt gets what is left of it when it is sent.
+     */
+    private CompletableFuture<CommunicationResult<UserBookings>> lookUpUserBookings(Long userId) {
+        Deadline deadline = Deadline.after(Duration.ofMillis(timeoutMs));
+        HedgedRequestPolicy hedging = bookingsHedging;
+        if (hedging != null) {
+            return withRetries(RetryPolicy.Idempotency.IDEMPOTENT, deadline,
+                    () -> guarded(() -> hedging.execute(() -> bulkheaded(() -> fetchUserBookings(userId, deadline)))));
+        }
+        return withRetries(RetryPolicy.Idempotency.IDEMPOTENT, deadline,
+                () -> guarded(() -> bulkheaded(() -> fetchUserBookings(userId, deadline))));
+    }
+    
+    private CompletableFuture<CommunicationResult<UserBookings>> fetchUserBookings(Long userId, Deadline deadline) {
         String serviceName = "booking-service";
-        String endpoint = bookingServiceUrl + "/api/v1/bookings/user/" + userId + "/bookings";
+        String path = "/api/v1/bookings/user/" + userId + "/bookings";
         
         log.debug("Calling booking service to get bookings for user: {}", userId);
         
         // Apply failure simulations if configured
-        if (failureSimulator.shouldSimulateConnectionFailure(serviceName)) {
-            return CommunicationResult.connectionError("Simulated connection failure", null);
+        CommunicationFailureSimulator.Decision fault = failureSimulator.decide(serviceName);
+        if (fault.isConnectionFailure()) {
+            return simulated(serviceName, fault, CommunicationResult.connectionError("Simulated connection failure", null));
         }
         
-        if (failureSimulator.shouldSimulateTimeout(serviceName)) {
-            return CommunicationResult.timeout("Simulated timeout", null);
+        if (fault.isTimeout()) {
+            return simulated(serviceName, fault, CommunicationResult.timeout("Simulated timeout", null));
         }
         
-        if (failureSimulator.shouldSimulateApiError(serviceName)) {
-            return CommunicationResult.failure("Simulated API error", null);
+        if (fault.isApiError()) {
+            return simulated(serviceName, fault, CommunicationResult.failure("Simulated API error", null));
         }
         
-        // Apply artificial delay
-        failureSimulator.applyArtificialDelay(serviceName);
-        
-        // Make the actual call with monitoring
-        CommunicationResult<Map> result = communicationMonitor.monitorApiCall(
-            serviceName, endpoint, Map.class, timeoutMs);
-        
-        // Check for data corruption simulation
-        if (result.isSuccessful() && failureSimulator.shouldSimulateDataCorruption(serviceName)) {
-            log.warn("Simulating data corruption for booking service response");
-            return CommunicationResult.dataValidationError("Simulated data corruption", result.getResponseTime());
+        // Apply artificial delay or replayed latency around the actual call with monitoring.
+        // Cancellation must reach the HTTP exchange so a losing hedge stops.
+        MicroBatcher<Long, CommunicationResult<UserBookings>> batcher = bookingsBatcher;
+        CompletableFuture<CommunicationResult<UserBookings>> call = failureSimulator.delayed(fault,
+                () -> batcher != null
+                        ? withinDeadline(batcher.submit(userId), deadline)
+                        : balanced(instanceUrl -> communicationMonitor.monitorApiCallAsync(serviceName,
+                                instanceUrl + path, BookingJsonCodec::readUserBookings, deadline)));
+        if (!fault.isDataCorruption()) {
+            return call;
         }
+        return CancellableFutures.thenApply(call, result -> {
+            // Check for data corruption simulation
+            if (result.isSuccessful()) {
+                log.warn("Simulating data corruption for booking service response");
+                return CommunicationResult.dataValidationError("Simulated data corruption", result.getResponseTime());
+            }
+            return result;
+        });
+    }
+    
+    /**
+     * A batched lookup serves callers with different deadlines, so the batch call gets a
+     * budget of its own and each caller stops waiting for it at their own deadline
+     */
+    private static <T> CompletableFuture<CommunicationResult<T>> withinDeadline(
+            CompletableFuture<CommunicationResult<T>> batched, Deadline deadline) {
+        return CancellableFutures.thenApply(batched, Function.identity())
+                .completeOnTimeout(CommunicationResult.timeout("Deadline passed waiting for a batched lookup", null),
+                        deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Look up bookings for a batch of users in one users:batchGet call and split the
+     * response per user. A failed batch call is the result for every user in it.
+     */
+    private CompletableFuture<Map<Long, CommunicationResult<UserBookings>>> fetchBookingsBatch(List<Long> userIds) {
+        log.debug("Calling booking service to get bookings for {} users", userIds.size());
         
-        return result;
+        Deadline deadline = Deadline.after(Duration.ofMillis(timeoutMs));
+        return balanced(instanceUrl -> communicationMonitor.monitorPostCallAsync("booking-service",
+                instanceUrl + "/api/v1/bookings/users:batchGet", new UserBookingsBatchRequest(userIds),
+                BookingJsonCodec::readUserBookingsBatch, deadline))
+                .thenApply(result -> {
+                    Map<Long, CommunicationResult<UserBookings>> split = new HashMap<>();
+                    for (Long userId : userIds) {
+                        if (!result.isSuccessful()) {
+                            split.put(userId, result.failureAs());
+                            continue;
+                        }
+                        UserBookings entry = result.getData().results().get(userId);
+                        split.put(userId, entry != null
+                                ? CommunicationResult.success(entry, result.getResponseTime())
+                                : CommunicationResult.dataValidationError("Batch response has no bookings for user " + userId,
+                                        result.getResponseTime()));
+                    }
+                    return split;
+                });
     }
     
     /**
      * Create a booking through booking service
      */
     public CommunicationResult<Map> createBooking(Long userId, Map<String, Object> bookingData) {
+        return createBookingAsync(userId, bookingData).join();
+    }
+    
+    /**
+     * Create a booking through booking service without holding the calling thread
+     */
+    public CompletableFuture<CommunicationResult<Map>> createBookingAsync(Long userId, Map<String, Object> bookingData) {
+        // Creating a booking twice would double-book, so it is never retried
+        Deadline deadline = Deadline.after(Duration.ofMillis(timeoutMs));
+        CompletableFuture<CommunicationResult<Map>> call = withRetries(RetryPolicy.Idempotency.NON_IDEMPOTENT, deadline,
+                () -> guarded(() -> bulkheaded(() -> postBooking(userId, bookingData, deadline))));
+        return call.whenComplete((result, ex) -> {
+            ResponseCache<Long, UserBookings> cache = bookingsCache;
+            // The cached booking list is stale once the booking exists. A timed-out or failed
+            // create may still have been applied, so only skip calls that were never sent.
+            if (cache != null && (result == null || !(result.isCircuitOpen() || result.isLimitExceeded()))) {
+                cache.invalidate(userId);
+            }
+        });
+    }
+    
+    private CompletableFuture<CommunicationResult<Map>> postBooking(Long userId, Map<String, Object> bookingData,
+            Deadline deadline) {
         String serviceName = "booking-service";
-        String endpoint = bookingServiceUrl + "/api/v1/bookings/user/" + userId;
+        String path = "/api/v1/bookings/user/" + userId;
         
         log.debug("Calling booking service to create booking for user: {}", userId);
         
         // Apply failure simulations
-        if (failureSimulator.shouldSimulateConnectionFailure(serviceName)) {
-            return CommunicationResult.connectionError("Simulated connection failure", null);
+        CommunicationFailureSimulator.Decision fault = failureSimulator.decide(serviceName);
+        if (fault.isConnectionFailure()) {
+            return simulated(serviceName, fault, CommunicationResult.connectionError("Simulated connection failure", null));
         }
         
-        if (failureSimulator.shouldSimulateTimeout(serviceName)) {
-            return CommunicationResult.timeout("Simulated timeout", null);
+        if (fault.isTimeout()) {
+            return simulated(serviceName, fault, CommunicationResult.timeout("Simulated timeout", null));
+        }
+        
+        return failureSimulator.delayed(fault,
+                () -> balanced(instanceUrl -> communicationMonitor.monitorPostCallAsync(serviceName,
+                        instanceUrl + path, bookingData, Map.class, deadline)));
+    }
+    
+    /**
+     * A simulated failure stands in for a real call, so it arrives after the simulated delay,
+     * is recorded like one and counts towards the error rate and the circuit breaker
+     */
+    private <T> CompletableFuture<CommunicationResult<T>> simulated(String serviceName,
+            CommunicationFailureSimulator.Decision fault, CommunicationResult<T> failure) {
+        return CancellableFutures.thenApply(failureSimulator.delay(fault), ignored -> {
+            communicationMonitor.recordOutcome(serviceName, failure);
+            return failure;
+        });
+    }
+    
+    /**
+     * Retry a call according to the retry policy when the retryMechanism gene is active.
+     * Every attempt goes through the circuit breaker on its own.
+     */
+    private <T> CompletableFuture<CommunicationResult<T>> withRetries(RetryPolicy.Idempotency idempotency,
+            Deadline deadline, Supplier<CompletableFuture<CommunicationResult<T>>> call) {
+        if (!dna.getEvolution().isRetryMechanism()) {
+            return call.get();
+        }
+        return retryPolicy.execute(idempotency, deadline, call);
+    }
+    
+    /**
+     * Run a call through the circuit breaker when the circuitBreakerEnabled gene is active.
+     * An open breaker answers immediately instead of waiting for the timeout. Cancelling the
+     * result cancels the call, and a cancelled call gives its permission back.
+     */
+    private <T> CompletableFuture<CommunicationResult<T>> guarded(Supplier<CompletableFuture<CommunicationResult<T>>> call) {
+        if (!dna.getEvolution().isCircuitBreakerEnabled()) {
+            return call.get();
         }
         
-        failureSimulator.applyArtificialDelay(serviceName);
+        CircuitBreaker breaker = circuitBreaker;
+        if (!breaker.tryAcquirePermission()) {
+            return CompletableFuture.completedFuture(
+                    CommunicationResult.circuitOpen("Circuit breaker is open for booking-service"));
+        }
         
-        // For now, return a simulated successful response
-        // In a real implementation, this would use RestTemplate with POST
-        return CommunicationResult.success(Map.of(
-            "id", 123L,
-            "userId", userId,
-            "status", "CREATED"
-        ), java.time.Duration.ofMillis(150));
+        CompletableFuture<CommunicationResult<T>> attempt;
+        try {
+            attempt = call.get();
+        } catch (RuntimeException ex) {
+            // A leaked permission would wedge a half-open breaker
+            breaker.releasePermission();
+            throw ex;
+        }
+        CompletableFuture<CommunicationResult<T>> result = attempt.whenComplete((value, ex) -> {
+            if (attempt.isCancelled()) {
+                breaker.releasePermission();
+            } else {
+                breaker.onResult(value);
+            }
+        });
+        CancellableFutures.propagateCancellation(result, attempt);
+        return result;
+    }
+    
+    /**
+     * Run a call inside the booking-service bulkhead, so a slow booking-service can only hold
+     * its own share of in-flight calls. A full bulkhead answers at once with LIMIT_EXCEEDED.
+     */
+    private <T> CompletableFuture<CommunicationResult<T>> bulkheaded(Supplier<CompletableFuture<CommunicationResult<T>>> call) {
+        Bulkhead current = bulkhead;
+        return current != null ? current.execute(call) : call.get();
+    }
+    
+    /**
+     * Send a call to the booking-service instance the load balancer picks, given its base URL,
+     * and report back how it went. Each retry and hedge picks again, so it can land elsewhere.
+     */
+    private <T> CompletableFuture<CommunicationResult<T>> balanced(
+            Function<String, CompletableFuture<CommunicationResult<T>>> call) {
+        LoadBalancer balancer = loadBalancer;
+        LoadBalancer.Instance instance = balancer.choose();
+        CompletableFuture<CommunicationResult<T>> running;
+        try {
+            running = call.apply(instance.getUrl());
+        } catch (RuntimeException ex) {
+            balancer.onComplete(instance, null);
+            throw ex;
+        }
+        CompletableFuture<CommunicationResult<T>> result = running.whenComplete((value, ex) ->
+                balancer.onComplete(instance, running.isCancelled() ? null : value));
+        CancellableFutures.propagateCancellation(result, running);
+        return result;
     }
     
     /**
-     * Check booking service health
+     * Check booking service health, on the first configured instance
      */
     public CommunicationResult<Map> checkBookingServiceHealth() {
         String serviceName = "booking-service";
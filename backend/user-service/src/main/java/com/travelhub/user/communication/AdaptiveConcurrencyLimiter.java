@@ -0,0 +1,155 @@
+package com.travelhub.user.communication;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive limit on concurrent outbound calls to one downstream service.
+ *
+ * Follows the gradient approach of Netflix concurrency-limits: the limit grows while the
+ * recent RTT stays close to the long-term RTT and shrinks when it rises, which means calls
+ * are queueing somewhere. Timeouts and connection errors cut the limit immediately. Calls
+ * over the limit are rejected at once instead of piling up behind a slow service.
+ */
+public class AdaptiveConcurrencyLimiter {
+    
+    private static final int SAMPLE_WINDOW = 10;
+    private static final double LONG_RTT_ALPHA = 2.0 / (600 + 1);
+    private static final double BACKOFF_RATIO = 0.9;
+    
+    private final String serviceName;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder drops = new LongAdder();
+    
+    // Estimator state, guarded by this. Only completed calls take the lock; acquiring does not.
+    private double estimatedLimit;
+    private double longRttNanos;
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    
+    /**
+     * @param rttTolerance how much the recent RTT may exceed the long-term RTT before the limit shrinks
+     * @param smoothing    weight of each new limit estimate, between 0 and 1
+     */
+    public AdaptiveConcurrencyLimiter(String serviceName, int initialLimit, int minLimit, int maxLimit,
+                                      double rttTolerance, double smoothing) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 0 < minLimit <= maxLimit");
+        }
+        this.serviceName = serviceName;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+    
+    /**
+     * Take a slot for a call. Every acquired slot must be given back with exactly one of
+     * {@link #onSuccess}, {@link #onDropped} or {@link #onIgnore}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * The call got an answer from the service after {@code rttNanos}
+     */
+    public void onSuccess(long rttNanos) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        synchronized (this) {
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtCompletion);
+            windowRttSum += rttNanos;
+            if (++windowSamples >= SAMPLE_WINDOW) {
+                updateLimit(windowRttSum / (double) windowSamples);
+                windowRttSum = 0;
+                windowSamples = 0;
+                windowMaxInFlight = 0;
+            }
+        }
+    }
+    
+    /**
+     * The call timed out or could not connect: back off right away
+     */
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        drops.increment();
+        synchronized (this) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+            limit = (int) estimatedLimit;
+        }
+    }
+    
+    /**
+     * The call ended without telling us anything about the service, e.g. it was cancelled
+     */
+    public void onIgnore() {
+        inFlight.decrementAndGet();
+    }
+    
+    public String getServiceName() {
+        return serviceName;
+    }
+    
+    public int getLimit() {
+        return limit;
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    public long getRejected() {
+        return rejected.sum();
+    }
+    
+    public long getDrops() {
+        return drops.sum();
+    }
+    
+    public synchronized double getLongRttMillis() {
+        return longRttNanos / 1_000_000.0;
+    }
+    
+    private void updateLimit(double shortRttNanos) {
+        if (longRttNanos == 0) {
+            longRttNanos = shortRttNanos;
+        } else {
+            longRttNanos += (shortRttNanos - longRttNanos) * LONG_RTT_ALPHA;
+        }
+        // After a slow period the long-term RTT lags behind; let it catch up with recovery
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+        
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / shortRttNanos));
+        double queueSize = Math.sqrt(estimatedLimit);
+        double newLimit = estimatedLimit * gradient + queueSize;
+        // Do not grow a limit that callers are not using
+        if (newLimit > estimatedLimit && windowMaxInFlight < estimatedLimit / 2) {
+            return;
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+                estimatedLimit * (1 - smoothing) + newLimit * smoothing));
+        limit = (int) estimatedLimit;
+    }
+}
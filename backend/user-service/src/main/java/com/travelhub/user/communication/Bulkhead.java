@@ -0,0 +1,224 @@
+package com.travelhub.user.communication;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead bounding the calls in flight to one downstream service, so a slow dependency
+ * can only hold its own share of the caller's capacity.
+ *
+ * Up to {@code maxConcurrentCalls} calls run at once. Up to {@code maxQueue} more wait in a
+ * FIFO queue, for at most {@code maxWaitMillis} each, without holding a thread. Anything
+ * beyond that is rejected at once with {@code LIMIT_EXCEEDED} and never started.
+ */
+public class Bulkhead {
+    
+    private final String serviceName;
+    private final int maxConcurrentCalls;
+    private final int maxQueue;
+    private final long maxWaitMillis;
+    
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder permittedCalls = new LongAdder();
+    private final LongAdder queuedCalls = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder timedOutCalls = new LongAdder();
+    
+    public Bulkhead(String serviceName, int maxConcurrentCalls, int maxQueue, long maxWaitMillis) {
+        if (maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("maxConcurrentCalls must be positive: " + maxConcurrentCalls);
+        }
+        if (maxQueue < 0 || maxWaitMillis < 0) {
+            throw new IllegalArgumentException("maxQueue and maxWaitMillis must not be negative");
+        }
+        this.serviceName = serviceName;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxQueue = maxQueue;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+    
+    /**
+     * Run a call once the bulkhead has room for it. Cancelling the result while the call is
+     * queued gives up its place; once started, it cancels the call.
+     */
+    public <T> CompletableFuture<CommunicationResult<T>> execute(Supplier<CompletableFuture<CommunicationResult<T>>> call) {
+        if (tryEnter()) {
+            permittedCalls.increment();
+            return run(call);
+        }
+        if (!tryReserve(queued, maxQueue)) {
+            rejectedCalls.increment();
+            return CompletableFuture.completedFuture(CommunicationResult.limitExceeded("Bulkhead for " + serviceName
+                    + " is full: " + maxConcurrentCalls + " calls in flight and " + maxQueue + " queued"));
+        }
+        
+        queuedCalls.increment();
+        long queuedAt = System.nanoTime();
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        // A call may have finished between the failed tryEnter and the enqueue
+        handOff();
+        if (!waiter.isDone()) {
+            waiter.orTimeout(maxWaitMillis, TimeUnit.MILLISECONDS);
+        }
+        
+        CompletableFuture<CommunicationResult<T>> result = new CompletableFuture<>();
+        CancellableFutures.propagateCancellation(result, waiter);
+        waiter.whenComplete((granted, ex) -> {
+            queued.decrementAndGet();
+            queueWaitNanos.add(System.nanoTime() - queuedAt);
+            if (ex != null) {
+                if (ex instanceof TimeoutException) {
+                    timedOutCalls.increment();
+                    result.complete(CommunicationResult.limitExceeded("Waited " + maxWaitMillis
+                            + "ms for room in the bulkhead for " + serviceName));
+                }
+                // Otherwise the caller cancelled and nobody reads the result
+                return;
+            }
+            if (result.isDone()) {
+                // Cancelled while the slot was being granted
+                exit();
+                return;
+            }
+            permittedCalls.increment();
+            CompletableFuture<CommunicationResult<T>> running;
+            try {
+                running = run(call);
+            } catch (RuntimeException failure) {
+                result.completeExceptionally(failure);
+                return;
+            }
+            CancellableFutures.propagateCancellation(result, running);
+            running.whenComplete((value, runEx) -> {
+                if (runEx != null) {
+                    result.completeExceptionally(runEx);
+                } else {
+                    result.complete(value);
+                }
+            });
+        });
+        return result;
+    }
+    
+    private <T> CompletableFuture<CommunicationResult<T>> run(Supplier<CompletableFuture<CommunicationResult<T>>> call) {
+        CompletableFuture<CommunicationResult<T>> running;
+        try {
+            running = call.get();
+        } catch (RuntimeException ex) {
+            exit();
+            throw ex;
+        }
+        running.whenComplete((value, ex) -> exit());
+        return running;
+    }
+    
+    private boolean tryEnter() {
+        if (!tryReserve(inFlight, maxConcurrentCalls)) {
+            return false;
+        }
+        peakInFlight.accumulateAndGet(inFlight.get(), Math::max);
+        return true;
+    }
+    
+    private void exit() {
+        inFlight.decrementAndGet();
+        handOff();
+    }
+    
+    private void handOff() {
+        while (!waiters.isEmpty() && tryEnter()) {
+            CompletableFuture<Void> waiter = waiters.poll();
+            if (waiter == null || !waiter.complete(null)) {
+                // Queue drained by another thread, or the waiter timed out or was cancelled
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+    
+    private static boolean tryReserve(AtomicInteger counter, int max) {
+        while (true) {
+            int current = counter.get();
+            if (current >= max) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    public String getServiceName() {
+        return serviceName;
+    }
+    
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+    
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    public int getQueued() {
+        return queued.get();
+    }
+    
+    /**
+     * Most calls in flight at once since the bulkhead was created
+     */
+    public int getPeakInFlight() {
+        return peakInFlight.get();
+    }
+    
+    /**
+     * Share of the in-flight slots in use, 0-100
+     */
+    public double getSaturation() {
+        return inFlight.get() * 100.0 / maxConcurrentCalls;
+    }
+    
+    public long getPermittedCalls() {
+        return permittedCalls.sum();
+    }
+    
+    public long getQueuedCalls() {
+        return queuedCalls.sum();
+    }
+    
+    /**
+     * Average time a queued call waited for a slot, in milliseconds
+     */
+    public double getAverageQueueWaitMillis() {
+        long waited = queuedCalls.sum();
+        return waited == 0 ? 0.0 : queueWaitNanos.sum() / 1e6 / waited;
+    }
+    
+    /**
+     * Calls rejected because the queue was full
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+    
+    /**
+     * Queued calls rejected because no slot freed up within the maximum wait
+     */
+    public long getTimedOutCalls() {
+        return timedOutCalls.sum();
+    }
+}
@@ -0,0 +1,72 @@
+package com.travelhub.user.communication;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * CompletableFuture composition that forwards cancellation upstream.
+ *
+ * The JDK's thenApply/thenCompose do not cancel the stage they depend on, so cancelling
+ * the end of a call chain would leave the HTTP exchange running. These helpers return a
+ * future whose cancellation also cancels every stage it was built from.
+ */
+public final class CancellableFutures {
+    
+    private CancellableFutures() {
+    }
+    
+    /**
+     * Like {@link CompletableFuture#thenApply}, but cancelling the result cancels the source
+     */
+    public static <T, U> CompletableFuture<U> thenApply(CompletableFuture<T> source, Function<? super T, ? extends U> fn) {
+        CompletableFuture<U> result = source.thenApply(fn);
+        propagateCancellation(result, source);
+        return result;
+    }
+    
+    /**
+     * Like {@link CompletableFuture#thenCompose}, but cancelling the result cancels the source
+     * or, once it has started, the composed stage
+     */
+    public static <T, U> CompletableFuture<U> thenCompose(CompletableFuture<T> source,
+            Function<? super T, ? extends CompletableFuture<U>> fn) {
+        CompletableFuture<U> result = new CompletableFuture<>();
+        propagateCancellation(result, source);
+        source.whenComplete((value, ex) -> {
+            if (ex != null) {
+                result.completeExceptionally(ex);
+                return;
+            }
+            if (result.isDone()) {
+                return;
+            }
+            CompletableFuture<U> next;
+            try {
+                next = fn.apply(value);
+            } catch (Throwable failure) {
+                result.completeExceptionally(failure);
+                return;
+            }
+            propagateCancellation(result, next);
+            next.whenComplete((nextValue, nextEx) -> {
+                if (nextEx != null) {
+                    result.completeExceptionally(nextEx);
+                } else {
+                    result.complete(nextValue);
+                }
+            });
+        });
+        return result;
+    }
+    
+    /**
+     * Cancel {@code upstream} when {@code downstream} is cancelled
+     */
+    public static void propagateCancellation(CompletableFuture<?> downstream, CompletableFuture<?> upstream) {
+        downstream.whenComplete((value, ex) -> {
+            if (downstream.isCancelled()) {
+                upstream.cancel(true);
+            }
+        });
+    }
+}
@@ -0,0 +1,329 @@
+package com.travelhub.user.communication;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free CLOSED / OPEN / HALF_OPEN circuit breaker for one downstream service.
+ *
+ * The whole breaker state (state, half-open permits, half-open successes and the time the
+ * breaker opened) lives in a single {@link AtomicLong}, so a rejected call costs one volatile
+ * read and a clock read. Failure rate is read from the service's {@link FailureTelemetry},
+ * the same sliding window the monitor reports, so the breaker and the failure report
+ * always agree. Data validation errors mean the service answered and are not counted.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // State word layout: [ openedAt millis : 42 | successes : 10 | permits : 10 | state : 2 ]
+    private static final int STATE_BITS = 2;
+    private static final int COUNT_BITS = 10;
+    private static final long STATE_MASK = (1L << STATE_BITS) - 1;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int PERMITS_SHIFT = STATE_BITS;
+    private static final int SUCCESSES_SHIFT = STATE_BITS + COUNT_BITS;
+    private static final int OPENED_AT_SHIFT = STATE_BITS + 2 * COUNT_BITS;
+
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+
+    private final String serviceName;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationMillis;
+    private final int halfOpenMaxCalls;
+    private final Duration window;
+    private final FailureTelemetry telemetry;
+    private final boolean ownsTelemetry;
+    private final long epochNanos = System.nanoTime();
+
+    private final AtomicLong stateWord = new AtomicLong(CLOSED);
+    // Outcomes from before the breaker last closed do not count towards opening it again
+    private volatile long countFromNanos = Long.MIN_VALUE;
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder openTransitions = new LongAdder();
+
+    /**
+     * A breaker that keeps its own telemetry and records the outcomes it is told about
+     *
+     * @param failureRateThreshold failure percentage (0-100) at which the breaker opens
+     * @param minimumCalls         calls needed in the window before the rate is trusted
+     * @param windowSeconds        length of the sliding window, one bucket per second
+     * @param openDurationMillis   how long to reject calls before probing again
+     * @param halfOpenMaxCalls     probe calls let through while half-open
+     */
+    public CircuitBreaker(String serviceName, double failureRateThreshold, int minimumCalls,
+                          int windowSeconds, long openDurationMillis, int halfOpenMaxCalls) {
+        this(serviceName, failureRateThreshold, minimumCalls, windowSeconds, openDurationMillis, halfOpenMaxCalls,
+                new FailureTelemetry(1000, Math.max(1, windowSeconds)), true);
+    }
+
+    /**
+     * A breaker that reads the failure rate from telemetry recorded elsewhere, normally by
+     * {@link ServiceCommunicationMonitor}. Outcomes passed to the breaker only drive its state.
+     */
+    public CircuitBreaker(String serviceName, double failureRateThreshold, int minimumCalls,
+                          int windowSeconds, long openDurationMillis, int halfOpenMaxCalls,
+                          FailureTelemetry telemetry) {
+        this(serviceName, failureRateThreshold, minimumCalls, windowSeconds, openDurationMillis, halfOpenMaxCalls,
+                telemetry, false);
+    }
+
+    private CircuitBreaker(String serviceName, double failureRateThreshold, int minimumCalls, int windowSeconds,
+                           long openDurationMillis, int halfOpenMaxCalls, FailureTelemetry telemetry,
+                           boolean ownsTelemetry) {
+        if (halfOpenMaxCalls <= 0 || halfOpenMaxCalls > COUNT_MASK) {
+            throw new IllegalArgumentException("halfOpenMaxCalls must be between 1 and " + COUNT_MASK);
+        }
+        this.window = Duration.ofSeconds(Math.max(1, windowSeconds));
+        if (window.compareTo(telemetry.getMaxWindow()) > 0) {
+            throw new IllegalArgumentException("Window of " + windowSeconds + "s is longer than the telemetry keeps: "
+                    + telemetry.getMaxWindow());
+        }
+        this.serviceName = serviceName;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.openDurationMillis = openDurationMillis;
+        this.halfOpenMaxCalls = halfOpenMaxCalls;
+        this.telemetry = telemetry;
+        this.ownsTelemetry = ownsTelemetry;
+    }
+
+    /**
+     * Ask for permission to make a call. Every permitted call must be followed by
+     * {@link #onSuccess()} or {@link #onFailure()}.
+     */
+    public boolean tryAcquirePermission() {
+        while (true) {
+            long current = stateWord.get();
+            int state = (int) (current & STATE_MASK);
+
+            if (state == CLOSED) {
+                return true;
+            }
+
+            if (state == OPEN) {
+                if (nowMillis() - openedAt(current) < openDurationMillis) {
+                    rejectedCalls.increment();
+                    return false;
+                }
+                // Open period elapsed: this caller becomes the first probe
+                if (stateWord.compareAndSet(current, pack(HALF_OPEN, 1, 0, openedAt(current)))) {
+                    return true;
+                }
+                continue;
+            }
+
+            int permits = permits(current);
+            if (permits >= halfOpenMaxCalls) {
+                rejectedCalls.increment();
+                return false;
+            }
+            if (stateWord.compareAndSet(current, pack(HALF_OPEN, permits + 1, successes(current), openedAt(current)))) {
+                return true;
+            }
+        }
+    }
+
+    public void onSuccess() {
+        if (ownsTelemetry) {
+            telemetry.recordSuccess();
+        }
+        succeeded();
+    }
+
+    public void onFailure() {
+        if (ownsTelemetry) {
+            telemetry.recordFailure(CommunicationResult.CommunicationFailureType.UNKNOWN);
+        }
+        failed();
+    }
+
+    private void succeeded() {
+        while (true) {
+            long current = stateWord.get();
+            if ((current & STATE_MASK) != HALF_OPEN) {
+                return;
+            }
+            int successes = successes(current) + 1;
+            long next = successes >= halfOpenMaxCalls
+                    ? pack(CLOSED, 0, 0, 0)
+                    : pack(HALF_OPEN, permits(current), successes, openedAt(current));
+            if (stateWord.compareAndSet(current, next)) {
+                if (successes >= halfOpenMaxCalls) {
+                    countFromNanos = System.nanoTime();
+                }
+                return;
+            }
+        }
+    }
+
+    private void failed() {
+        while (true) {
+            long current = stateWord.get();
+            int state = (int) (current & STATE_MASK);
+            if (state == OPEN) {
+                return;
+            }
+            if (state == CLOSED) {
+                FailureTelemetry.Snapshot recent = recentOutcomes();
+                long calls = recent.getCalls();
+                if (calls < minimumCalls || failures(recent) * 100.0 / calls < failureRateThreshold) {
+                    return;
+                }
+            }
+            // Closed breaker over the threshold, or any failed probe while half-open
+            if (stateWord.compareAndSet(current, pack(OPEN, 0, 0, nowMillis()))) {
+                openTransitions.increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Give back a permission for a call that never reached the service. While half-open
+     * this frees the probe slot for another caller.
+     */
+    public void releasePermission() {
+        while (true) {
+            long current = stateWord.get();
+            if ((current & STATE_MASK) != HALF_OPEN || permits(current) == 0) {
+                return;
+            }
+            if (stateWord.compareAndSet(current, pack(HALF_OPEN, permits(current) - 1, successes(current), openedAt(current)))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Record the outcome of a permitted call. Data validation errors mean the service
+     * answered, so they do not count against it. Calls rejected by the concurrency limiter
+     * were never sent and are not counted at all.
+     */
+    public void onResult(CommunicationResult<?> result) {
+        if (result == null) {
+            onFailure();
+            return;
+        }
+        if (ownsTelemetry) {
+            telemetry.record(result);
+        }
+        if (result.isLimitExceeded()) {
+            releasePermission();
+        } else if (result.isSuccessful() || result.isDataValidationError()) {
+            succeeded();
+        } else {
+            failed();
+        }
+    }
+
+    /**
+     * Open the breaker now, whatever the failure rate, e.g. because active health probes
+     * keep failing while no real traffic is flowing. Does nothing if it is already open.
+     */
+    public void forceOpen() {
+        while (true) {
+            long current = stateWord.get();
+            if ((current & STATE_MASK) == OPEN) {
+                return;
+            }
+            if (stateWord.compareAndSet(current, pack(OPEN, 0, 0, nowMillis()))) {
+                openTransitions.increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * An active health probe reached the service. An open breaker stops waiting out its open
+     * period and goes half-open, so the next calls test the service straight away.
+     */
+    public void onProbeSuccess() {
+        while (true) {
+            long current = stateWord.get();
+            if ((current & STATE_MASK) != OPEN) {
+                return;
+            }
+            if (stateWord.compareAndSet(current, pack(HALF_OPEN, 0, 0, openedAt(current)))) {
+                return;
+            }
+        }
+    }
+
+    public State getState() {
+        long current = stateWord.get();
+        switch ((int) (current & STATE_MASK)) {
+            case OPEN:
+                return State.OPEN;
+            case HALF_OPEN:
+                return State.HALF_OPEN;
+            default:
+                return State.CLOSED;
+        }
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public double getFailureRate() {
+        FailureTelemetry.Snapshot recent = recentOutcomes();
+        long calls = recent.getCalls();
+        return calls == 0 ? 0.0 : failures(recent) * 100.0 / calls;
+    }
+
+    public long getWindowCalls() {
+        return recentOutcomes().getCalls();
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    public long getOpenTransitions() {
+        return openTransitions.sum();
+    }
+
+    /**
+     * Force the breaker back to CLOSED and forget the window
+     */
+    public void reset() {
+        stateWord.set(pack(CLOSED, 0, 0, 0));
+        countFromNanos = System.nanoTime();
+    }
+
+    private FailureTelemetry.Snapshot recentOutcomes() {
+        return telemetry.snapshot(window, countFromNanos);
+    }
+
+    private static long failures(FailureTelemetry.Snapshot recent) {
+        return recent.getFailures() - recent.getCount(CommunicationResult.CommunicationFailureType.DATA_VALIDATION_ERROR);
+    }
+
+    private long nowMillis() {
+        return (System.nanoTime() - epochNanos) / 1_000_000;
+    }
+
+    private static long pack(int state, int permits, int successes, long openedAt) {
+        return state
+                | ((long) permits << PERMITS_SHIFT)
+                | ((long) successes << SUCCESSES_SHIFT)
+                | (openedAt << OPENED_AT_SHIFT);
+    }
+
+    private static int permits(long word) {
+        return (int) ((word >>> PERMITS_SHIFT) & COUNT_MASK);
+    }
+
+    private static int successes(long word) {
+        return (int) ((word >>> SUCCESSES_SHIFT) & COUNT_MASK);
+    }
+
+    private static long openedAt(long word) {
+        return word >>> OPENED_AT_SHIFT;
+    }
+}
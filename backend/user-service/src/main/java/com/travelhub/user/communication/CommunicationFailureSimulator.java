@@ -3,20 +3,62 @@ package com.travelhub.user.communication;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
- * Communication Failure Simulator for testing microservices resilience
+ * Communication Failure Simulator for testing microservices resilience.
+ *
+ * Every configuration change is compiled into an immutable plan per service, and the call
+ * path only asks that plan for a {@link Decision}. With nothing enabled the call path reads
+ * one volatile field and returns {@link Decision#NONE}.
+ *
+ * Each service draws its random numbers from its own SplitMix64 stream. A call claims a
+ * fixed block of positions in the stream with one atomic add, so threads do not contend on
+ * a shared {@code Random}, and call number {@code n} gets the same decision in every run
+ * with the same seed and configuration.
+ *
+ * Instead of probabilities and a latency distribution, a service can replay a
+ * {@link LatencyTrace} recorded from real calls, to reproduce an incident locally.
  */
 @Component
 @Slf4j
 public class CommunicationFailureSimulator {
     
-    private final Random random = new Random();
+    private static final CompletableFuture<Void> NO_DELAY = CompletableFuture.completedFuture(null);
+    
     private final Map<String, FailureConfiguration> failureConfigurations = new ConcurrentHashMap<>();
+    // Copy-on-write, holds only enabled services
+    private volatile Map<String, Plan> plans = Map.of();
+    
+    private final ScheduledExecutorService delayScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "failure-simulator-delay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * Shape of the artificial delay
+     */
+    public enum LatencyDistribution {
+        /** Always {@code artificialDelayMs} */
+        FIXED,
+        /** Log-normal with median {@code artificialDelayMs} and shape {@code latencySigma} */
+        LOG_NORMAL,
+        /** Pareto with minimum {@code artificialDelayMs} and tail index {@code paretoAlpha} */
+        PARETO,
+        /** Log-normal around {@code artificialDelayMs}, or around {@code slowDelayMs} with {@code slowProbability} */
+        BIMODAL
+    }
     
     public static class FailureConfiguration {
         private double timeoutProbability = 0.0;      // 0.0 - 1.0
@@ -24,6 +66,16 @@ public class CommunicationFailureSimulator {
         private double apiErrorProbability = 0.0;
         private double dataCorruptionProbability = 0.0;
         private int artificialDelayMs = 0;
+        private LatencyDistribution latencyDistribution = LatencyDistribution.FIXED;
+        private double latencySigma = 0.5;
+        private double paretoAlpha = 1.5;
+        private int slowDelayMs = 0;
+        private double slowProbability = 0.0;
+        private int maxDelayMs = 30_000;
+        private Long seed;                            // null picks a random seed
+        private LatencyTrace replayTrace;             // replaces the settings above when set
+        private double replaySpeed = 1.0;
+        private boolean replayLoop = false;
         private boolean enabled = false;
         
         // Getters and setters
@@ -37,16 +89,94 @@ public class CommunicationFailureSimulator {
         public void setDataCorruptionProbability(double dataCorruptionProbability) { this.dataCorruptionProbability = dataCorruptionProbability; }
         public int getArtificialDelayMs() { return artificialDelayMs; }
         public void setArtificialDelayMs(int artificialDelayMs) { this.artificialDelayMs = artificialDelayMs; }
+        public LatencyDistribution getLatencyDistribution() { return latencyDistribution; }
+        public void setLatencyDistribution(LatencyDistribution latencyDistribution) { this.latencyDistribution = latencyDistribution; }
+        public double getLatencySigma() { return latencySigma; }
+        public void setLatencySigma(double latencySigma) { this.latencySigma = latencySigma; }
+        public double getParetoAlpha() { return paretoAlpha; }
+        public void setParetoAlpha(double paretoAlpha) { this.paretoAlpha = paretoAlpha; }
+        public int getSlowDelayMs() { return slowDelayMs; }
+        public void setSlowDelayMs(int slowDelayMs) { this.slowDelayMs = slowDelayMs; }
+        public double getSlowProbability() { return slowProbability; }
+        public void setSlowProbability(double slowProbability) { this.slowProbability = slowProbability; }
+        public int getMaxDelayMs() { return maxDelayMs; }
+        public void setMaxDelayMs(int maxDelayMs) { this.maxDelayMs = maxDelayMs; }
+        public Long getSeed() { return seed; }
+        public void setSeed(Long seed) { this.seed = seed; }
+        public LatencyTrace getReplayTrace() { return replayTrace; }
+        public void setReplayTrace(LatencyTrace replayTrace) { this.replayTrace = replayTrace; }
+        public double getReplaySpeed() { return replaySpeed; }
+        public void setReplaySpeed(double replaySpeed) { this.replaySpeed = replaySpeed; }
+        public boolean isReplayLoop() { return replayLoop; }
+        public void setReplayLoop(boolean replayLoop) { this.replayLoop = replayLoop; }
         public boolean isEnabled() { return enabled; }
         public void setEnabled(boolean enabled) { this.enabled = enabled; }
     }
     
     /**
-     * Configure failure simulation for a service
+     * What to do to one call
+     */
+    public static final class Decision {
+        
+        /** Leave the call alone */
+        public static final Decision NONE = new Decision(null, false, 0, false);
+        
+        private final CommunicationResult.CommunicationFailureType failure;
+        private final boolean dataCorruption;
+        private final long delayMillis;
+        private final boolean latencyFloor;
+        
+        private Decision(CommunicationResult.CommunicationFailureType failure, boolean dataCorruption, long delayMillis,
+                         boolean latencyFloor) {
+            this.failure = failure;
+            this.dataCorruption = dataCorruption;
+            this.delayMillis = delayMillis;
+            this.latencyFloor = latencyFloor;
+        }
+        
+        public boolean isConnectionFailure() {
+            return failure == CommunicationResult.CommunicationFailureType.CONNECTION_ERROR;
+        }
+        
+        public boolean isTimeout() {
+            return failure == CommunicationResult.CommunicationFailureType.TIMEOUT;
+        }
+        
+        public boolean isApiError() {
+            return failure == CommunicationResult.CommunicationFailureType.API_ERROR;
+        }
+        
+        /**
+         * Whether a successful response should be reported as corrupt
+         */
+        public boolean isDataCorruption() {
+            return dataCorruption;
+        }
+        
+        /**
+         * Time to wait before making the call, or before returning the simulated failure
+         */
+        public long getDelayMillis() {
+            return delayMillis;
+        }
+        
+        /**
+         * Whether the delay is a replayed call's whole latency, which the real call runs
+         * inside of, rather than a wait before the call
+         */
+        public boolean isLatencyFloor() {
+            return latencyFloor;
+        }
+    }
+    
+    /**
+     * Configure failure simulation for a service. Later changes to {@code config} only take
+     * effect when it is configured again.
      */
     public void configureFailures(String serviceName, FailureConfiguration config) {
         failureConfigurations.put(serviceName, config);
-        log.info("Configured failure simulation for service: {} with config: {}", serviceName, config);
+        compile(serviceName);
+        log.info("Configured failure simulation for service: {} with seed {}", serviceName, config.getSeed());
     }
     
     /**
@@ -56,6 +186,7 @@ public class CommunicationFailureSimulator {
         FailureConfiguration config = failureConfigurations.computeIfAbsent(serviceName, k -> new FailureConfiguration());
         config.setTimeoutProbability(probability);
         config.setEnabled(true);
+        compile(serviceName);
         log.info("Enabled timeout simulation for {}: {}% probability", serviceName, probability * 100);
     }
     
@@ -66,6 +197,7 @@ public class CommunicationFailureSimulator {
         FailureConfiguration config = failureConfigurations.computeIfAbsent(serviceName, k -> new FailureConfiguration());
         config.setConnectionFailureProbability(probability);
         config.setEnabled(true);
+        compile(serviceName);
         log.info("Enabled connection failure simulation for {}: {}% probability", serviceName, probability * 100);
     }
     
@@ -76,6 +208,7 @@ public class CommunicationFailureSimulator {
         FailureConfiguration config = failureConfigurations.computeIfAbsent(serviceName, k -> new FailureConfiguration());
         config.setApiErrorProbability(probability);
         config.setEnabled(true);
+        compile(serviceName);
         log.info("Enabled API error simulation for {}: {}% probability", serviceName, probability * 100);
     }
     
@@ -86,93 +219,129 @@ public class CommunicationFailureSimulator {
         FailureConfiguration config = failureConfigurations.computeIfAbsent(serviceName, k -> new FailureConfiguration());
         config.setDataCorruptionProbability(probability);
         config.setEnabled(true);
+        compile(serviceName);
         log.info("Enabled data corruption simulation for {}: {}% probability", serviceName, probability * 100);
     }
     
     /**
-     * Add artificial delay to simulate slow responses
+     * Add a fixed artificial delay to simulate slow responses
      */
     public void addArtificialDelay(String serviceName, int delayMs) {
+        addLatencyDistribution(serviceName, LatencyDistribution.FIXED, delayMs);
+    }
+    
+    /**
+     * Add an artificial delay drawn from {@code distribution}, with {@code delayMs} as its
+     * median (log-normal, bimodal) or minimum (Pareto). Shape parameters keep their current
+     * values unless set on the configuration.
+     */
+    public void addLatencyDistribution(String serviceName, LatencyDistribution distribution, int delayMs) {
         FailureConfiguration config = failureConfigurations.computeIfAbsent(serviceName, k -> new FailureConfiguration());
+        config.setLatencyDistribution(distribution);
         config.setArtificialDelayMs(delayMs);
         config.setEnabled(true);
-        log.info("Added artificial delay for {}: {}ms", serviceName, delayMs);
+        compile(serviceName);
+        log.info("Added {} artificial delay for {}: {}ms", distribution, serviceName, delayMs);
     }
     
     /**
-     * Check if a timeout should be simulated
+     * Restart the service's random stream from {@code seed}, so the following calls see the
+     * same failures and delays as the last run with this seed
      */
-    public boolean shouldSimulateTimeout(String serviceName) {
-        FailureConfiguration config = failureConfigurations.get(serviceName);
-        if (config != null && config.isEnabled() && config.getTimeoutProbability() > 0) {
-            boolean simulate = random.nextDouble() < config.getTimeoutProbability();
-            if (simulate) {
-                log.warn("Simulating timeout for service: {}", serviceName);
-            }
-            return simulate;
-        }
-        return false;
+    public void setSeed(String serviceName, long seed) {
+        FailureConfiguration config = failureConfigurations.computeIfAbsent(serviceName, k -> new FailureConfiguration());
+        config.setSeed(seed);
+        compile(serviceName);
+        log.info("Seeded failure simulation for {} with {}", serviceName, seed);
     }
     
     /**
-     * Check if a connection failure should be simulated
+     * Replay the calls to {@code serviceName} recorded in {@code trace} as the fault and
+     * latency model, in place of the configured probabilities and delays. Each call gets the
+     * outcome and latency of a recorded call from the same point of the trace timeline, which
+     * runs {@code speed} times faster than the original. Latencies are not scaled.
+     *
+     * @param loop start the trace over when it ends, rather than leave calls alone
+     * @return number of recorded calls to the service
      */
-    public boolean shouldSimulateConnectionFailure(String serviceName) {
-        FailureConfiguration config = failureConfigurations.get(serviceName);
-        if (config != null && config.isEnabled() && config.getConnectionFailureProbability() > 0) {
-            boolean simulate = random.nextDouble() < config.getConnectionFailureProbability();
-            if (simulate) {
-                log.warn("Simulating connection failure for service: {}", serviceName);
-            }
-            return simulate;
+    public int replayTrace(String serviceName, LatencyTrace trace, double speed, boolean loop) {
+        int calls = trace.forService(serviceName).size();
+        if (calls == 0) {
+            throw new IllegalArgumentException("Trace has no calls to " + serviceName);
+        }
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Replay speed must be positive: " + speed);
         }
-        return false;
+        FailureConfiguration config = failureConfigurations.computeIfAbsent(serviceName, k -> new FailureConfiguration());
+        config.setReplayTrace(trace);
+        config.setReplaySpeed(speed);
+        config.setReplayLoop(loop);
+        config.setEnabled(true);
+        compile(serviceName);
+        log.info("Replaying {} recorded calls to {} at {}x speed", calls, serviceName, speed);
+        return calls;
     }
     
     /**
-     * Check if an API error should be simulated
+     * Stop replaying a trace and go back to the configured probabilities and delays
      */
-    public boolean shouldSimulateApiError(String serviceName) {
+    public void stopReplay(String serviceName) {
         FailureConfiguration config = failureConfigurations.get(serviceName);
-        if (config != null && config.isEnabled() && config.getApiErrorProbability() > 0) {
-            boolean simulate = random.nextDouble() < config.getApiErrorProbability();
-            if (simulate) {
-                log.warn("Simulating API error for service: {}", serviceName);
-            }
-            return simulate;
+        if (config != null && config.getReplayTrace() != null) {
+            config.setReplayTrace(null);
+            compile(serviceName);
+            log.info("Stopped trace replay for service: {}", serviceName);
         }
-        return false;
     }
     
     /**
-     * Check if data corruption should be simulated
+     * Decide the fate of the next call to a service
      */
-    public boolean shouldSimulateDataCorruption(String serviceName) {
-        FailureConfiguration config = failureConfigurations.get(serviceName);
-        if (config != null && config.isEnabled() && config.getDataCorruptionProbability() > 0) {
-            boolean simulate = random.nextDouble() < config.getDataCorruptionProbability();
-            if (simulate) {
-                log.warn("Simulating data corruption for service: {}", serviceName);
-            }
-            return simulate;
+    public Decision decide(String serviceName) {
+        Map<String, Plan> current = plans;
+        if (current.isEmpty()) {
+            return Decision.NONE;
         }
-        return false;
+        Plan plan = current.get(serviceName);
+        return plan != null ? plan.decide(serviceName) : Decision.NONE;
     }
     
     /**
-     * Apply artificial delay if configured
+     * Complete after the decision's delay without holding the calling thread. Cancelling the
+     * returned future drops the pending delay.
      */
-    public void applyArtificialDelay(String serviceName) {
-        FailureConfiguration config = failureConfigurations.get(serviceName);
-        if (config != null && config.isEnabled() && config.getArtificialDelayMs() > 0) {
-            try {
-                log.debug("Applying artificial delay of {}ms for service: {}", config.getArtificialDelayMs(), serviceName);
-                Thread.sleep(config.getArtificialDelayMs());
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.warn("Artificial delay interrupted for service: {}", serviceName);
+    public CompletableFuture<Void> delay(Decision decision) {
+        long delayMillis = decision.getDelayMillis();
+        if (delayMillis <= 0) {
+            return NO_DELAY;
+        }
+        CompletableFuture<Void> delayed = new CompletableFuture<>();
+        ScheduledFuture<?> timer = delayScheduler.schedule(() -> delayed.complete(null), delayMillis, TimeUnit.MILLISECONDS);
+        delayed.whenComplete((ignored, ex) -> {
+            if (delayed.isCancelled()) {
+                timer.cancel(false);
             }
+        });
+        return delayed;
+    }
+    
+    /**
+     * Start {@code call} once the decision's delay is over. A replayed call starts at once
+     * instead and completes when both it and the recorded latency are over, so it takes
+     * the recorded time unless the real call is slower. Cancelling the returned future
+     * cancels the delay and the call.
+     */
+    public <T> CompletableFuture<T> delayed(Decision decision, Supplier<CompletableFuture<T>> call) {
+        if (!decision.isLatencyFloor()) {
+            return CancellableFutures.thenCompose(delay(decision), ignored -> call.get());
         }
+        CompletableFuture<Void> floor = delay(decision);
+        CompletableFuture<T> live = call.get();
+        CompletableFuture<T> result = live.thenCombine(floor, (value, ignored) -> value);
+        CancellableFutures.propagateCancellation(result, live);
+        // Also drops a pending delay once the call has failed
+        result.whenComplete((value, ex) -> floor.cancel(false));
+        return result;
     }
     
     /**
@@ -182,6 +351,7 @@ public class CommunicationFailureSimulator {
         FailureConfiguration config = failureConfigurations.get(serviceName);
         if (config != null) {
             config.setEnabled(false);
+            compile(serviceName);
             log.info("Disabled failure simulation for service: {}", serviceName);
         }
     }
@@ -202,10 +372,13 @@ public class CommunicationFailureSimulator {
         config.setConnectionFailureProbability(0.02); // 2% connection failure rate
         config.setApiErrorProbability(0.03);          // 3% API error rate
         config.setDataCorruptionProbability(0.01);    // 1% data corruption rate
-        config.setArtificialDelayMs(100);             // 100ms additional delay
+        config.setArtificialDelayMs(100);             // 100ms median additional delay
+        config.setLatencyDistribution(LatencyDistribution.LOG_NORMAL);
+        config.setLatencySigma(0.5);                  // p99 around 320ms
         config.setEnabled(true);
         
         failureConfigurations.put(serviceName, config);
+        compile(serviceName);
         log.info("Created realistic failure scenario for service: {}", serviceName);
     }
     
@@ -219,9 +392,178 @@ public class CommunicationFailureSimulator {
         config.setApiErrorProbability(0.10);          // 10% API error rate
         config.setDataCorruptionProbability(0.05);    // 5% data corruption rate
         config.setArtificialDelayMs(500);             // 500ms additional delay
+        config.setLatencyDistribution(LatencyDistribution.BIMODAL);
+        config.setLatencySigma(0.2);
+        config.setSlowDelayMs(2000);                  // 10% of calls stall for about 2s
+        config.setSlowProbability(0.10);
         config.setEnabled(true);
         
         failureConfigurations.put(serviceName, config);
+        compile(serviceName);
         log.info("Created stress test scenario for service: {}", serviceName);
     }
-}
\ No newline at end of file
+    
+    /**
+     * Rebuild the plan for a service from its current configuration
+     */
+    private synchronized void compile(String serviceName) {
+        FailureConfiguration config = failureConfigurations.get(serviceName);
+        Map<String, Plan> next = new HashMap<>(plans);
+        if (config == null || !config.isEnabled()) {
+            next.remove(serviceName);
+        } else {
+            if (config.getSeed() == null) {
+                // Keep the seed on the configuration so the run can be repeated
+                config.setSeed(ThreadLocalRandom.current().nextLong());
+            }
+            next.put(serviceName, new Plan(serviceName, config));
+        }
+        plans = Map.copyOf(next);
+    }
+    
+    /**
+     * Immutable snapshot of one service's configuration, plus its random stream
+     */
+    private static final class Plan {
+        
+        private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+        // Positions in the stream used by each call
+        private static final int DRAWS_PER_CALL = 8;
+        // A replayed call picks one of the recorded calls started this long before its point in the trace
+        private static final long REPLAY_WINDOW_MICROS = 1_000_000;
+        
+        private final double connectionFailureProbability;
+        private final double timeoutProbability;
+        private final double apiErrorProbability;
+        private final double dataCorruptionProbability;
+        private final LatencyDistribution distribution;
+        private final double delayMs;
+        private final double sigma;
+        private final double inverseAlpha;
+        private final double slowDelayMs;
+        private final double slowProbability;
+        private final double maxDelayMs;
+        
+        private final LatencyTrace replay;
+        private final double replaySpeed;
+        private final boolean replayLoop;
+        private final long replayStartNanos = System.nanoTime();
+        
+        private final long seed;
+        private final AtomicLong position = new AtomicLong();
+        
+        Plan(String serviceName, FailureConfiguration config) {
+            this.connectionFailureProbability = config.getConnectionFailureProbability();
+            this.timeoutProbability = config.getTimeoutProbability();
+            this.apiErrorProbability = config.getApiErrorProbability();
+            this.dataCorruptionProbability = config.getDataCorruptionProbability();
+            this.distribution = config.getLatencyDistribution() != null ? config.getLatencyDistribution() : LatencyDistribution.FIXED;
+            this.delayMs = Math.max(0, config.getArtificialDelayMs());
+            this.sigma = Math.max(0, config.getLatencySigma());
+            this.inverseAlpha = 1.0 / Math.max(0.1, config.getParetoAlpha());
+            this.slowDelayMs = Math.max(0, config.getSlowDelayMs());
+            this.slowProbability = config.getSlowProbability();
+            this.maxDelayMs = Math.max(0, config.getMaxDelayMs());
+            this.seed = config.getSeed();
+            this.replay = config.getReplayTrace() != null ? config.getReplayTrace().forService(serviceName) : null;
+            this.replaySpeed = config.getReplaySpeed();
+            this.replayLoop = config.isReplayLoop();
+        }
+        
+        Decision decide(String serviceName) {
+            long first = position.getAndAdd(DRAWS_PER_CALL);
+            if (replay != null) {
+                return replay(serviceName, first);
+            }
+            
+            CommunicationResult.CommunicationFailureType failure = null;
+            if (uniform(first) < connectionFailureProbability) {
+                failure = CommunicationResult.CommunicationFailureType.CONNECTION_ERROR;
+                log.warn("Simulating connection failure for service: {}", serviceName);
+            } else if (uniform(first + 1) < timeoutProbability) {
+                failure = CommunicationResult.CommunicationFailureType.TIMEOUT;
+                log.warn("Simulating timeout for service: {}", serviceName);
+            } else if (uniform(first + 2) < apiErrorProbability) {
+                failure = CommunicationResult.CommunicationFailureType.API_ERROR;
+                log.warn("Simulating API error for service: {}", serviceName);
+            }
+            boolean dataCorruption = uniform(first + 3) < dataCorruptionProbability;
+            // Refused connections and timeouts fail straight away; other calls get a delay
+            long delayMillis = failure == CommunicationResult.CommunicationFailureType.CONNECTION_ERROR
+                    || failure == CommunicationResult.CommunicationFailureType.TIMEOUT
+                    ? 0 : Math.round(Math.min(maxDelayMs, delay(first + 4)));
+            
+            if (failure == null && !dataCorruption && delayMillis == 0) {
+                return Decision.NONE;
+            }
+            return new Decision(failure, dataCorruption, delayMillis, false);
+        }
+        
+        /**
+         * Copy the outcome and latency of a recorded call from the current point of the trace
+         */
+        private Decision replay(String serviceName, long draw) {
+            long durationMicros = replay.getOffsetMicros(replay.size() - 1);
+            long traceMicros = (long) ((System.nanoTime() - replayStartNanos) / 1000 * replaySpeed);
+            if (traceMicros > durationMicros) {
+                if (!replayLoop) {
+                    return Decision.NONE;
+                }
+                traceMicros %= durationMicros + 1;
+            }
+            int last = Math.max(0, replay.indexAt(traceMicros));
+            int firstCandidate = Math.min(last, replay.indexAt(traceMicros - REPLAY_WINDOW_MICROS) + 1);
+            int picked = firstCandidate + (int) (uniform(draw) * (last - firstCandidate + 1));
+            
+            long delayMillis = Math.round(Math.min(maxDelayMs, replay.getLatencyMicros(picked) / 1000.0));
+            CommunicationResult.CommunicationFailureType type = replay.getFailureType(picked);
+            if (type == null || type == CommunicationResult.CommunicationFailureType.CIRCUIT_OPEN
+                    || type == CommunicationResult.CommunicationFailureType.LIMIT_EXCEEDED) {
+                return delayMillis == 0 ? Decision.NONE : new Decision(null, false, delayMillis, true);
+            }
+            if (type == CommunicationResult.CommunicationFailureType.DATA_VALIDATION_ERROR) {
+                return new Decision(null, true, delayMillis, true);
+            }
+            CommunicationResult.CommunicationFailureType failure =
+                    type == CommunicationResult.CommunicationFailureType.UNKNOWN
+                            ? CommunicationResult.CommunicationFailureType.API_ERROR : type;
+            log.debug("Replaying {} after {}ms for service: {}", failure, delayMillis, serviceName);
+            return new Decision(failure, false, delayMillis, false);
+        }
+        
+        private double delay(long draw) {
+            switch (distribution) {
+                case LOG_NORMAL:
+                    return delayMs * Math.exp(sigma * gaussian(draw));
+                case PARETO:
+                    // Inverse CDF; 1 - u is in (0, 1], so the delay is finite
+                    return delayMs / Math.pow(1.0 - uniform(draw), inverseAlpha);
+                case BIMODAL:
+                    double median = uniform(draw + 2) < slowProbability ? slowDelayMs : delayMs;
+                    return median * Math.exp(sigma * gaussian(draw));
+                default:
+                    return delayMs;
+            }
+        }
+        
+        /**
+         * Standard normal value from two stream positions (Box-Muller)
+         */
+        private double gaussian(long draw) {
+            double u1 = 1.0 - uniform(draw);
+            double u2 = uniform(draw + 1);
+            return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+        }
+        
+        /**
+         * Uniform value in [0, 1) at a position of the SplitMix64 stream
+         */
+        private double uniform(long draw) {
+            long z = seed + (draw + 1) * GOLDEN_GAMMA;
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            z = z ^ (z >>> 31);
+            return (z >>> 11) * 0x1.0p-53;
+        }
+    }
+}
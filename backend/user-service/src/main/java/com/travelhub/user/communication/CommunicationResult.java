@@ -18,6 +18,8 @@ public class CommunicationResult<T> {
         CONNECTION_ERROR,
         API_ERROR,
         DATA_VALIDATION_ERROR,
+        CIRCUIT_OPEN,
+        LIMIT_EXCEEDED,
         UNKNOWN
     }
     
@@ -50,6 +52,24 @@ public class CommunicationResult<T> {
         return new CommunicationResult<>(false, null, errorMessage, responseTime, CommunicationFailureType.DATA_VALIDATION_ERROR);
     }
     
+    public static <T> CommunicationResult<T> circuitOpen(String errorMessage) {
+        return new CommunicationResult<>(false, null, errorMessage, Duration.ZERO, CommunicationFailureType.CIRCUIT_OPEN);
+    }
+    
+    public static <T> CommunicationResult<T> limitExceeded(String errorMessage) {
+        return new CommunicationResult<>(false, null, errorMessage, Duration.ZERO, CommunicationFailureType.LIMIT_EXCEEDED);
+    }
+    
+    /**
+     * The same failure for a different data type, e.g. to hand a failed batch call to every caller in the batch
+     */
+    public <U> CommunicationResult<U> failureAs() {
+        if (successful) {
+            throw new IllegalStateException("Not a failure: " + this);
+        }
+        return new CommunicationResult<>(false, null, errorMessage, responseTime, failureType);
+    }
+    
     // Getters
     public boolean isSuccessful() {
         return successful;
@@ -87,6 +107,14 @@ public class CommunicationResult<T> {
         return failureType == CommunicationFailureType.DATA_VALIDATION_ERROR;
     }
     
+    public boolean isCircuitOpen() {
+        return failureType == CommunicationFailureType.CIRCUIT_OPEN;
+    }
+    
+    public boolean isLimitExceeded() {
+        return failureType == CommunicationFailureType.LIMIT_EXCEEDED;
+    }
+    
     @Override
     public String toString() {
         if (successful) {
@@ -0,0 +1,282 @@
+package com.travelhub.user.communication;
+
+import com.travelhub.booking.api.Deadline;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pooled HTTP client for a single downstream service.
+ *
+ * Wraps one long-lived {@link HttpClient} (keep-alive, HTTP/2 where the peer supports it)
+ * and bounds the number of concurrently leased connections. Callers that cannot get a
+ * connection wait in a FIFO queue; the wait is taken out of the request timeout, so the
+ * exchange only gets what is left of it.
+ */
+public class DownstreamHttpClient {
+    
+    private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(2);
+    
+    private final String serviceName;
+    private final HttpClient httpClient;
+    private final int maxConnections;
+    
+    private final AtomicInteger leased = new AtomicInteger();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Queue<CompletableFuture<Void>> pending = new ConcurrentLinkedQueue<>();
+    private final LongAdder totalLeases = new LongAdder();
+    private final LongAdder leaseTimeouts = new LongAdder();
+    
+    public DownstreamHttpClient(String serviceName, int maxConnections, Duration connectTimeout) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("maxConnections must be positive: " + maxConnections);
+        }
+        this.serviceName = serviceName;
+        this.maxConnections = maxConnections;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+    
+    /**
+     * Send a request on a pooled connection, blocking until the response is received.
+     * Waiting for a free connection counts against the request timeout.
+     */
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException {
+        Duration timeout = request.timeout().orElse(DEFAULT_REQUEST_TIMEOUT);
+        long startNanos = System.nanoTime();
+        CompletableFuture<Void> lease = lease();
+        try {
+            lease.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            abandon(lease);
+            leaseTimeouts.increment();
+            throw timedOut(timeout);
+        } catch (InterruptedException ex) {
+            abandon(lease);
+            throw ex;
+        } catch (ExecutionException ex) {
+            throw new IOException("Connection lease failed for " + serviceName, ex.getCause());
+        }
+        
+        try {
+            HttpRequest remaining = withRemainingTimeout(request, timeout, startNanos);
+            if (remaining == null) {
+                leaseTimeouts.increment();
+                throw timedOut(timeout);
+            }
+            return httpClient.send(remaining, bodyHandler);
+        } finally {
+            release();
+        }
+    }
+    
+    /**
+     * Send a request on a pooled connection without blocking the caller.
+     * Cancelling the returned future abandons the lease or aborts the exchange in flight.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        Duration timeout = request.timeout().orElse(DEFAULT_REQUEST_TIMEOUT);
+        long startNanos = System.nanoTime();
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        CompletableFuture<Void> lease = lease();
+        if (!lease.isDone()) {
+            lease.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        
+        lease.whenComplete((granted, leaseFailure) -> {
+            if (leaseFailure != null) {
+                if (leaseFailure instanceof TimeoutException) {
+                    leaseTimeouts.increment();
+                    result.completeExceptionally(timedOut(timeout));
+                } else {
+                    result.completeExceptionally(leaseFailure);
+                }
+                return;
+            }
+            if (result.isDone()) {
+                // Caller cancelled while the slot was being granted
+                release();
+                return;
+            }
+            HttpRequest remaining = withRemainingTimeout(request, timeout, startNanos);
+            if (remaining == null) {
+                release();
+                leaseTimeouts.increment();
+                result.completeExceptionally(timedOut(timeout));
+                return;
+            }
+            CompletableFuture<HttpResponse<T>> exchange = httpClient.sendAsync(remaining, bodyHandler);
+            exchange.whenComplete((response, ex) -> {
+                release();
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                } else {
+                    result.complete(response);
+                }
+            });
+            result.whenComplete((response, ex) -> {
+                if (result.isCancelled()) {
+                    exchange.cancel(true);
+                }
+            });
+        });
+        
+        result.whenComplete((response, ex) -> {
+            if (result.isCancelled()) {
+                lease.cancel(false);
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * Snapshot of the pool usage
+     */
+    public PoolMetrics getMetrics() {
+        int currentlyLeased = leased.get();
+        return new PoolMetrics(serviceName, maxConnections, currentlyLeased,
+                Math.max(0, maxConnections - currentlyLeased), pendingCount.get(),
+                totalLeases.sum(), leaseTimeouts.sum());
+    }
+    
+    public String getServiceName() {
+        return serviceName;
+    }
+    
+    /**
+     * Lease a connection slot. The returned future completes once the slot is owned
+     * by the caller, who must then call {@link #release()} exactly once.
+     */
+    CompletableFuture<Void> lease() {
+        if (tryLease()) {
+            totalLeases.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        pendingCount.incrementAndGet();
+        waiter.whenComplete((granted, ex) -> pendingCount.decrementAndGet());
+        pending.add(waiter);
+        // A slot may have been released between the failed tryLease and the enqueue
+        handOff();
+        return waiter;
+    }
+    
+    void release() {
+        leased.decrementAndGet();
+        handOff();
+    }
+    
+    /**
+     * The request with its timeout cut down by the time spent since {@code startNanos}
+     * waiting for a connection, or null if none of it is left. A {@value Deadline#HEADER}
+     * header is cut down to match, so the service is told what the caller has left.
+     */
+    private static HttpRequest withRemainingTimeout(HttpRequest request, Duration timeout, long startNanos) {
+        long waitedNanos = System.nanoTime() - startNanos;
+        long remainingNanos = timeout.toNanos() - waitedNanos;
+        if (remainingNanos <= 0) {
+            return null;
+        }
+        if (waitedNanos < TimeUnit.MILLISECONDS.toNanos(1)) {
+            // Leased at once; not worth copying the request
+            return request;
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true)
+                .timeout(Duration.ofNanos(remainingNanos));
+        if (request.headers().firstValue(Deadline.HEADER).isPresent()) {
+            builder.setHeader(Deadline.HEADER, Long.toString(TimeUnit.NANOSECONDS.toMillis(remainingNanos)));
+        }
+        return builder.build();
+    }
+    
+    private HttpTimeoutException timedOut(Duration timeout) {
+        return new HttpTimeoutException("Timed out after " + timeout.toMillis()
+                + "ms waiting for a pooled connection to " + serviceName);
+    }
+    
+    /**
+     * Give up on a lease that is no longer wanted. If the slot was granted concurrently
+     * it is returned to the pool; otherwise the waiter is skipped when it reaches the head.
+     */
+    private void abandon(CompletableFuture<Void> lease) {
+        if (!lease.cancel(false)) {
+            release();
+        }
+    }
+    
+    private void handOff() {
+        while (!pending.isEmpty() && tryLease()) {
+            CompletableFuture<Void> waiter = pending.poll();
+            if (waiter == null) {
+                leased.decrementAndGet();
+                continue;
+            }
+            if (waiter.complete(null)) {
+                totalLeases.increment();
+            } else {
+                // Waiter timed out or was cancelled; hand the slot to the next one
+                leased.decrementAndGet();
+            }
+        }
+    }
+    
+    private boolean tryLease() {
+        while (true) {
+            int current = leased.get();
+            if (current >= maxConnections) {
+                return false;
+            }
+            if (leased.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Point-in-time connection pool metrics for a downstream service
+     */
+    public static class PoolMetrics {
+        private final String serviceName;
+        private final int maxConnections;
+        private final int leased;
+        private final int idle;
+        private final int pending;
+        private final long totalLeases;
+        private final long leaseTimeouts;
+        
+        public PoolMetrics(String serviceName, int maxConnections, int leased, int idle, int pending,
+                           long totalLeases, long leaseTimeouts) {
+            this.serviceName = serviceName;
+            this.maxConnections = maxConnections;
+            this.leased = leased;
+            this.idle = idle;
+            this.pending = pending;
+            this.totalLeases = totalLeases;
+            this.leaseTimeouts = leaseTimeouts;
+        }
+        
+        public String getServiceName() { return serviceName; }
+        public int getMaxConnections() { return maxConnections; }
+        public int getLeased() { return leased; }
+        public int getIdle() { return idle; }
+        public int getPending() { return pending; }
+        public long getTotalLeases() { return totalLeases; }
+        public long getLeaseTimeouts() { return leaseTimeouts; }
+    }
+}
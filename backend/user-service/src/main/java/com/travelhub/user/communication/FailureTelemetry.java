@@ -0,0 +1,251 @@
+package com.travelhub.user.communication;
+
+import com.travelhub.user.communication.CommunicationResult.CommunicationFailureType;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcomes of calls to one downstream service over a sliding time window.
+ *
+ * A ring of one-second buckets, each holding a {@link LongAdder} per
+ * {@link CommunicationFailureType} plus one for successes. Recording picks the bucket for
+ * the current second and increments one adder, so the failure path needs no string keys,
+ * map lookups or locks. Buckets are recycled when the ring wraps around; a sample recorded
+ * exactly while its bucket is being recycled may be lost.
+ *
+ * Calls rejected locally ({@code CIRCUIT_OPEN}, {@code LIMIT_EXCEEDED}) are counted by type
+ * but are not calls to the service, so they do not count towards the error rate.
+ */
+public class FailureTelemetry {
+    
+    private static final CommunicationFailureType[] TYPES = CommunicationFailureType.values();
+    private static final int SUCCESS = TYPES.length;
+    private static final int OUTCOMES = TYPES.length + 1;
+    
+    // Bucket epochs other than real ones (which are >= 0)
+    private static final long EMPTY = -2;
+    private static final long RECYCLING = -1;
+    
+    private static final int DEFAULT_WINDOW_SECONDS = 60;
+    
+    private final long bucketNanos;
+    private final int windowBuckets;
+    private final Bucket[] buckets;
+    private final LongAdder[] totals = newCounters();
+    private final long startNanos = System.nanoTime();
+    
+    /**
+     * Telemetry that can answer for the last minute, in one second steps
+     */
+    public FailureTelemetry() {
+        this(1000, DEFAULT_WINDOW_SECONDS);
+    }
+    
+    /**
+     * @param bucketMillis  time covered by each bucket
+     * @param windowBuckets number of buckets in the longest window that can be queried
+     */
+    public FailureTelemetry(long bucketMillis, int windowBuckets) {
+        if (bucketMillis <= 0 || windowBuckets <= 0) {
+            throw new IllegalArgumentException("Bucket length and count must be positive");
+        }
+        this.bucketNanos = bucketMillis * 1_000_000;
+        this.windowBuckets = windowBuckets;
+        // One spare bucket, so the bucket being recycled is never part of a readable window
+        this.buckets = new Bucket[windowBuckets + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+    
+    public void record(CommunicationResult<?> result) {
+        if (result.isSuccessful()) {
+            recordSuccess();
+        } else {
+            recordFailure(result.getFailureType());
+        }
+    }
+    
+    public void recordSuccess() {
+        increment(SUCCESS);
+    }
+    
+    public void recordFailure(CommunicationFailureType type) {
+        increment((type != null ? type : CommunicationFailureType.UNKNOWN).ordinal());
+    }
+    
+    /**
+     * Outcomes over the last {@code window}, rounded up to whole buckets and including the
+     * current, partly filled one
+     */
+    public Snapshot snapshot(Duration window) {
+        return snapshot(window, Long.MIN_VALUE);
+    }
+    
+    /**
+     * Outcomes over the last {@code window}, leaving out every bucket that started before
+     * {@code notBeforeNanos} (a {@link System#nanoTime()} reading). Lets a reader forget what
+     * happened before some event without clearing the counts for everybody else.
+     */
+    public Snapshot snapshot(Duration window, long notBeforeNanos) {
+        int wanted = (int) Math.min(windowBuckets, Math.max(1, (window.toNanos() + bucketNanos - 1) / bucketNanos));
+        long epoch = currentEpoch();
+        long oldestEpoch = epoch - wanted + 1;
+        if (notBeforeNanos != Long.MIN_VALUE) {
+            // The bucket that was current at notBeforeNanos may hold earlier outcomes too
+            oldestEpoch = Math.max(oldestEpoch, epochAt(notBeforeNanos) + 1);
+        }
+        
+        long[] counts = new long[OUTCOMES];
+        for (Bucket bucket : buckets) {
+            long bucketEpoch = bucket.epoch.get();
+            if (bucketEpoch < oldestEpoch || bucketEpoch > epoch) {
+                continue;
+            }
+            for (int i = 0; i < OUTCOMES; i++) {
+                counts[i] += bucket.counters[i].sum();
+            }
+        }
+        return new Snapshot(counts);
+    }
+    
+    /**
+     * Outcomes since this telemetry was created or last reset
+     */
+    public Snapshot totals() {
+        long[] counts = new long[OUTCOMES];
+        for (int i = 0; i < OUTCOMES; i++) {
+            counts[i] = totals[i].sum();
+        }
+        return new Snapshot(counts);
+    }
+    
+    /**
+     * Longest window a snapshot can cover
+     */
+    public Duration getMaxWindow() {
+        return Duration.ofNanos(bucketNanos * windowBuckets);
+    }
+    
+    /**
+     * Forget all recorded outcomes
+     */
+    public void reset() {
+        for (Bucket bucket : buckets) {
+            bucket.epoch.set(EMPTY);
+            for (LongAdder counter : bucket.counters) {
+                counter.reset();
+            }
+        }
+        for (LongAdder total : totals) {
+            total.reset();
+        }
+    }
+    
+    private void increment(int outcome) {
+        currentBucket().counters[outcome].increment();
+        totals[outcome].increment();
+    }
+    
+    private Bucket currentBucket() {
+        long epoch = currentEpoch();
+        Bucket bucket = buckets[(int) (epoch % buckets.length)];
+        long bucketEpoch = bucket.epoch.get();
+        if (bucketEpoch == epoch) {
+            return bucket;
+        }
+        // The bucket still holds an old lap of the ring: one recorder clears it, the rest wait
+        if (bucketEpoch != RECYCLING && bucketEpoch < epoch && bucket.epoch.compareAndSet(bucketEpoch, RECYCLING)) {
+            for (LongAdder counter : bucket.counters) {
+                counter.reset();
+            }
+            bucket.epoch.set(epoch);
+            return bucket;
+        }
+        while (bucket.epoch.get() == RECYCLING) {
+            Thread.onSpinWait();
+        }
+        return bucket;
+    }
+    
+    private long currentEpoch() {
+        return epochAt(System.nanoTime());
+    }
+    
+    private long epochAt(long nanos) {
+        return Math.floorDiv(nanos - startNanos, bucketNanos);
+    }
+    
+    private static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[OUTCOMES];
+        for (int i = 0; i < OUTCOMES; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+    
+    private static final class Bucket {
+        private final AtomicLong epoch = new AtomicLong(EMPTY);
+        private final LongAdder[] counters = newCounters();
+    }
+    
+    /**
+     * Outcome counts for one window
+     */
+    public static final class Snapshot {
+        
+        private final long[] counts;
+        
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+        }
+        
+        /**
+         * Calls that reached the service, successful or not
+         */
+        public long getCalls() {
+            return counts[SUCCESS] + getFailures();
+        }
+        
+        public long getSuccesses() {
+            return counts[SUCCESS];
+        }
+        
+        /**
+         * Failed calls that reached the service
+         */
+        public long getFailures() {
+            long failures = 0;
+            for (CommunicationFailureType type : TYPES) {
+                if (type != CommunicationFailureType.CIRCUIT_OPEN && type != CommunicationFailureType.LIMIT_EXCEEDED) {
+                    failures += counts[type.ordinal()];
+                }
+            }
+            return failures;
+        }
+        
+        public long getCount(CommunicationFailureType type) {
+            return counts[type.ordinal()];
+        }
+        
+        /**
+         * Failed calls as a percentage of calls that reached the service
+         */
+        public double getErrorRate() {
+            long calls = getCalls();
+            return calls == 0 ? 0.0 : getFailures() * 100.0 / calls;
+        }
+        
+        public Map<CommunicationFailureType, Long> getCountsByType() {
+            Map<CommunicationFailureType, Long> byType = new EnumMap<>(CommunicationFailureType.class);
+            for (CommunicationFailureType type : TYPES) {
+                byType.put(type, counts[type.ordinal()]);
+            }
+            return byType;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.travelhub.user.communication;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Probes the health endpoint of each registered downstream in the background, so an outage
+ * is noticed before real calls time out against it and a recovery is noticed while the
+ * circuit breaker is still open.
+ *
+ * A scheduler tick starts the probes that are due and never waits for them: each probe is
+ * an async exchange, and a service has at most one probe in flight. Probe times are
+ * jittered so services registered together are not probed in lockstep.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HealthProber {
+    
+    // Finest probe interval the scheduler can keep to
+    static final long TICK_MILLIS = 100;
+    
+    private final ServiceCommunicationMonitor communicationMonitor;
+    private final Map<String, Target> targets = new ConcurrentHashMap<>();
+    
+    private static class Target {
+        private final String url;
+        private final long intervalNanos;
+        private final double jitter;
+        private final int timeoutMs;
+        private final int failureThreshold;
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+        private final LongAdder probes = new LongAdder();
+        private final LongAdder failedProbes = new LongAdder();
+        // Only the scheduler thread reads and writes this
+        private long nextProbeNanos;
+        
+        Target(String url, Duration interval, double jitter, int timeoutMs, int failureThreshold) {
+            this.url = url;
+            this.intervalNanos = interval.toNanos();
+            this.jitter = jitter;
+            this.timeoutMs = timeoutMs;
+            this.failureThreshold = failureThreshold;
+            // Spread the first probes of services registered together over one interval
+            this.nextProbeNanos = System.nanoTime() + (long) (ThreadLocalRandom.current().nextDouble() * intervalNanos);
+        }
+        
+        long nextDelayNanos() {
+            return (long) (intervalNanos * (1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1)));
+        }
+    }
+    
+    /**
+     * Probe {@code url} every {@code interval}, give or take {@code jitter} (0-1) of it.
+     * Re-registering a service replaces its probe settings.
+     */
+    public void register(String serviceName, String url, Duration interval, double jitter, int timeoutMs,
+                         int failureThreshold) {
+        if (interval.toMillis() < TICK_MILLIS) {
+            throw new IllegalArgumentException("Probe interval must be at least " + TICK_MILLIS + "ms: " + interval);
+        }
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("Probe jitter must be between 0 and 1: " + jitter);
+        }
+        if (timeoutMs <= 0 || failureThreshold <= 0) {
+            throw new IllegalArgumentException("Probe timeout and failure threshold must be positive");
+        }
+        targets.put(serviceName, new Target(url, interval, jitter, timeoutMs, failureThreshold));
+        log.info("Probing {} at {} every {}ms", serviceName, url, interval.toMillis());
+    }
+    
+    public void unregister(String serviceName) {
+        targets.remove(serviceName);
+    }
+    
+    /**
+     * Start every probe that is due. Runs on the scheduler thread and returns without
+     * waiting for any probe to finish.
+     */
+    @Scheduled(fixedDelay = TICK_MILLIS)
+    public void probeDueTargets() {
+        long now = System.nanoTime();
+        targets.forEach((serviceName, target) -> {
+            if (now - target.nextProbeNanos >= 0 && target.inFlight.compareAndSet(false, true)) {
+                target.nextProbeNanos = now + target.nextDelayNanos();
+                probe(serviceName, target);
+            }
+        });
+    }
+    
+    private void probe(String serviceName, Target target) {
+        target.probes.increment();
+        try {
+            communicationMonitor.probe(serviceName, target.url, target.timeoutMs, target.failureThreshold)
+                    .whenComplete((healthy, ex) -> {
+                        if (!Boolean.TRUE.equals(healthy)) {
+                            target.failedProbes.increment();
+                        }
+                        target.inFlight.set(false);
+                    });
+        } catch (RuntimeException ex) {
+            // e.g. a malformed URL: keep probing the other services
+            target.failedProbes.increment();
+            target.inFlight.set(false);
+            log.error("Could not probe {} at {}: {}", serviceName, target.url, ex.getMessage());
+        }
+    }
+    
+    /**
+     * Probe settings, counts and the latest probe result per probed service
+     */
+    public Map<String, Map<String, Object>> getReport() {
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        targets.forEach((serviceName, target) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("url", target.url);
+            entry.put("intervalMs", Duration.ofNanos(target.intervalNanos).toMillis());
+            entry.put("jitter", target.jitter);
+            entry.put("probes", target.probes.sum());
+            entry.put("failedProbes", target.failedProbes.sum());
+            ServiceCommunicationMonitor.ServiceHealth health = communicationMonitor.getServiceHealth(serviceName);
+            if (health != null && health.getLastProbeTime() != null) {
+                entry.put("healthy", health.isProbeHealthy());
+                entry.put("lastProbeTime", health.getLastProbeTime());
+                entry.put("responseTimeMs", health.getProbeResponseTime().toMillis());
+                entry.put("consecutiveFailures", health.getConsecutiveProbeFailures());
+                entry.put("lastError", health.getLastProbeError());
+            }
+            report.put(serviceName, entry);
+        });
+        return report;
+    }
+}
@@ -0,0 +1,254 @@
+package com.travelhub.user.communication;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Request hedging for one idempotent endpoint of a downstream service.
+ *
+ * If the primary call has not answered after the endpoint's observed p95 latency, an
+ * identical hedge call is sent and the first successful answer wins; the other call is
+ * cancelled. Hedges are paid for from a token budget that refills with primary traffic,
+ * which caps the extra load at {@code budgetPercent} of calls.
+ */
+public class HedgedRequestPolicy {
+    
+    private static final int SAMPLE_SIZE = 1024;
+    private static final int RECOMPUTE_EVERY = 128;
+    private static final long TOKEN_SCALE = 1000;
+    private static final long MAX_TOKENS = 10 * TOKEN_SCALE;
+    
+    private final String serviceName;
+    private final String endpoint;
+    private final long tokensPerCall;
+    private final int minSamples;
+    private final long minDelayMillis;
+    
+    // Ring of recent successful latencies used to estimate p95
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLE_SIZE);
+    private final AtomicLong sampleCount = new AtomicLong();
+    private volatile long hedgeDelayMillis = -1;
+    
+    private final AtomicLong budgetTokens = new AtomicLong();
+    
+    private final LongAdder primaryCalls = new LongAdder();
+    private final LongAdder hedgedCalls = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+    
+    /**
+     * @param budgetPercent  maximum hedges as a percentage of primary calls
+     * @param minSamples     latency samples required before hedging starts
+     * @param minDelayMillis lower bound for the hedge delay
+     */
+    public HedgedRequestPolicy(String serviceName, String endpoint, double budgetPercent,
+                               int minSamples, long minDelayMillis) {
+        this.serviceName = serviceName;
+        this.endpoint = endpoint;
+        this.tokensPerCall = Math.round(budgetPercent / 100.0 * TOKEN_SCALE);
+        this.minSamples = Math.min(minSamples, SAMPLE_SIZE);
+        this.minDelayMillis = minDelayMillis;
+    }
+    
+    /**
+     * Run a call with hedging. The supplier must start a new, independent call each time
+     * it is invoked, and the futures it returns must honour cancellation.
+     */
+    public <T> CompletableFuture<CommunicationResult<T>> execute(Supplier<CompletableFuture<CommunicationResult<T>>> call) {
+        primaryCalls.increment();
+        depositTokens();
+        
+        CompletableFuture<CommunicationResult<T>> primary = call.get();
+        long delay = hedgeDelayMillis;
+        if (delay < 0 || primary.isDone()) {
+            return CancellableFutures.thenApply(primary, result -> recordLatency(result));
+        }
+        
+        HedgedCall<T> hedged = new HedgedCall<>(primary);
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+            if (hedged.result.isDone()) {
+                return;
+            }
+            if (!tryWithdrawToken()) {
+                budgetExhausted.increment();
+                hedged.hedgeSkipped();
+                return;
+            }
+            hedgedCalls.increment();
+            hedged.startHedge(call.get());
+        });
+        return hedged.result;
+    }
+    
+    /**
+     * Current hedge delay in milliseconds, or -1 while there are too few samples
+     */
+    public long getHedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+    
+    public String getServiceName() {
+        return serviceName;
+    }
+    
+    public String getEndpoint() {
+        return endpoint;
+    }
+    
+    public long getPrimaryCalls() {
+        return primaryCalls.sum();
+    }
+    
+    public long getHedgedCalls() {
+        return hedgedCalls.sum();
+    }
+    
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+    
+    public long getBudgetExhausted() {
+        return budgetExhausted.sum();
+    }
+    
+    /**
+     * Hedges sent as a percentage of primary calls
+     */
+    public double getHedgeRate() {
+        long primaries = primaryCalls.sum();
+        return primaries == 0 ? 0.0 : hedgedCalls.sum() * 100.0 / primaries;
+    }
+    
+    /**
+     * Percentage of hedges that answered before the primary call
+     */
+    public double getWinRate() {
+        long hedges = hedgedCalls.sum();
+        return hedges == 0 ? 0.0 : hedgeWins.sum() * 100.0 / hedges;
+    }
+    
+    private <T> CommunicationResult<T> recordLatency(CommunicationResult<T> result) {
+        if (result != null && result.isSuccessful() && result.getResponseTime() != null) {
+            long n = sampleCount.getAndIncrement();
+            samples.set((int) (n % SAMPLE_SIZE), result.getResponseTime().toMillis());
+            if (n + 1 >= minSamples && (n + 1) % RECOMPUTE_EVERY == 0 || n + 1 == minSamples) {
+                recomputeHedgeDelay(Math.min(n + 1, SAMPLE_SIZE));
+            }
+        }
+        return result;
+    }
+    
+    private void recomputeHedgeDelay(long filled) {
+        long[] sorted = new long[(int) filled];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        long p95 = sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * 0.95) - 1)];
+        hedgeDelayMillis = Math.max(minDelayMillis, p95);
+    }
+    
+    private void depositTokens() {
+        while (true) {
+            long current = budgetTokens.get();
+            long next = Math.min(MAX_TOKENS, current + tokensPerCall);
+            if (next == current || budgetTokens.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+    
+    private boolean tryWithdrawToken() {
+        while (true) {
+            long current = budgetTokens.get();
+            if (current < TOKEN_SCALE) {
+                return false;
+            }
+            if (budgetTokens.compareAndSet(current, current - TOKEN_SCALE)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Race between a primary call and an optional hedge. The first successful answer
+     * completes the result; a failure only completes it when no other call is outstanding.
+     */
+    private final class HedgedCall<T> {
+        private final CompletableFuture<CommunicationResult<T>> result = new CompletableFuture<>();
+        private final CompletableFuture<CommunicationResult<T>> primary;
+        private volatile CompletableFuture<CommunicationResult<T>> hedge;
+        // Calls still running, plus one while the hedge decision is pending
+        private final AtomicLong outstanding = new AtomicLong(2);
+        private final AtomicBoolean won = new AtomicBoolean();
+        private volatile CommunicationResult<T> lastFailure;
+        private volatile Throwable lastError;
+        
+        HedgedCall(CompletableFuture<CommunicationResult<T>> primary) {
+            this.primary = primary;
+            result.whenComplete((value, ex) -> {
+                primary.cancel(true);
+                CompletableFuture<CommunicationResult<T>> running = hedge;
+                if (running != null) {
+                    running.cancel(true);
+                }
+            });
+            primary.whenComplete((value, ex) -> onComplete(value, ex, false));
+        }
+        
+        void startHedge(CompletableFuture<CommunicationResult<T>> call) {
+            hedge = call;
+            if (result.isDone()) {
+                call.cancel(true);
+            }
+            call.whenComplete((value, ex) -> onComplete(value, ex, true));
+        }
+        
+        void hedgeSkipped() {
+            if (outstanding.decrementAndGet() == 0) {
+                finishWithFailure();
+            }
+        }
+        
+        private void onComplete(CommunicationResult<T> value, Throwable ex, boolean fromHedge) {
+            if (result.isDone()) {
+                return;
+            }
+            if (ex == null && value != null && value.isSuccessful()) {
+                recordLatency(value);
+                // Count the win before completing so callers never observe a stale win count
+                if (won.compareAndSet(false, true)) {
+                    if (fromHedge) {
+                        hedgeWins.increment();
+                    }
+                    result.complete(value);
+                }
+                return;
+            }
+            lastFailure = value;
+            lastError = ex;
+            if (!fromHedge && hedge == null) {
+                // Primary failed before any hedge was sent: do not wait for one
+                finishWithFailure();
+                return;
+            }
+            if (outstanding.decrementAndGet() == 0) {
+                finishWithFailure();
+            }
+        }
+        
+        private void finishWithFailure() {
+            if (lastError != null) {
+                result.completeExceptionally(lastError);
+            } else {
+                result.complete(lastFailure);
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.travelhub.user.communication;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram over a sliding time window.
+ *
+ * Buckets are log-linear in the style of HdrHistogram: values below 128 microseconds are
+ * counted exactly, larger ones in 64 sub-buckets per power of two, so every reported value
+ * is within about 1.6% of the recorded one. Values above roughly 134 s count in the top bucket.
+ *
+ * Samples go into the slice of the ring that covers the current time. Slices are recycled
+ * when the ring wraps around, and snapshots merge the slices inside the requested window.
+ * Recording is one atomic increment on a preallocated array and never allocates, so it can
+ * stay on for every call.
+ */
+public class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT_LIMIT = 2 * SUB_BUCKETS;
+    private static final int MAX_EXPONENT = 26;
+    private static final long MAX_TRACKABLE_MICROS = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKET_COUNT = EXACT_LIMIT + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    
+    // Slice epochs other than real ones (which are >= 0)
+    private static final long EMPTY = -2;
+    private static final long RECYCLING = -1;
+    
+    private static final long DEFAULT_SLICE_MILLIS = 15_000;
+    private static final int DEFAULT_WINDOW_SLICES = 20;
+    
+    private final long sliceNanos;
+    private final int windowSlices;
+    private final Slice[] slices;
+    private final long startNanos = System.nanoTime();
+    
+    /**
+     * A histogram that can answer for windows of up to 5 minutes, in 15 second steps
+     */
+    public LatencyHistogram() {
+        this(DEFAULT_SLICE_MILLIS, DEFAULT_WINDOW_SLICES);
+    }
+    
+    /**
+     * @param sliceMillis  time covered by each slice, the resolution of snapshot windows
+     * @param windowSlices number of slices in the longest window that can be queried
+     */
+    LatencyHistogram(long sliceMillis, int windowSlices) {
+        if (sliceMillis <= 0 || windowSlices <= 0) {
+            throw new IllegalArgumentException("Slice length and count must be positive");
+        }
+        this.sliceNanos = sliceMillis * 1_000_000;
+        this.windowSlices = windowSlices;
+        // One spare slice, so the slice being recycled is never part of a readable window
+        this.slices = new Slice[windowSlices + 1];
+        for (int i = 0; i < slices.length; i++) {
+            slices[i] = new Slice();
+        }
+    }
+    
+    /**
+     * Record one call that took {@code nanos}
+     */
+    public void record(long nanos) {
+        currentSlice().counts.incrementAndGet(bucketIndex(Math.max(0, nanos) / 1000));
+    }
+    
+    /**
+     * Merge the slices covering the last {@code window}. The window is rounded up to whole
+     * slices and includes the current, partly filled one.
+     */
+    public Snapshot snapshot(Duration window) {
+        int wanted = (int) Math.min(windowSlices, Math.max(1, (window.toNanos() + sliceNanos - 1) / sliceNanos));
+        long epoch = currentEpoch();
+        long[] counts = new long[BUCKET_COUNT];
+        for (Slice slice : slices) {
+            long sliceEpoch = slice.epoch.get();
+            if (sliceEpoch < 0 || sliceEpoch > epoch || epoch - sliceEpoch >= wanted) {
+                continue;
+            }
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] += slice.counts.get(i);
+            }
+        }
+        return new Snapshot(counts);
+    }
+    
+    /**
+     * Longest window a snapshot can cover
+     */
+    public Duration getMaxWindow() {
+        return Duration.ofNanos(sliceNanos * windowSlices);
+    }
+    
+    private Slice currentSlice() {
+        long epoch = currentEpoch();
+        Slice slice = slices[(int) (epoch % slices.length)];
+        long sliceEpoch = slice.epoch.get();
+        if (sliceEpoch == epoch) {
+            return slice;
+        }
+        // The slice still holds an old lap of the ring: one recorder clears it, the rest wait
+        if (sliceEpoch != RECYCLING && sliceEpoch < epoch && slice.epoch.compareAndSet(sliceEpoch, RECYCLING)) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                slice.counts.set(i, 0);
+            }
+            slice.epoch.set(epoch);
+            return slice;
+        }
+        while (slice.epoch.get() == RECYCLING) {
+            Thread.onSpinWait();
+        }
+        return slice;
+    }
+    
+    private long currentEpoch() {
+        return (System.nanoTime() - startNanos) / sliceNanos;
+    }
+    
+    static int bucketIndex(long micros) {
+        if (micros < EXACT_LIMIT) {
+            return (int) micros;
+        }
+        long value = Math.min(micros, MAX_TRACKABLE_MICROS);
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return EXACT_LIMIT + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+    
+    static long lowestValueAt(int index) {
+        if (index < EXACT_LIMIT) {
+            return index;
+        }
+        int shift = (index - EXACT_LIMIT) / SUB_BUCKETS + 1;
+        long subBucket = (index - EXACT_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return subBucket << shift;
+    }
+    
+    static long highestValueAt(int index) {
+        return index + 1 < BUCKET_COUNT ? lowestValueAt(index + 1) - 1 : MAX_TRACKABLE_MICROS;
+    }
+    
+    private static final class Slice {
+        private final AtomicLong epoch = new AtomicLong(EMPTY);
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    }
+    
+    /**
+     * Merged bucket counts for one window. Values are in milliseconds and are the upper
+     * bound of the bucket they fall in, as HdrHistogram reports them.
+     */
+    public static final class Snapshot {
+        
+        private final long[] counts;
+        private final long count;
+        
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            long total = 0;
+            for (long bucket : counts) {
+                total += bucket;
+            }
+            this.count = total;
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        /**
+         * Smallest value that {@code percentile} percent of the calls did not exceed
+         */
+        public double getValueAtPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+            }
+            if (count == 0) {
+                return 0.0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return toMillis(highestValueAt(i));
+                }
+            }
+            return getMaxMillis();
+        }
+        
+        public double getMeanMillis() {
+            if (count == 0) {
+                return 0.0;
+            }
+            double sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    sum += counts[i] * ((lowestValueAt(i) + highestValueAt(i)) / 2.0);
+                }
+            }
+            return sum / count / 1000.0;
+        }
+        
+        public double getMaxMillis() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] != 0) {
+                    return toMillis(highestValueAt(i));
+                }
+            }
+            return 0.0;
+        }
+        
+        private static double toMillis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
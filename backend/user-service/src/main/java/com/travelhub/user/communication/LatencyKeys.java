@@ -0,0 +1,195 @@
+package com.travelhub.user.communication;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latency keys by service, HTTP method and endpoint template, cached so that finding the
+ * key of a call's URL does not build a string per call.
+ *
+ * A lookup hashes the URL's path as its template, reading numeric segments as {@code {id}},
+ * and compares it in place with the templates already seen. Only the first call to a
+ * template builds its key. Templates that keep changing, such as paths with non-numeric ids,
+ * stop being cached after {@value #MAX_KEYS} keys and are built per call instead.
+ */
+final class LatencyKeys {
+    
+    static final int MAX_KEYS = 4096;
+    private static final int BUCKETS = 1024;
+    private static final String ID = "{id}";
+    
+    private static final class Entry {
+        final String serviceName;
+        final String method;
+        final String key;
+        final int templateStart;
+        final int hash;
+        final Entry next;
+        
+        Entry(String serviceName, String method, String key, int hash, Entry next) {
+            this.serviceName = serviceName;
+            this.method = method;
+            this.key = key;
+            this.templateStart = serviceName.length() + method.length() + 2;
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+    
+    private final AtomicReferenceArray<Entry> buckets = new AtomicReferenceArray<>(BUCKETS);
+    private final AtomicInteger size = new AtomicInteger();
+    
+    /**
+     * @return the same string as {@link #build}, without building it once the template is cached
+     */
+    String get(String serviceName, String method, String endpoint) {
+        int pathStart = pathStart(endpoint);
+        int pathEnd = pathEnd(endpoint, pathStart);
+        int hash = hash(serviceName, method, endpoint, pathStart, pathEnd);
+        int bucket = hash & (BUCKETS - 1);
+        Entry head = buckets.get(bucket);
+        for (Entry entry = head; entry != null; entry = entry.next) {
+            if (entry.hash == hash && entry.serviceName.equals(serviceName) && entry.method.equals(method)
+                    && matches(entry, endpoint, pathStart, pathEnd)) {
+                return entry.key;
+            }
+        }
+        
+        String key = build(serviceName, method, endpoint);
+        // A lost race only means the key is built again on a later call
+        if (size.get() < MAX_KEYS && buckets.compareAndSet(bucket, head, new Entry(serviceName, method, key, hash, head))) {
+            size.incrementAndGet();
+        }
+        return key;
+    }
+    
+    int size() {
+        return size.get();
+    }
+    
+    /**
+     * Key calls by endpoint template rather than URL, so {@code /users/42/bookings} and
+     * {@code /users/43/bookings} share one histogram: the scheme, host and query are dropped
+     * and numeric path segments become {@code {id}}
+     */
+    static String build(String serviceName, String method, String endpoint) {
+        int pathStart = pathStart(endpoint);
+        if (pathStart < 0) {
+            return serviceName + " " + method + " /";
+        }
+        int pathEnd = pathEnd(endpoint, pathStart);
+        
+        StringBuilder key = new StringBuilder(serviceName.length() + method.length() + pathEnd - pathStart + 2)
+                .append(serviceName).append(' ').append(method).append(' ');
+        int segmentStart = pathStart;
+        while (segmentStart < pathEnd) {
+            int segmentEnd = segmentEnd(endpoint, segmentStart, pathEnd);
+            key.append('/');
+            if (isNumeric(endpoint, segmentStart + 1, segmentEnd)) {
+                key.append(ID);
+            } else {
+                key.append(endpoint, segmentStart + 1, segmentEnd);
+            }
+            segmentStart = segmentEnd;
+        }
+        return key.toString();
+    }
+    
+    /**
+     * Hash of the service, the method and the template {@link #build} would put in the key,
+     * computed from the URL in place
+     */
+    private static int hash(String serviceName, String method, String endpoint, int pathStart, int pathEnd) {
+        int hash = 31 * serviceName.hashCode() + method.hashCode();
+        if (pathStart < 0) {
+            hash = 31 * hash + '/';
+        } else {
+            int segmentStart = pathStart;
+            while (segmentStart < pathEnd) {
+                int segmentEnd = segmentEnd(endpoint, segmentStart, pathEnd);
+                hash = 31 * hash + '/';
+                if (isNumeric(endpoint, segmentStart + 1, segmentEnd)) {
+                    for (int i = 0; i < ID.length(); i++) {
+                        hash = 31 * hash + ID.charAt(i);
+                    }
+                } else {
+                    for (int i = segmentStart + 1; i < segmentEnd; i++) {
+                        hash = 31 * hash + endpoint.charAt(i);
+                    }
+                }
+                segmentStart = segmentEnd;
+            }
+        }
+        return hash ^ (hash >>> 16);
+    }
+    
+    /**
+     * Whether the entry's template is the URL's, compared character by character
+     */
+    private static boolean matches(Entry entry, String endpoint, int pathStart, int pathEnd) {
+        String key = entry.key;
+        int k = entry.templateStart;
+        if (pathStart < 0) {
+            return key.length() == k + 1 && key.charAt(k) == '/';
+        }
+        int segmentStart = pathStart;
+        while (segmentStart < pathEnd) {
+            int segmentEnd = segmentEnd(endpoint, segmentStart, pathEnd);
+            if (k >= key.length() || key.charAt(k++) != '/') {
+                return false;
+            }
+            if (isNumeric(endpoint, segmentStart + 1, segmentEnd)) {
+                if (!key.startsWith(ID, k)) {
+                    return false;
+                }
+                k += ID.length();
+            } else {
+                for (int i = segmentStart + 1; i < segmentEnd; i++) {
+                    if (k >= key.length() || key.charAt(k++) != endpoint.charAt(i)) {
+                        return false;
+                    }
+                }
+            }
+            segmentStart = segmentEnd;
+        }
+        return k == key.length();
+    }
+    
+    /**
+     * @return where the path starts, or -1 if the URL has none
+     */
+    private static int pathStart(String endpoint) {
+        int schemeEnd = endpoint.indexOf("://");
+        return schemeEnd < 0 ? 0 : endpoint.indexOf('/', schemeEnd + 3);
+    }
+    
+    private static int pathEnd(String endpoint, int pathStart) {
+        if (pathStart < 0) {
+            return -1;
+        }
+        for (int i = pathStart; i < endpoint.length(); i++) {
+            char c = endpoint.charAt(i);
+            if (c == '?' || c == '#') {
+                return i;
+            }
+        }
+        return endpoint.length();
+    }
+    
+    private static int segmentEnd(String endpoint, int segmentStart, int pathEnd) {
+        int segmentEnd = endpoint.indexOf('/', segmentStart + 1);
+        return segmentEnd < 0 || segmentEnd > pathEnd ? pathEnd : segmentEnd;
+    }
+    
+    private static boolean isNumeric(String text, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
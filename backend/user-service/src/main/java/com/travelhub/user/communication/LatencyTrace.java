@@ -0,0 +1,320 @@
+package com.travelhub.user.communication;
+
+import com.travelhub.user.communication.CommunicationResult.CommunicationFailureType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timeline of real downstream calls: when each call started, which endpoint it went to,
+ * how long it took and how it ended.
+ *
+ * Records are kept in parallel primitive arrays. The binary form is a header, the endpoint
+ * names once, then one record per call of varint start delta and latency in microseconds,
+ * varint endpoint index and one outcome byte, which is usually 5 to 8 bytes per call.
+ */
+public final class LatencyTrace {
+    
+    private static final int MAGIC = 0x54484c54; // "THLT"
+    private static final int VERSION = 1;
+    private static final CommunicationFailureType[] TYPES = CommunicationFailureType.values();
+    private static final byte SUCCESS = -1;
+    // Bounds for traces read from outside, so a corrupt header cannot exhaust the heap
+    static final int MAX_CALLS = 5_000_000;
+    private static final int MAX_ENDPOINTS = 10_000;
+    
+    private final Instant startedAt;
+    private final String[] endpoints;
+    private final long[] offsetMicros;
+    private final int[] endpointIds;
+    private final long[] latencyMicros;
+    private final byte[] outcomes;
+    
+    private LatencyTrace(Instant startedAt, String[] endpoints, long[] offsetMicros, int[] endpointIds,
+                         long[] latencyMicros, byte[] outcomes) {
+        this.startedAt = startedAt;
+        this.endpoints = endpoints;
+        this.offsetMicros = offsetMicros;
+        this.endpointIds = endpointIds;
+        this.latencyMicros = latencyMicros;
+        this.outcomes = outcomes;
+    }
+    
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+    
+    public int size() {
+        return outcomes.length;
+    }
+    
+    /**
+     * Time from the start of the trace to the start of the last call
+     */
+    public Duration getDuration() {
+        return size() == 0 ? Duration.ZERO : Duration.ofNanos(offsetMicros[size() - 1] * 1000);
+    }
+    
+    /**
+     * Start of call {@code i}, in microseconds since the start of the trace
+     */
+    public long getOffsetMicros(int i) {
+        return offsetMicros[i];
+    }
+    
+    /**
+     * Endpoint template of call {@code i}, as keyed in the latency report
+     */
+    public String getEndpoint(int i) {
+        return endpoints[endpointIds[i]];
+    }
+    
+    public long getLatencyMicros(int i) {
+        return latencyMicros[i];
+    }
+    
+    /**
+     * How call {@code i} failed, or null if it succeeded
+     */
+    public CommunicationFailureType getFailureType(int i) {
+        return outcomes[i] == SUCCESS ? null : TYPES[outcomes[i]];
+    }
+    
+    /**
+     * The calls to one service, with their original start times
+     */
+    public LatencyTrace forService(String serviceName) {
+        String prefix = serviceName + " ";
+        boolean[] matches = new boolean[endpoints.length];
+        for (int e = 0; e < endpoints.length; e++) {
+            matches[e] = endpoints[e].startsWith(prefix);
+        }
+        int count = 0;
+        for (int id : endpointIds) {
+            if (matches[id]) {
+                count++;
+            }
+        }
+        long[] offsets = new long[count];
+        int[] ids = new int[count];
+        long[] latencies = new long[count];
+        byte[] results = new byte[count];
+        int j = 0;
+        for (int i = 0; i < size(); i++) {
+            if (matches[endpointIds[i]]) {
+                offsets[j] = offsetMicros[i];
+                ids[j] = endpointIds[i];
+                latencies[j] = latencyMicros[i];
+                results[j] = outcomes[i];
+                j++;
+            }
+        }
+        return new LatencyTrace(startedAt, endpoints, offsets, ids, latencies, results);
+    }
+    
+    /**
+     * Index of the last call that started at or before {@code offsetMicros}, or -1
+     */
+    public int indexAt(long offsetMicros) {
+        int found = Arrays.binarySearch(this.offsetMicros, offsetMicros);
+        if (found < 0) {
+            return -found - 2;
+        }
+        // Several calls may share a start time: take the last of them
+        while (found + 1 < size() && this.offsetMicros[found + 1] == offsetMicros) {
+            found++;
+        }
+        return found;
+    }
+    
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeLong(startedAt.toEpochMilli());
+        writeVarLong(data, endpoints.length);
+        for (String endpoint : endpoints) {
+            data.writeUTF(endpoint);
+        }
+        writeVarLong(data, size());
+        long previous = 0;
+        for (int i = 0; i < size(); i++) {
+            writeVarLong(data, offsetMicros[i] - previous);
+            previous = offsetMicros[i];
+            writeVarLong(data, endpointIds[i]);
+            writeVarLong(data, latencyMicros[i]);
+            data.writeByte(outcomes[i]);
+        }
+        data.flush();
+    }
+    
+    public static LatencyTrace readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a latency trace");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported latency trace version " + version);
+        }
+        Instant startedAt = Instant.ofEpochMilli(data.readLong());
+        String[] endpoints = new String[checkedCount(readVarLong(data), MAX_ENDPOINTS)];
+        for (int e = 0; e < endpoints.length; e++) {
+            endpoints[e] = data.readUTF();
+        }
+        int size = checkedCount(readVarLong(data), MAX_CALLS);
+        long[] offsets = new long[size];
+        int[] ids = new int[size];
+        long[] latencies = new long[size];
+        byte[] results = new byte[size];
+        long offset = 0;
+        for (int i = 0; i < size; i++) {
+            offset += readVarLong(data);
+            offsets[i] = offset;
+            long id = readVarLong(data);
+            if (id >= endpoints.length) {
+                throw new IOException("Call " + i + " refers to unknown endpoint " + id);
+            }
+            ids[i] = (int) id;
+            latencies[i] = readVarLong(data);
+            results[i] = data.readByte();
+            if (results[i] != SUCCESS && (results[i] < 0 || results[i] >= TYPES.length)) {
+                throw new IOException("Call " + i + " has unknown outcome " + results[i]);
+            }
+        }
+        return new LatencyTrace(startedAt, endpoints, offsets, ids, latencies, results);
+    }
+    
+    private static int checkedCount(long count, int max) throws IOException {
+        if (count < 0 || count > max) {
+            throw new IOException("Latency trace too large: " + count + " entries, at most " + max);
+        }
+        return (int) count;
+    }
+    
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+    
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in latency trace");
+    }
+    
+    /**
+     * Collects calls as they complete, up to a fixed number. Calls past the limit are
+     * counted as dropped.
+     */
+    public static final class Recorder {
+        
+        private final int maxCalls;
+        private final Instant startedAt = Instant.now();
+        private final long startNanos = System.nanoTime();
+        private final Map<String, Integer> endpointIds = new HashMap<>();
+        private final List<String> endpoints = new ArrayList<>();
+        
+        private long[] offsetMicros;
+        private int[] ids;
+        private long[] latencyMicros;
+        private byte[] outcomes;
+        private int size;
+        private long dropped;
+        
+        public Recorder(int maxCalls) {
+            if (maxCalls <= 0 || maxCalls > MAX_CALLS) {
+                throw new IllegalArgumentException("maxCalls must be between 1 and " + MAX_CALLS + ": " + maxCalls);
+            }
+            this.maxCalls = maxCalls;
+            int capacity = Math.min(maxCalls, 1024);
+            this.offsetMicros = new long[capacity];
+            this.ids = new int[capacity];
+            this.latencyMicros = new long[capacity];
+            this.outcomes = new byte[capacity];
+        }
+        
+        /**
+         * Add a call that started at {@code startNanos} ({@link System#nanoTime()}) and
+         * ended with {@code result} after {@code latencyNanos}
+         */
+        public synchronized void record(String endpoint, long startNanos, long latencyNanos, CommunicationResult<?> result) {
+            if (size == maxCalls) {
+                dropped++;
+                return;
+            }
+            if (size == outcomes.length) {
+                int capacity = (int) Math.min(maxCalls, outcomes.length * 2L);
+                offsetMicros = Arrays.copyOf(offsetMicros, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+                latencyMicros = Arrays.copyOf(latencyMicros, capacity);
+                outcomes = Arrays.copyOf(outcomes, capacity);
+            }
+            Integer id = endpointIds.get(endpoint);
+            if (id == null) {
+                id = endpoints.size();
+                endpoints.add(endpoint);
+                endpointIds.put(endpoint, id);
+            }
+            offsetMicros[size] = Math.max(0, (startNanos - this.startNanos) / 1000);
+            ids[size] = id;
+            latencyMicros[size] = Math.max(0, latencyNanos / 1000);
+            outcomes[size] = result.isSuccessful() ? SUCCESS : (byte) result.getFailureType().ordinal();
+            size++;
+        }
+        
+        public synchronized int size() {
+            return size;
+        }
+        
+        public synchronized long getDropped() {
+            return dropped;
+        }
+        
+        /**
+         * The calls recorded so far, ordered by start time
+         */
+        public synchronized LatencyTrace toTrace() {
+            // Calls are added as they finish, so a slow call lands after faster ones that started later
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(offsetMicros[a], offsetMicros[b]));
+            long[] sortedOffsets = new long[size];
+            int[] sortedIds = new int[size];
+            long[] sortedLatencies = new long[size];
+            byte[] sortedOutcomes = new byte[size];
+            for (int i = 0; i < size; i++) {
+                int from = order[i];
+                sortedOffsets[i] = offsetMicros[from];
+                sortedIds[i] = ids[from];
+                sortedLatencies[i] = latencyMicros[from];
+                sortedOutcomes[i] = outcomes[from];
+            }
+            return new LatencyTrace(startedAt, endpoints.toArray(new String[0]), sortedOffsets, sortedIds,
+                    sortedLatencies, sortedOutcomes);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.travelhub.user.communication;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Client-side balancer over the instances of one horizontally scaled downstream service.
+ *
+ * Each call picks two instances at random and takes the cheaper one, where the cost is the
+ * calls already outstanding on the instance times its peak-sensitive EWMA latency (the
+ * response times measured by {@link ServiceCommunicationMonitor}). Power of two choices
+ * keeps the herd from piling onto whichever instance looked best a moment ago.
+ *
+ * An instance is ejected for a while after {@code consecutiveFailures} failed calls in a
+ * row, each ejection lasting longer than the last, and is skipped while its health probes
+ * fail. No more than {@code maxEjectionPercent} of the instances are ejected at once. An
+ * instance that comes back starts at a small share of the traffic that ramps up over the
+ * slow-start window, so it is not flooded while its caches and JIT are cold.
+ */
+public class LoadBalancer {
+    
+    private final String serviceName;
+    private final long decayNanos;
+    private final long slowStartNanos;
+    private final double minWeight;
+    private final int consecutiveFailures;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+    private final int maxEjectionPercent;
+    private final Predicate<String> probeHealth;
+    private final List<Instance> instances;
+    
+    private final LongAdder picks = new LongAdder();
+    private final LongAdder panicPicks = new LongAdder();
+    
+    /**
+     * One instance of the service, as handed out by {@link #choose()}
+     */
+    public static class Instance {
+        private final String url;
+        private final String id;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger failuresInRow = new AtomicInteger();
+        private final LongAdder picks = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private volatile double ewmaNanos;
+        private volatile long lastSampleNanos;
+        // Ejected before this time; the slow start is measured from it
+        private volatile long availableFromNanos;
+        private volatile boolean probeHealthy = true;
+        private volatile int ejections;
+        
+        Instance(String url, String id, long availableFromNanos) {
+            this.url = url;
+            this.id = id;
+            this.availableFromNanos = availableFromNanos;
+            this.lastSampleNanos = System.nanoTime();
+        }
+        
+        /**
+         * Base URL of the instance, e.g. {@code http://booking-2:8082}
+         */
+        public String getUrl() {
+            return url;
+        }
+        
+        /**
+         * Name the instance is health-probed under
+         */
+        public String getId() {
+            return id;
+        }
+    }
+    
+    /**
+     * @param urls        base URLs of the instances
+     * @param probeHealth whether the health probes of an instance (by {@link Instance#getId()}) pass
+     */
+    public LoadBalancer(String serviceName, List<String> urls, Duration decay, Duration slowStart, double minWeight,
+                        int consecutiveFailures, Duration baseEjection, Duration maxEjection, int maxEjectionPercent,
+                        Predicate<String> probeHealth) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("No instances of " + serviceName + " to balance over");
+        }
+        if (minWeight <= 0 || minWeight > 1) {
+            throw new IllegalArgumentException("Slow-start minimum weight must be in (0, 1]: " + minWeight);
+        }
+        if (consecutiveFailures <= 0 || maxEjectionPercent < 0 || maxEjectionPercent > 100) {
+            throw new IllegalArgumentException("Ejection needs consecutiveFailures > 0 and maxEjectionPercent in 0-100");
+        }
+        this.serviceName = serviceName;
+        this.decayNanos = Math.max(1, decay.toNanos());
+        this.slowStartNanos = slowStart.toNanos();
+        this.minWeight = minWeight;
+        this.consecutiveFailures = consecutiveFailures;
+        this.baseEjectionNanos = baseEjection.toNanos();
+        this.maxEjectionNanos = Math.max(baseEjectionNanos, maxEjection.toNanos());
+        this.maxEjectionPercent = maxEjectionPercent;
+        this.probeHealth = probeHealth;
+        
+        // The instances configured at startup are warm already
+        long warm = System.nanoTime() - slowStartNanos;
+        List<Instance> created = new ArrayList<>();
+        for (String url : urls) {
+            created.add(new Instance(url, instanceId(serviceName, url, urls.size()), warm));
+        }
+        this.instances = List.copyOf(created);
+    }
+    
+    /**
+     * Name an instance is probed and reported under: the service name itself when there is
+     * only one instance, so its probes keep feeding the service's circuit breaker, otherwise
+     * the service name and the instance's host and port
+     */
+    public static String instanceId(String serviceName, String url, int instanceCount) {
+        if (instanceCount == 1) {
+            return serviceName;
+        }
+        String authority = URI.create(url).getAuthority();
+        return serviceName + "@" + (authority != null ? authority : url);
+    }
+    
+    /**
+     * Service an instance id from {@link #instanceId} belongs to
+     */
+    public static String serviceOf(String instanceId) {
+        int at = instanceId.indexOf('@');
+        return at < 0 ? instanceId : instanceId.substring(0, at);
+    }
+    
+    /**
+     * Pick the instance for the next call and count the call as outstanding on it. Every
+     * instance handed out must be given back with exactly one {@link #onComplete} call.
+     */
+    public Instance choose() {
+        long now = System.nanoTime();
+        List<Instance> available = new ArrayList<>(instances.size());
+        for (Instance instance : instances) {
+            if (isAvailable(instance, now)) {
+                available.add(instance);
+            }
+        }
+        if (available.isEmpty()) {
+            // Every instance looks bad: spread the calls over all of them rather than fail
+            // them all here, and let the breaker and retries deal with the errors
+            panicPicks.increment();
+            available = instances;
+        }
+        
+        Instance chosen;
+        if (available.size() == 1) {
+            chosen = available.get(0);
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(available.size());
+            int second = random.nextInt(available.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            Instance a = available.get(first);
+            Instance b = available.get(second);
+            chosen = cost(a, now) <= cost(b, now) ? a : b;
+        }
+        chosen.outstanding.incrementAndGet();
+        chosen.picks.increment();
+        picks.increment();
+        return chosen;
+    }
+    
+    /**
+     * Record how a call to {@code instance} went. {@code null} for a call that was cancelled
+     * or never completed, which tells nothing about the instance.
+     */
+    public void onComplete(Instance instance, CommunicationResult<?> result) {
+        instance.outstanding.decrementAndGet();
+        if (result == null || result.isLimitExceeded() || result.isCircuitOpen()) {
+            // Never reached the instance
+            return;
+        }
+        if (result.getResponseTime() != null) {
+            sample(instance, result.getResponseTime().toNanos());
+        }
+        if (result.isTimeout() || result.isConnectionError() || result.isApiError()) {
+            instance.failures.increment();
+            if (instance.failuresInRow.incrementAndGet() >= consecutiveFailures) {
+                eject(instance);
+            }
+        } else {
+            instance.failuresInRow.set(0);
+        }
+    }
+    
+    /**
+     * Peak-sensitive EWMA: a slower sample is taken at once, faster ones pull the average
+     * down with a weight that grows with the time since the previous sample
+     */
+    private void sample(Instance instance, long rttNanos) {
+        synchronized (instance) {
+            long now = System.nanoTime();
+            if (rttNanos > instance.ewmaNanos) {
+                instance.ewmaNanos = rttNanos;
+            } else {
+                double w = Math.exp(-(double) Math.max(0, now - instance.lastSampleNanos) / decayNanos);
+                instance.ewmaNanos = instance.ewmaNanos * w + rttNanos * (1 - w);
+            }
+            instance.lastSampleNanos = now;
+        }
+    }
+    
+    private synchronized void eject(Instance instance) {
+        long now = System.nanoTime();
+        if (instance.availableFromNanos - now > 0) {
+            // Already ejected by a concurrent failure
+            return;
+        }
+        int ejected = 0;
+        for (Instance other : instances) {
+            if (other.availableFromNanos - now > 0) {
+                ejected++;
+            }
+        }
+        if ((ejected + 1) * 100 > maxEjectionPercent * instances.size()) {
+            return;
+        }
+        instance.ejections++;
+        long duration = Math.min(maxEjectionNanos, baseEjectionNanos * instance.ejections);
+        instance.availableFromNanos = now + duration;
+        instance.failuresInRow.set(0);
+        // It comes back with an unknown latency, so assume the worst of its peers
+        instance.ewmaNanos = peakEwma();
+    }
+    
+    private boolean isAvailable(Instance instance, long now) {
+        boolean healthy = probeHealth.test(instance.id);
+        if (healthy != instance.probeHealthy) {
+            synchronized (instance) {
+                if (healthy != instance.probeHealthy) {
+                    instance.probeHealthy = healthy;
+                    if (healthy && now - instance.availableFromNanos >= 0) {
+                        // Back after failed probes: slow start from now
+                        instance.availableFromNanos = now;
+                        instance.ewmaNanos = peakEwma();
+                    }
+                }
+            }
+        }
+        return healthy && now - instance.availableFromNanos >= 0;
+    }
+    
+    private double peakEwma() {
+        double peak = 0;
+        for (Instance instance : instances) {
+            peak = Math.max(peak, instance.ewmaNanos);
+        }
+        return peak;
+    }
+    
+    private double cost(Instance instance, long now) {
+        // Unmeasured instances cost 1ns per call, so they are compared by outstanding calls
+        return (instance.outstanding.get() + 1) * Math.max(1.0, instance.ewmaNanos) / weight(instance, now);
+    }
+    
+    /**
+     * Share of its full traffic an instance takes, growing linearly from the minimum weight
+     * to 1 over the slow-start window after it becomes available
+     */
+    private double weight(Instance instance, long now) {
+        if (slowStartNanos <= 0) {
+            return 1.0;
+        }
+        double ramp = (double) (now - instance.availableFromNanos) / slowStartNanos;
+        return Math.max(minWeight, Math.min(1.0, ramp));
+    }
+    
+    public String getServiceName() {
+        return serviceName;
+    }
+    
+    public List<Instance> getInstances() {
+        return instances;
+    }
+    
+    public long getPicks() {
+        return picks.sum();
+    }
+    
+    /**
+     * Picks made while no instance was available, spread over all of them
+     */
+    public long getPanicPicks() {
+        return panicPicks.sum();
+    }
+    
+    /**
+     * Balancing state per instance, by instance id
+     */
+    public Map<String, Map<String, Object>> getInstanceReport() {
+        long now = System.nanoTime();
+        Map<String, Map<String, Object>> report = new LinkedHashMap<>();
+        for (Instance instance : instances) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("url", instance.url);
+            entry.put("outstanding", instance.outstanding.get());
+            entry.put("ewmaLatencyMs", instance.ewmaNanos / 1e6);
+            entry.put("weight", weight(instance, now));
+            entry.put("probeHealthy", instance.probeHealthy);
+            entry.put("ejected", instance.availableFromNanos - now > 0);
+            entry.put("ejections", instance.ejections);
+            entry.put("picks", instance.picks.sum());
+            entry.put("failures", instance.failures.sum());
+            report.put(instance.id, entry);
+        }
+        return report;
+    }
+}
@@ -0,0 +1,293 @@
+package com.travelhub.user.communication;
+
+import com.travelhub.user.communication.CommunicationResult.CommunicationFailureType;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * In-process load generator for one asynchronous call.
+ *
+ * Calls are issued from the thread that runs the generator and complete on whatever thread
+ * the client completes them on, so thousands of calls can be in flight without a thread
+ * each. At most {@code concurrency} calls are in flight at a time.
+ *
+ * Without a target rate the generator runs closed-loop: a new call starts as soon as one
+ * finishes. With a target rate it runs open-loop: call {@code i} is due at
+ * {@code start + i / targetRps}, whether or not earlier calls have finished. Latency is
+ * measured from the time a call was due rather than the time it was actually issued, so a
+ * stalled service (or a generator that cannot keep up) shows up in the percentiles instead
+ * of silently lowering the request rate.
+ *
+ * A run has a warmup phase, whose calls are issued but not reported, followed by the
+ * measurement phase. Calls belong to the phase they were due in.
+ */
+public class LoadGenerator {
+    
+    // A single histogram slice long enough to hold any run
+    private static final long HISTOGRAM_SLICE_MILLIS = TimeUnit.DAYS.toMillis(1);
+    
+    private final int concurrency;
+    private final double targetRps;
+    private final Duration warmup;
+    private final Duration duration;
+    private final long maxRequests;
+    private final Duration drainTimeout;
+    
+    /**
+     * @param concurrency  most calls in flight at a time
+     * @param targetRps    calls per second to start in open-loop mode, or 0 for closed-loop
+     * @param warmup       time to run before measuring
+     * @param duration     longest measurement phase
+     * @param maxRequests  calls to measure before stopping early, or 0 for no limit
+     * @param drainTimeout how long to wait for measured calls still in flight at the end
+     */
+    public LoadGenerator(int concurrency, double targetRps, Duration warmup, Duration duration,
+                         long maxRequests, Duration drainTimeout) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive: " + concurrency);
+        }
+        if (targetRps < 0 || Double.isNaN(targetRps)) {
+            throw new IllegalArgumentException("targetRps must not be negative: " + targetRps);
+        }
+        if (warmup.isNegative() || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("warmup must not be negative and duration must be positive");
+        }
+        this.concurrency = concurrency;
+        this.targetRps = targetRps;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.maxRequests = Math.max(0, maxRequests);
+        this.drainTimeout = drainTimeout;
+    }
+    
+    public boolean isOpenLoop() {
+        return targetRps > 0;
+    }
+    
+    /**
+     * Run the warmup and measurement phases and wait for the measured calls to finish.
+     *
+     * @param call starts call number {@code n} (counting from 0 across both phases)
+     */
+    public Report run(LongFunction<? extends CompletableFuture<? extends CommunicationResult<?>>> call)
+            throws InterruptedException {
+        Run run = new Run();
+        long intervalNanos = isOpenLoop() ? Math.max(1, Math.round(1_000_000_000L / targetRps)) : 0;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        
+        for (long n = 0; ; n++) {
+            long due = isOpenLoop() ? start + n * intervalNanos : 0;
+            if (isOpenLoop()) {
+                if (due >= measureUntil) {
+                    break;
+                }
+                parkUntil(due);
+            }
+            run.permits.acquire();
+            if (!isOpenLoop()) {
+                due = System.nanoTime();
+                if (due >= measureUntil) {
+                    run.permits.release();
+                    break;
+                }
+            }
+            boolean measured = due >= measureFrom;
+            if (measured) {
+                if (maxRequests > 0 && run.issued.get() >= maxRequests) {
+                    run.permits.release();
+                    break;
+                }
+                run.issued.incrementAndGet();
+                run.maxScheduleLagNanos.accumulateAndGet(System.nanoTime() - due, Math::max);
+            } else {
+                run.warmupCalls++;
+            }
+            issue(run, call, n, due, measured);
+        }
+        long issuingEnded = System.nanoTime();
+        
+        boolean drained = run.permits.tryAcquire(concurrency, drainTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        if (drained) {
+            run.permits.release(concurrency);
+        }
+        long lastCompletion = run.lastCompletionNanos.get();
+        long measuredNanos = Math.max(issuingEnded, lastCompletion) - Math.min(measureFrom, issuingEnded);
+        return new Report(this, run, Duration.ofNanos(Math.max(0, measuredNanos)));
+    }
+    
+    private void issue(Run run, LongFunction<? extends CompletableFuture<? extends CommunicationResult<?>>> call,
+                       long n, long due, boolean measured) {
+        CompletableFuture<? extends CommunicationResult<?>> future;
+        try {
+            future = call.apply(n);
+        } catch (RuntimeException ex) {
+            future = CompletableFuture.failedFuture(ex);
+        }
+        future.whenComplete((result, ex) -> {
+            if (measured) {
+                long now = System.nanoTime();
+                if (ex == null && result != null && result.isSuccessful()) {
+                    run.outcomes.recordSuccess();
+                    run.latency.record(now - due);
+                } else {
+                    run.outcomes.recordFailure(ex == null && result != null
+                            ? result.getFailureType()
+                            : CommunicationFailureType.UNKNOWN);
+                }
+                run.lastCompletionNanos.accumulateAndGet(now, Math::max);
+                run.completed.incrementAndGet();
+            }
+            // Released last, so a drained run has recorded every outcome
+            run.permits.release();
+        });
+    }
+    
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+    
+    private final class Run {
+        private final Semaphore permits = new Semaphore(concurrency);
+        private final AtomicLong issued = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong lastCompletionNanos = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLong maxScheduleLagNanos = new AtomicLong();
+        private final LatencyHistogram latency = new LatencyHistogram(HISTOGRAM_SLICE_MILLIS, 1);
+        private final FailureTelemetry outcomes = new FailureTelemetry();
+        private long warmupCalls;
+    }
+    
+    /**
+     * Results of the measurement phase. Latency percentiles cover successful calls only,
+     * so fast local rejections do not flatter them; every outcome is in the breakdown.
+     */
+    public static final class Report {
+        
+        private final LoadGenerator generator;
+        private final long warmupCalls;
+        private final long issued;
+        private final long completed;
+        private final Duration elapsed;
+        private final Duration maxScheduleLag;
+        private final LatencyHistogram.Snapshot latency;
+        private final FailureTelemetry.Snapshot outcomes;
+        
+        private Report(LoadGenerator generator, Run run, Duration elapsed) {
+            this.generator = generator;
+            this.warmupCalls = run.warmupCalls;
+            this.issued = run.issued.get();
+            this.completed = run.completed.get();
+            this.elapsed = elapsed;
+            this.maxScheduleLag = Duration.ofNanos(run.maxScheduleLagNanos.get());
+            this.latency = run.latency.snapshot(Duration.ofMillis(HISTOGRAM_SLICE_MILLIS));
+            this.outcomes = run.outcomes.totals();
+        }
+        
+        public long getWarmupCalls() {
+            return warmupCalls;
+        }
+        
+        public long getIssued() {
+            return issued;
+        }
+        
+        public long getCompleted() {
+            return completed;
+        }
+        
+        /**
+         * Measured calls still in flight when the drain timeout ran out
+         */
+        public long getUnfinished() {
+            return issued - completed;
+        }
+        
+        public Duration getElapsed() {
+            return elapsed;
+        }
+        
+        /**
+         * Completed calls per second over the measurement phase
+         */
+        public double getThroughput() {
+            return elapsed.isZero() ? 0.0 : completed * 1_000_000_000.0 / elapsed.toNanos();
+        }
+        
+        /**
+         * Longest delay between a call being due and being issued. Large values mean the
+         * concurrency limit or the generator itself held calls back.
+         */
+        public Duration getMaxScheduleLag() {
+            return maxScheduleLag;
+        }
+        
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+        
+        /**
+         * Measured calls that did not succeed, whatever the reason: failures of the service,
+         * calls rejected locally by the circuit breaker or the concurrency limit, and calls
+         * still unfinished after the drain
+         */
+        public long getFailed() {
+            return issued - outcomes.getSuccesses();
+        }
+        
+        /**
+         * Failed calls as a percentage of issued calls. Unlike the telemetry error rate, local
+         * rejections count, so a run the client mostly turned away does not look healthy.
+         */
+        public double getErrorRate() {
+            return issued == 0 ? 0.0 : getFailed() * 100.0 / issued;
+        }
+        
+        public FailureTelemetry.Snapshot getOutcomes() {
+            return outcomes;
+        }
+        
+        public Map<String, Object> toMap(double... percentiles) {
+            Map<String, Object> latencyMillis = new LinkedHashMap<>();
+            for (double percentile : percentiles) {
+                latencyMillis.put(ServiceCommunicationMonitor.percentileLabel(percentile),
+                        latency.getValueAtPercentile(percentile));
+            }
+            latencyMillis.put("mean", latency.getMeanMillis());
+            latencyMillis.put("max", latency.getMaxMillis());
+            
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("mode", generator.isOpenLoop() ? "open-loop" : "closed-loop");
+            report.put("concurrency", generator.concurrency);
+            report.put("targetRps", generator.targetRps);
+            report.put("warmupSeconds", generator.warmup.toMillis() / 1000.0);
+            report.put("warmupCalls", warmupCalls);
+            report.put("measuredSeconds", elapsed.toMillis() / 1000.0);
+            report.put("calls", issued);
+            report.put("completed", completed);
+            report.put("unfinished", getUnfinished());
+            report.put("throughputRps", getThroughput());
+            report.put("maxScheduleLagMillis", maxScheduleLag.toNanos() / 1_000_000.0);
+            report.put("successes", outcomes.getSuccesses());
+            report.put("failed", getFailed());
+            report.put("errorRate", getErrorRate());
+            // Failures among the calls that reached the service
+            report.put("serviceErrorRate", outcomes.getErrorRate());
+            report.put("latencyMillis", latencyMillis);
+            report.put("failuresByType", outcomes.getCountsByType());
+            return report;
+        }
+    }
+}
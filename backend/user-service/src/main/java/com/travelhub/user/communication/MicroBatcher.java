@@ -0,0 +1,163 @@
+package com.travelhub.user.communication;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Automatic micro-batching of single-key lookups.
+ *
+ * Keys submitted within {@code maxDelayMillis} of the first key of a batch, up to
+ * {@code maxBatchSize} distinct keys, are sent downstream as one batch call. The batch
+ * result is split back out so every caller gets the value for its own key. A key
+ * submitted twice into the same batch is only sent once.
+ */
+public class MicroBatcher<K, V> {
+    
+    private final String name;
+    private final int maxBatchSize;
+    private final long maxDelayMillis;
+    private final Function<List<K>, CompletableFuture<Map<K, V>>> batchCall;
+    
+    // Batch still collecting keys; guarded by this
+    private Batch<K, V> current;
+    
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedKeys = new LongAdder();
+    private final LongAdder sizeTriggeredFlushes = new LongAdder();
+    
+    /**
+     * @param maxBatchSize   distinct keys that trigger an immediate flush
+     * @param maxDelayMillis how long the first key of a batch waits for company
+     * @param batchCall      sends one batch; the returned map should hold an entry for every key
+     */
+    public MicroBatcher(String name, int maxBatchSize, long maxDelayMillis,
+                        Function<List<K>, CompletableFuture<Map<K, V>>> batchCall) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.name = name;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        this.batchCall = batchCall;
+    }
+    
+    /**
+     * Queue a key for the next batch. Cancelling the returned future only detaches this
+     * caller; the batch is still sent for the other keys.
+     */
+    public CompletableFuture<V> submit(K key) {
+        submitted.increment();
+        
+        Batch<K, V> full = null;
+        Batch<K, V> opened = null;
+        CompletableFuture<V> shared;
+        synchronized (this) {
+            if (current == null) {
+                current = new Batch<>();
+                opened = current;
+            }
+            shared = current.waiters.computeIfAbsent(key, k -> new CompletableFuture<>());
+            if (current.waiters.size() >= maxBatchSize) {
+                full = current;
+                current = null;
+            }
+        }
+        
+        if (full != null) {
+            sizeTriggeredFlushes.increment();
+            dispatch(full);
+        } else if (opened != null) {
+            Batch<K, V> batch = opened;
+            CompletableFuture.delayedExecutor(maxDelayMillis, TimeUnit.MILLISECONDS).execute(() -> flush(batch));
+        }
+        return shared.thenApply(value -> value);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+    
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+    
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+    
+    public long getBatches() {
+        return batches.sum();
+    }
+    
+    public long getSizeTriggeredFlushes() {
+        return sizeTriggeredFlushes.sum();
+    }
+    
+    /**
+     * Average number of distinct keys per batch call
+     */
+    public double getAverageBatchSize() {
+        long sent = batches.sum();
+        return sent == 0 ? 0.0 : (double) batchedKeys.sum() / sent;
+    }
+    
+    /**
+     * Round trips saved compared to one call per submitted key
+     */
+    public long getRoundTripsSaved() {
+        return Math.max(0, submitted.sum() - batches.sum());
+    }
+    
+    private void flush(Batch<K, V> batch) {
+        synchronized (this) {
+            if (current != batch) {
+                // Already sent because it filled up
+                return;
+            }
+            current = null;
+        }
+        dispatch(batch);
+    }
+    
+    private void dispatch(Batch<K, V> batch) {
+        List<K> keys = new ArrayList<>(batch.waiters.keySet());
+        batches.increment();
+        batchedKeys.add(keys.size());
+        
+        CompletableFuture<Map<K, V>> call;
+        try {
+            call = batchCall.apply(keys);
+        } catch (RuntimeException ex) {
+            call = CompletableFuture.failedFuture(ex);
+        }
+        
+        call.whenComplete((values, ex) -> batch.waiters.forEach((key, waiter) -> {
+            if (ex != null) {
+                waiter.completeExceptionally(ex);
+            } else if (values == null || !values.containsKey(key)) {
+                waiter.completeExceptionally(new IllegalStateException(
+                        "Batch response from " + name + " has no entry for key " + key));
+            } else {
+                waiter.complete(values.get(key));
+            }
+        }));
+    }
+    
+    /**
+     * Keys collected for one batch call, in submission order
+     */
+    private static final class Batch<K, V> {
+        private final Map<K, CompletableFuture<V>> waiters = new LinkedHashMap<>();
+    }
+}
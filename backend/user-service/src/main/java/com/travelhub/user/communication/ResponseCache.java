@@ -0,0 +1,105 @@
+package com.travelhub.user.communication;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process cache of successful downstream responses.
+ *
+ * Backed by Caffeine, which uses W-TinyLFU admission and eviction and serves reads from a
+ * concurrent hash table without locking. Entries expire {@code ttl} after they were written.
+ * Only successful results are cached. Cached results are shared and must be treated as read-only.
+ */
+public class ResponseCache<K, T> {
+    
+    // Write stamps are striped by key hash so invalidating one key does not block fills for others
+    private static final int STAMP_STRIPES = 64;
+    
+    private final String name;
+    private final long maximumSize;
+    private final Duration ttl;
+    private final Cache<K, CommunicationResult<T>> cache;
+    private final AtomicLongArray writeStamps = new AtomicLongArray(STAMP_STRIPES);
+    
+    public ResponseCache(String name, long maximumSize, Duration ttl) {
+        this.name = name;
+        this.maximumSize = maximumSize;
+        this.ttl = ttl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+    
+    /**
+     * Return the cached result for {@code key}, or run {@code loader} and cache its result
+     * if it succeeds. A load that overlaps an {@link #invalidate} of the same key is not
+     * cached, so a write is never hidden by a read that started before it.
+     */
+    public CompletableFuture<CommunicationResult<T>> get(K key, Supplier<CompletableFuture<CommunicationResult<T>>> loader) {
+        CommunicationResult<T> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        int stripe = stripe(key);
+        long stamp = writeStamps.get(stripe);
+        return CancellableFutures.thenApply(loader.get(), result -> {
+            if (result != null && result.isSuccessful() && writeStamps.get(stripe) == stamp) {
+                cache.put(key, result);
+                // An invalidation may have slipped in between the check and the put
+                if (writeStamps.get(stripe) != stamp) {
+                    cache.invalidate(key);
+                }
+            }
+            return result;
+        });
+    }
+    
+    /**
+     * Drop the entry for {@code key} and keep loads already in flight for it from being cached
+     */
+    public void invalidate(K key) {
+        writeStamps.incrementAndGet(stripe(key));
+        cache.invalidate(key);
+    }
+    
+    public void invalidateAll() {
+        for (int i = 0; i < STAMP_STRIPES; i++) {
+            writeStamps.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+    
+    public Duration getTtl() {
+        return ttl;
+    }
+    
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+    
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+    
+    private static int stripe(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STAMP_STRIPES - 1);
+    }
+}
@@ -0,0 +1,16 @@
+package com.travelhub.user.communication;
+
+import com.travelhub.booking.api.WireFormat;
+
+import java.io.IOException;
+
+/**
+ * Decodes a downstream response body, in the format its Content-Type names, into a typed value.
+ * Malformed bodies should raise a {@link com.fasterxml.jackson.core.JsonProcessingException},
+ * which is reported as a data validation error.
+ */
+@FunctionalInterface
+public interface ResponseDecoder<T> {
+    
+    T decode(byte[] body, WireFormat format) throws IOException;
+}
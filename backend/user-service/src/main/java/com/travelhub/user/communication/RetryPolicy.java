@@ -0,0 +1,210 @@
+package com.travelhub.user.communication;
+
+import com.travelhub.booking.api.Deadline;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Retries for calls to one downstream service.
+ *
+ * Only idempotent calls are retried, and only after timeouts and connection errors, which
+ * may well succeed on a second try. Retries wait with exponential backoff and decorrelated
+ * jitter, and are paid for from a token budget that refills with live traffic. The budget
+ * starts with a reserve of 10 retries; after that, retries add at most {@code budgetPercent}
+ * extra load during an incident instead of multiplying it.
+ */
+public class RetryPolicy {
+    
+    private static final long TOKEN_SCALE = 1000;
+    private static final long MAX_TOKENS = 10 * TOKEN_SCALE;
+    
+    /**
+     * Whether repeating a call is safe
+     */
+    public enum Idempotency {
+        IDEMPOTENT,
+        NON_IDEMPOTENT
+    }
+    
+    private final String serviceName;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long tokensPerCall;
+    
+    private final AtomicLong budgetTokens = new AtomicLong(MAX_TOKENS);
+    
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retrySuccesses = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+    
+    /**
+     * @param maxAttempts     attempts per call, including the first one
+     * @param baseDelayMillis smallest backoff before a retry
+     * @param maxDelayMillis  largest backoff before a retry
+     * @param budgetPercent   maximum retries as a percentage of calls
+     */
+    public RetryPolicy(String serviceName, int maxAttempts, long baseDelayMillis, long maxDelayMillis,
+                       double budgetPercent) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+        this.serviceName = serviceName;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+        this.tokensPerCall = Math.round(budgetPercent / 100.0 * TOKEN_SCALE);
+    }
+    
+    /**
+     * Whether a failure of this type may succeed when the call is repeated
+     */
+    public static boolean isRetryable(CommunicationResult<?> result) {
+        if (result == null || result.isSuccessful()) {
+            return false;
+        }
+        // API errors, bad data, an open breaker or the local concurrency limit will not
+        // change on a retry, or retrying would only add to the overload
+        return result.isTimeout() || result.isConnectionError();
+    }
+    
+    /**
+     * Run a call, retrying retryable failures within the attempt limit and the budget.
+     * The supplier must start a new call each time. Cancelling the returned future cancels
+     * the attempt in flight and stops further retries.
+     */
+    public <T> CompletableFuture<CommunicationResult<T>> execute(Idempotency idempotency,
+            Supplier<CompletableFuture<CommunicationResult<T>>> call) {
+        return execute(idempotency, Deadline.none(), call);
+    }
+    
+    /**
+     * Run a call as above, but give up once a retry could not start before {@code deadline}:
+     * the last failure is the result instead of a retry with no time left to succeed.
+     */
+    public <T> CompletableFuture<CommunicationResult<T>> execute(Idempotency idempotency, Deadline deadline,
+            Supplier<CompletableFuture<CommunicationResult<T>>> call) {
+        calls.increment();
+        depositTokens();
+        
+        CompletableFuture<CommunicationResult<T>> result = new CompletableFuture<>();
+        attempt(idempotency, deadline, call, result, 1, baseDelayMillis);
+        return result;
+    }
+    
+    public String getServiceName() {
+        return serviceName;
+    }
+    
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+    
+    public long getCalls() {
+        return calls.sum();
+    }
+    
+    public long getRetries() {
+        return retries.sum();
+    }
+    
+    public long getRetrySuccesses() {
+        return retrySuccesses.sum();
+    }
+    
+    public long getBudgetExhausted() {
+        return budgetExhausted.sum();
+    }
+    
+    /**
+     * Retries sent as a percentage of calls
+     */
+    public double getRetryRate() {
+        long total = calls.sum();
+        return total == 0 ? 0.0 : retries.sum() * 100.0 / total;
+    }
+    
+    private <T> void attempt(Idempotency idempotency, Deadline deadline,
+                             Supplier<CompletableFuture<CommunicationResult<T>>> call,
+                             CompletableFuture<CommunicationResult<T>> result, int attempt, long previousDelay) {
+        if (result.isDone()) {
+            return;
+        }
+        
+        CompletableFuture<CommunicationResult<T>> current;
+        try {
+            current = call.get();
+        } catch (RuntimeException ex) {
+            result.completeExceptionally(ex);
+            return;
+        }
+        CancellableFutures.propagateCancellation(result, current);
+        
+        current.whenComplete((value, ex) -> {
+            if (result.isDone()) {
+                return;
+            }
+            if (ex != null) {
+                result.completeExceptionally(ex);
+                return;
+            }
+            if (value != null && value.isSuccessful() && attempt > 1) {
+                retrySuccesses.increment();
+            }
+            if (idempotency != Idempotency.IDEMPOTENT || attempt >= maxAttempts || !isRetryable(value)) {
+                result.complete(value);
+                return;
+            }
+            long delay = nextDelay(previousDelay);
+            if (TimeUnit.MILLISECONDS.toNanos(delay) >= deadline.remainingNanos()) {
+                result.complete(value);
+                return;
+            }
+            if (!tryWithdrawToken()) {
+                budgetExhausted.increment();
+                result.complete(value);
+                return;
+            }
+            
+            retries.increment();
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                    .execute(() -> attempt(idempotency, deadline, call, result, attempt + 1, delay));
+        });
+    }
+    
+    /**
+     * Decorrelated jitter: a random delay between the base and three times the previous delay
+     */
+    private long nextDelay(long previousDelay) {
+        long upper = Math.max(baseDelayMillis + 1, previousDelay * 3);
+        return Math.min(maxDelayMillis, ThreadLocalRandom.current().nextLong(baseDelayMillis, upper));
+    }
+    
+    private void depositTokens() {
+        while (true) {
+            long current = budgetTokens.get();
+            long next = Math.min(MAX_TOKENS, current + tokensPerCall);
+            if (next == current || budgetTokens.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+    
+    private boolean tryWithdrawToken() {
+        while (true) {
+            long current = budgetTokens.get();
+            if (current < TOKEN_SCALE) {
+                return false;
+            }
+            if (budgetTokens.compareAndSet(current, current - TOKEN_SCALE)) {
+                return true;
+            }
+        }
+    }
+}
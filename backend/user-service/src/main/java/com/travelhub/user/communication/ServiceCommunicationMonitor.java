@@ -1,17 +1,33 @@
 package com.travelhub.user.communication;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.travelhub.booking.api.Deadline;
+import com.travelhub.booking.api.WireFormat;
+import com.travelhub.user.communication.CommunicationResult.CommunicationFailureType;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service Communication Monitor for tracking inter-service communication failures
@@ -21,8 +37,35 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class ServiceCommunicationMonitor {
     
     private final Map<String, ServiceHealth> serviceHealthMap = new ConcurrentHashMap<>();
-    private final Map<String, AtomicInteger> failureCounters = new ConcurrentHashMap<>();
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final Map<String, DownstreamHttpClient> httpClients = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<String, HedgedRequestPolicy> hedgingPolicies = new ConcurrentHashMap<>();
+    private final Map<String, SingleFlight<?, ?>> coalescers = new ConcurrentHashMap<>();
+    private final Map<String, MicroBatcher<?, ?>> batchers = new ConcurrentHashMap<>();
+    private final Map<String, ResponseCache<?, ?>> responseCaches = new ConcurrentHashMap<>();
+    private final Map<String, AdaptiveConcurrencyLimiter> concurrencyLimiters = new ConcurrentHashMap<>();
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final Map<String, LoadBalancer> loadBalancers = new ConcurrentHashMap<>();
+    private final Map<String, RetryPolicy> retryPolicies = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> latencyHistograms = new ConcurrentHashMap<>();
+    private final LatencyKeys latencyKeys = new LatencyKeys();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    // Services asked for Smile responses; the others are asked for JSON
+    private final Set<String> binaryResponseServices = ConcurrentHashMap.newKeySet();
+    
+    // Set while a latency trace is being recorded
+    private volatile LatencyTrace.Recorder traceRecorder;
+    private volatile LatencyTrace lastTrace;
+    
+    private static final int DEFAULT_MAX_CONNECTIONS = 50;
+    private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(1);
+    private static final Duration HEALTH_WINDOW = Duration.ofSeconds(30);
+    private static final int HEALTH_MIN_CALLS = 10;
+    private static final double UNHEALTHY_ERROR_RATE = 50.0;
+    private static final Map<String, Duration> LATENCY_WINDOWS = Map.of(
+            "1m", Duration.ofMinutes(1),
+            "5m", Duration.ofMinutes(5));
     
     public static class ServiceHealth {
         private String serviceName;
@@ -31,6 +74,13 @@ public class ServiceCommunicationMonitor {
         private Duration responseTime;
         private String lastError;
         private int consecutiveFailures;
+        private final FailureTelemetry failureTelemetry = new FailureTelemetry();
+        // Active health probes, see HealthProber
+        private LocalDateTime lastProbeTime;
+        private boolean probeHealthy = true;
+        private Duration probeResponseTime;
+        private String lastProbeError;
+        private int consecutiveProbeFailures;
         
         public ServiceHealth(String serviceName) {
             this.serviceName = serviceName;
@@ -51,6 +101,360 @@ public class ServiceCommunicationMonitor {
         public void setLastError(String lastError) { this.lastError = lastError; }
         public int getConsecutiveFailures() { return consecutiveFailures; }
         public void setConsecutiveFailures(int consecutiveFailures) { this.consecutiveFailures = consecutiveFailures; }
+        public FailureTelemetry getFailureTelemetry() { return failureTelemetry; }
+        public LocalDateTime getLastProbeTime() { return lastProbeTime; }
+        public void setLastProbeTime(LocalDateTime lastProbeTime) { this.lastProbeTime = lastProbeTime; }
+        public boolean isProbeHealthy() { return probeHealthy; }
+        public void setProbeHealthy(boolean probeHealthy) { this.probeHealthy = probeHealthy; }
+        public Duration getProbeResponseTime() { return probeResponseTime; }
+        public void setProbeResponseTime(Duration probeResponseTime) { this.probeResponseTime = probeResponseTime; }
+        public String getLastProbeError() { return lastProbeError; }
+        public void setLastProbeError(String lastProbeError) { this.lastProbeError = lastProbeError; }
+        public int getConsecutiveProbeFailures() { return consecutiveProbeFailures; }
+        public void setConsecutiveProbeFailures(int consecutiveProbeFailures) { this.consecutiveProbeFailures = consecutiveProbeFailures; }
+    }
+    
+    /**
+     * Register a downstream service with its own pooled HTTP client.
+     * Re-registering replaces the client; in-flight calls finish on the old one.
+     */
+    public DownstreamHttpClient registerDownstream(String serviceName, int maxConnections, Duration connectTimeout) {
+        DownstreamHttpClient client = new DownstreamHttpClient(serviceName, maxConnections, connectTimeout);
+        httpClients.put(serviceName, client);
+        log.info("Registered downstream {} with a pool of {} connections", serviceName, maxConnections);
+        return client;
+    }
+    
+    /**
+     * Ask a service for Smile responses, falling back to JSON if it does not speak Smile.
+     * Request bodies stay JSON either way: a request cannot be negotiated before it is sent.
+     */
+    public void setPreferBinaryResponses(String serviceName, boolean preferBinary) {
+        if (preferBinary) {
+            binaryResponseServices.add(serviceName);
+        } else {
+            binaryResponseServices.remove(serviceName);
+        }
+    }
+    
+    private String acceptHeader(String serviceName) {
+        return binaryResponseServices.contains(serviceName) ? WireFormat.PREFER_BINARY : WireFormat.JSON.mediaType();
+    }
+    
+    /**
+     * Register the circuit breaker guarding calls to a downstream service
+     */
+    public void registerCircuitBreaker(CircuitBreaker circuitBreaker) {
+        circuitBreakers.put(circuitBreaker.getServiceName(), circuitBreaker);
+        log.info("Registered circuit breaker for {}", circuitBreaker.getServiceName());
+    }
+    
+    /**
+     * Get the circuit breaker for a service, or null if none is registered
+     */
+    public CircuitBreaker getCircuitBreaker(String serviceName) {
+        return circuitBreakers.get(serviceName);
+    }
+    
+    /**
+     * Get circuit breaker state for all registered downstream services
+     */
+    public Map<String, Map<String, Object>> getCircuitBreakerReport() {
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        circuitBreakers.forEach((name, breaker) -> report.put(name, Map.of(
+                "state", breaker.getState(),
+                "failureRate", breaker.getFailureRate(),
+                "windowCalls", breaker.getWindowCalls(),
+                "rejectedCalls", breaker.getRejectedCalls(),
+                "openTransitions", breaker.getOpenTransitions()
+        )));
+        return report;
+    }
+    
+    /**
+     * Register a hedging policy so its hedge and win rates are reported
+     */
+    public void registerHedgingPolicy(HedgedRequestPolicy policy) {
+        hedgingPolicies.put(policy.getServiceName() + " " + policy.getEndpoint(), policy);
+        log.info("Registered request hedging for {} {}", policy.getServiceName(), policy.getEndpoint());
+    }
+    
+    /**
+     * Get hedge rate and win rate for all hedged endpoints
+     */
+    public Map<String, Map<String, Object>> getHedgingReport() {
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        hedgingPolicies.forEach((key, policy) -> report.put(key, Map.of(
+                "hedgeDelayMs", policy.getHedgeDelayMillis(),
+                "primaryCalls", policy.getPrimaryCalls(),
+                "hedgedCalls", policy.getHedgedCalls(),
+                "hedgeWins", policy.getHedgeWins(),
+                "budgetExhausted", policy.getBudgetExhausted(),
+                "hedgeRate", policy.getHedgeRate(),
+                "winRate", policy.getWinRate()
+        )));
+        return report;
+    }
+    
+    /**
+     * Register a request coalescer so its coalescing ratio is reported
+     */
+    public void registerCoalescer(SingleFlight<?, ?> coalescer) {
+        coalescers.put(coalescer.getName(), coalescer);
+    }
+    
+    /**
+     * Get coalescing metrics for all registered coalescers
+     */
+    public Map<String, Map<String, Object>> getCoalescingReport() {
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        coalescers.forEach((name, coalescer) -> report.put(name, Map.of(
+                "calls", coalescer.getCalls(),
+                "coalescedCalls", coalescer.getCoalescedCalls(),
+                "coalescingRatio", coalescer.getCoalescingRatio(),
+                "inFlightKeys", coalescer.getInFlightKeys()
+        )));
+        return report;
+    }
+    
+    /**
+     * Register a micro-batcher so its batching metrics are reported
+     */
+    public void registerBatcher(MicroBatcher<?, ?> batcher) {
+        batchers.put(batcher.getName(), batcher);
+    }
+    
+    /**
+     * Get batching metrics for all registered micro-batchers
+     */
+    public Map<String, Map<String, Object>> getBatchingReport() {
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        batchers.forEach((name, batcher) -> report.put(name, Map.of(
+                "maxBatchSize", batcher.getMaxBatchSize(),
+                "maxDelayMs", batcher.getMaxDelayMillis(),
+                "submitted", batcher.getSubmitted(),
+                "batches", batcher.getBatches(),
+                "averageBatchSize", batcher.getAverageBatchSize(),
+                "sizeTriggeredFlushes", batcher.getSizeTriggeredFlushes(),
+                "roundTripsSaved", batcher.getRoundTripsSaved()
+        )));
+        return report;
+    }
+    
+    /**
+     * Register a response cache so its hit ratio and evictions are reported
+     */
+    public void registerResponseCache(ResponseCache<?, ?> cache) {
+        responseCaches.put(cache.getName(), cache);
+    }
+    
+    /**
+     * Get hit/miss and eviction metrics for all registered response caches
+     */
+    public Map<String, Map<String, Object>> getCacheReport() {
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        responseCaches.forEach((name, cache) -> {
+            CacheStats stats = cache.getStats();
+            report.put(name, Map.of(
+                    "size", cache.getSize(),
+                    "maximumSize", cache.getMaximumSize(),
+                    "ttlMs", cache.getTtl().toMillis(),
+                    "hits", stats.hitCount(),
+                    "misses", stats.missCount(),
+                    "hitRatio", stats.hitRate(),
+                    "missRatio", stats.missRate(),
+                    "evictions", stats.evictionCount()
+            ));
+        });
+        return report;
+    }
+    
+    /**
+     * Register the bulkhead that bounds the calls in flight to a service
+     */
+    public void registerBulkhead(Bulkhead bulkhead) {
+        bulkheads.put(bulkhead.getServiceName(), bulkhead);
+        log.info("Registered bulkhead for {} with {} calls in flight and {} queued", bulkhead.getServiceName(),
+                bulkhead.getMaxConcurrentCalls(), bulkhead.getMaxQueue());
+    }
+    
+    public Bulkhead getBulkhead(String serviceName) {
+        return bulkheads.get(serviceName);
+    }
+    
+    /**
+     * Get saturation, queueing and rejections for all registered bulkheads
+     */
+    public Map<String, Map<String, Object>> getBulkheadReport() {
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        bulkheads.forEach((name, bulkhead) -> report.put(name, Map.ofEntries(
+                Map.entry("maxConcurrentCalls", bulkhead.getMaxConcurrentCalls()),
+                Map.entry("inFlight", bulkhead.getInFlight()),
+                Map.entry("peakInFlight", bulkhead.getPeakInFlight()),
+                Map.entry("saturation", bulkhead.getSaturation()),
+                Map.entry("maxQueue", bulkhead.getMaxQueue()),
+                Map.entry("queued", bulkhead.getQueued()),
+                Map.entry("permittedCalls", bulkhead.getPermittedCalls()),
+                Map.entry("queuedCalls", bulkhead.getQueuedCalls()),
+                Map.entry("averageQueueWaitMs", bulkhead.getAverageQueueWaitMillis()),
+                Map.entry("rejectedCalls", bulkhead.getRejectedCalls()),
+                Map.entry("timedOutCalls", bulkhead.getTimedOutCalls())
+        )));
+        return report;
+    }
+    
+    /**
+     * Register the balancer that spreads calls over the instances of a service
+     */
+    public void registerLoadBalancer(LoadBalancer loadBalancer) {
+        loadBalancers.put(loadBalancer.getServiceName(), loadBalancer);
+        log.info("Registered load balancer for {} over {} instances", loadBalancer.getServiceName(),
+                loadBalancer.getInstances().size());
+    }
+    
+    public LoadBalancer getLoadBalancer(String serviceName) {
+        return loadBalancers.get(serviceName);
+    }
+    
+    /**
+     * Get outstanding calls, EWMA latency, slow-start weight and ejections per instance for
+     * all registered load balancers
+     */
+    public Map<String, Map<String, Object>> getLoadBalancerReport() {
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        loadBalancers.forEach((name, loadBalancer) -> report.put(name, Map.of(
+                "picks", loadBalancer.getPicks(),
+                "panicPicks", loadBalancer.getPanicPicks(),
+                "instances", loadBalancer.getInstanceReport()
+        )));
+        return report;
+    }
+    
+    /**
+     * Register the adaptive concurrency limiter that guards calls to a service
+     */
+    public void registerConcurrencyLimiter(AdaptiveConcurrencyLimiter limiter) {
+        concurrencyLimiters.put(limiter.getServiceName(), limiter);
+    }
+    
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter(String serviceName) {
+        return concurrencyLimiters.get(serviceName);
+    }
+    
+    /**
+     * Get current limit, in-flight calls and rejections for all registered limiters
+     */
+    public Map<String, Map<String, Object>> getConcurrencyLimitReport() {
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        concurrencyLimiters.forEach((name, limiter) -> report.put(name, Map.of(
+                "limit", limiter.getLimit(),
+                "inFlight", limiter.getInFlight(),
+                "rejected", limiter.getRejected(),
+                "drops", limiter.getDrops(),
+                "longRttMs", limiter.getLongRttMillis()
+        )));
+        return report;
+    }
+    
+    /**
+     * Register the retry policy for a service so its retry budget usage is reported
+     */
+    public void registerRetryPolicy(RetryPolicy policy) {
+        retryPolicies.put(policy.getServiceName(), policy);
+    }
+    
+    /**
+     * Get retry metrics for all registered retry policies
+     */
+    public Map<String, Map<String, Object>> getRetryReport() {
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        retryPolicies.forEach((name, policy) -> report.put(name, Map.of(
+                "maxAttempts", policy.getMaxAttempts(),
+                "calls", policy.getCalls(),
+                "retries", policy.getRetries(),
+                "retryRate", policy.getRetryRate(),
+                "retrySuccesses", policy.getRetrySuccesses(),
+                "budgetExhausted", policy.getBudgetExhausted()
+        )));
+        return report;
+    }
+    
+    /**
+     * Get call latency for every service and endpoint template over the last 1 and 5
+     * minutes, at the given percentiles
+     */
+    public Map<String, Map<String, Object>> getLatencyReport(double... percentiles) {
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        latencyHistograms.forEach((key, histogram) -> {
+            Map<String, Object> windows = new TreeMap<>();
+            LATENCY_WINDOWS.forEach((label, window) -> {
+                LatencyHistogram.Snapshot snapshot = histogram.snapshot(window);
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("count", snapshot.getCount());
+                stats.put("meanMs", snapshot.getMeanMillis());
+                for (double percentile : percentiles) {
+                    stats.put(percentileLabel(percentile), snapshot.getValueAtPercentile(percentile));
+                }
+                stats.put("maxMs", snapshot.getMaxMillis());
+                windows.put(label, stats);
+            });
+            report.put(key, windows);
+        });
+        return report;
+    }
+    
+    public LatencyHistogram getLatencyHistogram(String serviceName, String method, String endpoint) {
+        return latencyHistograms.get(latencyKey(serviceName, method, endpoint));
+    }
+    
+    /**
+     * Start recording every completed downstream call into a latency trace, replacing any
+     * recording in progress. At most {@code maxCalls} calls are kept.
+     */
+    public synchronized void startTraceRecording(int maxCalls) {
+        traceRecorder = new LatencyTrace.Recorder(maxCalls);
+        log.info("Started recording a latency trace of up to {} calls", maxCalls);
+    }
+    
+    /**
+     * Stop recording and keep the trace as the last one recorded
+     *
+     * @return the recorded trace, or null if nothing was being recorded
+     */
+    public synchronized LatencyTrace stopTraceRecording() {
+        LatencyTrace.Recorder recorder = traceRecorder;
+        if (recorder == null) {
+            return null;
+        }
+        traceRecorder = null;
+        lastTrace = recorder.toTrace();
+        log.info("Recorded a latency trace of {} calls over {} ({} dropped)",
+                lastTrace.size(), lastTrace.getDuration(), recorder.getDropped());
+        return lastTrace;
+    }
+    
+    /**
+     * The trace from the last finished recording, or null
+     */
+    public LatencyTrace getLastTrace() {
+        return lastTrace;
+    }
+    
+    public Map<String, Object> getTraceStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        LatencyTrace.Recorder recorder = traceRecorder;
+        status.put("recording", recorder != null);
+        if (recorder != null) {
+            status.put("recordedCalls", recorder.size());
+            status.put("droppedCalls", recorder.getDropped());
+        }
+        LatencyTrace trace = lastTrace;
+        if (trace != null) {
+            status.put("lastTraceCalls", trace.size());
+            status.put("lastTraceStartedAt", trace.getStartedAt().toString());
+            status.put("lastTraceDurationSeconds", trace.getDuration().toMillis() / 1000.0);
+        }
+        return status;
     }
     
     /**
@@ -58,64 +462,448 @@ public class ServiceCommunicationMonitor {
      */
     public <T> CommunicationResult<T> monitorApiCall(String serviceName, String endpoint, 
             Class<T> responseType, int timeoutMs) {
-        LocalDateTime startTime = LocalDateTime.now();
+        AdaptiveConcurrencyLimiter limiter = concurrencyLimiters.get(serviceName);
+        if (limiter != null && !limiter.tryAcquire()) {
+            return limitExceeded(serviceName, limiter);
+        }
+        String latencyKey = latencyKeys.get(serviceName, "GET", endpoint);
+        LatencyHistogram latency = latencyHistogram(latencyKey);
+        long startNanos = System.nanoTime();
+        CommunicationResult<T> result = null;
+        try {
+            result = callApi(serviceName, endpoint, responseType, timeoutMs, startNanos);
+            return result;
+        } finally {
+            onCallComplete(limiter, latencyKey, latency, result, startNanos);
+        }
+    }
+    
+    private <T> CommunicationResult<T> callApi(String serviceName, String endpoint, Class<T> responseType,
+            int timeoutMs, long startNanos) {
         ServiceHealth health = serviceHealthMap.computeIfAbsent(serviceName, ServiceHealth::new);
+        DownstreamHttpClient client = getHttpClient(serviceName);
         
         try {
             log.debug("Monitoring API call to {}: {}", serviceName, endpoint);
             
-            // Set timeout using HttpComponentsClientHttpRequestFactory
-            org.springframework.http.client.SimpleClientHttpRequestFactory factory = 
-                new org.springframework.http.client.SimpleClientHttpRequestFactory();
-            factory.setConnectTimeout(timeoutMs);
-            factory.setReadTimeout(timeoutMs);
-            restTemplate.setRequestFactory(factory);
-            
-            ResponseEntity<T> response = restTemplate.getForEntity(endpoint, responseType);
-            Duration responseTime = Duration.between(startTime, LocalDateTime.now());
-            
-            // Update health status
-            updateHealthStatus(health, true, responseTime, null);
-            
-            // Validate response data
-            if (response.getBody() == null) {
-                recordDataExchangeFailure(serviceName, "Empty response body received");
-                return CommunicationResult.failure("Empty response body", null);
-            }
-            
-            log.info("Successful API call to {} in {}ms", serviceName, responseTime.toMillis());
-            return CommunicationResult.success(response.getBody(), responseTime);
-            
-        } catch (ResourceAccessException ex) {
-            Duration responseTime = Duration.between(startTime, LocalDateTime.now());
-            
-            if (responseTime.toMillis() >= timeoutMs) {
-                recordTimeoutFailure(serviceName, endpoint, timeoutMs);
-                updateHealthStatus(health, false, responseTime, "Timeout after " + timeoutMs + "ms");
-                return CommunicationResult.timeout("Request timeout after " + timeoutMs + "ms", responseTime);
-            } else {
-                recordConnectionFailure(serviceName, endpoint, ex.getMessage());
-                updateHealthStatus(health, false, responseTime, ex.getMessage());
-                return CommunicationResult.failure("Connection failed: " + ex.getMessage(), responseTime);
-            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(endpoint))
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .header("Accept", acceptHeader(serviceName))
+                    .header(Deadline.HEADER, Integer.toString(timeoutMs))
+                    .GET()
+                    .build();
             
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            return handleResponse(serviceName, endpoint, health, response, jsonDecoder(responseType), startNanos);
+        
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            Duration responseTime = elapsedSince(startNanos);
+            updateHealthStatus(health, false, responseTime, "Interrupted");
+            return CommunicationResult.failure("API call interrupted", responseTime);
         } catch (Exception ex) {
-            Duration responseTime = Duration.between(startTime, LocalDateTime.now());
-            recordApiCallFailure(serviceName, endpoint, ex.getMessage());
-            updateHealthStatus(health, false, responseTime, ex.getMessage());
-            return CommunicationResult.failure("API call failed: " + ex.getMessage(), responseTime);
+            return handleFailure(serviceName, endpoint, health, ex, timeoutMs, startNanos);
         }
     }
     
+    /**
+     * Monitor API call to external service without blocking the calling thread. The call
+     * gets what is left of the caller's {@code deadline}, and so does booking-service.
+     */
+    public <T> CompletableFuture<CommunicationResult<T>> monitorApiCallAsync(String serviceName, String endpoint,
+            Class<T> responseType, Deadline deadline) {
+        return monitorApiCallAsync(serviceName, endpoint, jsonDecoder(responseType), deadline);
+    }
+    
+    /**
+     * Monitor API call to external service without blocking the calling thread, decoding
+     * the response body with {@code decoder}
+     */
+    public <T> CompletableFuture<CommunicationResult<T>> monitorApiCallAsync(String serviceName, String endpoint,
+            ResponseDecoder<T> decoder, Deadline deadline) {
+        long budgetMs = remainingMillis(deadline);
+        if (budgetMs <= 0) {
+            return CompletableFuture.completedFuture(deadlinePassed(serviceName));
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(endpoint))
+                .timeout(Duration.ofMillis(budgetMs))
+                .header("Accept", acceptHeader(serviceName))
+                .header(Deadline.HEADER, Long.toString(budgetMs))
+                .GET()
+                .build();
+        return exchangeAsync(serviceName, endpoint, request, decoder, budgetMs);
+    }
+    
+    /**
+     * Monitor a JSON POST to external service without blocking the calling thread
+     */
+    public <T> CompletableFuture<CommunicationResult<T>> monitorPostCallAsync(String serviceName, String endpoint,
+            Object requestBody, Class<T> responseType, Deadline deadline) {
+        return monitorPostCallAsync(serviceName, endpoint, requestBody, jsonDecoder(responseType), deadline);
+    }
+    
+    /**
+     * Monitor a JSON POST to external service without blocking the calling thread, decoding
+     * the response body with {@code decoder}
+     */
+    public <T> CompletableFuture<CommunicationResult<T>> monitorPostCallAsync(String serviceName, String endpoint,
+            Object requestBody, ResponseDecoder<T> decoder, Deadline deadline) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(requestBody);
+        } catch (JsonProcessingException ex) {
+            recordDataExchangeFailure(serviceHealthMap.computeIfAbsent(serviceName, ServiceHealth::new),
+                    "Unserializable request body: " + ex.getOriginalMessage());
+            return CompletableFuture.completedFuture(
+                    CommunicationResult.dataValidationError("Invalid request body: " + ex.getOriginalMessage(), Duration.ZERO));
+        }
+        
+        long budgetMs = remainingMillis(deadline);
+        if (budgetMs <= 0) {
+            return CompletableFuture.completedFuture(deadlinePassed(serviceName));
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(endpoint))
+                .timeout(Duration.ofMillis(budgetMs))
+                .header("Accept", acceptHeader(serviceName))
+                .header("Content-Type", WireFormat.JSON.mediaType())
+                .header(Deadline.HEADER, Long.toString(budgetMs))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                .build();
+        return exchangeAsync(serviceName, endpoint, request, decoder, budgetMs);
+    }
+    
+    /**
+     * Whole milliseconds left before {@code deadline}; under one counts as none
+     */
+    private static long remainingMillis(Deadline deadline) {
+        return TimeUnit.NANOSECONDS.toMillis(deadline.remainingNanos());
+    }
+    
+    /**
+     * The caller's time ran out in retries, hedging, queues or simulated delays before the
+     * call was sent. Nothing reached the service, so its health is left alone.
+     */
+    private static <T> CommunicationResult<T> deadlinePassed(String serviceName) {
+        return CommunicationResult.timeout("Deadline passed before calling " + serviceName, Duration.ZERO);
+    }
+    
+    private <T> CompletableFuture<CommunicationResult<T>> exchangeAsync(String serviceName, String endpoint,
+            HttpRequest request, ResponseDecoder<T> decoder, long timeoutMs) {
+        AdaptiveConcurrencyLimiter limiter = concurrencyLimiters.get(serviceName);
+        if (limiter != null && !limiter.tryAcquire()) {
+            return CompletableFuture.completedFuture(limitExceeded(serviceName, limiter));
+        }
+        String latencyKey = latencyKeys.get(serviceName, request.method(), endpoint);
+        LatencyHistogram latency = latencyHistogram(latencyKey);
+        long startNanos = System.nanoTime();
+        ServiceHealth health = serviceHealthMap.computeIfAbsent(serviceName, ServiceHealth::new);
+        
+        log.debug("Monitoring async API call to {}: {} {}", serviceName, request.method(), endpoint);
+        
+        CompletableFuture<HttpResponse<byte[]>> exchange = getHttpClient(serviceName)
+                .sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        CompletableFuture<CommunicationResult<T>> result = exchange
+                .handle((response, ex) -> {
+                    if (ex != null) {
+                        Throwable cause = unwrap(ex);
+                        if (cause instanceof CancellationException) {
+                            // Cancelled by our caller: the service did nothing wrong, and nobody reads the result
+                            return null;
+                        }
+                        return handleFailure(serviceName, endpoint, health, cause, timeoutMs, startNanos);
+                    }
+                    try {
+                        return handleResponse(serviceName, endpoint, health, response, decoder, startNanos);
+                    } catch (Exception readFailure) {
+                        return handleFailure(serviceName, endpoint, health, readFailure, timeoutMs, startNanos);
+                    }
+                });
+        
+        // A cancelled caller (e.g. the losing side of a hedge) aborts the exchange
+        CancellableFutures.propagateCancellation(result, exchange);
+        result.whenComplete((value, ex) -> onCallComplete(limiter, latencyKey, latency, value, startNanos));
+        return result;
+    }
+    
+    private <T> ResponseDecoder<T> jsonDecoder(Class<T> responseType) {
+        return (body, format) -> (format == WireFormat.SMILE ? smileMapper : objectMapper).readValue(body, responseType);
+    }
+    
+    private <T> CommunicationResult<T> limitExceeded(String serviceName, AdaptiveConcurrencyLimiter limiter) {
+        serviceHealthMap.computeIfAbsent(serviceName, ServiceHealth::new)
+                .getFailureTelemetry().recordFailure(CommunicationFailureType.LIMIT_EXCEEDED);
+        log.debug("Rejected call to {}: concurrency limit {} reached", serviceName, limiter.getLimit());
+        return CommunicationResult.limitExceeded("Concurrency limit of " + limiter.getLimit()
+                + " in-flight calls reached for " + serviceName);
+    }
+    
+    /**
+     * Record the latency of a finished call, add it to the trace being recorded and feed its
+     * outcome back to the limiter. Calls that ended without a result, e.g. cancelled hedges,
+     * are not recorded.
+     */
+    private void onCallComplete(AdaptiveConcurrencyLimiter limiter, String latencyKey, LatencyHistogram latency,
+            CommunicationResult<?> result, long startNanos) {
+        long rttNanos = System.nanoTime() - startNanos;
+        if (result != null) {
+            latency.record(rttNanos);
+            LatencyTrace.Recorder recorder = traceRecorder;
+            if (recorder != null) {
+                recorder.record(latencyKey, startNanos, rttNanos, result);
+            }
+        }
+        if (limiter != null) {
+            releaseConcurrencySlot(limiter, result, rttNanos);
+        }
+    }
+    
+    /**
+     * Feed the outcome of a call back to its limiter. Timeouts and connection errors mean
+     * the service is overloaded or gone; cancelled calls say nothing about it.
+     */
+    private static void releaseConcurrencySlot(AdaptiveConcurrencyLimiter limiter, CommunicationResult<?> result,
+            long rttNanos) {
+        if (result == null) {
+            limiter.onIgnore();
+        } else if (result.isTimeout() || result.isConnectionError()) {
+            limiter.onDropped();
+        } else {
+            limiter.onSuccess(rttNanos);
+        }
+    }
+    
+    private LatencyHistogram latencyHistogram(String latencyKey) {
+        return latencyHistograms.computeIfAbsent(latencyKey, key -> new LatencyHistogram());
+    }
+    
+    /**
+     * Key calls by endpoint template rather than URL, so {@code /users/42/bookings} and
+     * {@code /users/43/bookings} share one histogram: the scheme, host and query are dropped
+     * and numeric path segments become {@code {id}}
+     */
+    static String latencyKey(String serviceName, String method, String endpoint) {
+        return LatencyKeys.build(serviceName, method, endpoint);
+    }
+    
+    static String percentileLabel(double percentile) {
+        return "p" + BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString();
+    }
+    
+    private <T> CommunicationResult<T> handleResponse(String serviceName, String endpoint, ServiceHealth health,
+            HttpResponse<byte[]> response, ResponseDecoder<T> decoder, long startNanos) throws IOException {
+        Duration responseTime = elapsedSince(startNanos);
+        
+        if (response.statusCode() >= 400) {
+            String error = "HTTP " + response.statusCode();
+            recordApiCallFailure(health, endpoint, error);
+            updateHealthStatus(health, false, responseTime, error);
+            return CommunicationResult.failure("API call failed: " + error, responseTime);
+        }
+        
+        // Update health status
+        updateHealthStatus(health, true, responseTime, null);
+        
+        // Validate response data
+        byte[] body = response.body();
+        if (body == null || body.length == 0) {
+            recordDataExchangeFailure(health, "Empty response body received");
+            return CommunicationResult.dataValidationError("Empty response body", responseTime);
+        }
+        
+        T data;
+        try {
+            data = decoder.decode(body, WireFormat.fromContentType(response.headers().firstValue("Content-Type").orElse(null)));
+        } catch (JsonProcessingException ex) {
+            recordDataExchangeFailure(health, "Unreadable response body: " + ex.getOriginalMessage());
+            return CommunicationResult.dataValidationError("Invalid response body: " + ex.getOriginalMessage(), responseTime);
+        }
+        
+        health.getFailureTelemetry().recordSuccess();
+        log.info("Successful API call to {} in {}ms", serviceName, responseTime.toMillis());
+        return CommunicationResult.success(data, responseTime);
+    }
+    
+    private <T> CommunicationResult<T> handleFailure(String serviceName, String endpoint, ServiceHealth health,
+            Throwable ex, long timeoutMs, long startNanos) {
+        Duration responseTime = elapsedSince(startNanos);
+        
+        if (ex instanceof HttpTimeoutException) {
+            recordTimeoutFailure(health, endpoint, timeoutMs);
+            updateHealthStatus(health, false, responseTime, "Timeout after " + timeoutMs + "ms");
+            return CommunicationResult.timeout("Request timeout after " + timeoutMs + "ms", responseTime);
+        }
+        
+        if (ex instanceof IOException) {
+            // ConnectException and friends often carry no message
+            String error = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+            recordConnectionFailure(health, endpoint, error);
+            updateHealthStatus(health, false, responseTime, error);
+            return CommunicationResult.connectionError("Connection failed: " + error, responseTime);
+        }
+        
+        recordApiCallFailure(health, endpoint, ex.getMessage());
+        updateHealthStatus(health, false, responseTime, ex.getMessage());
+        return CommunicationResult.failure("API call failed: " + ex.getMessage(), responseTime);
+    }
+    
+    /**
+     * Get the pooled HTTP client for a service, creating one with default settings if the
+     * service was never registered
+     */
+    public DownstreamHttpClient getHttpClient(String serviceName) {
+        return httpClients.computeIfAbsent(serviceName, name -> new DownstreamHttpClient(
+                name, DEFAULT_MAX_CONNECTIONS, DEFAULT_CONNECT_TIMEOUT));
+    }
+    
+    /**
+     * Get connection pool metrics for all registered downstream services
+     */
+    public Map<String, DownstreamHttpClient.PoolMetrics> getConnectionPoolMetrics() {
+        Map<String, DownstreamHttpClient.PoolMetrics> metrics = new TreeMap<>();
+        httpClients.forEach((name, client) -> metrics.put(name, client.getMetrics()));
+        return metrics;
+    }
+    
     /**
      * Check service health
      */
     public boolean isServiceHealthy(String serviceName) {
         ServiceHealth health = serviceHealthMap.get(serviceName);
-        return health != null && health.isHealthy() && 
+        CircuitBreaker breaker = circuitBreakers.get(serviceName);
+        if (breaker != null && breaker.getState() == CircuitBreaker.State.OPEN) {
+            return false;
+        }
+        if (health == null) {
+            return false;
+        }
+        // Mostly failing calls mean trouble even when an occasional success resets the streak
+        FailureTelemetry.Snapshot recent = health.getFailureTelemetry().snapshot(HEALTH_WINDOW);
+        if (recent.getCalls() >= HEALTH_MIN_CALLS && recent.getErrorRate() >= UNHEALTHY_ERROR_RATE) {
+            return false;
+        }
+        // Whichever signal is fresher decides: a probe sent after the last call, or the calls
+        LocalDateTime probedAt = health.getLastProbeTime();
+        if (probedAt != null && probedAt.isAfter(health.getLastCheckTime())) {
+            return health.isProbeHealthy() &&
+                   Duration.between(probedAt, LocalDateTime.now()).toMinutes() < 5;
+        }
+        return health.isHealthy() && 
                Duration.between(health.getLastCheckTime(), LocalDateTime.now()).toMinutes() < 5;
     }
     
+    /**
+     * Send an active health probe and record the result in the service's {@link ServiceHealth}.
+     * Probes bypass the concurrency limiter and circuit breaker, and are kept out of the
+     * failure telemetry, latency histograms and traces, which describe real traffic.
+     * After {@code failureThreshold} failed probes in a row the service is unhealthy and its
+     * breaker opens; a successful probe lets an open breaker test the service again at once.
+     *
+     * @return whether the probe succeeded
+     */
+    public CompletableFuture<Boolean> probe(String serviceName, String url, int timeoutMs, int failureThreshold) {
+        ServiceHealth health = serviceHealthMap.computeIfAbsent(serviceName, ServiceHealth::new);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        long startNanos = System.nanoTime();
+        
+        // An instance of a balanced service is probed over the service's own pool
+        return getHttpClient(LoadBalancer.serviceOf(serviceName)).sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, ex) -> {
+                    String error = null;
+                    if (ex != null) {
+                        Throwable cause = unwrap(ex);
+                        error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+                    } else if (response.statusCode() >= 400) {
+                        error = "HTTP " + response.statusCode();
+                    }
+                    recordProbe(health, error, elapsedSince(startNanos), failureThreshold);
+                    return error == null;
+                });
+    }
+    
+    private void recordProbe(ServiceHealth health, String error, Duration responseTime, int failureThreshold) {
+        String serviceName = LoadBalancer.serviceOf(health.getServiceName());
+        boolean instance = !serviceName.equals(health.getServiceName());
+        health.setLastProbeTime(LocalDateTime.now());
+        health.setProbeResponseTime(responseTime);
+        // Instances of a balanced service have no breaker of their own; the service's is fed below
+        CircuitBreaker breaker = instance ? null : circuitBreakers.get(serviceName);
+        
+        if (error == null) {
+            health.setProbeHealthy(true);
+            health.setConsecutiveProbeFailures(0);
+            health.setLastProbeError(null);
+            if (breaker != null) {
+                breaker.onProbeSuccess();
+            }
+        } else {
+            int failures = health.getConsecutiveProbeFailures() + 1;
+            health.setConsecutiveProbeFailures(failures);
+            health.setLastProbeError(error);
+            if (failures >= failureThreshold) {
+                health.setProbeHealthy(false);
+            }
+            // Open once per outage, so a broken health endpoint cannot keep reopening a breaker
+            // that real calls have since closed
+            if (failures == failureThreshold) {
+                log.warn("Health probe to {} failed {} times in a row: {}", health.getServiceName(), failures, error);
+                if (breaker != null) {
+                    breaker.forceOpen();
+                }
+            }
+        }
+        
+        if (instance) {
+            recordInstanceProbe(serviceName, error, responseTime);
+        }
+    }
+    
+    /**
+     * Roll the probes of a balanced service's instances up into the service's own health and
+     * breaker: the service is up while any instance passes its probes, and down, with its
+     * breaker opened, once every instance fails them
+     */
+    private void recordInstanceProbe(String serviceName, String error, Duration responseTime) {
+        LoadBalancer balancer = loadBalancers.get(serviceName);
+        if (balancer == null) {
+            return;
+        }
+        ServiceHealth service = serviceHealthMap.computeIfAbsent(serviceName, ServiceHealth::new);
+        CircuitBreaker breaker = circuitBreakers.get(serviceName);
+        synchronized (service) {
+            boolean anyHealthy = false;
+            for (LoadBalancer.Instance instance : balancer.getInstances()) {
+                ServiceHealth health = serviceHealthMap.get(instance.getId());
+                // An instance not probed yet counts as up, as a service does
+                anyHealthy |= health == null || health.isProbeHealthy();
+            }
+            boolean wasHealthy = service.isProbeHealthy();
+            service.setLastProbeTime(LocalDateTime.now());
+            service.setProbeResponseTime(responseTime);
+            service.setProbeHealthy(anyHealthy);
+            if (anyHealthy) {
+                service.setConsecutiveProbeFailures(0);
+                service.setLastProbeError(null);
+            } else {
+                service.setConsecutiveProbeFailures(service.getConsecutiveProbeFailures() + 1);
+                service.setLastProbeError(error);
+            }
+            
+            if (breaker == null) {
+                return;
+            }
+            if (error == null) {
+                breaker.onProbeSuccess();
+            } else if (wasHealthy && !anyHealthy) {
+                log.warn("Health probes to every instance of {} are failing: {}", serviceName, error);
+                breaker.forceOpen();
+            }
+        }
+    }
+    
     /**
      * Get service health status
      */
@@ -126,49 +914,44 @@ public class ServiceCommunicationMonitor {
     /**
      * Record API call failure
      */
-    private void recordApiCallFailure(String serviceName, String endpoint, String error) {
-        AtomicInteger counter = failureCounters.computeIfAbsent(serviceName + ":api_failure", k -> new AtomicInteger(0));
-        int failures = counter.incrementAndGet();
-        
-        log.error("API call failure #{} to service {}: {} - Error: {}", failures, serviceName, endpoint, error);
-        
-        if (failures > 5) {
-            log.warn("Service {} has exceeded failure threshold with {} API call failures", serviceName, failures);
-        }
+    private void recordApiCallFailure(ServiceHealth health, String endpoint, String error) {
+        health.getFailureTelemetry().recordFailure(CommunicationFailureType.API_ERROR);
+        log.error("API call failure to service {}: {} - Error: {}", health.getServiceName(), endpoint, error);
     }
     
     /**
      * Record timeout failure
      */
-    private void recordTimeoutFailure(String serviceName, String endpoint, int timeoutMs) {
-        AtomicInteger counter = failureCounters.computeIfAbsent(serviceName + ":timeout", k -> new AtomicInteger(0));
-        int timeouts = counter.incrementAndGet();
-        
-        log.error("Timeout failure #{} to service {}: {} after {}ms", timeouts, serviceName, endpoint, timeoutMs);
-        
-        if (timeouts > 3) {
-            log.warn("Service {} has excessive timeouts: {} timeout failures", serviceName, timeouts);
-        }
+    private void recordTimeoutFailure(ServiceHealth health, String endpoint, long timeoutMs) {
+        health.getFailureTelemetry().recordFailure(CommunicationFailureType.TIMEOUT);
+        log.error("Timeout failure to service {}: {} after {}ms", health.getServiceName(), endpoint, timeoutMs);
     }
     
     /**
      * Record connection failure
      */
-    private void recordConnectionFailure(String serviceName, String endpoint, String error) {
-        AtomicInteger counter = failureCounters.computeIfAbsent(serviceName + ":connection", k -> new AtomicInteger(0));
-        int failures = counter.incrementAndGet();
-        
-        log.error("Connection failure #{} to service {}: {} - Error: {}", failures, serviceName, endpoint, error);
+    private void recordConnectionFailure(ServiceHealth health, String endpoint, String error) {
+        health.getFailureTelemetry().recordFailure(CommunicationFailureType.CONNECTION_ERROR);
+        log.error("Connection failure to service {}: {} - Error: {}", health.getServiceName(), endpoint, error);
     }
     
     /**
      * Record data exchange failure
      */
-    private void recordDataExchangeFailure(String serviceName, String reason) {
-        AtomicInteger counter = failureCounters.computeIfAbsent(serviceName + ":data_exchange", k -> new AtomicInteger(0));
-        int failures = counter.incrementAndGet();
-        
-        log.error("Data exchange failure #{} with service {}: {}", failures, serviceName, reason);
+    private void recordDataExchangeFailure(ServiceHealth health, String reason) {
+        health.getFailureTelemetry().recordFailure(CommunicationFailureType.DATA_VALIDATION_ERROR);
+        log.error("Data exchange failure with service {}: {}", health.getServiceName(), reason);
+    }
+    
+    private static Throwable unwrap(Throwable ex) {
+        while ((ex instanceof CompletionException || ex instanceof ExecutionException) && ex.getCause() != null) {
+            ex = ex.getCause();
+        }
+        return ex;
+    }
+    
+    private static Duration elapsedSince(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos);
     }
     
     /**
@@ -194,19 +977,56 @@ public class ServiceCommunicationMonitor {
     }
     
     /**
-     * Get failure report for all services
+     * Get call outcomes and error rate over the last {@code windowSeconds} for all services,
+     * with failure totals since the last reset
      */
-    public Map<String, Integer> getFailureReport() {
-        Map<String, Integer> report = new ConcurrentHashMap<>();
-        failureCounters.forEach((key, counter) -> report.put(key, counter.get()));
+    public Map<String, Map<String, Object>> getFailureReport(int windowSeconds) {
+        Duration window = Duration.ofSeconds(windowSeconds);
+        Map<String, Map<String, Object>> report = new TreeMap<>();
+        serviceHealthMap.forEach((name, health) -> {
+            FailureTelemetry telemetry = health.getFailureTelemetry();
+            FailureTelemetry.Snapshot recent = telemetry.snapshot(window);
+            FailureTelemetry.Snapshot totals = telemetry.totals();
+            report.put(name, Map.of(
+                    "windowSeconds", Math.min(windowSeconds, telemetry.getMaxWindow().toSeconds()),
+                    "calls", recent.getCalls(),
+                    "failures", recent.getFailures(),
+                    "errorRate", recent.getErrorRate(),
+                    "failuresByType", recent.getCountsByType(),
+                    "totalCalls", totals.getCalls(),
+                    "totalFailuresByType", totals.getCountsByType()
+            ));
+        });
         return report;
     }
     
+    /**
+     * Get the outcome telemetry of a service, which its circuit breaker reads from
+     */
+    public FailureTelemetry getFailureTelemetry(String serviceName) {
+        return serviceHealthMap.computeIfAbsent(serviceName, ServiceHealth::new).getFailureTelemetry();
+    }
+    
+    /**
+     * Record an outcome that was produced without calling the service through this monitor,
+     * e.g. a simulated failure
+     */
+    public void recordOutcome(String serviceName, CommunicationResult<?> result) {
+        getFailureTelemetry(serviceName).record(result);
+    }
+    
     /**
      * Reset failure counters for a service
      */
     public void resetFailureCounters(String serviceName) {
-        failureCounters.entrySet().removeIf(entry -> entry.getKey().startsWith(serviceName + ":"));
+        ServiceHealth health = serviceHealthMap.get(serviceName);
+        if (health != null) {
+            health.getFailureTelemetry().reset();
+        }
+        CircuitBreaker breaker = circuitBreakers.get(serviceName);
+        if (breaker != null) {
+            breaker.reset();
+        }
         log.info("Reset failure counters for service: {}", serviceName);
     }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package com.travelhub.user.communication;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight request coalescing.
+ * 
+ * Concurrent callers asking for the same key share one outstanding call and receive the
+ * same result, including failures. The key is released as soon as the call completes, so
+ * the next caller after that starts a fresh call. Shared results must be treated as read-only.
+ * Once every caller has cancelled, nobody wants the result and the shared call is cancelled too.
+ */
+public class SingleFlight<K, T> {
+    
+    private final String name;
+    private final Map<K, Flight<T>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder coalescedCalls = new LongAdder();
+    
+    /**
+     * One shared call and the number of callers still waiting for it
+     */
+    private static final class Flight<T> {
+        private final CompletableFuture<T> shared = new CompletableFuture<>();
+        // Starts at one for the caller that starts the call
+        private final AtomicInteger callers = new AtomicInteger(1);
+        private volatile CompletableFuture<T> call;
+        
+        /**
+         * Add a caller, unless every caller has already left and the call is being cancelled
+         */
+        boolean join() {
+            while (true) {
+                int current = callers.get();
+                if (current == 0) {
+                    return false;
+                }
+                if (callers.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+        
+        CompletableFuture<T> follow() {
+            CompletableFuture<T> follower = shared.thenApply(result -> result);
+            follower.whenComplete((result, ex) -> {
+                if (follower.isCancelled() && callers.decrementAndGet() == 0) {
+                    call.cancel(true);
+                }
+            });
+            return follower;
+        }
+    }
+    
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Join the outstanding call for {@code key}, or start one with {@code call}.
+     * Cancelling the returned future detaches this caller; the shared call is cancelled
+     * once no caller is left.
+     */
+    public CompletableFuture<T> execute(K key, Supplier<CompletableFuture<T>> call) {
+        calls.increment();
+        
+        Flight<T> flight = new Flight<>();
+        while (true) {
+            Flight<T> existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                break;
+            }
+            if (existing.join()) {
+                coalescedCalls.increment();
+                return existing.follow();
+            }
+            // Abandoned by all its callers: start a fresh call instead
+            inFlight.remove(key, existing);
+        }
+        
+        CompletableFuture<T> leader;
+        try {
+            leader = call.get();
+        } catch (RuntimeException ex) {
+            inFlight.remove(key, flight);
+            flight.shared.completeExceptionally(ex);
+            throw ex;
+        }
+        flight.call = leader;
+        
+        leader.whenComplete((result, ex) -> {
+            // Release the key first so nobody joins a call that has already finished
+            inFlight.remove(key, flight);
+            if (ex != null) {
+                flight.shared.completeExceptionally(ex);
+            } else {
+                flight.shared.complete(result);
+            }
+        });
+        return flight.follow();
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public long getCalls() {
+        return calls.sum();
+    }
+    
+    public long getCoalescedCalls() {
+        return coalescedCalls.sum();
+    }
+    
+    public int getInFlightKeys() {
+        return inFlight.size();
+    }
+    
+    /**
+     * Share of calls that were served by another caller's request, as a percentage
+     */
+    public double getCoalescingRatio() {
+        long total = calls.sum();
+        return total == 0 ? 0.0 : coalescedCalls.sum() * 100.0 / total;
+    }
+}
@@ -0,0 +1,149 @@
+package com.travelhub.user.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Booking Service client configuration
+ * Binds the services.booking-service block used by BookingServiceClient
+ */
+@Configuration
+@ConfigurationProperties(prefix = "services.booking-service")
+@Data
+public class BookingServiceProperties {
+    
+    private String url = "http://localhost:8082";
+    // Instances of a horizontally scaled booking-service; when empty, url is the only instance
+    private List<String> urls = new ArrayList<>();
+    private int timeout = 2000; // milliseconds, per call including its retries and hedges
+    // Ask for Smile responses instead of JSON; booking-service answers JSON to anyone who does not ask
+    private boolean preferSmile = true;
+    
+    // Client-side balancing over the instances in urls
+    private LoadBalancerConfig loadBalancer = new LoadBalancerConfig();
+    
+    // Connection pool
+    private PoolConfig pool = new PoolConfig();
+    
+    // Adaptive limit on in-flight calls, learned from measured RTT
+    private ConcurrencyLimitConfig concurrencyLimit = new ConcurrencyLimitConfig();
+    
+    // Bulkhead bounding the calls in flight to booking-service, with a short queue
+    private BulkheadConfig bulkhead = new BulkheadConfig();
+    
+    // Circuit breaker, active while service.dna.evolution.circuit-breaker-enabled is true
+    private CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+    
+    // Retries, active while service.dna.evolution.retry-mechanism is true
+    private RetryConfig retry = new RetryConfig();
+    
+    // Request hedging for booking lookups (opt-in)
+    private HedgingConfig hedging = new HedgingConfig();
+    
+    // Share one in-flight lookup between concurrent callers for the same user
+    private boolean coalescingEnabled = true;
+    
+    // Micro-batching of booking lookups into users:batchGet calls
+    private BatchingConfig batching = new BatchingConfig();
+    
+    // In-process cache of booking lookups, invalidated when a booking is created
+    private CacheConfig cache = new CacheConfig();
+    
+    // Background probes of the health endpoint, feeding ServiceHealth and the circuit breaker
+    private HealthProbeConfig healthProbe = new HealthProbeConfig();
+    
+    /**
+     * Instances to balance over: urls, or url alone when no list is configured
+     */
+    public List<String> getInstanceUrls() {
+        return urls.isEmpty() ? List.of(url) : urls;
+    }
+    
+    @Data
+    public static class LoadBalancerConfig {
+        private long ewmaDecay = 10_000;         // milliseconds for an old latency sample to fade
+        private long slowStart = 30_000;         // milliseconds a rejoining instance ramps up over
+        private double slowStartMinWeight = 0.1; // share of full traffic at the start of the ramp
+        private int consecutiveFailures = 5;     // failed calls in a row before an instance is ejected
+        private long baseEjectionTime = 30_000;  // milliseconds, multiplied by the instance's ejection count
+        private long maxEjectionTime = 300_000;  // milliseconds
+        private int maxEjectionPercent = 50;     // of the instances, ejected at once
+    }
+    
+    @Data
+    public static class PoolConfig {
+        private int maxConnections = 50;
+        private int connectTimeout = 1000; // milliseconds
+    }
+    
+    @Data
+    public static class ConcurrencyLimitConfig {
+        private boolean enabled = true;
+        private int initialLimit = 20;
+        private int minLimit = 5;
+        private int maxLimit = 200;        // capped at pool.max-connections
+        private double rttTolerance = 1.5; // recent RTT / long-term RTT ratio tolerated before shrinking
+        private double smoothing = 0.2;
+    }
+    
+    @Data
+    public static class BulkheadConfig {
+        private boolean enabled = true;
+        private int maxConcurrentCalls = 50;
+        private int maxQueue = 50;   // calls waiting for a slot; 0 rejects as soon as all slots are taken
+        private long maxWait = 100;  // milliseconds a queued call waits for a slot
+    }
+    
+    @Data
+    public static class CircuitBreakerConfig {
+        private double failureRateThreshold = 50.0; // percentage
+        private int minimumCalls = 20;
+        private int windowSeconds = 10;
+        private long openDuration = 5000; // milliseconds
+        private int halfOpenMaxCalls = 3;
+    }
+    
+    @Data
+    public static class RetryConfig {
+        private int maxAttempts = 3;         // including the first attempt
+        private long baseDelay = 50;         // milliseconds
+        private long maxDelay = 1000;        // milliseconds
+        private double budgetPercent = 10.0; // max extra load from retries
+    }
+    
+    @Data
+    public static class HedgingConfig {
+        private boolean enabled = false;
+        private double budgetPercent = 5.0; // max extra load from hedges
+        private int minSamples = 100;       // latency samples before the p95 is trusted
+        private long minDelay = 10;         // milliseconds
+    }
+    
+    @Data
+    public static class BatchingConfig {
+        private boolean enabled = true;
+        private int maxBatchSize = 50; // distinct user ids per batch call, at most 100
+        private long maxDelay = 2;     // milliseconds the first lookup waits for company
+    }
+    
+    @Data
+    public static class CacheConfig {
+        private boolean enabled = true;
+        private long maximumSize = 10_000; // users
+        private long ttl = 30_000;         // milliseconds after the entry was written
+    }
+    
+    @Data
+    public static class HealthProbeConfig {
+        private boolean enabled = true;
+        private String path = "/api/v1/bookings/health";
+        private long interval = 5000;     // milliseconds between probes
+        private double jitter = 0.2;      // fraction of the interval, either way
+        private int timeout = 1000;       // milliseconds
+        private int failureThreshold = 2; // failed probes in a row before the service is unhealthy
+    }
+}
\ No newline at end of file
@@ -1,17 +1,31 @@
 package com.travelhub.user.controller;
 
+import com.travelhub.booking.api.UserBookings;
 import com.travelhub.user.client.BookingServiceClient;
+import com.travelhub.user.communication.CircuitBreaker;
 import com.travelhub.user.communication.CommunicationResult;
+import com.travelhub.user.communication.HealthProber;
+import com.travelhub.user.communication.LatencyTrace;
+import com.travelhub.user.communication.LoadGenerator;
 import com.travelhub.user.communication.ServiceCommunicationMonitor;
 import com.travelhub.user.communication.CommunicationFailureSimulator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Communication Monitoring Controller for demonstrating and managing inter-service communication failures
@@ -22,18 +36,29 @@ import java.util.HashMap;
 @Slf4j
 public class CommunicationMonitoringController {
     
+    private static final int MAX_LOAD_CONCURRENCY = 1000;
+    private static final int MAX_LOAD_SECONDS = 300;
+    private static final Duration LOAD_DRAIN_TIMEOUT = Duration.ofSeconds(30);
+    
     private final ServiceCommunicationMonitor communicationMonitor;
     private final CommunicationFailureSimulator failureSimulator;
     private final BookingServiceClient bookingServiceClient;
+    private final HealthProber healthProber;
     
     /**
-     * Get communication failure report for all services
+     * Get communication failure report for all services over the last {@code windowSeconds}
      */
     @GetMapping("/failures/report")
-    public ResponseEntity<Map<String, Object>> getFailureReport() {
+    public ResponseEntity<Map<String, Object>> getFailureReport(@RequestParam(defaultValue = "60") int windowSeconds) {
         log.info("Generating communication failure report");
         
-        Map<String, Integer> failureReport = communicationMonitor.getFailureReport();
+        if (windowSeconds <= 0) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "windowSeconds must be positive",
+                "windowSeconds", windowSeconds
+            ));
+        }
+        Map<String, Map<String, Object>> failureReport = communicationMonitor.getFailureReport(windowSeconds);
         
         Map<String, Object> report = new HashMap<>();
         report.put("timestamp", LocalDateTime.now());
@@ -48,14 +73,225 @@ public class CommunicationMonitoringController {
     }
     
     /**
-     * Test communication with booking service
+     * Get connection pool metrics for all downstream services
+     */
+    @GetMapping("/pools")
+    public ResponseEntity<Map<String, Object>> getConnectionPoolMetrics() {
+        return ResponseEntity.ok(Map.of(
+            "timestamp", LocalDateTime.now(),
+            "pools", communicationMonitor.getConnectionPoolMetrics()
+        ));
+    }
+    
+    /**
+     * Get circuit breaker state for all downstream services
+     */
+    @GetMapping("/circuit-breakers")
+    public ResponseEntity<Map<String, Object>> getCircuitBreakers() {
+        return ResponseEntity.ok(Map.of(
+            "timestamp", LocalDateTime.now(),
+            "circuitBreakers", communicationMonitor.getCircuitBreakerReport()
+        ));
+    }
+    
+    /**
+     * Get the latest background health probe result for each probed downstream
+     */
+    @GetMapping("/health-probes")
+    public ResponseEntity<Map<String, Object>> getHealthProbes() {
+        return ResponseEntity.ok(Map.of(
+            "timestamp", LocalDateTime.now(),
+            "healthProbes", healthProber.getReport()
+        ));
+    }
+    
+    /**
+     * Get hedge rate and win rate for hedged endpoints
+     */
+    @GetMapping("/hedging")
+    public ResponseEntity<Map<String, Object>> getHedgingReport() {
+        return ResponseEntity.ok(Map.of(
+            "timestamp", LocalDateTime.now(),
+            "hedging", communicationMonitor.getHedgingReport()
+        ));
+    }
+    
+    /**
+     * Get request coalescing metrics
+     */
+    @GetMapping("/coalescing")
+    public ResponseEntity<Map<String, Object>> getCoalescingReport() {
+        return ResponseEntity.ok(Map.of(
+            "timestamp", LocalDateTime.now(),
+            "coalescing", communicationMonitor.getCoalescingReport()
+        ));
+    }
+    
+    /**
+     * Get micro-batching metrics
+     */
+    @GetMapping("/batching")
+    public ResponseEntity<Map<String, Object>> getBatchingReport() {
+        return ResponseEntity.ok(Map.of(
+            "timestamp", LocalDateTime.now(),
+            "batching", communicationMonitor.getBatchingReport()
+        ));
+    }
+    
+    /**
+     * Get response cache hit/miss ratio and eviction counts
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheReport() {
+        return ResponseEntity.ok(Map.of(
+            "timestamp", LocalDateTime.now(),
+            "caches", communicationMonitor.getCacheReport()
+        ));
+    }
+    
+    /**
+     * Get adaptive concurrency limits, in-flight calls and rejections
+     */
+    @GetMapping("/concurrency-limits")
+    public ResponseEntity<Map<String, Object>> getConcurrencyLimits() {
+        return ResponseEntity.ok(Map.of(
+            "timestamp", LocalDateTime.now(),
+            "concurrencyLimits", communicationMonitor.getConcurrencyLimitReport()
+        ));
+    }
+    
+    /**
+     * Get bulkhead saturation, queueing and rejections per downstream
+     */
+    @GetMapping("/bulkheads")
+    public ResponseEntity<Map<String, Object>> getBulkheads() {
+        return ResponseEntity.ok(Map.of(
+            "timestamp", LocalDateTime.now(),
+            "bulkheads", communicationMonitor.getBulkheadReport()
+        ));
+    }
+    
+    /**
+     * Get per-instance load, latency, slow-start weight and ejections of the load balancers
+     */
+    @GetMapping("/load-balancers")
+    public ResponseEntity<Map<String, Object>> getLoadBalancers() {
+        return ResponseEntity.ok(Map.of(
+            "timestamp", LocalDateTime.now(),
+            "loadBalancers", communicationMonitor.getLoadBalancerReport()
+        ));
+    }
+    
+    /**
+     * Get retry counts and retry budget usage
+     */
+    @GetMapping("/retries")
+    public ResponseEntity<Map<String, Object>> getRetryReport() {
+        return ResponseEntity.ok(Map.of(
+            "timestamp", LocalDateTime.now(),
+            "retries", communicationMonitor.getRetryReport()
+        ));
+    }
+    
+    /**
+     * Get latency percentiles per service and endpoint over the last 1 and 5 minutes
+     */
+    @GetMapping("/latency")
+    public ResponseEntity<Map<String, Object>> getLatencyReport(
+            @RequestParam(defaultValue = "50,90,99,99.9") double[] percentiles) {
+        for (double percentile : percentiles) {
+            if (percentile < 0 || percentile > 100) {
+                return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Percentiles must be between 0 and 100",
+                    "percentile", percentile
+                ));
+            }
+        }
+        return ResponseEntity.ok(Map.of(
+            "timestamp", LocalDateTime.now(),
+            "latency", communicationMonitor.getLatencyReport(percentiles)
+        ));
+    }
+    
+    /**
+     * Start recording downstream calls into a latency trace
+     */
+    @PostMapping("/trace/start")
+    public ResponseEntity<Map<String, Object>> startTraceRecording(
+            @RequestParam(defaultValue = "100000") int maxCalls) {
+        try {
+            communicationMonitor.startTraceRecording(maxCalls);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok(Map.of(
+            "timestamp", LocalDateTime.now(),
+            "trace", communicationMonitor.getTraceStatus()
+        ));
+    }
+    
+    /**
+     * Stop recording and keep the trace for download and replay
+     */
+    @PostMapping("/trace/stop")
+    public ResponseEntity<Map<String, Object>> stopTraceRecording() {
+        communicationMonitor.stopTraceRecording();
+        return ResponseEntity.ok(Map.of(
+            "timestamp", LocalDateTime.now(),
+            "trace", communicationMonitor.getTraceStatus()
+        ));
+    }
+    
+    /**
+     * Whether a trace is being recorded, and what the last trace holds
+     */
+    @GetMapping("/trace/status")
+    public ResponseEntity<Map<String, Object>> getTraceStatus() {
+        return ResponseEntity.ok(Map.of(
+            "timestamp", LocalDateTime.now(),
+            "trace", communicationMonitor.getTraceStatus()
+        ));
+    }
+    
+    /**
+     * Download the last recorded trace in its binary form
+     */
+    @GetMapping(value = "/trace", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> downloadTrace() throws IOException {
+        LatencyTrace trace = communicationMonitor.getLastTrace();
+        if (trace == null) {
+            return ResponseEntity.notFound().build();
+        }
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        trace.writeTo(file);
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=\"latency-trace.bin\"")
+                .body(file.toByteArray());
+    }
+    
+    /**
+     * Test communication with booking service. The request thread is not held while the call
+     * runs, and if the request times out or the connection fails, the outbound call is cancelled.
      */
     @GetMapping("/test/booking-service/{userId}")
-    public ResponseEntity<Map<String, Object>> testBookingServiceCommunication(@PathVariable Long userId) {
+    public DeferredResult<ResponseEntity<Map<String, Object>>> testBookingServiceCommunication(@PathVariable Long userId) {
         log.info("Testing communication with booking service for user: {}", userId);
         
-        CommunicationResult<Map> result = bookingServiceClient.getUserBookings(userId);
-        
+        DeferredResult<ResponseEntity<Map<String, Object>>> deferred = new DeferredResult<>();
+        CompletableFuture<CommunicationResult<UserBookings>> call = bookingServiceClient.getUserBookingsAsync(userId);
+        deferred.onTimeout(() -> call.cancel(true));
+        deferred.onError(ex -> call.cancel(true));
+        call.whenComplete((result, ex) -> {
+            if (ex != null) {
+                deferred.setErrorResult(ex);
+            } else {
+                deferred.setResult(bookingTestResponse(userId, result));
+            }
+        });
+        return deferred;
+    }
+    
+    private ResponseEntity<Map<String, Object>> bookingTestResponse(Long userId, CommunicationResult<UserBookings> result) {
         Map<String, Object> response = new HashMap<>();
         response.put("timestamp", LocalDateTime.now());
         response.put("userId", userId);
@@ -152,6 +388,127 @@ public class CommunicationMonitoringController {
         ));
     }
     
+    /**
+     * Simulate slow responses with delays drawn from a latency distribution
+     */
+    @PostMapping("/simulate/latency/{serviceName}")
+    public ResponseEntity<Map<String, Object>> simulateLatency(
+            @PathVariable String serviceName,
+            @RequestParam(defaultValue = "LOG_NORMAL") CommunicationFailureSimulator.LatencyDistribution distribution,
+            @RequestParam(defaultValue = "100") int delayMs,
+            @RequestParam(defaultValue = "0.5") double sigma,
+            @RequestParam(defaultValue = "1.5") double paretoAlpha,
+            @RequestParam(defaultValue = "0") int slowDelayMs,
+            @RequestParam(defaultValue = "0.0") double slowProbability) {
+        
+        if (delayMs < 0 || sigma < 0 || paretoAlpha <= 0 || slowDelayMs < 0
+                || slowProbability < 0 || slowProbability > 1) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Delays and sigma must not be negative, paretoAlpha must be positive and slowProbability between 0 and 1"
+            ));
+        }
+        
+        log.warn("Enabling {} latency simulation for service {} around {}ms", distribution, serviceName, delayMs);
+        
+        CommunicationFailureSimulator.FailureConfiguration config = failureSimulator.getFailureConfiguration(serviceName);
+        if (config == null) {
+            config = new CommunicationFailureSimulator.FailureConfiguration();
+        }
+        config.setLatencySigma(sigma);
+        config.setParetoAlpha(paretoAlpha);
+        config.setSlowDelayMs(slowDelayMs);
+        config.setSlowProbability(slowProbability);
+        config.setLatencyDistribution(distribution);
+        config.setArtificialDelayMs(delayMs);
+        config.setEnabled(true);
+        failureSimulator.configureFailures(serviceName, config);
+        
+        return ResponseEntity.ok(Map.of(
+            "message", "Latency simulation enabled",
+            "serviceName", serviceName,
+            "distribution", distribution,
+            "delayMs", delayMs,
+            "seed", config.getSeed(),
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+    
+    /**
+     * Restart a service's simulation from a fixed seed, so a run can be repeated exactly
+     */
+    @PostMapping("/simulate/seed/{serviceName}")
+    public ResponseEntity<Map<String, Object>> seedFailureSimulation(
+            @PathVariable String serviceName,
+            @RequestParam long seed) {
+        
+        failureSimulator.setSeed(serviceName, seed);
+        
+        return ResponseEntity.ok(Map.of(
+            "message", "Failure simulation seeded",
+            "serviceName", serviceName,
+            "seed", seed,
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+    
+    /**
+     * Replay a recorded latency trace as the fault and latency model for a service. Takes a
+     * trace file as the request body, or uses the last trace recorded here when there is none.
+     */
+    @PostMapping("/simulate/replay/{serviceName}")
+    public ResponseEntity<Map<String, Object>> replayLatencyTrace(
+            @PathVariable String serviceName,
+            @RequestParam(defaultValue = "1.0") double speed,
+            @RequestParam(defaultValue = "false") boolean loop,
+            @RequestBody(required = false) byte[] traceFile) {
+        
+        LatencyTrace trace;
+        if (traceFile != null && traceFile.length > 0) {
+            try {
+                trace = LatencyTrace.readFrom(new ByteArrayInputStream(traceFile));
+            } catch (IOException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid trace file: " + e.getMessage()));
+            }
+        } else {
+            trace = communicationMonitor.getLastTrace();
+            if (trace == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "No trace given and none recorded"));
+            }
+        }
+        
+        int calls;
+        try {
+            calls = failureSimulator.replayTrace(serviceName, trace, speed, loop);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        log.warn("Replaying latency trace for service {} at {}x speed", serviceName, speed);
+        
+        return ResponseEntity.ok(Map.of(
+            "message", "Trace replay started",
+            "serviceName", serviceName,
+            "recordedCalls", calls,
+            "traceStartedAt", trace.getStartedAt().toString(),
+            "replaySeconds", trace.getDuration().toMillis() / 1000.0 / speed,
+            "loop", loop,
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+    
+    /**
+     * Stop replaying a latency trace
+     */
+    @DeleteMapping("/simulate/replay/{serviceName}")
+    public ResponseEntity<Map<String, Object>> stopTraceReplay(@PathVariable String serviceName) {
+        failureSimulator.stopReplay(serviceName);
+        
+        return ResponseEntity.ok(Map.of(
+            "message", "Trace replay stopped",
+            "serviceName", serviceName,
+            "timestamp", LocalDateTime.now()
+        ));
+    }
+    
     /**
      * Create realistic failure scenario
      */
@@ -164,7 +521,7 @@ public class CommunicationMonitoringController {
         return ResponseEntity.ok(Map.of(
             "message", "Realistic failure scenario created",
             "serviceName", serviceName,
-            "description", "5% timeout, 2% connection failure, 3% API error, 1% data corruption",
+            "description", "5% timeout, 2% connection failure, 3% API error, 1% data corruption, log-normal delay with 100ms median",
             "timestamp", LocalDateTime.now()
         ));
     }
@@ -181,7 +538,7 @@ public class CommunicationMonitoringController {
         return ResponseEntity.ok(Map.of(
             "message", "Stress test scenario created",
             "serviceName", serviceName,
-            "description", "20% timeout, 15% connection failure, 10% API error, 5% data corruption",
+            "description", "20% timeout, 15% connection failure, 10% API error, 5% data corruption, 500ms delay with 10% of calls near 2s",
             "timestamp", LocalDateTime.now()
         ));
     }
@@ -219,42 +576,47 @@ public class CommunicationMonitoringController {
     }
     
     /**
-     * Test multiple calls to demonstrate failures
+     * Put load on a service and report throughput, latency percentiles and failures.
+     * Closed-loop with {@code concurrency} calls in flight, or open-loop at {@code targetRps}
+     * calls per second (at most {@code concurrency} in flight). The measurement phase stops
+     * after {@code numberOfCalls} calls or {@code durationSeconds}, whichever comes first.
      */
     @PostMapping("/test/batch/{serviceName}")
     public ResponseEntity<Map<String, Object>> testBatchCommunication(
             @PathVariable String serviceName,
-            @RequestParam(defaultValue = "10") int numberOfCalls) {
-        
-        log.info("Testing batch communication with {} - {} calls", serviceName, numberOfCalls);
-        
-        Map<String, Integer> results = new HashMap<>();
-        results.put("successful", 0);
-        results.put("timeouts", 0);
-        results.put("connectionErrors", 0);
-        results.put("apiErrors", 0);
-        results.put("dataErrors", 0);
-        
-        for (int i = 0; i < numberOfCalls; i++) {
-            CommunicationResult<Map> result = bookingServiceClient.getUserBookings((long) (i + 1));
-            
-            if (result.isSuccessful()) {
-                results.put("successful", results.get("successful") + 1);
-            } else if (result.isTimeout()) {
-                results.put("timeouts", results.get("timeouts") + 1);
-            } else if (result.isConnectionError()) {
-                results.put("connectionErrors", results.get("connectionErrors") + 1);
-            } else if (result.isApiError()) {
-                results.put("apiErrors", results.get("apiErrors") + 1);
-            } else if (result.isDataValidationError()) {
-                results.put("dataErrors", results.get("dataErrors") + 1);
-            }
+            @RequestParam(defaultValue = "10") int numberOfCalls,
+            @RequestParam(defaultValue = "10") int concurrency,
+            @RequestParam(defaultValue = "0") double targetRps,
+            @RequestParam(defaultValue = "0") int warmupSeconds,
+            @RequestParam(defaultValue = "10") int durationSeconds,
+            @RequestParam(defaultValue = "100") int users) {
+        
+        if (numberOfCalls < 0 || concurrency <= 0 || concurrency > MAX_LOAD_CONCURRENCY
+                || targetRps < 0 || warmupSeconds < 0 || durationSeconds <= 0
+                || warmupSeconds + durationSeconds > MAX_LOAD_SECONDS || users <= 0) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Invalid load parameters",
+                "limits", "concurrency 1-" + MAX_LOAD_CONCURRENCY + ", warmup + duration at most "
+                    + MAX_LOAD_SECONDS + "s, numberOfCalls 0 (no limit) or more"
+            ));
+        }
+        
+        log.info("Load testing {} - {} calls, concurrency {}, target {} rps, warmup {}s, duration {}s",
+                serviceName, numberOfCalls, concurrency, targetRps, warmupSeconds, durationSeconds);
+        
+        LoadGenerator generator = new LoadGenerator(concurrency, targetRps, Duration.ofSeconds(warmupSeconds),
+                Duration.ofSeconds(durationSeconds), numberOfCalls, LOAD_DRAIN_TIMEOUT);
+        LoadGenerator.Report report;
+        try {
+            report = generator.run(n -> bookingServiceClient.getUserBookingsAsync(n % users + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Load test interrupted"));
         }
         
         return ResponseEntity.ok(Map.of(
             "serviceName", serviceName,
-            "numberOfCalls", numberOfCalls,
-            "results", results,
+            "results", report.toMap(50, 90, 99, 99.9),
             "timestamp", LocalDateTime.now()
         ));
     }
@@ -266,12 +628,17 @@ public class CommunicationMonitoringController {
             return Map.of("status", "UNKNOWN", "message", "No health data available");
         }
         
-        return Map.of(
-            "status", health.isHealthy() ? "HEALTHY" : "UNHEALTHY",
-            "lastCheckTime", health.getLastCheckTime(),
-            "responseTime", health.getResponseTime() != null ? health.getResponseTime().toMillis() : null,
-            "consecutiveFailures", health.getConsecutiveFailures(),
-            "lastError", health.getLastError()
-        );
+        CircuitBreaker breaker = communicationMonitor.getCircuitBreaker(serviceName);
+        
+        // Not Map.of: responseTime and lastError are null until a first response and after a success
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("status", health.isHealthy() ? "HEALTHY" : "UNHEALTHY");
+        status.put("errorRate", health.getFailureTelemetry().snapshot(Duration.ofMinutes(1)).getErrorRate());
+        status.put("circuitState", breaker != null ? breaker.getState().name() : "NONE");
+        status.put("lastCheckTime", health.getLastCheckTime());
+        status.put("responseTime", health.getResponseTime() != null ? health.getResponseTime().toMillis() : null);
+        status.put("consecutiveFailures", health.getConsecutiveFailures());
+        status.put("lastError", health.getLastError());
+        return status;
     }
 }
\ No newline at end of file
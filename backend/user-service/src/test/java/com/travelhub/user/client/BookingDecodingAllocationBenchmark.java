@@ -0,0 +1,94 @@
+package com.travelhub.user.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travelhub.booking.api.BookingJsonCodec;
+import com.travelhub.booking.api.UserBookings;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Allocation per decoded booking response: generic {@code Map.class} binding, as the client
+ * used to do, against the streaming {@link BookingJsonCodec}. Allocation is read from the
+ * JVM's per-thread allocation counter, so no profiler or JMH harness is needed.
+ *
+ * Run with: ./gradlew :user-service:benchmark
+ */
+@Tag("benchmark")
+class BookingDecodingAllocationBenchmark {
+    
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final byte[] response = userBookingsJson(2);
+    private final byte[] largeResponse = userBookingsJson(20);
+    
+    @Test
+    void compareAllocationPerResponse() throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeAllocationCounter(threads);
+        
+        for (byte[] body : new byte[][] {response, largeResponse}) {
+            // Both decoders must agree before their cost is compared
+            Map<?, ?> map = objectMapper.readValue(body, Map.class);
+            UserBookings typed = BookingJsonCodec.readUserBookings(body);
+            assertEquals(((Number) map.get("userId")).longValue(), typed.userId());
+            assertEquals(((java.util.List<?>) map.get("bookings")).size(), typed.bookings().size());
+            
+            long mapBytes = measure(threads, () -> objectMapper.readValue(body, Map.class));
+            long typedBytes = measure(threads, () -> BookingJsonCodec.readUserBookings(body));
+            
+            System.out.printf("%d bookings, %d byte response%n", typed.bookings().size(), body.length);
+            System.out.printf("  Map.class          : %6d bytes allocated/response%n", mapBytes);
+            System.out.printf("  BookingJsonCodec   : %6d bytes allocated/response (%.1fx less)%n",
+                    typedBytes, (double) mapBytes / typedBytes);
+            assertTrue(typedBytes < mapBytes, "Streaming decode should allocate less than Map binding");
+        }
+    }
+    
+    private static long measure(com.sun.management.ThreadMXBean threads, Decode decode) throws Exception {
+        long threadId = Thread.currentThread().getId();
+        Object sink = null;
+        for (int i = 0; i < WARMUP; i++) {
+            sink = decode.run();
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = decode.run();
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertNotNull(sink);
+        return allocated / ITERATIONS;
+    }
+    
+    private static void assumeAllocationCounter(com.sun.management.ThreadMXBean threads) {
+        assertTrue(threads.isThreadAllocatedMemorySupported(), "JVM does not report per-thread allocation");
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+    
+    private static byte[] userBookingsJson(int bookings) {
+        StringBuilder json = new StringBuilder("{\"userId\":1234,\"bookings\":[");
+        String[] destinations = {"Paris", "Tokyo", "Lisbon", "Oslo", "Lima"};
+        for (int i = 0; i < bookings; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(1000 + i)
+                    .append(",\"destination\":\"").append(destinations[i % destinations.length])
+                    .append("\",\"status\":\"").append(i % 2 == 0 ? "CONFIRMED" : "PENDING").append("\"}");
+        }
+        json.append("],\"timestamp\":\"2024-05-01T10:15:30.123456789\"}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @FunctionalInterface
+    private interface Decode {
+        Object run() throws Exception;
+    }
+}
@@ -0,0 +1,154 @@
+package com.travelhub.user.client;
+
+import com.sun.net.httpserver.HttpServer;
+import com.travelhub.booking.api.UserBookings;
+import com.travelhub.user.communication.CommunicationFailureSimulator;
+import com.travelhub.user.communication.CommunicationResult;
+import com.travelhub.user.communication.HealthProber;
+import com.travelhub.user.communication.ServiceCommunicationMonitor;
+import com.travelhub.user.config.BookingServiceProperties;
+import com.travelhub.user.config.UserServiceDNA;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput benchmark comparing the blocking and the async BookingServiceClient surface
+ * against a stub booking-service that answers after 50-150ms, like the real one.
+ *
+ * Run with: ./gradlew :user-service:benchmark
+ */
+@Tag("benchmark")
+class BookingServiceClientBenchmark {
+
+    private static final int CONCURRENT_CALLERS = 1000;
+    private static final int TOTAL_CALLS = 10_000;
+    private static final int REQUEST_THREADS = 200; // Tomcat's default server.tomcat.threads.max
+
+    private HttpServer stubBookingService;
+    private ScheduledExecutorService responseScheduler;
+    private BookingServiceClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        responseScheduler = Executors.newScheduledThreadPool(4);
+        stubBookingService = HttpServer.create(new InetSocketAddress("localhost", 0), CONCURRENT_CALLERS);
+        stubBookingService.createContext("/api/v1/bookings/user/", exchange -> {
+            byte[] body = "{\"userId\":1,\"bookings\":[{\"id\":1,\"destination\":\"Paris\",\"status\":\"CONFIRMED\"}]}"
+                    .getBytes(StandardCharsets.UTF_8);
+            // Respond later without parking a server thread, so only the client side is measured
+            responseScheduler.schedule(() -> {
+                try {
+                    exchange.getResponseHeaders().add("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(200, body.length);
+                    exchange.getResponseBody().write(body);
+                } catch (IOException ignored) {
+                    // client went away
+                } finally {
+                    exchange.close();
+                }
+            }, ThreadLocalRandom.current().nextInt(50, 150), TimeUnit.MILLISECONDS);
+        });
+        stubBookingService.setExecutor(Executors.newFixedThreadPool(8));
+        stubBookingService.start();
+
+        BookingServiceProperties properties = new BookingServiceProperties();
+        properties.setUrl("http://localhost:" + stubBookingService.getAddress().getPort());
+        properties.setTimeout(10_000);
+        properties.getPool().setMaxConnections(CONCURRENT_CALLERS);
+        // Measure one round trip per lookup; the stub has no batch endpoint
+        properties.getBatching().setEnabled(false);
+        properties.getCache().setEnabled(false);
+        // Raw client throughput; the adaptive limiter and the bulkhead would reject most of 1k concurrent callers
+        properties.getConcurrencyLimit().setEnabled(false);
+        properties.getBulkhead().setEnabled(false);
+
+        ServiceCommunicationMonitor monitor = new ServiceCommunicationMonitor();
+        client = new BookingServiceClient(monitor, new CommunicationFailureSimulator(), new HealthProber(monitor),
+                properties, new UserServiceDNA());
+        client.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stubBookingService.stop(0);
+        responseScheduler.shutdownNow();
+    }
+
+    @Test
+    void compareSyncAndAsyncThroughput() throws Exception {
+        // Warm up connections and JIT on both paths
+        runSync(2_000);
+        runAsync(2_000);
+
+        long syncNanos = runSync(TOTAL_CALLS);
+        long asyncNanos = runAsync(TOTAL_CALLS);
+
+        double syncRps = TOTAL_CALLS / (syncNanos / 1e9);
+        double asyncRps = TOTAL_CALLS / (asyncNanos / 1e9);
+        System.out.printf("getUserBookings x%d, %d concurrent callers%n", TOTAL_CALLS, CONCURRENT_CALLERS);
+        System.out.printf("  sync  (%d request threads): %8.0f req/s%n", REQUEST_THREADS, syncRps);
+        System.out.printf("  async (no threads held)   : %8.0f req/s (%.1fx)%n", asyncRps, asyncRps / syncRps);
+    }
+
+    /**
+     * Blocking callers: each caller occupies a request thread for the whole call
+     */
+    private long runSync(int calls) throws InterruptedException {
+        ExecutorService requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+        AtomicInteger failures = new AtomicInteger();
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            long userId = i % CONCURRENT_CALLERS;
+            requestThreads.execute(() -> {
+                if (!client.getUserBookings(userId).isSuccessful()) {
+                    failures.incrementAndGet();
+                }
+            });
+        }
+        requestThreads.shutdown();
+        assertTrue(requestThreads.awaitTermination(5, TimeUnit.MINUTES));
+        long elapsed = System.nanoTime() - start;
+        assertEquals(0, failures.get(), "sync calls failed");
+        return elapsed;
+    }
+
+    /**
+     * Async callers: up to CONCURRENT_CALLERS calls in flight, no thread held while waiting
+     */
+    private long runAsync(int calls) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONCURRENT_CALLERS);
+        AtomicInteger failures = new AtomicInteger();
+        CompletableFuture<?>[] all = new CompletableFuture<?>[calls];
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            inFlight.acquire();
+            CompletableFuture<CommunicationResult<UserBookings>> call = client.getUserBookingsAsync((long) (i % CONCURRENT_CALLERS));
+            all[i] = call.whenComplete((result, ex) -> {
+                inFlight.release();
+                if (ex != null || !result.isSuccessful()) {
+                    failures.incrementAndGet();
+                }
+            });
+        }
+        CompletableFuture.allOf(all).join();
+        long elapsed = System.nanoTime() - start;
+        assertEquals(0, failures.get(), "async calls failed");
+        return elapsed;
+    }
+}
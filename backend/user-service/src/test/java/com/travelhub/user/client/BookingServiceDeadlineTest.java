@@ -0,0 +1,107 @@
+package com.travelhub.user.client;
+
+import com.sun.net.httpserver.HttpServer;
+import com.travelhub.booking.api.Deadline;
+import com.travelhub.booking.api.UserBookings;
+import com.travelhub.user.communication.CommunicationFailureSimulator;
+import com.travelhub.user.communication.CommunicationResult;
+import com.travelhub.user.communication.HealthProber;
+import com.travelhub.user.communication.ServiceCommunicationMonitor;
+import com.travelhub.user.config.BookingServiceProperties;
+import com.travelhub.user.config.UserServiceDNA;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BookingServiceClient against a stub booking-service that records the deadline it is sent.
+ * Time the client spends before sending, here in a simulated delay, comes out of that deadline.
+ */
+class BookingServiceDeadlineTest {
+
+    private static final int TIMEOUT_MS = 2_000;
+
+    private HttpServer stubService;
+    private ExecutorService stubThreads;
+    private final List<Long> receivedDeadlines = new CopyOnWriteArrayList<>();
+    private volatile long responseDelayMs;
+    private CommunicationFailureSimulator simulator;
+    private BookingServiceClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stubService = HttpServer.create(new InetSocketAddress("localhost", 0), 50);
+        stubService.createContext("/api/v1/bookings/user/", exchange -> {
+            receivedDeadlines.add(Long.parseLong(exchange.getRequestHeaders().getFirst(Deadline.HEADER)));
+            try {
+                Thread.sleep(responseDelayMs);
+            } catch (InterruptedException e) {
+                exchange.close();
+                return;
+            }
+            byte[] body = "{\"userId\":1,\"bookings\":[]}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        stubThreads = Executors.newFixedThreadPool(4);
+        stubService.setExecutor(stubThreads);
+        stubService.start();
+
+        BookingServiceProperties properties = new BookingServiceProperties();
+        properties.setUrl("http://localhost:" + stubService.getAddress().getPort());
+        properties.setTimeout(TIMEOUT_MS);
+        properties.getBatching().setEnabled(false);
+        properties.getCache().setEnabled(false);
+        properties.setCoalescingEnabled(false);
+        properties.getHealthProbe().setEnabled(false);
+
+        ServiceCommunicationMonitor monitor = new ServiceCommunicationMonitor();
+        simulator = new CommunicationFailureSimulator();
+        client = new BookingServiceClient(monitor, simulator, new HealthProber(monitor), properties, new UserServiceDNA());
+        client.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stubService.stop(0);
+        stubThreads.shutdownNow();
+    }
+
+    @Test
+    void headerCarriesWhatIsLeftOfTheDeadline() {
+        simulator.addArtificialDelay("booking-service", 600);
+
+        assertTrue(client.getUserBookingsAsync(1L).join().isSuccessful());
+
+        assertEquals(1, receivedDeadlines.size());
+        long received = receivedDeadlines.get(0);
+        assertTrue(received > 0 && received <= TIMEOUT_MS - 600, "booking-service was given " + received + "ms");
+    }
+
+    @Test
+    void requestTimesOutAtTheCallersDeadline() {
+        simulator.addArtificialDelay("booking-service", 1_200);
+        responseDelayMs = 5_000;
+
+        long start = System.nanoTime();
+        CommunicationResult<UserBookings> result = client.getUserBookingsAsync(1L).join();
+        long tookMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(result.isTimeout());
+        // 1200ms of delay leaves 800ms for the request, and no time for a retry
+        assertTrue(tookMillis < TIMEOUT_MS + 500, "took " + tookMillis + "ms");
+        assertEquals(1, receivedDeadlines.size());
+    }
+}
@@ -0,0 +1,148 @@
+package com.travelhub.user.client;
+
+import com.sun.net.httpserver.HttpServer;
+import com.travelhub.booking.api.UserBookingsBatchRequest;
+import com.travelhub.user.communication.CommunicationFailureSimulator;
+import com.travelhub.user.communication.HealthProber;
+import com.travelhub.user.communication.LoadBalancer;
+import com.travelhub.user.communication.ServiceCommunicationMonitor;
+import com.travelhub.user.config.BookingServiceProperties;
+import com.travelhub.user.config.UserServiceDNA;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BookingServiceClient balancing over three local stub booking-service instances: two that
+ * answer in about 5ms and one that takes 100ms
+ */
+class BookingServiceLoadBalancingTest {
+
+    private static final long[] RESPONSE_DELAYS_MS = {5, 5, 100};
+
+    private final List<HttpServer> instances = new ArrayList<>();
+    private final List<AtomicInteger> requests = new ArrayList<>();
+    private ServiceCommunicationMonitor monitor;
+    private BookingServiceClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        List<String> urls = new ArrayList<>();
+        for (long delayMs : RESPONSE_DELAYS_MS) {
+            AtomicInteger served = new AtomicInteger();
+            HttpServer instance = HttpServer.create(new InetSocketAddress("localhost", 0), 50);
+            instance.createContext("/api/v1/bookings/user/", exchange -> {
+                served.incrementAndGet();
+                byte[] body = "{\"userId\":1,\"bookings\":[]}".getBytes(StandardCharsets.UTF_8);
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            instance.setExecutor(Executors.newFixedThreadPool(10));
+            instance.start();
+            instances.add(instance);
+            requests.add(served);
+            urls.add("http://localhost:" + instance.getAddress().getPort());
+        }
+
+        BookingServiceProperties properties = new BookingServiceProperties();
+        properties.setUrls(urls);
+        // One round trip per lookup, each one balanced on its own
+        properties.getBatching().setEnabled(false);
+        properties.getCache().setEnabled(false);
+        properties.setCoalescingEnabled(false);
+        properties.getHealthProbe().setEnabled(false);
+        properties.getLoadBalancer().setConsecutiveFailures(2);
+        // Let the warm-up latency of the first calls fade within the test
+        properties.getLoadBalancer().setEwmaDecay(100);
+
+        monitor = new ServiceCommunicationMonitor();
+        client = new BookingServiceClient(monitor, new CommunicationFailureSimulator(), new HealthProber(monitor),
+                properties, new UserServiceDNA());
+        client.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        instances.forEach(instance -> instance.stop(0));
+    }
+
+    /**
+     * Look up bookings for {@code calls} users, {@code concurrency} at a time
+     */
+    private int lookUp(int calls, int concurrency) {
+        int failed = 0;
+        for (int wave = 0; wave < calls / concurrency; wave++) {
+            List<CompletableFuture<Boolean>> inFlight = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                long userId = wave * concurrency + i;
+                inFlight.add(client.getUserBookingsAsync(userId).thenApply(result -> result.isSuccessful()));
+            }
+            for (CompletableFuture<Boolean> call : inFlight) {
+                if (!call.join()) {
+                    failed++;
+                }
+            }
+        }
+        return failed;
+    }
+
+    @Test
+    void slowInstanceGetsLessTraffic() {
+        assertEquals(0, lookUp(300, 6));
+
+        int slow = requests.get(2).get();
+        assertTrue(slow < requests.get(0).get() && slow < requests.get(1).get(),
+                "slow instance served " + slow + " of " + requests);
+        assertTrue(slow < 60, "slow instance served " + slow + " of " + requests);
+    }
+
+    @Test
+    void stoppedInstanceIsEjected() {
+        assertEquals(0, lookUp(60, 6));
+
+        instances.get(0).stop(0);
+        // Connection errors on the stopped instance are retried on the others
+        assertEquals(0, lookUp(60, 6));
+
+        LoadBalancer balancer = monitor.getLoadBalancer("booking-service");
+        Map<String, Object> stopped = balancer.getInstanceReport().get(balancer.getInstances().get(0).getId());
+        assertEquals(true, stopped.get("ejected"));
+        assertEquals(1, stopped.get("ejections"));
+
+        int servedBefore = requests.get(1).get() + requests.get(2).get();
+        assertEquals(0, lookUp(60, 6));
+        assertEquals(60, requests.get(1).get() + requests.get(2).get() - servedBefore,
+                "every call went to a running instance");
+    }
+
+    @Test
+    void batchesLargerThanBookingServiceAcceptsFailAtStartup() {
+        BookingServiceProperties properties = new BookingServiceProperties();
+        properties.getBatching().setMaxBatchSize(UserBookingsBatchRequest.MAX_USER_IDS + 1);
+        properties.getHealthProbe().setEnabled(false);
+        ServiceCommunicationMonitor otherMonitor = new ServiceCommunicationMonitor();
+        BookingServiceClient oversized = new BookingServiceClient(otherMonitor, new CommunicationFailureSimulator(),
+                new HealthProber(otherMonitor), properties, new UserServiceDNA());
+
+        assertThrows(IllegalArgumentException.class, oversized::init);
+    }
+}
@@ -0,0 +1,115 @@
+package com.travelhub.user.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.travelhub.booking.api.BookingJsonCodec;
+import com.travelhub.booking.api.BookingSummary;
+import com.travelhub.booking.api.UserBookings;
+import com.travelhub.booking.api.UserBookingsBatch;
+import com.travelhub.booking.api.WireFormat;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Response size and CPU time per booking response in JSON and in Smile, encoded the way
+ * booking-service encodes them and decoded the way BookingServiceClient decodes them.
+ * CPU time is read from the JVM's per-thread CPU clock, so other threads do not count.
+ *
+ * Run with: ./gradlew :user-service:benchmark
+ */
+@Tag("benchmark")
+class BookingWireFormatBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+    private static final String[] DESTINATIONS = {"Paris", "Tokyo", "Lisbon", "Oslo", "Lima"};
+    private static final String[] STATUSES = {"CONFIRMED", "PENDING", "CANCELLED"};
+
+    // Spring Boot's JSON settings: dates as ISO strings
+    private final ObjectMapper jsonMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    // booking-service's Smile settings, see WireFormatConfig
+    private final ObjectMapper smileMapper = new ObjectMapper(WireFormat.SMILE.factory().copy())
+            .registerModule(new JavaTimeModule())
+            .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void compareJsonAndSmile() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assertTrue(threads.isCurrentThreadCpuTimeSupported(), "JVM does not report per-thread CPU time");
+
+        compare(threads, "user with 2 bookings", userBookings(1234, 2), false);
+        compare(threads, "user with 20 bookings", userBookings(1234, 20), false);
+
+        Map<Long, UserBookings> results = new LinkedHashMap<>();
+        for (long userId = 1; userId <= 50; userId++) {
+            results.put(userId, new UserBookings(userId, userBookings(userId, 3).bookings(), null));
+        }
+        compare(threads, "batch of 50 users", new UserBookingsBatch(results, LocalDateTime.now()), true);
+    }
+
+    private void compare(ThreadMXBean threads, String payload, Object response, boolean batch) throws Exception {
+        byte[] json = jsonMapper.writeValueAsBytes(response);
+        byte[] smile = smileMapper.writeValueAsBytes(response);
+        // Both formats must decode to the same records before their cost is compared
+        assertEquals(decode(json, WireFormat.JSON, batch), response);
+        assertEquals(decode(smile, WireFormat.SMILE, batch), response);
+
+        long jsonEncode = cpuNanos(threads, () -> jsonMapper.writeValueAsBytes(response));
+        long smileEncode = cpuNanos(threads, () -> smileMapper.writeValueAsBytes(response));
+        long jsonDecode = cpuNanos(threads, () -> decode(json, WireFormat.JSON, batch));
+        long smileDecode = cpuNanos(threads, () -> decode(smile, WireFormat.SMILE, batch));
+
+        System.out.printf("%s%n", payload);
+        System.out.printf("  JSON : %6d bytes, encode %7d ns, decode %7d ns%n", json.length, jsonEncode, jsonDecode);
+        System.out.printf("  Smile: %6d bytes (%.0f%%), encode %7d ns, decode %7d ns%n", smile.length,
+                100.0 * smile.length / json.length, smileEncode, smileDecode);
+        assertTrue(smile.length < json.length, "Smile should be smaller than JSON");
+    }
+
+    private static Object decode(byte[] body, WireFormat format, boolean batch) throws Exception {
+        return batch ? BookingJsonCodec.readUserBookingsBatch(body, format) : BookingJsonCodec.readUserBookings(body, format);
+    }
+
+    /**
+     * CPU time of one run, averaged over ITERATIONS runs after WARMUP runs
+     */
+    private static long cpuNanos(ThreadMXBean threads, Run run) throws Exception {
+        Object sink = null;
+        for (int i = 0; i < WARMUP; i++) {
+            sink = run.run();
+        }
+        long before = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = run.run();
+        }
+        long elapsed = threads.getCurrentThreadCpuTime() - before;
+        assertNotNull(sink);
+        return elapsed / ITERATIONS;
+    }
+
+    private static UserBookings userBookings(long userId, int bookings) {
+        List<BookingSummary> summaries = new ArrayList<>();
+        for (int i = 0; i < bookings; i++) {
+            summaries.add(new BookingSummary(1000 + i, DESTINATIONS[i % DESTINATIONS.length], STATUSES[i % STATUSES.length]));
+        }
+        return new UserBookings(userId, summaries, LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_456_789));
+    }
+
+    @FunctionalInterface
+    private interface Run {
+        Object run() throws Exception;
+    }
+}
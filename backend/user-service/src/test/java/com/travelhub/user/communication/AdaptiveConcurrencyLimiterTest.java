@@ -0,0 +1,96 @@
+package com.travelhub.user.communication;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the adaptive concurrency limiter
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long RTT_50MS = 50_000_000L;
+
+    @Test
+    void rejectsCallsOverTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("booking-service", 3, 1, 100, 1.5, 0.2);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        assertEquals(3, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected());
+
+        limiter.onIgnore();
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void growsWhileRttIsStableAndLimitIsUsed() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("booking-service", 10, 1, 100, 1.5, 0.2);
+
+        for (int round = 0; round < 20; round++) {
+            saturate(limiter, RTT_50MS);
+        }
+
+        assertTrue(limiter.getLimit() > 10, "Limit should grow, was " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void doesNotGrowWhenCallersDoNotUseTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("booking-service", 20, 1, 100, 1.5, 0.2);
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.onSuccess(RTT_50MS);
+        }
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void shrinksWhenRttRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("booking-service", 50, 1, 100, 1.5, 0.2);
+        saturate(limiter, RTT_50MS);
+        int before = limiter.getLimit();
+
+        // Calls now take four times as long: they are queueing
+        for (int round = 0; round < 10; round++) {
+            saturate(limiter, 4 * RTT_50MS);
+        }
+
+        assertTrue(limiter.getLimit() < before, "Limit should shrink from " + before + ", was " + limiter.getLimit());
+    }
+
+    @Test
+    void timeoutsBackOffImmediatelyButNotBelowMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("booking-service", 20, 5, 100, 1.5, 0.2);
+
+        assertTrue(limiter.tryAcquire());
+        limiter.onDropped();
+        assertEquals(18, limiter.getLimit());
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.onDropped();
+        }
+        assertEquals(5, limiter.getLimit());
+        assertEquals(51, limiter.getDrops());
+    }
+
+    /**
+     * Fill the limit, then complete every call with the given RTT
+     */
+    private void saturate(AdaptiveConcurrencyLimiter limiter, long rttNanos) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limiter.onSuccess(rttNanos);
+        }
+    }
+}
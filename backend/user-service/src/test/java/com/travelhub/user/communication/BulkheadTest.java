@@ -0,0 +1,126 @@
+package com.travelhub.user.communication;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the per-downstream bulkhead
+ */
+class BulkheadTest {
+
+    private static CommunicationResult<String> ok() {
+        return CommunicationResult.success("ok", Duration.ZERO);
+    }
+
+    @Test
+    void queuedCallsStartAsSlotsFreeUp() {
+        Bulkhead bulkhead = new Bulkhead("booking-service", 2, 2, 5_000);
+        List<CompletableFuture<CommunicationResult<String>>> pending = new ArrayList<>();
+        AtomicInteger started = new AtomicInteger();
+
+        List<CompletableFuture<CommunicationResult<String>>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(bulkhead.execute(() -> {
+                started.incrementAndGet();
+                CompletableFuture<CommunicationResult<String>> call = new CompletableFuture<>();
+                pending.add(call);
+                return call;
+            }));
+        }
+
+        assertEquals(2, started.get());
+        assertEquals(2, bulkhead.getInFlight());
+        assertEquals(2, bulkhead.getQueued());
+        assertEquals(100.0, bulkhead.getSaturation(), 0.001);
+
+        pending.get(0).complete(ok());
+        assertEquals(3, started.get(), "the first queued call takes the freed slot");
+        assertEquals(1, bulkhead.getQueued());
+
+        pending.get(1).complete(ok());
+        pending.get(2).complete(ok());
+        pending.get(3).complete(ok());
+        results.forEach(result -> assertTrue(result.join().isSuccessful()));
+        assertEquals(0, bulkhead.getInFlight());
+        assertEquals(4, bulkhead.getPermittedCalls());
+        assertEquals(2, bulkhead.getQueuedCalls());
+        assertEquals(2, bulkhead.getPeakInFlight());
+    }
+
+    @Test
+    void fullQueueIsRejectedAtOnce() {
+        Bulkhead bulkhead = new Bulkhead("booking-service", 1, 1, 5_000);
+        CompletableFuture<CommunicationResult<String>> slow = new CompletableFuture<>();
+        bulkhead.execute(() -> slow);
+        bulkhead.execute(() -> slow);
+
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<CommunicationResult<String>> rejected = bulkhead.execute(() -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture(ok());
+        });
+
+        assertTrue(rejected.isDone());
+        assertTrue(rejected.join().isLimitExceeded());
+        assertEquals(0, started.get());
+        assertEquals(1, bulkhead.getRejectedCalls());
+    }
+
+    @Test
+    void queuedCallGivesUpAfterMaxWait() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("booking-service", 1, 5, 50);
+        bulkhead.execute(CompletableFuture::new);
+
+        AtomicInteger started = new AtomicInteger();
+        CommunicationResult<String> result = bulkhead.execute(() -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture(ok());
+        }).get(2, TimeUnit.SECONDS);
+
+        assertTrue(result.isLimitExceeded());
+        assertEquals(0, started.get());
+        assertEquals(1, bulkhead.getTimedOutCalls());
+        assertEquals(0, bulkhead.getQueued());
+        assertTrue(bulkhead.getAverageQueueWaitMillis() >= 50);
+    }
+
+    @Test
+    void cancellationFreesQueuePlacesAndSlots() {
+        Bulkhead bulkhead = new Bulkhead("booking-service", 1, 1, 5_000);
+        CompletableFuture<CommunicationResult<String>> running = bulkhead.execute(CompletableFuture::new);
+
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<CommunicationResult<String>> queued = bulkhead.execute(() -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture(ok());
+        });
+        queued.cancel(true);
+        assertEquals(0, bulkhead.getQueued());
+
+        // Cancelling the running call cancels it and frees its slot; the cancelled waiter is skipped
+        running.cancel(true);
+        assertEquals(0, bulkhead.getInFlight());
+        assertEquals(0, started.get());
+        assertTrue(bulkhead.execute(() -> CompletableFuture.completedFuture(ok())).join().isSuccessful());
+    }
+
+    @Test
+    void callThatThrowsReleasesItsSlot() {
+        Bulkhead bulkhead = new Bulkhead("booking-service", 1, 0, 0);
+
+        assertThrows(IllegalStateException.class, () -> bulkhead.execute(() -> {
+            throw new IllegalStateException("client bug");
+        }));
+
+        assertEquals(0, bulkhead.getInFlight());
+        assertTrue(bulkhead.execute(() -> CompletableFuture.completedFuture(ok())).join().isSuccessful());
+    }
+}
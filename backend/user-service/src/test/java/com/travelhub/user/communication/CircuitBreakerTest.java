@@ -0,0 +1,163 @@
+package com.travelhub.user.communication;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the circuit breaker state machine
+ */
+class CircuitBreakerTest {
+
+    @Test
+    void opensWhenFailureRateExceedsThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker("booking-service", 50.0, 10, 10, 60_000, 2);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onSuccess();
+        }
+        for (int i = 0; i < 4; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onFailure();
+        }
+        // 4 failures out of 9 calls: below minimum calls, still closed
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(1, breaker.getRejectedCalls());
+    }
+
+    @Test
+    void staysClosedBelowThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker("booking-service", 50.0, 10, 10, 60_000, 2);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            if (i % 3 == 0) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(35.0, breaker.getFailureRate(), 0.001);
+    }
+
+    @Test
+    void halfOpenAllowsBoundedProbesAndClosesOnSuccess() throws InterruptedException {
+        CircuitBreaker breaker = tripped(50);
+        Thread.sleep(80);
+
+        // Only halfOpenMaxCalls probes get through
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getWindowCalls());
+    }
+
+    @Test
+    void failedProbeReopensBreaker() throws InterruptedException {
+        CircuitBreaker breaker = tripped(50);
+        Thread.sleep(80);
+
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(2, breaker.getOpenTransitions());
+    }
+
+    @Test
+    void dataValidationErrorsDoNotCountAsFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("booking-service", 50.0, 4, 10, 60_000, 1);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onResult(CommunicationResult.dataValidationError("bad payload", Duration.ofMillis(5)));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate(), 0.001);
+    }
+
+    @Test
+    void probeRejectedByConcurrencyLimiterFreesItsSlot() throws InterruptedException {
+        CircuitBreaker breaker = tripped(50);
+        Thread.sleep(80);
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+
+        breaker.onResult(CommunicationResult.limitExceeded("Concurrency limit reached"));
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission(), "Probe slot should be available again");
+    }
+
+    @Test
+    void healthProbesOverrideTheWindow() {
+        CircuitBreaker breaker = new CircuitBreaker("booking-service", 50.0, 10, 10, 60_000, 2);
+
+        // No calls in the window, but the probes say the service is gone
+        breaker.forceOpen();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        breaker.forceOpen();
+        assertEquals(1, breaker.getOpenTransitions());
+
+        // A probe got through: no need to wait out the 60s open period
+        breaker.onProbeSuccess();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onProbeSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void rejectedCallsAreCheapWhileOpen() {
+        CircuitBreaker breaker = tripped(60_000);
+
+        int calls = 1_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            breaker.tryAcquirePermission();
+        }
+        long nanosPerCall = (System.nanoTime() - start) / calls;
+
+        assertTrue(nanosPerCall < 1_000, "Open-state rejection took " + nanosPerCall + "ns");
+        assertEquals(calls, breaker.getRejectedCalls());
+    }
+
+    private CircuitBreaker tripped(long openDurationMillis) {
+        CircuitBreaker breaker = new CircuitBreaker("booking-service", 50.0, 4, 10, openDurationMillis, 2);
+        for (int i = 0; i < 4; i++) {
+            breaker.tryAcquirePermission();
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+}
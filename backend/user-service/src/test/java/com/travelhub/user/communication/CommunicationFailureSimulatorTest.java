@@ -0,0 +1,262 @@
+package com.travelhub.user.communication;
+
+import com.travelhub.user.communication.CommunicationFailureSimulator.Decision;
+import com.travelhub.user.communication.CommunicationFailureSimulator.FailureConfiguration;
+import com.travelhub.user.communication.CommunicationFailureSimulator.LatencyDistribution;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for seeded fault injection and simulated latency
+ */
+class CommunicationFailureSimulatorTest {
+    
+    private static FailureConfiguration latency(LatencyDistribution distribution, int delayMs, long seed) {
+        FailureConfiguration config = new FailureConfiguration();
+        config.setLatencyDistribution(distribution);
+        config.setArtificialDelayMs(delayMs);
+        config.setSeed(seed);
+        config.setEnabled(true);
+        return config;
+    }
+    
+    private static long[] delays(CommunicationFailureSimulator simulator, String serviceName, int calls) {
+        long[] delays = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            delays[i] = simulator.decide(serviceName).getDelayMillis();
+        }
+        Arrays.sort(delays);
+        return delays;
+    }
+    
+    @Test
+    void disabledSimulatorLeavesCallsAlone() {
+        CommunicationFailureSimulator simulator = new CommunicationFailureSimulator();
+        assertSame(Decision.NONE, simulator.decide("booking-service"));
+        
+        simulator.enableTimeoutSimulation("booking-service", 1.0);
+        assertTrue(simulator.decide("booking-service").isTimeout());
+        assertSame(Decision.NONE, simulator.decide("payment-service"));
+        
+        simulator.disableFailureSimulation("booking-service");
+        assertSame(Decision.NONE, simulator.decide("booking-service"));
+    }
+    
+    @Test
+    void sameSeedRepeatsTheSameDecisions() {
+        CommunicationFailureSimulator first = new CommunicationFailureSimulator();
+        CommunicationFailureSimulator second = new CommunicationFailureSimulator();
+        first.createStressTestScenario("booking-service");
+        second.createStressTestScenario("booking-service");
+        first.setSeed("booking-service", 42);
+        second.setSeed("booking-service", 42);
+        
+        int failures = 0;
+        for (int i = 0; i < 1000; i++) {
+            Decision a = first.decide("booking-service");
+            Decision b = second.decide("booking-service");
+            assertEquals(a.isConnectionFailure(), b.isConnectionFailure());
+            assertEquals(a.isTimeout(), b.isTimeout());
+            assertEquals(a.isApiError(), b.isApiError());
+            assertEquals(a.isDataCorruption(), b.isDataCorruption());
+            assertEquals(a.getDelayMillis(), b.getDelayMillis());
+            if (a.isConnectionFailure() || a.isTimeout() || a.isApiError()) {
+                failures++;
+            }
+        }
+        // 15% + 85% * 20% + 85% * 80% * 10% = 38.8%
+        assertEquals(388, failures, 50);
+    }
+    
+    @Test
+    void servicesHaveIndependentStreams() {
+        CommunicationFailureSimulator simulator = new CommunicationFailureSimulator();
+        simulator.configureFailures("booking-service", latency(LatencyDistribution.LOG_NORMAL, 100, 7));
+        simulator.configureFailures("payment-service", latency(LatencyDistribution.LOG_NORMAL, 100, 7));
+        
+        long[] booking = new long[50];
+        for (int i = 0; i < booking.length; i++) {
+            booking[i] = simulator.decide("booking-service").getDelayMillis();
+            // Calls to another service do not shift this service's stream
+            simulator.decide("payment-service");
+            simulator.decide("payment-service");
+        }
+        
+        simulator.setSeed("booking-service", 7);
+        for (long expected : booking) {
+            assertEquals(expected, simulator.decide("booking-service").getDelayMillis());
+        }
+    }
+    
+    @Test
+    void delaysFollowTheConfiguredDistribution() {
+        CommunicationFailureSimulator simulator = new CommunicationFailureSimulator();
+        
+        simulator.configureFailures("fixed", latency(LatencyDistribution.FIXED, 100, 1));
+        long[] fixed = delays(simulator, "fixed", 100);
+        assertEquals(100, fixed[0]);
+        assertEquals(100, fixed[99]);
+        
+        FailureConfiguration logNormal = latency(LatencyDistribution.LOG_NORMAL, 100, 1);
+        logNormal.setLatencySigma(0.5);
+        simulator.configureFailures("log-normal", logNormal);
+        long[] logNormalDelays = delays(simulator, "log-normal", 10_000);
+        assertEquals(100, logNormalDelays[5_000], 5);
+        // exp(2.326 * 0.5) = 3.2
+        assertEquals(320, logNormalDelays[9_900], 30);
+        
+        FailureConfiguration pareto = latency(LatencyDistribution.PARETO, 50, 1);
+        pareto.setParetoAlpha(2.0);
+        simulator.configureFailures("pareto", pareto);
+        long[] paretoDelays = delays(simulator, "pareto", 10_000);
+        assertEquals(50, paretoDelays[0]);
+        // 50 / sqrt(0.01) = 500
+        assertEquals(500, paretoDelays[9_900], 60);
+        
+        FailureConfiguration bimodal = latency(LatencyDistribution.BIMODAL, 20, 1);
+        bimodal.setLatencySigma(0.1);
+        bimodal.setSlowDelayMs(1000);
+        bimodal.setSlowProbability(0.2);
+        simulator.configureFailures("bimodal", bimodal);
+        long[] bimodalDelays = delays(simulator, "bimodal", 10_000);
+        assertTrue(bimodalDelays[7_500] < 40, "fast mode " + bimodalDelays[7_500]);
+        assertTrue(bimodalDelays[8_500] > 700, "slow mode " + bimodalDelays[8_500]);
+    }
+    
+    @Test
+    void delaysAreCapped() {
+        CommunicationFailureSimulator simulator = new CommunicationFailureSimulator();
+        FailureConfiguration pareto = latency(LatencyDistribution.PARETO, 100, 3);
+        pareto.setParetoAlpha(0.5);
+        pareto.setMaxDelayMs(2000);
+        simulator.configureFailures("booking-service", pareto);
+        
+        long[] delays = delays(simulator, "booking-service", 10_000);
+        assertEquals(2000, delays[9_999]);
+    }
+    
+    @Test
+    void delayDoesNotHoldTheCallingThread() throws Exception {
+        CommunicationFailureSimulator simulator = new CommunicationFailureSimulator();
+        simulator.addArtificialDelay("booking-service", 200);
+        Decision decision = simulator.decide("booking-service");
+        
+        long start = System.nanoTime();
+        CompletableFuture<Void> delay = simulator.delay(decision);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(50));
+        assertFalse(delay.isDone());
+        
+        delay.get(2, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertTrue(simulator.delay(Decision.NONE).isDone());
+    }
+    
+    @Test
+    void replaysRecordedOutcomesAndLatencies() throws Exception {
+        LatencyTrace.Recorder recorder = new LatencyTrace.Recorder(1000);
+        long start = System.nanoTime();
+        long second = TimeUnit.SECONDS.toNanos(1);
+        // A healthy first 10 seconds, then 10 seconds of slow timeouts
+        for (int i = 0; i < 200; i++) {
+            long startedAt = start + i * second / 10;
+            if (i < 100) {
+                recorder.record("booking-service GET /api/v1/bookings", startedAt, TimeUnit.MILLISECONDS.toNanos(20),
+                        CommunicationResult.success("ok", null));
+            } else {
+                recorder.record("booking-service GET /api/v1/bookings", startedAt, TimeUnit.MILLISECONDS.toNanos(1000),
+                        CommunicationResult.timeout("slow", null));
+            }
+        }
+        recorder.record("payment-service GET /api/v1/payments", start, 1, CommunicationResult.success("ok", null));
+        LatencyTrace trace = recorder.toTrace();
+        
+        CommunicationFailureSimulator simulator = new CommunicationFailureSimulator();
+        simulator.enableConnectionFailureSimulation("booking-service", 1.0);
+        // 20 seconds of trace in 200ms
+        assertEquals(200, simulator.replayTrace("booking-service", trace, 100, false));
+        
+        Decision healthy = simulator.decide("booking-service");
+        assertFalse(healthy.isConnectionFailure(), "the trace replaces the configured probabilities");
+        assertFalse(healthy.isTimeout());
+        assertEquals(20, healthy.getDelayMillis());
+        
+        Thread.sleep(150);
+        Decision incident = simulator.decide("booking-service");
+        assertTrue(incident.isTimeout());
+        assertEquals(1000, incident.getDelayMillis());
+        
+        Thread.sleep(100);
+        assertSame(Decision.NONE, simulator.decide("booking-service"), "replay ends with the trace");
+        
+        simulator.stopReplay("booking-service");
+        assertTrue(simulator.decide("booking-service").isConnectionFailure());
+        assertThrows(IllegalArgumentException.class, () -> simulator.replayTrace("search-service", trace, 1, false));
+    }
+    
+    @Test
+    void replayedCallsTakeTheRecordedLatency() {
+        LatencyTrace.Recorder recorder = new LatencyTrace.Recorder(100);
+        long start = System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            recorder.record("booking-service GET /api/v1/bookings", start + TimeUnit.MILLISECONDS.toNanos(100) * i,
+                    TimeUnit.MILLISECONDS.toNanos(300), CommunicationResult.success("ok", null));
+        }
+        CommunicationFailureSimulator simulator = new CommunicationFailureSimulator();
+        simulator.replayTrace("booking-service", recorder.toTrace(), 1, true);
+        
+        for (int i = 0; i < 5; i++) {
+            Decision decision = simulator.decide("booking-service");
+            assertTrue(decision.isLatencyFloor());
+            
+            // The real call takes 150ms of the recorded 300ms, not 150ms on top of it
+            long callStart = System.nanoTime();
+            simulator.delayed(decision, () -> liveCall(150)).join();
+            long tookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - callStart);
+            assertTrue(tookMillis >= 300 && tookMillis < 420, "replayed call took " + tookMillis + "ms");
+        }
+        
+        // A real call slower than the recording takes its own time
+        long callStart = System.nanoTime();
+        simulator.delayed(simulator.decide("booking-service"), () -> liveCall(500)).join();
+        long tookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - callStart);
+        assertTrue(tookMillis >= 500 && tookMillis < 620, "replayed call took " + tookMillis + "ms");
+    }
+    
+    @Test
+    void artificialDelayComesBeforeTheCall() {
+        CommunicationFailureSimulator simulator = new CommunicationFailureSimulator();
+        simulator.addArtificialDelay("booking-service", 100);
+        Decision decision = simulator.decide("booking-service");
+        assertFalse(decision.isLatencyFloor());
+        
+        long callStart = System.nanoTime();
+        simulator.delayed(decision, () -> liveCall(100)).join();
+        assertTrue(System.nanoTime() - callStart >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+    
+    @Test
+    void cancellingADelayedCallCancelsTheCall() {
+        CommunicationFailureSimulator simulator = new CommunicationFailureSimulator();
+        LatencyTrace.Recorder recorder = new LatencyTrace.Recorder(10);
+        recorder.record("booking-service GET /api/v1/bookings", System.nanoTime(), TimeUnit.SECONDS.toNanos(5),
+                CommunicationResult.success("ok", null));
+        simulator.replayTrace("booking-service", recorder.toTrace(), 1, true);
+        CompletableFuture<String> live = new CompletableFuture<>();
+        
+        CompletableFuture<String> call = simulator.delayed(simulator.decide("booking-service"), () -> live);
+        call.cancel(true);
+        
+        assertTrue(live.isCancelled());
+    }
+    
+    private static CompletableFuture<String> liveCall(long millis) {
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture.delayedExecutor(millis, TimeUnit.MILLISECONDS).execute(() -> call.complete("ok"));
+        return call;
+    }
+}
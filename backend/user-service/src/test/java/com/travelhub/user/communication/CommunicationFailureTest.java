@@ -1,5 +1,6 @@
 package com.travelhub.user.communication;
 
+import com.travelhub.booking.api.UserBookings;
 import com.travelhub.user.client.BookingServiceClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -42,7 +43,7 @@ class CommunicationFailureTest {
         failureSimulator.enableTimeoutSimulation("booking-service", 1.0);
         
         // Make a call that should timeout
-        CommunicationResult<java.util.Map> result = bookingServiceClient.getUserBookings(1L);
+        CommunicationResult<UserBookings> result = bookingServiceClient.getUserBookings(1L);
         
         // Verify the timeout was simulated
         assertFalse(result.isSuccessful());
@@ -57,7 +58,7 @@ class CommunicationFailureTest {
         failureSimulator.enableConnectionFailureSimulation("booking-service", 1.0);
         
         // Make a call that should fail connection
-        CommunicationResult<java.util.Map> result = bookingServiceClient.getUserBookings(1L);
+        CommunicationResult<UserBookings> result = bookingServiceClient.getUserBookings(1L);
         
         // Verify the connection failure was simulated
         assertFalse(result.isSuccessful());
@@ -72,7 +73,7 @@ class CommunicationFailureTest {
         failureSimulator.enableApiErrorSimulation("booking-service", 1.0);
         
         // Make a call that should have API error
-        CommunicationResult<java.util.Map> result = bookingServiceClient.getUserBookings(1L);
+        CommunicationResult<UserBookings> result = bookingServiceClient.getUserBookings(1L);
         
         // Verify the API error was simulated
         assertFalse(result.isSuccessful());
@@ -92,15 +93,14 @@ class CommunicationFailureTest {
         }
         
         // Get failure report
-        java.util.Map<String, Integer> report = communicationMonitor.getFailureReport();
+        java.util.Map<String, java.util.Map<String, Object>> report = communicationMonitor.getFailureReport(60);
         
         // Verify that failures are being tracked
         assertNotNull(report);
-        // Report should contain some failure entries for booking-service
-        boolean hasBookingServiceFailures = report.keySet().stream()
-                .anyMatch(key -> key.startsWith("booking-service:"));
-        
-        assertTrue(hasBookingServiceFailures, "Should track failures for booking-service");
+        // Report should contain some failures for booking-service in the last minute
+        java.util.Map<String, Object> bookingService = report.get("booking-service");
+        assertNotNull(bookingService, "Should report on booking-service");
+        assertTrue((Long) bookingService.get("failures") > 0, "Should track failures for booking-service");
     }
     
     @Test
@@ -0,0 +1,172 @@
+package com.travelhub.user.communication;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the connection lease queue of {@link DownstreamHttpClient}
+ */
+class DownstreamHttpClientTest {
+
+    // Accepts connections and never answers, so only timeouts end an exchange
+    private ServerSocket silentService;
+    private final List<Socket> accepted = new ArrayList<>();
+    private URI uri;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        silentService = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        uri = URI.create("http://localhost:" + silentService.getLocalPort() + "/api/v1/bookings");
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true) {
+                    Socket socket = silentService.accept();
+                    synchronized (accepted) {
+                        accepted.add(socket);
+                    }
+                }
+            } catch (Exception e) {
+                // Closed by tearDown
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        silentService.close();
+        synchronized (accepted) {
+            for (Socket socket : accepted) {
+                socket.close();
+            }
+        }
+    }
+
+    @Test
+    void waitersAreHandedSlotsInArrivalOrder() {
+        DownstreamHttpClient client = client(1);
+        CompletableFuture<Void> first = client.lease();
+        CompletableFuture<Void> second = client.lease();
+        CompletableFuture<Void> third = client.lease();
+
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        assertEquals(2, client.getMetrics().getPending());
+
+        client.release();
+        assertTrue(second.isDone(), "the oldest waiter gets the slot");
+        assertFalse(third.isDone());
+
+        client.release();
+        assertTrue(third.isDone());
+        client.release();
+
+        DownstreamHttpClient.PoolMetrics metrics = client.getMetrics();
+        assertEquals(0, metrics.getLeased());
+        assertEquals(0, metrics.getPending());
+        assertEquals(3, metrics.getTotalLeases());
+    }
+
+    @Test
+    void leaseWaitTimesOut() throws Exception {
+        DownstreamHttpClient client = client(1);
+        client.lease().join();
+
+        assertThrows(HttpTimeoutException.class, () -> client.send(request(100), HttpResponse.BodyHandlers.discarding()));
+        CompletionException async = assertThrows(CompletionException.class,
+                () -> client.sendAsync(request(100), HttpResponse.BodyHandlers.discarding()).join());
+        assertTrue(async.getCause() instanceof HttpTimeoutException);
+
+        DownstreamHttpClient.PoolMetrics metrics = client.getMetrics();
+        assertEquals(2, metrics.getLeaseTimeouts());
+        assertEquals(1, metrics.getLeased());
+
+        // The timed-out waiters are skipped, not handed the slot
+        client.release();
+        assertEquals(0, client.getMetrics().getLeased());
+    }
+
+    @Test
+    void cancellingAWaitingCallReturnsItsPlace() {
+        DownstreamHttpClient client = client(1);
+        client.lease().join();
+        CompletableFuture<HttpResponse<Void>> cancelled = client.sendAsync(request(5_000), HttpResponse.BodyHandlers.discarding());
+        CompletableFuture<Void> next = client.lease();
+
+        assertTrue(cancelled.cancel(true));
+        assertEquals(1, client.getMetrics().getPending());
+
+        client.release();
+        assertTrue(next.isDone(), "the slot skips the cancelled call");
+        client.release();
+        assertEquals(0, client.getMetrics().getLeased());
+        assertTrue(client.lease().isDone());
+    }
+
+    @Test
+    void cancellingAnExchangeReturnsItsSlot() throws Exception {
+        DownstreamHttpClient client = client(1);
+        CompletableFuture<HttpResponse<Void>> exchange = client.sendAsync(request(5_000), HttpResponse.BodyHandlers.discarding());
+        assertEquals(1, client.getMetrics().getLeased());
+
+        exchange.cancel(true);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (client.getMetrics().getLeased() != 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, client.getMetrics().getLeased());
+    }
+
+    @Test
+    void leaseWaitIsTakenOutOfTheRequestTimeout() throws Exception {
+        DownstreamHttpClient client = client(1);
+        client.lease().join();
+        CompletableFuture.runAsync(() -> {
+            sleep(800);
+            client.release();
+        });
+
+        long start = System.nanoTime();
+        assertThrows(HttpTimeoutException.class, () -> client.send(request(1_000), HttpResponse.BodyHandlers.discarding()));
+        long tookMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // 800ms waiting for the slot leaves 200ms for the exchange, not another 1000ms
+        assertTrue(tookMillis >= 800, "took " + tookMillis + "ms");
+        assertTrue(tookMillis < 1_500, "took " + tookMillis + "ms");
+        assertEquals(0, client.getMetrics().getLeaseTimeouts(), "the slot was leased in time");
+    }
+
+    private HttpRequest request(long timeoutMillis) {
+        return HttpRequest.newBuilder(uri).timeout(Duration.ofMillis(timeoutMillis)).GET().build();
+    }
+
+    private static DownstreamHttpClient client(int maxConnections) {
+        return new DownstreamHttpClient("booking-service", maxConnections, Duration.ofSeconds(1));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.travelhub.user.communication;
+
+import com.travelhub.user.communication.CommunicationResult.CommunicationFailureType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the sliding-window failure telemetry
+ */
+class FailureTelemetryTest {
+    
+    @Test
+    void countsOutcomesByType() {
+        FailureTelemetry telemetry = new FailureTelemetry();
+        for (int i = 0; i < 6; i++) {
+            telemetry.record(CommunicationResult.success("ok", Duration.ofMillis(5)));
+        }
+        telemetry.record(CommunicationResult.timeout("slow", Duration.ofMillis(2000)));
+        telemetry.record(CommunicationResult.timeout("slow", Duration.ofMillis(2000)));
+        telemetry.record(CommunicationResult.connectionError("refused", Duration.ofMillis(1)));
+        telemetry.record(CommunicationResult.dataValidationError("bad payload", Duration.ofMillis(5)));
+        
+        FailureTelemetry.Snapshot recent = telemetry.snapshot(Duration.ofSeconds(10));
+        assertEquals(10, recent.getCalls());
+        assertEquals(6, recent.getSuccesses());
+        assertEquals(4, recent.getFailures());
+        assertEquals(2, recent.getCount(CommunicationFailureType.TIMEOUT));
+        assertEquals(Long.valueOf(1), recent.getCountsByType().get(CommunicationFailureType.CONNECTION_ERROR));
+        assertEquals(40.0, recent.getErrorRate(), 0.001);
+    }
+    
+    @Test
+    void localRejectionsAreNotCalls() {
+        FailureTelemetry telemetry = new FailureTelemetry();
+        telemetry.record(CommunicationResult.success("ok", Duration.ofMillis(5)));
+        telemetry.record(CommunicationResult.limitExceeded("Concurrency limit reached"));
+        telemetry.record(CommunicationResult.circuitOpen("Circuit breaker is open"));
+        
+        FailureTelemetry.Snapshot recent = telemetry.snapshot(Duration.ofSeconds(10));
+        assertEquals(1, recent.getCalls());
+        assertEquals(0.0, recent.getErrorRate());
+        assertEquals(1, recent.getCount(CommunicationFailureType.LIMIT_EXCEEDED));
+    }
+    
+    @Test
+    void oldOutcomesLeaveTheWindowButStayInTotals() throws Exception {
+        FailureTelemetry telemetry = new FailureTelemetry(50, 4);
+        telemetry.recordFailure(CommunicationFailureType.TIMEOUT);
+        
+        Thread.sleep(120);
+        telemetry.recordSuccess();
+        
+        assertEquals(1, telemetry.snapshot(Duration.ofMillis(50)).getCalls());
+        assertEquals(0, telemetry.snapshot(Duration.ofMillis(50)).getFailures());
+        assertEquals(2, telemetry.snapshot(Duration.ofMillis(200)).getCalls());
+        
+        Thread.sleep(300);
+        assertEquals(0, telemetry.snapshot(Duration.ofMillis(200)).getCalls());
+        assertEquals(2, telemetry.totals().getCalls());
+        
+        // A recycled bucket starts from zero
+        telemetry.recordSuccess();
+        assertEquals(1, telemetry.snapshot(Duration.ofMillis(200)).getCalls());
+    }
+    
+    @Test
+    void snapshotCanIgnoreOutcomesBeforeAnEvent() throws Exception {
+        FailureTelemetry telemetry = new FailureTelemetry(50, 10);
+        telemetry.recordFailure(CommunicationFailureType.CONNECTION_ERROR);
+        long event = System.nanoTime();
+        
+        Thread.sleep(60);
+        telemetry.recordSuccess();
+        
+        assertEquals(2, telemetry.snapshot(Duration.ofMillis(500)).getCalls());
+        FailureTelemetry.Snapshot sinceEvent = telemetry.snapshot(Duration.ofMillis(500), event);
+        assertEquals(1, sinceEvent.getCalls());
+        assertEquals(0, sinceEvent.getFailures());
+    }
+    
+    @Test
+    void resetForgetsEverything() {
+        FailureTelemetry telemetry = new FailureTelemetry();
+        telemetry.recordFailure(CommunicationFailureType.API_ERROR);
+        
+        telemetry.reset();
+        
+        assertEquals(0, telemetry.snapshot(Duration.ofSeconds(60)).getCalls());
+        assertEquals(0, telemetry.totals().getCalls());
+    }
+    
+    @Test
+    void countsEveryConcurrentOutcome() throws Exception {
+        FailureTelemetry telemetry = new FailureTelemetry();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    if (i % 4 == 0) {
+                        telemetry.recordFailure(CommunicationFailureType.TIMEOUT);
+                    } else {
+                        telemetry.recordSuccess();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        FailureTelemetry.Snapshot recent = telemetry.snapshot(Duration.ofSeconds(60));
+        assertEquals(40_000, recent.getCalls());
+        assertEquals(10_000, recent.getFailures());
+    }
+}
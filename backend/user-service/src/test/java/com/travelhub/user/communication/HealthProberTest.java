@@ -0,0 +1,178 @@
+package com.travelhub.user.communication;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for background health probing against a stub health endpoint
+ */
+class HealthProberTest {
+    
+    private HttpServer stubService;
+    private volatile int status = 200;
+    private volatile long responseDelayMs;
+    private final AtomicInteger requests = new AtomicInteger();
+    
+    private ServiceCommunicationMonitor monitor;
+    private HealthProber prober;
+    private String healthUrl;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        stubService = HttpServer.create(new InetSocketAddress("localhost", 0), 10);
+        stubService.createContext("/health", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(responseDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        stubService.start();
+        healthUrl = "http://localhost:" + stubService.getAddress().getPort() + "/health";
+        
+        monitor = new ServiceCommunicationMonitor();
+        prober = new HealthProber(monitor);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        stubService.stop(0);
+    }
+    
+    private void tickUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached in 5s");
+            prober.probeDueTargets();
+            Thread.sleep(10);
+        }
+    }
+    
+    @Test
+    void probesFeedHealthAndTheCircuitBreaker() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("booking-service", 50.0, 20, 10, 60_000, 1,
+                monitor.getFailureTelemetry("booking-service"));
+        monitor.registerCircuitBreaker(breaker);
+        prober.register("booking-service", healthUrl, Duration.ofMillis(100), 0, 1000, 2);
+        
+        tickUntil(() -> requests.get() >= 1 && monitor.getServiceHealth("booking-service").getLastProbeTime() != null);
+        assertTrue(monitor.isServiceHealthy("booking-service"));
+        
+        // The service goes down with no real traffic: two failed probes open the breaker
+        status = 503;
+        tickUntil(() -> breaker.getState() == CircuitBreaker.State.OPEN);
+        assertFalse(monitor.isServiceHealthy("booking-service"));
+        ServiceCommunicationMonitor.ServiceHealth health = monitor.getServiceHealth("booking-service");
+        assertEquals(2, health.getConsecutiveProbeFailures());
+        assertEquals("HTTP 503", health.getLastProbeError());
+        assertEquals(0, health.getFailureTelemetry().totals().getCalls(), "probes are not real traffic");
+        
+        // It comes back: the next probe half-opens the breaker long before its 60s are up
+        status = 200;
+        tickUntil(() -> breaker.getState() == CircuitBreaker.State.HALF_OPEN);
+        assertTrue(monitor.isServiceHealthy("booking-service"));
+        assertEquals(1, breaker.getOpenTransitions());
+        
+        Map<String, Object> report = prober.getReport().get("booking-service");
+        assertEquals(true, report.get("healthy"));
+        assertTrue((Long) report.get("failedProbes") >= 2);
+    }
+    
+    @Test
+    void aSlowServiceHasOneProbeInFlight() throws Exception {
+        responseDelayMs = 500;
+        prober.register("booking-service", healthUrl, Duration.ofMillis(100), 0.5, 2000, 2);
+        
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(400);
+        while (System.nanoTime() < end) {
+            long start = System.nanoTime();
+            prober.probeDueTargets();
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(50), "the tick waited for a probe");
+            Thread.sleep(10);
+        }
+        
+        assertEquals(1, requests.get());
+        assertEquals(1L, prober.getReport().get("booking-service").get("probes"));
+    }
+    
+    @Test
+    void unreachableServiceTimesOutAsAFailedProbe() throws Exception {
+        stubService.stop(0);
+        prober.register("booking-service", healthUrl, Duration.ofMillis(100), 0, 500, 1);
+        
+        tickUntil(() -> monitor.getServiceHealth("booking-service") != null
+                && !monitor.getServiceHealth("booking-service").isProbeHealthy());
+        assertFalse(monitor.isServiceHealthy("booking-service"));
+        assertNotNull(monitor.getServiceHealth("booking-service").getLastProbeError());
+        
+        assertThrows(IllegalArgumentException.class,
+                () -> prober.register("booking-service", healthUrl, Duration.ofMillis(10), 0, 500, 1));
+    }
+    
+    @Test
+    void instanceProbesRollUpToTheService() throws Exception {
+        AtomicInteger otherStatus = new AtomicInteger(200);
+        HttpServer other = HttpServer.create(new InetSocketAddress("localhost", 0), 10);
+        other.createContext("/health", exchange -> {
+            exchange.sendResponseHeaders(otherStatus.get(), -1);
+            exchange.close();
+        });
+        other.start();
+        try {
+            List<String> urls = List.of("http://localhost:" + stubService.getAddress().getPort(),
+                    "http://localhost:" + other.getAddress().getPort());
+            LoadBalancer balancer = new LoadBalancer("booking-service", urls, Duration.ofSeconds(10), Duration.ZERO, 0.1,
+                    5, Duration.ofSeconds(30), Duration.ofMinutes(5), 50, instanceId -> true);
+            monitor.registerLoadBalancer(balancer);
+            CircuitBreaker breaker = new CircuitBreaker("booking-service", 50.0, 20, 10, 60_000, 1,
+                    monitor.getFailureTelemetry("booking-service"));
+            monitor.registerCircuitBreaker(breaker);
+            for (LoadBalancer.Instance instance : balancer.getInstances()) {
+                prober.register(instance.getId(), instance.getUrl() + "/health", Duration.ofMillis(100), 0, 1000, 2);
+            }
+            String firstId = balancer.getInstances().get(0).getId();
+            String secondId = balancer.getInstances().get(1).getId();
+            
+            tickUntil(() -> monitor.getServiceHealth("booking-service") != null
+                    && monitor.getServiceHealth(firstId) != null && monitor.getServiceHealth(secondId) != null);
+            assertTrue(monitor.isServiceHealthy("booking-service"));
+            
+            // One instance down: the service is still up and its breaker stays closed
+            status = 503;
+            tickUntil(() -> !monitor.getServiceHealth(firstId).isProbeHealthy());
+            assertTrue(monitor.getServiceHealth("booking-service").isProbeHealthy());
+            assertTrue(monitor.isServiceHealthy("booking-service"));
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+            
+            // Every instance down: the service is down and its breaker opens
+            otherStatus.set(503);
+            tickUntil(() -> breaker.getState() == CircuitBreaker.State.OPEN);
+            assertFalse(monitor.isServiceHealthy("booking-service"));
+            assertEquals("HTTP 503", monitor.getServiceHealth("booking-service").getLastProbeError());
+            
+            // One instance back: the breaker may test the service again
+            otherStatus.set(200);
+            tickUntil(() -> breaker.getState() == CircuitBreaker.State.HALF_OPEN);
+            assertTrue(monitor.isServiceHealthy("booking-service"));
+            assertEquals(1, breaker.getOpenTransitions());
+        } finally {
+            other.stop(0);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.travelhub.user.communication;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for request hedging
+ */
+class HedgedRequestPolicyTest {
+
+    @Test
+    void doesNotHedgeUntilEnoughSamples() {
+        HedgedRequestPolicy policy = new HedgedRequestPolicy("booking-service", "GET /bookings", 100.0, 10, 1);
+
+        for (int i = 0; i < 9; i++) {
+            policy.execute(() -> completed(20)).join();
+        }
+        assertEquals(-1, policy.getHedgeDelayMillis());
+
+        policy.execute(() -> completed(20)).join();
+        assertEquals(20, policy.getHedgeDelayMillis());
+        assertEquals(0, policy.getHedgedCalls());
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndCancelled() {
+        HedgedRequestPolicy policy = warmedUp(100.0);
+
+        List<CompletableFuture<CommunicationResult<String>>> calls = new ArrayList<>();
+        CommunicationResult<String> result = policy.execute(() -> {
+            // First call stalls, the hedge answers quickly
+            CompletableFuture<CommunicationResult<String>> call = calls.isEmpty()
+                    ? new CompletableFuture<>()
+                    : delayed(5);
+            calls.add(call);
+            return call;
+        }).join();
+
+        assertTrue(result.isSuccessful());
+        assertEquals(2, calls.size());
+        assertTrue(calls.get(0).isCancelled(), "Losing primary should be cancelled");
+        assertEquals(1, policy.getHedgedCalls());
+        assertEquals(1, policy.getHedgeWins());
+        assertEquals(100.0, policy.getWinRate(), 0.001);
+    }
+
+    @Test
+    void hedgesAreCappedByBudget() {
+        HedgedRequestPolicy policy = warmedUp(5.0);
+        long primariesBefore = policy.getPrimaryCalls();
+
+        List<CompletableFuture<CommunicationResult<String>>> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            results.add(policy.execute(() -> delayed(40)));
+        }
+        results.forEach(CompletableFuture::join);
+
+        long primaries = policy.getPrimaryCalls() - primariesBefore;
+        assertEquals(100, primaries);
+        // 5% of (warm-up + 100) primaries, at most
+        assertTrue(policy.getHedgedCalls() <= Math.ceil(policy.getPrimaryCalls() * 0.05),
+                "Hedges " + policy.getHedgedCalls() + " exceed the 5% budget");
+        assertTrue(policy.getBudgetExhausted() > 0);
+    }
+
+    @Test
+    void primaryFailureIsReturnedWithoutWaitingForHedge() {
+        HedgedRequestPolicy policy = warmedUp(100.0);
+
+        CommunicationResult<String> result = policy.execute(
+                () -> CompletableFuture.completedFuture(CommunicationResult.<String>timeout("Simulated timeout", null))).join();
+
+        assertTrue(result.isTimeout());
+        assertEquals(0, policy.getHedgedCalls());
+    }
+
+    private HedgedRequestPolicy warmedUp(double budgetPercent) {
+        HedgedRequestPolicy policy = new HedgedRequestPolicy("booking-service", "GET /bookings", budgetPercent, 10, 1);
+        for (int i = 0; i < 10; i++) {
+            policy.execute(() -> completed(10)).join();
+        }
+        assertEquals(10, policy.getHedgeDelayMillis());
+        return policy;
+    }
+
+    private static CompletableFuture<CommunicationResult<String>> completed(long millis) {
+        return CompletableFuture.completedFuture(CommunicationResult.success("ok", Duration.ofMillis(millis)));
+    }
+
+    private static CompletableFuture<CommunicationResult<String>> delayed(long millis) {
+        return CompletableFuture.supplyAsync(() -> CommunicationResult.success("ok", Duration.ofMillis(millis)),
+                CompletableFuture.delayedExecutor(millis, TimeUnit.MILLISECONDS));
+    }
+}
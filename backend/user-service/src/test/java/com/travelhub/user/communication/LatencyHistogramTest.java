@@ -0,0 +1,110 @@
+package com.travelhub.user.communication;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the windowed latency histogram
+ */
+class LatencyHistogramTest {
+    
+    @Test
+    void bucketsKeepValuesWithinPrecision() {
+        for (long micros = 0; micros < 200_000_000; micros = micros * 11 / 10 + 1) {
+            int index = LatencyHistogram.bucketIndex(micros);
+            long lowest = LatencyHistogram.lowestValueAt(index);
+            long highest = LatencyHistogram.highestValueAt(index);
+            if (micros <= highest) {
+                assertTrue(lowest <= micros, "bucket of " + micros + " starts at " + lowest);
+                assertTrue(highest - lowest <= Math.max(0, lowest / 64), "bucket of " + micros + " too wide");
+            } else {
+                assertEquals(LatencyHistogram.BUCKET_COUNT - 1, index, "values past the top bucket are clamped");
+            }
+        }
+    }
+    
+    @Test
+    void reportsPercentilesOfRecordedCalls() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(Duration.ofMillis(millis).toNanos());
+        }
+        
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot(Duration.ofMinutes(1));
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(500, snapshot.getValueAtPercentile(50), 500 * 0.02);
+        assertEquals(990, snapshot.getValueAtPercentile(99), 990 * 0.02);
+        assertEquals(1000, snapshot.getValueAtPercentile(99.9), 1000 * 0.02);
+        assertEquals(1000, snapshot.getMaxMillis(), 1000 * 0.02);
+        assertEquals(500.5, snapshot.getMeanMillis(), 500.5 * 0.02);
+    }
+    
+    @Test
+    void emptySnapshotReportsZero() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot(Duration.ofMinutes(5));
+        
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0.0, snapshot.getValueAtPercentile(99));
+        assertEquals(0.0, snapshot.getMaxMillis());
+        assertThrows(IllegalArgumentException.class, () -> snapshot.getValueAtPercentile(101));
+    }
+    
+    @Test
+    void oldSamplesLeaveTheWindow() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram(50, 4);
+        histogram.record(Duration.ofMillis(900).toNanos());
+        
+        Thread.sleep(120);
+        histogram.record(Duration.ofMillis(5).toNanos());
+        
+        // The slow call is at least two slices old: only the 200ms window still sees it
+        assertEquals(1, histogram.snapshot(Duration.ofMillis(50)).getCount());
+        assertEquals(5, histogram.snapshot(Duration.ofMillis(50)).getMaxMillis(), 0.1);
+        assertEquals(2, histogram.snapshot(Duration.ofMillis(200)).getCount());
+        
+        Thread.sleep(300);
+        assertEquals(0, histogram.snapshot(Duration.ofMillis(200)).getCount());
+        
+        // A recycled slice starts from zero
+        histogram.record(Duration.ofMillis(7).toNanos());
+        assertEquals(1, histogram.snapshot(Duration.ofMillis(200)).getCount());
+        assertEquals(7, histogram.snapshot(Duration.ofMillis(200)).getMaxMillis(), 0.2);
+    }
+    
+    @Test
+    void countsEveryConcurrentSample() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i * 1_000L);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        assertEquals(40_000, histogram.snapshot(Duration.ofMinutes(1)).getCount());
+    }
+    
+    @Test
+    void keysCallsByEndpointTemplate() {
+        assertEquals("booking-service GET /api/v1/bookings/user/{id}/bookings",
+                ServiceCommunicationMonitor.latencyKey("booking-service", "GET",
+                        "http://localhost:8082/api/v1/bookings/user/42/bookings?fresh=true"));
+        assertEquals("booking-service POST /api/v1/bookings/users:batchGet",
+                ServiceCommunicationMonitor.latencyKey("booking-service", "POST",
+                        "http://localhost:8082/api/v1/bookings/users:batchGet"));
+        assertEquals("booking-service GET /",
+                ServiceCommunicationMonitor.latencyKey("booking-service", "GET", "http://localhost:8082"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.travelhub.user.communication;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the cached latency keys
+ */
+class LatencyKeysTest {
+    
+    private static final String[] ENDPOINTS = {
+        "http://localhost:8082/api/v1/bookings/user/42/bookings?fresh=true",
+        "http://localhost:8083/api/v1/bookings/user/7/bookings",
+        "http://localhost:8082/api/v1/bookings/user/42",
+        "http://localhost:8082/api/v1/bookings/users:batchGet",
+        "http://localhost:8082/api/v1/bookings/user/abc/bookings",
+        "http://localhost:8082/api/v1/bookings/user/{id}/bookings",
+        "http://localhost:8082/api/v1/bookings/user//bookings",
+        "http://localhost:8082/",
+        "http://localhost:8082",
+        "/relative/12#fragment",
+        ""
+    };
+    
+    @Test
+    void cachedKeysAreTheBuiltKeys() {
+        LatencyKeys keys = new LatencyKeys();
+        for (int round = 0; round < 2; round++) {
+            for (String endpoint : ENDPOINTS) {
+                for (String method : new String[] {"GET", "POST"}) {
+                    assertEquals(LatencyKeys.build("booking-service", method, endpoint),
+                            keys.get("booking-service", method, endpoint), method + " " + endpoint);
+                }
+                assertEquals(LatencyKeys.build("user-service", "GET", endpoint),
+                        keys.get("user-service", "GET", endpoint), endpoint);
+            }
+        }
+    }
+    
+    @Test
+    void urlsOfOneTemplateShareTheCachedKey() {
+        LatencyKeys keys = new LatencyKeys();
+        String first = keys.get("booking-service", "GET", "http://localhost:8082/api/v1/bookings/user/1/bookings");
+        
+        for (int userId = 2; userId < 1000; userId++) {
+            assertSame(first, keys.get("booking-service", "GET",
+                    "http://localhost:8082/api/v1/bookings/user/" + userId + "/bookings"));
+        }
+        assertEquals(1, keys.size());
+    }
+    
+    @Test
+    void stopsCachingAtTheLimit() {
+        LatencyKeys keys = new LatencyKeys();
+        for (int i = 0; i < LatencyKeys.MAX_KEYS + 100; i++) {
+            String endpoint = "http://localhost:8082/api/v1/bookings/ref-" + i;
+            assertEquals(LatencyKeys.build("booking-service", "GET", endpoint), keys.get("booking-service", "GET", endpoint));
+        }
+        assertEquals(LatencyKeys.MAX_KEYS, keys.size());
+    }
+    
+    @Test
+    void lookupOfACachedTemplateDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threads.isThreadAllocatedMemorySupported(), "JVM does not report per-thread allocation");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        
+        LatencyKeys keys = new LatencyKeys();
+        String[] endpoints = new String[1000];
+        for (int i = 0; i < endpoints.length; i++) {
+            endpoints[i] = "http://localhost:8082/api/v1/bookings/user/" + i + "/bookings";
+        }
+        for (int i = 0; i < 200_000; i++) {
+            keys.get("booking-service", "GET", endpoints[i % endpoints.length]);
+        }
+        
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            keys.get("booking-service", "GET", endpoints[i % endpoints.length]);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertTrue(allocated < 100_000, allocated + " bytes allocated for 100000 lookups");
+    }
+}
@@ -0,0 +1,103 @@
+package com.travelhub.user.communication;
+
+import com.travelhub.user.communication.CommunicationResult.CommunicationFailureType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for recording and reading latency traces
+ */
+class LatencyTraceTest {
+    
+    private static final long MILLI = 1_000_000;
+    
+    @Test
+    void recordsCallsInStartOrder() {
+        LatencyTrace.Recorder recorder = new LatencyTrace.Recorder(100);
+        long start = System.nanoTime();
+        // The slow call started first but finished last
+        recorder.record("booking-service GET /api/v1/bookings/user/{id}/bookings", start + 20 * MILLI, 5 * MILLI,
+                CommunicationResult.success("ok", Duration.ofMillis(5)));
+        recorder.record("booking-service GET /api/v1/bookings/user/{id}/bookings", start + 10 * MILLI, 900 * MILLI,
+                CommunicationResult.timeout("slow", Duration.ofMillis(900)));
+        
+        LatencyTrace trace = recorder.toTrace();
+        assertEquals(2, trace.size());
+        assertTrue(trace.getOffsetMicros(0) < trace.getOffsetMicros(1));
+        assertEquals(900_000, trace.getLatencyMicros(0));
+        assertEquals(CommunicationFailureType.TIMEOUT, trace.getFailureType(0));
+        assertNull(trace.getFailureType(1));
+    }
+    
+    @Test
+    void survivesTheBinaryFormat() throws IOException {
+        LatencyTrace.Recorder recorder = new LatencyTrace.Recorder(10_000);
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            String endpoint = i % 3 == 0 ? "payment-service POST /api/v1/payments" : "booking-service GET /api/v1/bookings";
+            CommunicationResult<String> result = i % 10 == 0
+                    ? CommunicationResult.connectionError("refused", Duration.ZERO)
+                    : CommunicationResult.success("ok", Duration.ofMillis(i));
+            recorder.record(endpoint, start + i * MILLI, i * 1000L + 17, result);
+        }
+        LatencyTrace trace = recorder.toTrace();
+        
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        trace.writeTo(file);
+        LatencyTrace read = LatencyTrace.readFrom(new ByteArrayInputStream(file.toByteArray()));
+        
+        assertTrue(file.size() < 1000 * 8, "trace takes " + file.size() + " bytes");
+        assertEquals(trace.getStartedAt().toEpochMilli(), read.getStartedAt().toEpochMilli());
+        assertEquals(trace.size(), read.size());
+        for (int i = 0; i < trace.size(); i++) {
+            assertEquals(trace.getOffsetMicros(i), read.getOffsetMicros(i));
+            assertEquals(trace.getEndpoint(i), read.getEndpoint(i));
+            assertEquals(trace.getLatencyMicros(i), read.getLatencyMicros(i));
+            assertEquals(trace.getFailureType(i), read.getFailureType(i));
+        }
+    }
+    
+    @Test
+    void rejectsFilesThatAreNotTraces() {
+        assertThrows(IOException.class, () -> LatencyTrace.readFrom(new ByteArrayInputStream("{\"calls\": []}".getBytes())));
+        
+        byte[] hugeCount = {0x54, 0x48, 0x4c, 0x54, 1, 0, 0, 0, 0, 0, 0, 0, 0, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x7f};
+        assertThrows(IOException.class, () -> LatencyTrace.readFrom(new ByteArrayInputStream(hugeCount)));
+    }
+    
+    @Test
+    void keepsAtMostMaxCalls() {
+        LatencyTrace.Recorder recorder = new LatencyTrace.Recorder(3);
+        for (int i = 0; i < 5; i++) {
+            recorder.record("booking-service GET /", System.nanoTime(), MILLI, CommunicationResult.success("ok", null));
+        }
+        
+        assertEquals(3, recorder.toTrace().size());
+        assertEquals(2, recorder.getDropped());
+    }
+    
+    @Test
+    void selectsOneServiceAndFindsCallsByTime() {
+        LatencyTrace.Recorder recorder = new LatencyTrace.Recorder(100);
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            String service = i % 2 == 0 ? "booking-service" : "payment-service";
+            recorder.record(service + " GET /", start + i * 100 * MILLI, MILLI, CommunicationResult.success("ok", null));
+        }
+        
+        LatencyTrace booking = recorder.toTrace().forService("booking-service");
+        assertEquals(5, booking.size());
+        long second = booking.getOffsetMicros(1);
+        assertEquals(1, booking.indexAt(second));
+        assertEquals(1, booking.indexAt(second + 1));
+        assertEquals(0, booking.indexAt(second - 1));
+        assertEquals(-1, booking.indexAt(booking.getOffsetMicros(0) - 1));
+        assertEquals(0, recorder.toTrace().forService("booking").size());
+    }
+}
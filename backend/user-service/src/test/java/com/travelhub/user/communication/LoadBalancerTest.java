@@ -0,0 +1,134 @@
+package com.travelhub.user.communication;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for power-of-two-choices balancing, ejection and slow start
+ */
+class LoadBalancerTest {
+
+    private static final List<String> URLS = List.of("http://booking-1:8082", "http://booking-2:8082", "http://booking-3:8082");
+
+    private final Set<String> downInstances = ConcurrentHashMap.newKeySet();
+
+    private LoadBalancer balancer(Duration slowStart, int consecutiveFailures, Duration ejection, int maxEjectionPercent) {
+        return new LoadBalancer("booking-service", URLS, Duration.ofSeconds(10), slowStart, 0.1,
+                consecutiveFailures, ejection, ejection.multipliedBy(10), maxEjectionPercent,
+                id -> !downInstances.contains(id));
+    }
+
+    private static Map<String, Integer> spread(LoadBalancer balancer, int calls, Map<String, Duration> latencies) {
+        Map<String, Integer> picks = new HashMap<>();
+        for (int i = 0; i < calls; i++) {
+            LoadBalancer.Instance instance = balancer.choose();
+            picks.merge(instance.getUrl(), 1, Integer::sum);
+            balancer.onComplete(instance, CommunicationResult.success("ok",
+                    latencies.getOrDefault(instance.getUrl(), Duration.ofMillis(10))));
+        }
+        return picks;
+    }
+
+    /**
+     * Complete a call on {@code target}; calls only come back from instances the balancer handed out
+     */
+    private static void complete(LoadBalancer balancer, LoadBalancer.Instance target, CommunicationResult<?> result) {
+        while (true) {
+            LoadBalancer.Instance instance = balancer.choose();
+            if (instance == target) {
+                balancer.onComplete(instance, result);
+                return;
+            }
+            balancer.onComplete(instance, null);
+        }
+    }
+
+    @Test
+    void slowInstanceGetsLessTraffic() {
+        LoadBalancer balancer = balancer(Duration.ZERO, 5, Duration.ofSeconds(30), 50);
+        Map<String, Duration> latencies = Map.of("http://booking-1:8082", Duration.ofMillis(200));
+
+        Map<String, Integer> picks = spread(balancer, 3_000, latencies);
+
+        // Every pick compares two different instances, so the slow one only wins against a fast
+        // one that looks worse, which at 20x the latency is rare
+        assertTrue(picks.getOrDefault("http://booking-1:8082", 0) < 300, "slow instance picked " + picks);
+        assertEquals(3_000, balancer.getPicks());
+    }
+
+    @Test
+    void outstandingCallsSpreadLoadBetweenEqualInstances() {
+        LoadBalancer balancer = balancer(Duration.ZERO, 5, Duration.ofSeconds(30), 50);
+
+        // Calls that have not completed yet count against their instance
+        Map<String, Integer> picks = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            picks.merge(balancer.choose().getUrl(), 1, Integer::sum);
+        }
+
+        picks.values().forEach(count -> assertTrue(count >= 80 && count <= 120, "uneven spread " + picks));
+    }
+
+    @Test
+    void failingInstanceIsEjectedAndRampsUpAfterwards() throws Exception {
+        LoadBalancer balancer = balancer(Duration.ofMillis(500), 3, Duration.ofMillis(200), 50);
+        LoadBalancer.Instance failing = balancer.getInstances().get(0);
+
+        for (int i = 0; i < 3; i++) {
+            complete(balancer, failing, CommunicationResult.connectionError("Connection refused", Duration.ZERO));
+        }
+        Map<String, Object> report = balancer.getInstanceReport().get(failing.getId());
+        assertEquals(true, report.get("ejected"));
+        assertEquals(1, report.get("ejections"));
+        assertFalse(spread(balancer, 200, Map.of()).containsKey(failing.getUrl()), "ejected instance was picked");
+
+        // Back after the ejection: it starts at the minimum weight and ramps up
+        Thread.sleep(250);
+        Map<String, Integer> rejoining = spread(balancer, 300, Map.of());
+        Thread.sleep(500);
+        Map<String, Integer> warm = spread(balancer, 300, Map.of());
+        assertTrue(rejoining.getOrDefault(failing.getUrl(), 0) < warm.getOrDefault(failing.getUrl(), 0),
+                "no slow start: " + rejoining + " then " + warm);
+        assertEquals(1.0, (Double) balancer.getInstanceReport().get(failing.getId()).get("weight"), 0.001);
+    }
+
+    @Test
+    void ejectionIsCappedAndProbeFailuresSkipAnInstance() {
+        LoadBalancer balancer = balancer(Duration.ZERO, 1, Duration.ofSeconds(30), 34);
+        List<LoadBalancer.Instance> instances = balancer.getInstances();
+
+        // Only one of three instances may be out at a time
+        for (LoadBalancer.Instance instance : instances) {
+            complete(balancer, instance, CommunicationResult.failure("HTTP 503", Duration.ZERO));
+        }
+        long ejected = balancer.getInstanceReport().values().stream().filter(entry -> (Boolean) entry.get("ejected")).count();
+        assertEquals(1, ejected);
+
+        // Failed health probes take the other two out; with nothing left the balancer uses all of them
+        downInstances.add(instances.get(1).getId());
+        downInstances.add(instances.get(2).getId());
+        balancer.onComplete(balancer.choose(), null);
+        assertEquals(1, balancer.getPanicPicks());
+
+        downInstances.clear();
+        Map<String, Integer> picks = spread(balancer, 100, Map.of());
+        assertEquals(2, picks.size(), "only the ejected instance stays out: " + picks);
+        assertFalse(picks.containsKey(instances.get(0).getUrl()));
+    }
+
+    @Test
+    void singleInstanceIsProbedUnderTheServiceName() {
+        assertEquals("booking-service", LoadBalancer.instanceId("booking-service", "http://localhost:8082", 1));
+        String id = LoadBalancer.instanceId("booking-service", "http://booking-2:8082", 3);
+        assertEquals("booking-service@booking-2:8082", id);
+        assertEquals("booking-service", LoadBalancer.serviceOf(id));
+    }
+}
@@ -0,0 +1,125 @@
+package com.travelhub.user.communication;
+
+import com.travelhub.user.communication.CommunicationResult.CommunicationFailureType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the in-process load generator
+ */
+class LoadGeneratorTest {
+    
+    private static CompletableFuture<CommunicationResult<String>> respondAfter(long millis) {
+        return CompletableFuture.supplyAsync(() -> CommunicationResult.success("ok", Duration.ofMillis(millis)),
+                CompletableFuture.delayedExecutor(millis, TimeUnit.MILLISECONDS));
+    }
+    
+    @Test
+    void closedLoopKeepsConcurrencyCallsInFlight() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        LoadGenerator generator = new LoadGenerator(4, 0, Duration.ZERO, Duration.ofSeconds(10), 40,
+                Duration.ofSeconds(5));
+        
+        LoadGenerator.Report report = generator.run(n -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return respondAfter(10).whenComplete((result, ex) -> inFlight.decrementAndGet());
+        });
+        
+        assertEquals(40, report.getIssued());
+        assertEquals(40, report.getCompleted());
+        assertEquals(0, report.getUnfinished());
+        assertEquals(4, maxInFlight.get());
+        assertEquals(40, report.getLatency().getCount());
+        assertTrue(report.getLatency().getValueAtPercentile(50) >= 10);
+        assertTrue(report.getThroughput() > 0);
+    }
+    
+    @Test
+    void openLoopCountsTimeSpentWaitingForAStalledService() throws Exception {
+        // One call at a time, each taking 50ms, but one is due every 10ms: the schedule falls
+        // further behind with every call, and the reported latency has to show it
+        LoadGenerator generator = new LoadGenerator(1, 100, Duration.ZERO, Duration.ofMillis(300), 0,
+                Duration.ofSeconds(10));
+        
+        LoadGenerator.Report report = generator.run(n -> respondAfter(50));
+        
+        assertEquals(30, report.getIssued());
+        assertEquals(30, report.getCompleted());
+        assertTrue(report.getLatency().getValueAtPercentile(99) > 1000,
+                "p99 " + report.getLatency().getValueAtPercentile(99));
+        assertTrue(report.getMaxScheduleLag().toMillis() > 1000);
+        assertTrue(report.getThroughput() < 25, "throughput " + report.getThroughput());
+    }
+    
+    @Test
+    void openLoopKeepsToTheTargetRate() throws Exception {
+        LoadGenerator generator = new LoadGenerator(50, 200, Duration.ZERO, Duration.ofMillis(500), 0,
+                Duration.ofSeconds(5));
+        
+        LoadGenerator.Report report = generator.run(n -> respondAfter(5));
+        
+        assertEquals(100, report.getIssued());
+        assertEquals(100, report.getCompleted());
+        assertTrue(report.getLatency().getValueAtPercentile(50) < 200,
+                "p50 " + report.getLatency().getValueAtPercentile(50));
+    }
+    
+    @Test
+    void warmupCallsAreNotReported() throws Exception {
+        LoadGenerator generator = new LoadGenerator(2, 100, Duration.ofMillis(200), Duration.ofMillis(200), 0,
+                Duration.ofSeconds(5));
+        
+        LoadGenerator.Report report = generator.run(n -> respondAfter(1));
+        
+        assertEquals(20, report.getWarmupCalls());
+        assertEquals(20, report.getIssued());
+        assertEquals(20, report.getOutcomes().getCalls());
+    }
+    
+    @Test
+    void breaksDownFailuresByType() throws Exception {
+        LoadGenerator generator = new LoadGenerator(1, 0, Duration.ZERO, Duration.ofSeconds(10), 8,
+                Duration.ofSeconds(5));
+        
+        LoadGenerator.Report report = generator.run(n -> {
+            if (n % 4 == 0) {
+                return CompletableFuture.completedFuture(CommunicationResult.timeout("slow", Duration.ofMillis(2000)));
+            }
+            if (n % 4 == 1) {
+                throw new IllegalStateException("client bug");
+            }
+            return CompletableFuture.completedFuture(CommunicationResult.success("ok", Duration.ofMillis(1)));
+        });
+        
+        assertEquals(8, report.getCompleted());
+        assertEquals(4, report.getOutcomes().getSuccesses());
+        assertEquals(2, report.getOutcomes().getCount(CommunicationFailureType.TIMEOUT));
+        assertEquals(2, report.getOutcomes().getCount(CommunicationFailureType.UNKNOWN));
+        assertEquals(50.0, report.getOutcomes().getErrorRate(), 0.001);
+        assertEquals(4, report.getLatency().getCount());
+        assertEquals("closed-loop", report.toMap(50, 99).get("mode"));
+    }
+    
+    @Test
+    void localRejectionsCountAsErrors() throws Exception {
+        LoadGenerator generator = new LoadGenerator(1, 0, Duration.ZERO, Duration.ofSeconds(10), 10,
+                Duration.ofSeconds(5));
+        
+        LoadGenerator.Report report = generator.run(n -> CompletableFuture.completedFuture(n % 2 == 0
+                ? CommunicationResult.circuitOpen("open")
+                : CommunicationResult.limitExceeded("full")));
+        
+        assertEquals(10, report.getFailed());
+        assertEquals(100.0, report.getErrorRate(), 0.001);
+        assertEquals(0.0, report.getOutcomes().getErrorRate(), 0.001);
+        assertEquals(100.0, report.toMap(50).get("errorRate"));
+        assertEquals(0.0, report.toMap(50).get("serviceErrorRate"));
+    }
+}
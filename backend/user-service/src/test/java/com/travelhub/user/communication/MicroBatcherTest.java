@@ -0,0 +1,96 @@
+package com.travelhub.user.communication;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for automatic micro-batching
+ */
+class MicroBatcherTest {
+
+    private final List<List<Long>> sentBatches = new CopyOnWriteArrayList<>();
+
+    @Test
+    void lookupsWithinDelayShareOneBatch() {
+        MicroBatcher<Long, String> batcher = new MicroBatcher<>("bookings", 50, 20, this::echo);
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            results.add(batcher.submit(id));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals("bookings-" + (i + 1), results.get(i).join());
+        }
+        assertEquals(1, sentBatches.size());
+        assertEquals(10, sentBatches.get(0).size());
+        assertEquals(9, batcher.getRoundTripsSaved());
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaiting() {
+        MicroBatcher<Long, String> batcher = new MicroBatcher<>("bookings", 3, 60_000, this::echo);
+
+        CompletableFuture<String> first = batcher.submit(1L);
+        batcher.submit(2L);
+        batcher.submit(3L);
+
+        assertTrue(first.isDone(), "Batch should be sent as soon as it is full");
+        assertEquals(List.of(1L, 2L, 3L), sentBatches.get(0));
+        assertEquals(1, batcher.getSizeTriggeredFlushes());
+    }
+
+    @Test
+    void duplicateKeysAreSentOnce() {
+        MicroBatcher<Long, String> batcher = new MicroBatcher<>("bookings", 50, 20, this::echo);
+
+        CompletableFuture<String> a = batcher.submit(7L);
+        CompletableFuture<String> b = batcher.submit(7L);
+
+        assertEquals("bookings-7", a.join());
+        assertEquals("bookings-7", b.join());
+        assertEquals(List.of(7L), sentBatches.get(0));
+    }
+
+    @Test
+    void batchFailureReachesEveryCaller() {
+        MicroBatcher<Long, String> batcher = new MicroBatcher<>("bookings", 2, 60_000,
+                keys -> CompletableFuture.failedFuture(new IllegalStateException("booking-service down")));
+
+        CompletableFuture<String> a = batcher.submit(1L);
+        CompletableFuture<String> b = batcher.submit(2L);
+
+        assertThrows(CompletionException.class, a::join);
+        assertThrows(CompletionException.class, b::join);
+    }
+
+    @Test
+    void cancellingOneCallerDoesNotCancelTheBatch() {
+        CompletableFuture<Map<Long, String>> response = new CompletableFuture<>();
+        MicroBatcher<Long, String> batcher = new MicroBatcher<>("bookings", 2, 60_000, keys -> response);
+
+        CompletableFuture<String> cancelled = batcher.submit(1L);
+        CompletableFuture<String> kept = batcher.submit(2L);
+        cancelled.cancel(true);
+        response.complete(Map.of(1L, "bookings-1", 2L, "bookings-2"));
+
+        assertFalse(response.isCancelled());
+        assertEquals("bookings-2", kept.join());
+    }
+
+    private CompletableFuture<Map<Long, String>> echo(List<Long> keys) {
+        sentBatches.add(keys);
+        Map<Long, String> values = new HashMap<>();
+        keys.forEach(key -> values.put(key, "bookings-" + key));
+        return CompletableFuture.completedFuture(values);
+    }
+}
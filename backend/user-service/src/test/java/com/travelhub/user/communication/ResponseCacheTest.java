@@ -0,0 +1,80 @@
+package com.travelhub.user.communication;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the response cache
+ */
+class ResponseCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void successfulResultIsServedFromCache() {
+        ResponseCache<Long, String> cache = new ResponseCache<>("bookings", 100, Duration.ofMinutes(1));
+
+        assertEquals("bookings-1", cache.get(1L, () -> load("bookings-1")).join().getData());
+        assertEquals("bookings-1", cache.get(1L, () -> load("other")).join().getData());
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(1, cache.getStats().missCount());
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        ResponseCache<Long, String> cache = new ResponseCache<>("bookings", 100, Duration.ofMinutes(1));
+
+        cache.get(1L, () -> CompletableFuture.completedFuture(CommunicationResult.timeout("Simulated timeout", null))).join();
+        cache.get(1L, () -> load("bookings-1")).join();
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        ResponseCache<Long, String> cache = new ResponseCache<>("bookings", 100, Duration.ofMinutes(1));
+        cache.get(1L, () -> load("before")).join();
+
+        cache.invalidate(1L);
+
+        assertEquals("after", cache.get(1L, () -> load("after")).join().getData());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadOverlappingInvalidationIsNotCached() {
+        ResponseCache<Long, String> cache = new ResponseCache<>("bookings", 100, Duration.ofMinutes(1));
+        CompletableFuture<CommunicationResult<String>> slowRead = new CompletableFuture<>();
+
+        CompletableFuture<CommunicationResult<String>> read = cache.get(1L, () -> slowRead);
+        cache.invalidate(1L); // a booking was created while the read was in flight
+        slowRead.complete(CommunicationResult.success("stale", Duration.ofMillis(5)));
+
+        assertEquals("stale", read.join().getData());
+        assertEquals("fresh", cache.get(1L, () -> load("fresh")).join().getData());
+    }
+
+    @Test
+    void entriesExpireAfterTtl() throws InterruptedException {
+        ResponseCache<Long, String> cache = new ResponseCache<>("bookings", 100, Duration.ofMillis(50));
+        cache.get(1L, () -> load("bookings-1")).join();
+
+        Thread.sleep(100);
+
+        cache.get(1L, () -> load("bookings-1")).join();
+        assertEquals(2, loads.get());
+    }
+
+    private CompletableFuture<CommunicationResult<String>> load(String value) {
+        loads.incrementAndGet();
+        return CompletableFuture.completedFuture(CommunicationResult.success(value, Duration.ofMillis(5)));
+    }
+}
@@ -0,0 +1,115 @@
+package com.travelhub.user.communication;
+
+import com.travelhub.booking.api.Deadline;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for retries, backoff and the retry budget
+ */
+class RetryPolicyTest {
+
+    @Test
+    void timeoutsAndConnectionErrorsAreRetried() {
+        RetryPolicy policy = new RetryPolicy("booking-service", 3, 1, 5, 10.0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        CommunicationResult<String> result = policy.execute(RetryPolicy.Idempotency.IDEMPOTENT, () -> {
+            int attempt = attempts.incrementAndGet();
+            if (attempt == 1) {
+                return completed(CommunicationResult.timeout("Simulated timeout", null));
+            }
+            if (attempt == 2) {
+                return completed(CommunicationResult.connectionError("Simulated connection failure", null));
+            }
+            return completed(CommunicationResult.success("ok", Duration.ofMillis(5)));
+        }).join();
+
+        assertTrue(result.isSuccessful());
+        assertEquals(3, attempts.get());
+        assertEquals(2, policy.getRetries());
+        assertEquals(1, policy.getRetrySuccesses());
+    }
+
+    @Test
+    void dataValidationAndApiErrorsAreNotRetried() {
+        RetryPolicy policy = new RetryPolicy("booking-service", 3, 1, 5, 10.0);
+
+        assertEquals(1, attemptsUntilDone(policy, RetryPolicy.Idempotency.IDEMPOTENT,
+                () -> CommunicationResult.dataValidationError("bad payload", Duration.ofMillis(5))));
+        assertEquals(1, attemptsUntilDone(policy, RetryPolicy.Idempotency.IDEMPOTENT,
+                () -> CommunicationResult.failure("HTTP 500", Duration.ofMillis(5))));
+        assertEquals(1, attemptsUntilDone(policy, RetryPolicy.Idempotency.IDEMPOTENT,
+                () -> CommunicationResult.circuitOpen("open")));
+        assertEquals(0, policy.getRetries());
+    }
+
+    @Test
+    void nonIdempotentCallsAreNeverRetried() {
+        RetryPolicy policy = new RetryPolicy("booking-service", 3, 1, 5, 10.0);
+
+        assertEquals(1, attemptsUntilDone(policy, RetryPolicy.Idempotency.NON_IDEMPOTENT,
+                () -> CommunicationResult.timeout("Simulated timeout", null)));
+    }
+
+    @Test
+    void attemptsAreCapped() {
+        RetryPolicy policy = new RetryPolicy("booking-service", 3, 1, 5, 100.0);
+
+        assertEquals(3, attemptsUntilDone(policy, RetryPolicy.Idempotency.IDEMPOTENT,
+                () -> CommunicationResult.timeout("Simulated timeout", null)));
+    }
+
+    @Test
+    void retriesStopWhenBudgetIsSpent() {
+        RetryPolicy policy = new RetryPolicy("booking-service", 2, 1, 5, 10.0);
+
+        // A persistent outage: every call times out
+        for (int i = 0; i < 100; i++) {
+            attemptsUntilDone(policy, RetryPolicy.Idempotency.IDEMPOTENT,
+                    () -> CommunicationResult.timeout("Simulated timeout", null));
+        }
+
+        // 10 reserve tokens plus 10% of 100 calls
+        assertTrue(policy.getRetries() <= 20, "Retries " + policy.getRetries() + " exceed the budget");
+        assertTrue(policy.getBudgetExhausted() > 0);
+    }
+
+    @Test
+    void noRetryStartsPastTheDeadline() {
+        // Backoff of at least 50ms, with 20ms left
+        RetryPolicy policy = new RetryPolicy("booking-service", 3, 50, 100, 100.0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        CommunicationResult<String> result = policy.execute(RetryPolicy.Idempotency.IDEMPOTENT,
+                Deadline.after(Duration.ofMillis(20)), () -> {
+                    attempts.incrementAndGet();
+                    return completed(CommunicationResult.timeout("Simulated timeout", null));
+                }).join();
+
+        assertTrue(result.isTimeout());
+        assertEquals(1, attempts.get());
+        assertEquals(0, policy.getRetries());
+        assertEquals(0, policy.getBudgetExhausted(), "no token was spent on it");
+    }
+
+    private static int attemptsUntilDone(RetryPolicy policy, RetryPolicy.Idempotency idempotency,
+                                         Supplier<CommunicationResult<String>> outcome) {
+        AtomicInteger attempts = new AtomicInteger();
+        policy.execute(idempotency, () -> {
+            attempts.incrementAndGet();
+            return completed(outcome.get());
+        }).join();
+        return attempts.get();
+    }
+
+    private static CompletableFuture<CommunicationResult<String>> completed(CommunicationResult<String> result) {
+        return CompletableFuture.completedFuture(result);
+    }
+}
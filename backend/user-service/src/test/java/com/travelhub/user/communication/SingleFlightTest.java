@@ -0,0 +1,103 @@
+package com.travelhub.user.communication;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for single-flight request coalescing
+ */
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneCall() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>("test");
+        AtomicInteger underlyingCalls = new AtomicInteger();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        List<CompletableFuture<String>> callers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            callers.add(singleFlight.execute(42L, () -> {
+                underlyingCalls.incrementAndGet();
+                return pending;
+            }));
+        }
+        pending.complete("bookings");
+
+        assertEquals(1, underlyingCalls.get());
+        callers.forEach(caller -> assertEquals("bookings", caller.join()));
+        assertEquals(9, singleFlight.getCoalescedCalls());
+        assertEquals(90.0, singleFlight.getCoalescingRatio(), 0.001);
+        assertEquals(0, singleFlight.getInFlightKeys());
+    }
+
+    @Test
+    void differentKeysAreNotCoalesced() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>("test");
+        AtomicInteger underlyingCalls = new AtomicInteger();
+
+        singleFlight.execute(1L, () -> {
+            underlyingCalls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        singleFlight.execute(2L, () -> {
+            underlyingCalls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        assertEquals(2, underlyingCalls.get());
+        assertEquals(0, singleFlight.getCoalescedCalls());
+    }
+
+    @Test
+    void failureIsSharedAndKeyReleased() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>("test");
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.execute(7L, () -> pending);
+        CompletableFuture<String> second = singleFlight.execute(7L, () -> fail("should coalesce"));
+        pending.completeExceptionally(new IllegalStateException("booking-service down"));
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+
+        // The next call after completion starts a fresh request
+        CompletableFuture<String> retry = singleFlight.execute(7L, () -> CompletableFuture.completedFuture("ok"));
+        assertEquals("ok", retry.join());
+    }
+
+    @Test
+    void cancellingOneCallerDoesNotAffectOthers() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>("test");
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.execute(3L, () -> pending);
+        CompletableFuture<String> second = singleFlight.execute(3L, () -> pending);
+        first.cancel(true);
+        pending.complete("bookings");
+
+        assertFalse(pending.isCancelled());
+        assertEquals("bookings", second.join());
+    }
+
+    @Test
+    void sharedCallIsCancelledOnceEveryCallerLeaves() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>("test");
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.execute(4L, () -> pending);
+        CompletableFuture<String> second = singleFlight.execute(4L, () -> pending);
+        first.cancel(true);
+        assertFalse(pending.isCancelled());
+        second.cancel(true);
+
+        assertTrue(pending.isCancelled());
+        assertEquals(0, singleFlight.getInFlightKeys());
+        assertEquals("fresh", singleFlight.execute(4L, () -> CompletableFuture.completedFuture("fresh")).join());
+    }
+}